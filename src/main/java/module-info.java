@@ -19,6 +19,10 @@ module org.example.thesisuj {
 	exports org.uj.routingemulator.common.topology;
 	exports org.uj.routingemulator.common.forwarding;
 	exports org.uj.routingemulator.common.ping;
+	exports org.uj.routingemulator.common.simulation;
+	exports org.uj.routingemulator.common.traffic;
+	exports org.uj.routingemulator.common.results;
+	exports org.uj.routingemulator.common.metrics;
 	exports org.uj.routingemulator.router.model;
 	exports org.uj.routingemulator.router.session;
 	exports org.uj.routingemulator.gui.dialogs;
@@ -45,6 +45,26 @@ public record IPAddress(int octet1, int octet2, int octet3, int octet4) {
 		}
 	}
 
+	/**
+	 * Packs the address into a 32-bit integer (first octet in the most significant byte).
+	 * Compare packed values with {@link Integer#compareUnsigned} to get numeric address order.
+	 *
+	 * @return packed address
+	 */
+	public int toInt() {
+		return (octet1 << 24) | (octet2 << 16) | (octet3 << 8) | octet4;
+	}
+
+	/**
+	 * Unpacks an address produced by {@link #toInt()}.
+	 *
+	 * @param packed packed address
+	 * @return IPAddress with the same octets
+	 */
+	public static IPAddress fromInt(int packed) {
+		return new IPAddress((packed >>> 24) & 0xFF, (packed >>> 16) & 0xFF, (packed >>> 8) & 0xFF, packed & 0xFF);
+	}
+
 	@Override
 	public String toString() {
 		return octet1 + "." + octet2 + "." + octet3 + "." + octet4;
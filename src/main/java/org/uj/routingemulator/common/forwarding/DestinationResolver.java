@@ -2,6 +2,7 @@ package org.uj.routingemulator.common.forwarding;
 
 import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.HostInterface;
@@ -13,16 +14,36 @@ import java.util.logging.Logger;
 public class DestinationResolver {
 	private static final Logger logger = Logger.getLogger(DestinationResolver.class.getName());
 	private final ReturnPathVerifier returnPathVerifier;
+	private final InterfaceCounters counters;
 
 	public DestinationResolver(ReturnPathVerifier returnPathVerifier) {
+		this(returnPathVerifier, InterfaceCounters.global());
+	}
+
+	/**
+	 * @param counters interface counters to update, or null to forward without counting
+	 */
+	public DestinationResolver(ReturnPathVerifier returnPathVerifier, InterfaceCounters counters) {
 		this.returnPathVerifier = returnPathVerifier;
+		this.counters = counters;
 	}
 
+	/**
+	 * Delivers a packet on a directly connected subnet.
+	 * <p>
+	 * When counters and a packet are given outside return verification, the interfaces the
+	 * packet crosses and the interface it is dropped on are counted. The packet counts as
+	 * delivered before the return route is verified.
+	 *
+	 * @param packet the packet being forwarded, or null if it is not counted
+	 */
 	public ForwardingOutcome resolveDirectSubnet(Router currentRouter, RouterInterface dstIf, Packet packet,
 	                                             TopologyQuery topologyQuery, int hopsBeforeThisHop,
 	                                             ForwardingContext ctx) {
+		Packet counted = counters == null || ctx.isReturnVerification() ? null : packet;
 		if (dstIf.isDisabled()) {
 			logger.fine("Forwarding failure: exit interface %s on router %s is administratively down".formatted(dstIf.getInterfaceName(), currentRouter.getName()));
+			if (counted != null) counters.droppedOnTransmit(dstIf);
 			return new ForwardingOutcome(false, hopsBeforeThisHop + (ctx.isReturnVerification() ? 0 : 1), ForwardingReason.INTERFACE_ADMIN_DOWN);
 		}
 
@@ -34,16 +55,25 @@ public class DestinationResolver {
 
 		NetworkInterface foundHost = topologyQuery.findHostInterfaceByIpConnectedToInterface(dstIf, ctx.destination());
 		if (foundHost instanceof HostInterface hi) {
+			if (counted != null) {
+				counters.transmitted(dstIf, counted.getLength());
+				counters.received(hi, counted.getLength());
+			}
 			return resolveHostOnSubnetReached(currentRouter, dstIf, hi, topologyQuery, hops, ctx);
 		}
 
 		RouterInterface neighborRouterIf = topologyQuery.findInterfaceByIp(ctx.destination());
 		if (neighborRouterIf != null && topologyQuery.isDirectlyConnectedNeighbor(dstIf, neighborRouterIf)) {
+			if (counted != null) {
+				counters.transmitted(dstIf, counted.getLength());
+				counters.received(neighborRouterIf, counted.getLength());
+			}
 			return resolveNeighborInterfaceReached(neighborRouterIf, topologyQuery, hops, ctx);
 		}
 
 		logger.fine("Forwarding failure: no host with IP %s found on subnet connected to router %s interface %s"
 				.formatted(ctx.destination(), currentRouter.getName(), dstIf.getInterfaceName()));
+		if (counted != null) counters.droppedOnTransmit(dstIf);
 		return new ForwardingOutcome(false, hops, ForwardingReason.HOST_NOT_FOUND_ON_SUBNET);
 	}
 
@@ -87,7 +117,8 @@ public class DestinationResolver {
 
 		Router dstRouter = topologyQuery.findRouterOwningInterface(dstIf);
 		if (dstRouter != null) {
-			if (returnPathVerifier.verifyReturnRouteFromRouter(dstRouter, dstIf, ctx.source(), topologyQuery)) {
+			ForwardingOutcome reached = new ForwardingOutcome(true, hops, ForwardingReason.ROUTER_INTERFACE_REACHED);
+			if (returnRouteMissing(dstRouter, dstIf, ctx, topologyQuery, reached)) {
 				logger.fine("Forwarding failure: no return route from destination router %s to source IP".formatted(dstRouter.getName()));
 				return new ForwardingOutcome(false, hops, ForwardingReason.NO_RETURN_ROUTE);
 			}
@@ -105,7 +136,7 @@ public class DestinationResolver {
 			return new ForwardingOutcome(true, hops, ForwardingReason.RETURN_REACHED_HOST);
 		}
 
-		if (ctx.verifyReturn() && !returnPathVerifier.verifyReturnRouteFromHost(foundHost, ctx.source(), topologyQuery)) {
+		if (ctx.verifyReturn() && returnRouteMissing(foundHost, ctx, topologyQuery, new ForwardingOutcome(true, hops, ForwardingReason.REACHED_HOST))) {
 			logger.fine("Forwarding failure: no return route from destination host  to source IP");
 			return new ForwardingOutcome(false, hops, ForwardingReason.NO_RETURN_ROUTE);
 		}
@@ -127,7 +158,8 @@ public class DestinationResolver {
 		Router dstRouter = topologyQuery.findRouterOwningInterface(neighborRouterIf);
 		if (dstRouter != null) {
 			// Re-enabling unconditional return route check for neighbor interfaces as in the original implementation
-			if (returnPathVerifier.verifyReturnRouteFromRouter(dstRouter, neighborRouterIf, ctx.source(), topologyQuery)) {
+			ForwardingOutcome reached = new ForwardingOutcome(true, hops, ForwardingReason.ROUTER_INTERFACE_REACHED);
+			if (returnRouteMissing(dstRouter, neighborRouterIf, ctx, topologyQuery, reached)) {
 				logger.fine("Forwarding failure: no return route from destination router %s to source IP".formatted(dstRouter.getName()));
 				return new ForwardingOutcome(false, hops, ForwardingReason.NO_RETURN_ROUTE);
 			}
@@ -135,4 +167,26 @@ public class DestinationResolver {
 		}
 		return new ForwardingOutcome(true, hops, ForwardingReason.ROUTER_INTERFACE_REACHED);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Verifies the return route from a destination router. A walk handed off to another
+	 * engine carries the outcome of the packet should the return route exist.
+	 */
+	private boolean returnRouteMissing(Router dstRouter, RouterInterface dstIf, ForwardingContext ctx,
+	                                   TopologyQuery topologyQuery, ForwardingOutcome reached) {
+		try {
+			return returnPathVerifier.verifyReturnRouteFromRouter(dstRouter, dstIf, ctx.source(), topologyQuery);
+		} catch (ReturnPathHandoff handoff) {
+			throw handoff.withOutcome(reached);
+		}
+	}
+
+	private boolean returnRouteMissing(HostInterface dstHostIf, ForwardingContext ctx, TopologyQuery topologyQuery,
+	                                   ForwardingOutcome reached) {
+		try {
+			return !returnPathVerifier.verifyReturnRouteFromHost(dstHostIf, ctx.source(), topologyQuery);
+		} catch (ReturnPathHandoff handoff) {
+			throw handoff.withOutcome(reached);
+		}
+	}
+}
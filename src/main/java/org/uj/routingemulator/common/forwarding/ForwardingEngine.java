@@ -1,12 +1,17 @@
 package org.uj.routingemulator.common.forwarding;
 
+import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.common.topology.Connection;
 import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
 import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
 
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
@@ -18,40 +23,176 @@ public class ForwardingEngine {
 
     private final GatewayResolver gatewayResolver;
     private final PacketForwarder packetForwarder;
+    private final ReturnPathVerifier returnPathVerifier;
 
     public ForwardingEngine() {
-        this.gatewayResolver = new GatewayResolver();
-        ReturnPathVerifier returnPathVerifier = new ReturnPathVerifier();
-        DestinationResolver destinationResolver = new DestinationResolver(returnPathVerifier);
-        RouteResolver routeResolver = new RouteResolver();
-        this.packetForwarder = new PacketForwarder(destinationResolver, routeResolver);
+        this(InterfaceCounters.global());
+    }
+
+    /**
+     * @param counters interface counters updated by forwarding, or null for an engine that
+     *                 decides on behalf of many packets, such as a cache of decisions
+     */
+    public ForwardingEngine(InterfaceCounters counters) {
+        this(counters, router -> true);
+    }
+
+    /**
+     * Creates an engine that holds the routing tables of some routers only.
+     * @param counters     interface counters updated by forwarding, or null
+     * @param localRouters routers whose routing tables this engine may consult; return-path
+     *                     verification that reaches another router throws {@link ReturnPathHandoff}
+     */
+    public ForwardingEngine(InterfaceCounters counters, Predicate<Router> localRouters) {
+        this.gatewayResolver = new GatewayResolver(counters);
+        this.returnPathVerifier = new ReturnPathVerifier(localRouters);
+        DestinationResolver destinationResolver = new DestinationResolver(returnPathVerifier, counters);
+        RouteResolver routeResolver = new RouteResolver(counters);
+        this.packetForwarder = new PacketForwarder(destinationResolver, routeResolver, counters);
 
         // Resolve circular dependency safely
         returnPathVerifier.setResolvers(destinationResolver, routeResolver);
     }
 
     public ForwardingOutcome forward(Packet packet, Host srcHost, NetworkTopology topology) {
-        TopologyQuery topologyQuery = new NetworkTopologyQuery(topology);
+        return forward(packet, srcHost, new NetworkTopologyQuery(topology));
+    }
+
+    /**
+     * Same as {@link #forward(Packet, Host, NetworkTopology)} with prebuilt topology lookups,
+     * for callers forwarding many packets over one topology snapshot.
+     */
+    public ForwardingOutcome forward(Packet packet, Host srcHost, TopologyQuery topologyQuery) {
+        return run(packet, start(packet, srcHost, topologyQuery), topologyQuery);
+    }
+
+    public ForwardingOutcome forward(Packet packet, Router srcRouter, NetworkTopology topology) {
+        return forward(packet, srcRouter, new NetworkTopologyQuery(topology));
+    }
+
+    /**
+     * Same as {@link #forward(Packet, Router, NetworkTopology)} with prebuilt topology lookups.
+     */
+    public ForwardingOutcome forward(Packet packet, Router srcRouter, TopologyQuery topologyQuery) {
+        return run(packet, start(packet, srcRouter), topologyQuery);
+    }
+
+    /**
+     * Resolves where forwarding of a host-originated packet begins.
+     * Normalizes the TTL and handles same-subnet delivery and gateway lookup.
+     */
+    public ForwardingStart start(Packet packet, Host srcHost, TopologyQuery topologyQuery) {
         logger.fine("Starting forwarding of packet from %s to %s".formatted(packet.getSource(), packet.getDestination()));
         packetForwarder.normalizeTtl(packet);
         if (packetForwarder.isDestinationOnHostSubnet(packet, srcHost)) {
-            return new ForwardingOutcome(true, 1, ForwardingReason.REACHED_SAME_SUBNET);
+            return ForwardingStart.finished(new ForwardingOutcome(true, 1, ForwardingReason.REACHED_SAME_SUBNET));
         }
 
-        GatewayResolver.GatewayResolution gateway = gatewayResolver.resolveHostGateway(srcHost, topologyQuery);
+        GatewayResolver.GatewayResolution gateway = gatewayResolver.resolveHostGateway(srcHost, packet, topologyQuery);
         if (gateway.failure() != null) {
-            return gateway.failure();
+            return ForwardingStart.finished(gateway.failure());
         }
 
         ForwardingContext ctx = new ForwardingContext(packet.getSource(), packet.getDestination(), 128, true, true, false);
-        return packetForwarder.traverse(packet, gateway.router(), 1, topologyQuery, ctx);
+        return ForwardingStart.at(gateway.router(), gateway.ingress(), 1, ctx);
     }
 
-    public ForwardingOutcome forward(Packet packet, Router srcRouter, NetworkTopology topology) {
-        TopologyQuery topologyQuery = new NetworkTopologyQuery(topology);
+    /**
+     * Resolves where forwarding of a router-originated packet begins.
+     */
+    public ForwardingStart start(Packet packet, Router srcRouter) {
         logger.fine("Starting forwarding (router source) of packet from %s to %s".formatted(packet.getSource(), packet.getDestination()));
         packetForwarder.normalizeTtl(packet);
         ForwardingContext ctx = new ForwardingContext(packet.getSource(), packet.getDestination(), 128, true, false, false);
-        return packetForwarder.traverse(packet, srcRouter, 0, topologyQuery, ctx);
+        return ForwardingStart.at(srcRouter, 0, ctx);
+    }
+
+    /**
+     * Performs one forwarding decision on {@code router}; see {@link PacketForwarder#step}.
+     */
+    public RouteResolver.RouteStep step(Packet packet, Router router, int hops, TopologyQuery topologyQuery, ForwardingContext ctx) {
+        return packetForwarder.step(packet, router, hops, topologyQuery, ctx);
+    }
+
+    /**
+     * Performs one forwarding decision on {@code router} for a packet that arrived on
+     * {@code ingress}; see {@link PacketForwarder#step(Packet, Router, RouterInterface, int, TopologyQuery, ForwardingContext)}.
+     */
+    public RouteResolver.RouteStep step(Packet packet, Router router, RouterInterface ingress, int hops, TopologyQuery topologyQuery, ForwardingContext ctx) {
+        return packetForwarder.step(packet, router, ingress, hops, topologyQuery, ctx);
+    }
+
+    /**
+     * Continues a return-path walk handed off by another engine.
+     * @param router      router the walk continues on, see {@link ReturnPathHandoff#router()}
+     * @param destination address the walk leads to
+     * @param hops        steps the walk has taken so far
+     * @return outcome of the walk; reached if the return path exists
+     * @throws ReturnPathHandoff if the walk reaches a router this engine does not hold
+     */
+    public ForwardingOutcome continueReturnPath(Router router, IPAddress destination, int hops, TopologyQuery topologyQuery) {
+        return returnPathVerifier.continueFromRouter(router, destination, hops, topologyQuery);
+    }
+
+    /**
+     * Forwards a host-originated packet and records every router on its path.
+     * The walk is the same one {@link #forward(Packet, Host, NetworkTopology)} makes.
+     */
+    public ForwardingTrace trace(Packet packet, Host srcHost, NetworkTopology topology) {
+        return trace(packet, srcHost, new NetworkTopologyQuery(topology));
+    }
+
+    /**
+     * Same as {@link #trace(Packet, Host, NetworkTopology)} with prebuilt topology lookups,
+     * for callers tracing many packets over one topology snapshot.
+     */
+    public ForwardingTrace trace(Packet packet, Host srcHost, TopologyQuery topologyQuery) {
+        RouterInterface gatewayInterface = null;
+        if (srcHost.getHostInterface() != null) {
+            Connection connection = topologyQuery.getConnectionForInterface(srcHost.getHostInterface());
+            if (connection != null && connection.getNeighborInterface(srcHost.getHostInterface()) instanceof RouterInterface ri) {
+                gatewayInterface = ri;
+            }
+        }
+        ForwardingTrace trace = new ForwardingTrace(gatewayInterface);
+        run(packet, start(packet, srcHost, topologyQuery), topologyQuery, trace);
+        return trace;
+    }
+
+    /**
+     * Forwards a router-originated packet and records every router on its path,
+     * starting with the source router.
+     */
+    public ForwardingTrace trace(Packet packet, Router srcRouter, NetworkTopology topology) {
+        return trace(packet, srcRouter, new NetworkTopologyQuery(topology));
+    }
+
+    /**
+     * Same as {@link #trace(Packet, Router, NetworkTopology)} with prebuilt topology lookups.
+     */
+    public ForwardingTrace trace(Packet packet, Router srcRouter, TopologyQuery topologyQuery) {
+        ForwardingTrace trace = new ForwardingTrace(null);
+        run(packet, start(packet, srcRouter), topologyQuery, trace);
+        return trace;
+    }
+
+    private ForwardingOutcome run(Packet packet, ForwardingStart start, TopologyQuery topologyQuery, ForwardingTrace trace) {
+        ForwardingOutcome outcome;
+        if (start.isFinished()) {
+            trace.finish(start.outcome());
+            outcome = start.outcome();
+        } else {
+            outcome = packetForwarder.traverse(packet, start.router(), start.ingress(), start.hops(), topologyQuery, start.context(), trace);
+        }
+        ForwardingMetrics.record(outcome);
+        return outcome;
+    }
+
+    private ForwardingOutcome run(Packet packet, ForwardingStart start, TopologyQuery topologyQuery) {
+        ForwardingOutcome outcome = start.isFinished()
+                ? start.outcome()
+                : packetForwarder.traverse(packet, start.router(), start.ingress(), start.hops(), topologyQuery, start.context(), null);
+        ForwardingMetrics.record(outcome);
+        return outcome;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package org.uj.routingemulator.common.forwarding;
+
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+
+/**
+ * Counters of forwarded packets in the global {@link MetricsRegistry}: every outcome
+ * under {@value #PACKETS} and again under {@value #REASON_PREFIX} plus its reason.
+ * Reason counters are created on first use, so only reasons that occur are listed.
+ */
+public final class ForwardingMetrics {
+	public static final String PACKETS = "forwarding.packets";
+	public static final String REASON_PREFIX = "forwarding.reason.";
+
+	private static final ForwardingReason[] REASONS = ForwardingReason.values();
+	private static final Counter packets = MetricsRegistry.global().counter(PACKETS);
+	private static final Counter[] byReason = new Counter[REASONS.length];
+
+	private ForwardingMetrics() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Counts one forwarded packet.
+	 */
+	public static void record(ForwardingOutcome outcome) {
+		record(outcome.reason(), 1);
+	}
+
+	/**
+	 * Counts packets that ended with the same reason, e.g. the tally of a batch.
+	 * @param reason outcome reason, or null
+	 * @param count  number of packets
+	 */
+	public static void record(ForwardingReason reason, long count) {
+		if (count == 0) return;
+		packets.add(count);
+		if (reason != null) {
+			reasonCounter(reason).add(count);
+		}
+	}
+
+	private static Counter reasonCounter(ForwardingReason reason) {
+		Counter counter = byReason[reason.ordinal()];
+		if (counter == null) {
+			// Racing threads get the same counter from the registry
+			counter = MetricsRegistry.global().counter(REASON_PREFIX + reason.name());
+			byReason[reason.ordinal()] = counter;
+		}
+		return counter;
+	}
+}
@@ -0,0 +1,204 @@
+package org.uj.routingemulator.common.forwarding;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.common.topology.NetworkInterface;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.stream.IntStream;
+
+/**
+ * The links and interfaces a packet crosses, derived from a {@link ForwardingTrace}.
+ * <p>
+ * Links are directed and encoded as {@code connection * 2 + direction}, where
+ * {@code connection} is the position in the {@link TopologyGraph} snapshot and direction
+ * 0 is from side A to side B. Interfaces are {@linkplain TopologyGraph#interfaceOf interface ids}
+ * of the same snapshot. A packet that is dropped crosses the links up to the router that
+ * drops it. Switches are transparent: only links attached to routers and hosts appear on
+ * a path.
+ * <p>
+ * A path is traced once for a representative packet and {@linkplain #count counted} for
+ * every packet that takes it, on the interfaces the forwarding engine counts when it
+ * forwards a single packet.
+ *
+ * @param links     directed links in path order
+ * @param tx        interfaces the packet was sent from, excluding the origin
+ * @param txCrossed number of links crossed once the packet has left each interface of {@code tx}
+ * @param rx        router interfaces the packet was received on
+ * @param rxCrossed number of links crossed when the packet arrives on each interface of {@code rx}
+ * @param origin    host interface that sent the packet, or -1
+ * @param target    host interface the packet was delivered to, or -1
+ * @param rxDrop    interface the packet was dropped on after it was received, or -1
+ * @param txDrop    interface the packet could not be transmitted through, or -1
+ * @param delivered true if the packet arrived at its destination
+ */
+public record ForwardingPath(int[] links, int[] tx, int[] txCrossed, int[] rx, int[] rxCrossed,
+                             int origin, int target, int rxDrop, int txDrop, boolean delivered) {
+	public static final ForwardingPath UNROUTABLE = new ForwardingPath(new int[0], new int[0], new int[0], new int[0], new int[0], -1, -1, -1, -1, false);
+
+	/**
+	 * Converts a forwarding trace into a path.
+	 * <p>
+	 * A packet counts as delivered when forwarding reached the destination, or when only the
+	 * destination's return route is missing: the packet itself arrived.
+	 *
+	 * @param trace       recorded forwarding walk
+	 * @param origin      interface the packet was sent from on a host, or null for router-originated packets
+	 * @param destination destination address
+	 * @param graph       graph snapshot the trace was made on
+	 * @param query       lookups for the same topology
+	 * @return path of the traced packet
+	 */
+	public static ForwardingPath of(ForwardingTrace trace, NetworkInterface origin, IPAddress destination,
+	                                TopologyGraph graph, TopologyQuery query) {
+		ForwardingOutcome outcome = trace.outcome();
+		boolean delivered = outcome.reached() || outcome.reason() == ForwardingReason.NO_RETURN_ROUTE;
+
+		Builder path = new Builder(graph);
+		NetworkInterface last = origin;
+		if (origin != null) {
+			// A host without a way to its gateway drops the packet on transmit
+			if (trace.hops().isEmpty() && !delivered) {
+				path.txDrop = graph.interfaceOf(origin);
+			} else {
+				path.origin = graph.interfaceOf(origin);
+			}
+			path.leave(origin);
+		}
+		for (ForwardingTrace.Hop hop : trace.hops()) {
+			if (hop.ingress() != null) {
+				path.receive(hop.ingress());
+			}
+			RouterInterface egress = hop.egress();
+			boolean transmits = egress != null && (hop.outcome() == null || delivered) && !ownsAddress(egress, destination);
+			if (transmits) {
+				path.transmit(egress);
+				last = egress;
+			} else if (hop.outcome() != null && !delivered) {
+				if (egress != null) {
+					path.txDrop = graph.interfaceOf(egress);
+				} else if (hop.ingress() != null) {
+					path.rxDrop = graph.interfaceOf(hop.ingress());
+				}
+			}
+		}
+		if (delivered && last != null) {
+			NetworkInterface target = query.findHostInterfaceByIpConnectedToInterface(last, destination);
+			if (target != null) {
+				path.target = graph.interfaceOf(target);
+				path.enter(target);
+			}
+		}
+		return path.build(delivered);
+	}
+
+	/**
+	 * Counts packets that took this path: transmitted by the origin and every interface
+	 * in {@link #tx}, received on every interface in {@link #rx} and by the target, and
+	 * dropped where the path ends without delivery.
+	 *
+	 * @param counters counters to update
+	 * @param graph    graph snapshot the path was made on
+	 * @param packets  number of packets
+	 * @param length   length of each packet in bytes
+	 */
+	public void count(InterfaceCounters counters, TopologyGraph graph, long packets, int length) {
+		if (packets <= 0) return;
+		countCrossed(counters, graph, links.length, packets, length);
+		if (target >= 0) counters.received(graph.networkInterface(target), packets, packets * length);
+		if (rxDrop >= 0) counters.droppedOnReceive(graph.networkInterface(rxDrop), packets);
+		if (txDrop >= 0) counters.droppedOnTransmit(graph.networkInterface(txDrop), packets);
+	}
+
+	/**
+	 * Counts a packet lost after crossing only the first links of this path, e.g. on a
+	 * full queue: only the interfaces it was sent from and received on up to there are
+	 * counted. The loss itself is left to the caller.
+	 *
+	 * @param counters counters to update
+	 * @param graph    graph snapshot the path was made on
+	 * @param crossed  number of links the packet crossed
+	 * @param length   length of the packet in bytes
+	 */
+	public void countPartial(InterfaceCounters counters, TopologyGraph graph, int crossed, int length) {
+		countCrossed(counters, graph, crossed, 1, length);
+	}
+
+	private void countCrossed(InterfaceCounters counters, TopologyGraph graph, int crossed, long packets, int length) {
+		long bytes = packets * length;
+		if (origin >= 0 && crossed > 0) counters.transmitted(graph.networkInterface(origin), packets, bytes);
+		for (int i = 0; i < tx.length && txCrossed[i] <= crossed; i++) {
+			counters.transmitted(graph.networkInterface(tx[i]), packets, bytes);
+		}
+		for (int i = 0; i < rx.length && rxCrossed[i] <= crossed; i++) {
+			counters.received(graph.networkInterface(rx[i]), packets, bytes);
+		}
+	}
+
+	private static boolean ownsAddress(RouterInterface ri, IPAddress ip) {
+		return ri.getInterfaceAddress() != null && ri.getInterfaceAddress().ipAddress().equals(ip);
+	}
+
+	private static final class Builder {
+		private final TopologyGraph graph;
+		private final IntStream.Builder links = IntStream.builder();
+		private final IntStream.Builder tx = IntStream.builder();
+		private final IntStream.Builder txCrossed = IntStream.builder();
+		private final IntStream.Builder rx = IntStream.builder();
+		private final IntStream.Builder rxCrossed = IntStream.builder();
+		private int linkCount;
+		private int lastConnection = -1;
+		private int origin = -1;
+		private int target = -1;
+		private int rxDrop = -1;
+		private int txDrop = -1;
+
+		Builder(TopologyGraph graph) {
+			this.graph = graph;
+		}
+
+		void receive(NetworkInterface iface) {
+			enter(iface);
+			int id = graph.interfaceOf(iface);
+			if (id >= 0) {
+				rx.add(id);
+				rxCrossed.add(linkCount);
+			}
+		}
+
+		void transmit(NetworkInterface iface) {
+			leave(iface);
+			int id = graph.interfaceOf(iface);
+			if (id >= 0) {
+				tx.add(id);
+				txCrossed.add(linkCount);
+			}
+		}
+
+		void leave(NetworkInterface from) {
+			int c = graph.connectionOfInterface(from);
+			if (c < 0 || c == lastConnection) return;
+			Connection connection = graph.connection(c);
+			links.add(c * 2 + (connection.interfaceA().getIndex() == from.getIndex() ? 0 : 1));
+			linkCount++;
+			lastConnection = c;
+		}
+
+		void enter(NetworkInterface to) {
+			int c = graph.connectionOfInterface(to);
+			if (c < 0 || c == lastConnection) return;
+			Connection connection = graph.connection(c);
+			links.add(c * 2 + (connection.interfaceA().getIndex() == to.getIndex() ? 1 : 0));
+			linkCount++;
+			lastConnection = c;
+		}
+
+		ForwardingPath build(boolean delivered) {
+			return new ForwardingPath(links.build().toArray(), tx.build().toArray(), txCrossed.build().toArray(),
+					rx.build().toArray(), rxCrossed.build().toArray(), origin, target, rxDrop, txDrop, delivered);
+		}
+	}
+}
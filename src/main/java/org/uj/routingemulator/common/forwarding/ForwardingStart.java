@@ -0,0 +1,30 @@
+package org.uj.routingemulator.common.forwarding;
+
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+/**
+ * First router and traversal parameters for a packet, or an outcome decided before any router was involved.
+ * @param router  first router to process the packet, null if {@code outcome} is set
+ * @param ingress interface the packet enters {@code router} on, null if it originates there
+ * @param hops    hop count on arrival at {@code router}
+ * @param context traversal parameters
+ * @param outcome early outcome (e.g. same subnet, no gateway), or null
+ */
+public record ForwardingStart(Router router, RouterInterface ingress, int hops, ForwardingContext context, ForwardingOutcome outcome) {
+	public static ForwardingStart at(Router router, int hops, ForwardingContext context) {
+		return at(router, null, hops, context);
+	}
+
+	public static ForwardingStart at(Router router, RouterInterface ingress, int hops, ForwardingContext context) {
+		return new ForwardingStart(router, ingress, hops, context, null);
+	}
+
+	public static ForwardingStart finished(ForwardingOutcome outcome) {
+		return new ForwardingStart(null, null, 0, null, outcome);
+	}
+
+	public boolean isFinished() {
+		return outcome != null;
+	}
+}
@@ -0,0 +1,102 @@
+package org.uj.routingemulator.common.forwarding;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.NetworkInterface;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Routers visited by one forwarding walk, in order, with the interfaces the packet
+ * used on each of them.
+ * <p>
+ * Filled in by {@link PacketForwarder#traverse} when a trace is passed in. Interfaces
+ * are derived from the same route lookup the forwarding step made, and only when a
+ * trace is being recorded, so plain forwarding pays nothing for it.
+ */
+public final class ForwardingTrace {
+	private final List<Hop> hops = new ArrayList<>();
+	private RouterInterface nextIngress;
+	private ForwardingOutcome outcome;
+
+	/**
+	 * @param firstIngress interface on which the packet enters the first router, or null if it originates there
+	 */
+	public ForwardingTrace(RouterInterface firstIngress) {
+		this.nextIngress = firstIngress;
+	}
+
+	/**
+	 * One router on the path.
+	 * @param router  router making the forwarding decision
+	 * @param ingress interface the packet arrived on, null on the originating router
+	 * @param egress  interface the packet left through, null if it was not forwarded
+	 * @param hops    hop count on arrival
+	 * @param outcome final outcome decided on this router, null if the packet was forwarded on
+	 */
+	public record Hop(Router router, RouterInterface ingress, RouterInterface egress, int hops, ForwardingOutcome outcome) {
+	}
+
+	/**
+	 * @return visited routers in path order
+	 */
+	public List<Hop> hops() {
+		return Collections.unmodifiableList(hops);
+	}
+
+	/**
+	 * @return outcome of the whole walk
+	 */
+	public ForwardingOutcome outcome() {
+		return outcome;
+	}
+
+	void record(Router router, int hopsBefore, RouteResolver.RouteStep step, IPAddress destination, TopologyQuery topologyQuery) {
+		RouterInterface ingress = nextIngress;
+		nextIngress = null;
+		if (step.outcome() != null && step.outcome().reason() == ForwardingReason.TTL_EXPIRED) {
+			hops.add(new Hop(router, ingress, null, hopsBefore, step.outcome()));
+			return;
+		}
+
+		RouterInterface egress;
+		Optional<RouterInterface> direct = RouteSelector.findDirectSubnetInterface(router, destination);
+		if (direct.isPresent()) {
+			egress = direct.get();
+		} else {
+			StaticRoutingEntry route = RouteSelector.findStaticRoute(router, destination).orElse(null);
+			if (route == null) {
+				egress = null;
+			} else if (route.getRouterInterface() != null) {
+				egress = route.getRouterInterface();
+				nextIngress = neighborRouterInterface(egress, topologyQuery);
+			} else if (route.getNextHop() != null) {
+				egress = RouteSelector.findDirectSubnetInterface(router, route.getNextHop()).orElse(null);
+				nextIngress = topologyQuery.findInterfaceByIp(route.getNextHop());
+			} else {
+				egress = null;
+			}
+		}
+		hops.add(new Hop(router, ingress, egress, hopsBefore, step.outcome()));
+	}
+
+	void finish(ForwardingOutcome outcome) {
+		this.outcome = outcome;
+	}
+
+	private static RouterInterface neighborRouterInterface(RouterInterface exitIf, TopologyQuery topologyQuery) {
+		Connection connection = topologyQuery.getConnectionForInterface(exitIf);
+		if (connection == null) {
+			return null;
+		}
+		NetworkInterface neighbor = connection.getNeighborInterface(exitIf);
+		return neighbor instanceof RouterInterface routerInterface ? routerInterface : null;
+	}
+}
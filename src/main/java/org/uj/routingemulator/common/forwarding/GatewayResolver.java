@@ -1,6 +1,8 @@
 package org.uj.routingemulator.common.forwarding;
 
+import org.uj.routingemulator.common.packet.Packet;
 import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.Host;
@@ -11,8 +13,39 @@ import java.util.logging.Logger;
 
 public class GatewayResolver {
 	private static final Logger logger = Logger.getLogger(GatewayResolver.class.getName());
+	private final InterfaceCounters counters;
 
-	public GatewayResolution resolveHostGateway(Host srcHost, TopologyQuery topologyQuery) {
+	public GatewayResolver() {
+		this(InterfaceCounters.global());
+	}
+
+	/**
+	 * @param counters interface counters to update, or null to resolve without counting
+	 */
+	public GatewayResolver(InterfaceCounters counters) {
+		this.counters = counters;
+	}
+
+	/**
+	 * Finds the router a host sends a packet to. With counters, the packet is counted as
+	 * transmitted by the host and received by the gateway, or as a transmit drop on the host.
+	 *
+	 * @param packet the packet being sent, or null if it is not counted
+	 */
+	public GatewayResolution resolveHostGateway(Host srcHost, Packet packet, TopologyQuery topologyQuery) {
+		GatewayResolution resolution = resolve(srcHost, topologyQuery);
+		if (counters != null && packet != null && srcHost.getHostInterface() != null) {
+			if (resolution.failure() != null) {
+				counters.droppedOnTransmit(srcHost.getHostInterface());
+			} else {
+				counters.transmitted(srcHost.getHostInterface(), packet.getLength());
+				counters.received(resolution.ingress(), packet.getLength());
+			}
+		}
+		return resolution;
+	}
+
+	private GatewayResolution resolve(Host srcHost, TopologyQuery topologyQuery) {
 		if (srcHost.getHostInterface() == null || srcHost.getHostInterface().getDefaultGateway() == null) {
 			logger.fine("Forwarding failure: no default gateway configured for host %s".formatted(srcHost.getHostname()));
 			return GatewayResolution.failed(new ForwardingOutcome(false, 0, ForwardingReason.NO_DEFAULT_GATEWAY));
@@ -34,16 +67,21 @@ public class GatewayResolver {
 			return GatewayResolution.failed(new ForwardingOutcome(false, 0, ForwardingReason.CANNOT_FIND_ROUTER_FOR_GATEWAY));
 		}
 		logger.finer("Default gateway reached. Starting hop-by-hop forwarding from router %s".formatted(currentRouter.getName()));
-		return GatewayResolution.of(currentRouter);
+		return GatewayResolution.of(currentRouter, currentInterface);
 	}
 
-	public record GatewayResolution(Router router, ForwardingOutcome failure) {
-		public static GatewayResolution of(Router router) {
-			return new GatewayResolution(router, null);
+	/**
+	 * @param router  gateway router, null if {@code failure} is set
+	 * @param ingress gateway interface the host is connected to
+	 * @param failure outcome if the gateway cannot be reached, or null
+	 */
+	public record GatewayResolution(Router router, RouterInterface ingress, ForwardingOutcome failure) {
+		public static GatewayResolution of(Router router, RouterInterface ingress) {
+			return new GatewayResolution(router, ingress, null);
 		}
 
 		public static GatewayResolution failed(ForwardingOutcome outcome) {
-			return new GatewayResolution(null, outcome);
+			return new GatewayResolution(null, null, outcome);
 		}
 	}
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.uj.routingemulator.common.forwarding;
 
 import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.host.HostInterface;
@@ -13,13 +14,22 @@ import java.util.logging.Logger;
 public class PacketForwarder {
 	private static final Logger logger = Logger.getLogger(PacketForwarder.class.getName());
 	private static final int DEFAULT_TTL = 64;
+	private final InterfaceCounters counters;
 
 	private final DestinationResolver destinationResolver;
 	private final RouteResolver routeResolver;
 
 	public PacketForwarder(DestinationResolver destinationResolver, RouteResolver routeResolver) {
+		this(destinationResolver, routeResolver, InterfaceCounters.global());
+	}
+
+	/**
+	 * @param counters interface counters to update, or null to forward without counting
+	 */
+	public PacketForwarder(DestinationResolver destinationResolver, RouteResolver routeResolver, InterfaceCounters counters) {
 		this.destinationResolver = destinationResolver;
 		this.routeResolver = routeResolver;
+		this.counters = counters;
 	}
 
 	public void normalizeTtl(Packet packet) {
@@ -35,6 +45,7 @@ public class PacketForwarder {
 		}
 		boolean sameSubnet = hostInterface.getSubnet().contains(packet.getDestination());
 		if (sameSubnet) {
+			if (counters != null) counters.transmitted(hostInterface, packet.getLength());
 			logger.fine("Forwarding success: destination %s is in the same subnet as source host %s"
 					.formatted(packet.getDestination(), srcHost.getHostname()));
 		}
@@ -43,39 +54,94 @@ public class PacketForwarder {
 
 	public ForwardingOutcome traverse(Packet packet, Router startRouter, int startHops,
 	                                  TopologyQuery topologyQuery, ForwardingContext ctx) {
+		return traverse(packet, startRouter, null, startHops, topologyQuery, ctx, null);
+	}
+
+	/**
+	 * Forwards a packet hop by hop until an outcome is decided, optionally recording
+	 * every visited router into {@code trace}.
+	 *
+	 * @param startIngress interface the packet enters {@code startRouter} on, or null
+	 * @param trace        receives the visited routers and the final outcome, or null
+	 */
+	public ForwardingOutcome traverse(Packet packet, Router startRouter, RouterInterface startIngress, int startHops,
+	                                  TopologyQuery topologyQuery, ForwardingContext ctx, ForwardingTrace trace) {
 		Router currentRouter = startRouter;
+		RouterInterface ingress = startIngress;
 		int hops = startHops;
 
 		while (hops < ctx.maxHops()) {
-			if (ctx.decrementTtl() && packet != null) {
-				if (packet.decrementTTL()) {
-					logger.fine("Forwarding failure: TTL expired while forwarding from router %s".formatted(currentRouter.getName()));
-					return new ForwardingOutcome(false, hops, ForwardingReason.TTL_EXPIRED);
-				}
-			}
-			if (ctx.isReturnVerification()) {
-				hops++;
+			RouteResolver.RouteStep step = step(packet, currentRouter, ingress, hops, topologyQuery, ctx);
+			if (trace != null) {
+				trace.record(currentRouter, hops, step, ctx.destination(), topologyQuery);
 			}
-
-			logger.finer("Checking interfaces of router %s for destination %s".formatted(currentRouter.getName(), ctx.destination()));
-			Optional<RouterInterface> intfToDst = RouteSelector.findDirectSubnetInterface(currentRouter, ctx.destination());
-			if (intfToDst.isPresent()) {
-				return destinationResolver.resolveDirectSubnet(currentRouter, intfToDst.get(), packet, topologyQuery, hops, ctx);
-			}
-
-			logger.finer("No directly connected subnet matches destination. Looking for static routes on router %s".formatted(currentRouter.getName()));
-			RouteResolver.RouteStep step = routeResolver.resolveNextRouterViaStaticRoute(currentRouter, topologyQuery, hops, ctx);
 			if (step.outcome() != null) {
+				if (trace != null) trace.finish(step.outcome());
 				return step.outcome();
 			}
 			currentRouter = step.nextRouter();
+			ingress = step.ingress();
+			hops = step.hops();
+		}
 
-			if (!ctx.isReturnVerification()) {
-				hops = step.hops();
+		logger.finer("Return route verification failure: maximum hops exceeded while forwarding from router %s".formatted(startRouter.getName()));
+		ForwardingOutcome expired = new ForwardingOutcome(false, hops, ForwardingReason.TTL_EXPIRED);
+		if (trace != null) trace.finish(expired);
+		return expired;
+	}
+
+	/**
+	 * Performs a single forwarding decision on one router.
+	 * <p>
+	 * The caller is responsible for the {@code maxHops} bound; {@link #traverse} simply
+	 * repeats this step. Exposed so hop-by-hop simulators can move a packet between
+	 * routers owned by different workers.
+	 *
+	 * @param packet        the packet being forwarded, or null for return-path checks
+	 * @param currentRouter router making the decision
+	 * @param hops          hop count before this decision
+	 * @param topologyQuery topology lookups
+	 * @param ctx           traversal parameters
+	 * @return the next router and hop count, or a terminal outcome
+	 */
+	public RouteResolver.RouteStep step(Packet packet, Router currentRouter, int hops,
+	                                    TopologyQuery topologyQuery, ForwardingContext ctx) {
+		return step(packet, currentRouter, null, hops, topologyQuery, ctx);
+	}
+
+	/**
+	 * Performs a single forwarding decision on one router, knowing the interface the packet
+	 * arrived on.
+	 * <p>
+	 * With counters, packets outside return verification are counted on the interfaces they
+	 * cross and on the interface they are dropped on. Drops decided before
+	 * an exit interface is chosen, such as an expired TTL or a missing route, count on
+	 * {@code ingress}, so they are not attributed when it is null.
+	 *
+	 * @param ingress interface the packet arrived on, or null if it originates on this router or is not known
+	 * @see #step(Packet, Router, int, TopologyQuery, ForwardingContext)
+	 */
+	public RouteResolver.RouteStep step(Packet packet, Router currentRouter, RouterInterface ingress, int hops,
+	                                    TopologyQuery topologyQuery, ForwardingContext ctx) {
+		if (ctx.decrementTtl() && packet != null) {
+			if (packet.decrementTTL()) {
+				logger.fine("Forwarding failure: TTL expired while forwarding from router %s".formatted(currentRouter.getName()));
+				if (counters != null && !ctx.isReturnVerification()) counters.droppedOnReceive(ingress);
+				return RouteResolver.RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.TTL_EXPIRED));
 			}
 		}
+		if (ctx.isReturnVerification()) {
+			hops++;
+		}
 
-		logger.finer("Return route verification failure: maximum hops exceeded while forwarding from router %s".formatted(startRouter.getName()));
-		return new ForwardingOutcome(false, hops, ForwardingReason.TTL_EXPIRED);
+		logger.finer("Checking interfaces of router %s for destination %s".formatted(currentRouter.getName(), ctx.destination()));
+		Optional<RouterInterface> intfToDst = RouteSelector.findDirectSubnetInterface(currentRouter, ctx.destination());
+		if (intfToDst.isPresent()) {
+			return RouteResolver.RouteStep.terminal(
+					destinationResolver.resolveDirectSubnet(currentRouter, intfToDst.get(), packet, topologyQuery, hops, ctx));
+		}
+
+		logger.finer("No directly connected subnet matches destination. Looking for static routes on router %s".formatted(currentRouter.getName()));
+		return routeResolver.resolveNextRouterViaStaticRoute(currentRouter, ingress, packet, topologyQuery, hops, ctx);
 	}
 }
\ No newline at end of file
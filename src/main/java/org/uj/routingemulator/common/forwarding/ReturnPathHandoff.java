@@ -0,0 +1,65 @@
+package org.uj.routingemulator.common.forwarding;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.router.model.Router;
+
+/**
+ * Thrown when return-path verification reaches a router whose routing table this engine
+ * does not hold, e.g. a border stub in a shard process.
+ * <p>
+ * The walk is continued elsewhere with {@link ForwardingEngine#continueReturnPath} from
+ * {@link #router()} after {@link #hops()} steps. If the walk reaches {@link #destination()},
+ * the packet's outcome is {@link #outcome()}; otherwise it is the same hop count with
+ * {@link ForwardingReason#NO_RETURN_ROUTE}.
+ */
+public class ReturnPathHandoff extends RuntimeException {
+	private final transient Router router;
+	private final IPAddress destination;
+	private final int hops;
+	private final ForwardingOutcome outcome;
+
+	ReturnPathHandoff(Router router, IPAddress destination, int hops, ForwardingOutcome outcome) {
+		// Control flow between shards, not an error: no stack trace
+		super("Return path continues on router " + router.getName(), null, false, false);
+		this.router = router;
+		this.destination = destination;
+		this.hops = hops;
+		this.outcome = outcome;
+	}
+
+	/**
+	 * @return a copy carrying the outcome of the packet if the return path exists
+	 */
+	ReturnPathHandoff withOutcome(ForwardingOutcome outcome) {
+		return new ReturnPathHandoff(router, destination, hops, outcome);
+	}
+
+	/**
+	 * @return router on which the walk continues
+	 */
+	public Router router() {
+		return router;
+	}
+
+	/**
+	 * @return address the return path leads to, the source of the original packet
+	 */
+	public IPAddress destination() {
+		return destination;
+	}
+
+	/**
+	 * @return steps the walk has taken so far
+	 */
+	public int hops() {
+		return hops;
+	}
+
+	/**
+	 * @return outcome of the original packet if the return path exists, or null while the
+	 * walk was started outside forwarding
+	 */
+	public ForwardingOutcome outcome() {
+		return outcome;
+	}
+}
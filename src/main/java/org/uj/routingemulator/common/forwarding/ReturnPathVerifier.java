@@ -7,13 +7,27 @@ import org.uj.routingemulator.router.model.Router;
 import org.uj.routingemulator.router.model.RouterInterface;
 
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 public class ReturnPathVerifier {
 	private static final Logger logger = Logger.getLogger(ReturnPathVerifier.class.getName());
+	private final Predicate<Router> localRouters;
 	private DestinationResolver destinationResolver;
 	private RouteResolver routeResolver;
 
+	public ReturnPathVerifier() {
+		this(router -> true);
+	}
+
+	/**
+	 * @param localRouters routers whose routing tables this verifier may walk; reaching any
+	 *                     other router throws {@link ReturnPathHandoff}
+	 */
+	public ReturnPathVerifier(Predicate<Router> localRouters) {
+		this.localRouters = localRouters;
+	}
+
 	public void setResolvers(DestinationResolver destinationResolver, RouteResolver routeResolver) {
 		this.destinationResolver = destinationResolver;
 		this.routeResolver = routeResolver;
@@ -53,10 +67,23 @@ public class ReturnPathVerifier {
 	private ForwardingOutcome forwardFromRouter(Router startRouter, RouterInterface startIf, IPAddress dstIp, TopologyQuery topologyQuery) {
 		logger.finer("Forwarding from router %s interface %s to destination IP %s"
 				.formatted(startRouter.getName(), startIf.getInterfaceName(), dstIp));
+		return continueFromRouter(startRouter, dstIp, 0, topologyQuery);
+	}
+
+	/**
+	 * Walks the return path from a router towards an address.
+	 *
+	 * @param hops steps already taken by the walk
+	 * @return outcome of the walk
+	 * @throws ReturnPathHandoff if the walk reaches a router that is not local
+	 */
+	ForwardingOutcome continueFromRouter(Router startRouter, IPAddress dstIp, int hops, TopologyQuery topologyQuery) {
 		Router currentRouter = startRouter;
-		int hops = 0;
 		int maxHops = 128;
 		while (hops < maxHops) {
+			if (!localRouters.test(currentRouter)) {
+				throw new ReturnPathHandoff(currentRouter, dstIp, hops, null);
+			}
 			hops++;
 			Optional<RouterInterface> intfToDst = RouteSelector.findDirectSubnetInterface(currentRouter, dstIp);
 			if (intfToDst.isPresent()) {
@@ -1,7 +1,9 @@
 package org.uj.routingemulator.common.forwarding;
 
 import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.packet.Packet;
 import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.HostInterface;
@@ -14,12 +16,35 @@ import java.util.logging.Logger;
 
 public class RouteResolver {
 	private static final Logger logger = Logger.getLogger(RouteResolver.class.getName());
+	private final InterfaceCounters counters;
 
-	public RouteStep resolveNextRouterViaStaticRoute(Router currentRouter, TopologyQuery topologyQuery,
-	                                                 int hopsBeforeThisHop, ForwardingContext ctx) {
+	public RouteResolver() {
+		this(InterfaceCounters.global());
+	}
+
+	/**
+	 * @param counters interface counters to update, or null to forward without counting
+	 */
+	public RouteResolver(InterfaceCounters counters) {
+		this.counters = counters;
+	}
+
+	/**
+	 * Forwards a packet along the static route to its destination.
+	 * <p>
+	 * When counters and a packet are given outside return verification, the interfaces the
+	 * packet crosses and the interface it is dropped on are counted.
+	 *
+	 * @param ingress interface the packet arrived on, or null if it is not known
+	 * @param packet  the packet being forwarded, or null if it is not counted
+	 */
+	public RouteStep resolveNextRouterViaStaticRoute(Router currentRouter, RouterInterface ingress, Packet packet,
+	                                                 TopologyQuery topologyQuery, int hopsBeforeThisHop, ForwardingContext ctx) {
+		Packet counted = counters == null || ctx.isReturnVerification() ? null : packet;
 		Optional<StaticRoutingEntry> routeOpt = RouteSelector.findStaticRoute(currentRouter, ctx.destination());
 		if (routeOpt.isEmpty()) {
 			logger.fine("Forwarding failure: no route to destination %s on router %s".formatted(ctx.destination(), currentRouter.getName()));
+			if (counted != null) counters.droppedOnReceive(ingress);
 			return RouteStep.terminal(new ForwardingOutcome(false, hopsBeforeThisHop, ForwardingReason.NO_ROUTE));
 		}
 
@@ -27,13 +52,14 @@ public class RouteResolver {
 		int hops = ctx.isReturnVerification() ? hopsBeforeThisHop : hopsBeforeThisHop + 1;
 
 		if (route.getRouterInterface() != null) {
-			return resolveInterfaceRoute(currentRouter, route.getRouterInterface(), topologyQuery, hops, ctx);
+			return resolveInterfaceRoute(currentRouter, route.getRouterInterface(), counted, topologyQuery, hops, ctx);
 		}
 		if (route.getNextHop() != null) {
-			return resolveNextHopRoute(currentRouter, route.getNextHop(), topologyQuery, hops, ctx);
+			return resolveNextHopRoute(currentRouter, route.getNextHop(), ingress, counted, topologyQuery, hops);
 		}
 
 		logger.fine("Forwarding failure: invalid route on router %s (no next-hop or exit interface)".formatted(currentRouter.getName()));
+		if (counted != null) counters.droppedOnReceive(ingress);
 		return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.INVALID_ROUTE));
 	}
 
@@ -55,10 +81,14 @@ public class RouteResolver {
 		return ReturnRouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.INVALID_ROUTE));
 	}
 
-	private RouteStep resolveInterfaceRoute(Router currentRouter, RouterInterface exitIf,
+	/**
+	 * @param counted the packet if it is counted, otherwise null
+	 */
+	private RouteStep resolveInterfaceRoute(Router currentRouter, RouterInterface exitIf, Packet counted,
 	                                        TopologyQuery topologyQuery, int hops, ForwardingContext ctx) {
 		if (exitIf.isDisabled()) {
 			logger.fine("Forwarding failure: exit interface %s on router %s is administratively down".formatted(exitIf.getInterfaceName(), currentRouter.getName()));
+			if (counted != null) counters.droppedOnTransmit(exitIf);
 			return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.INTERFACE_ADMIN_DOWN));
 		}
 
@@ -66,6 +96,7 @@ public class RouteResolver {
 		if (exitConn == null) {
 			logger.fine("Forwarding failure: exit interface %s on router %s is not connected to any other interface"
 					.formatted(exitIf.getInterfaceName(), currentRouter.getName()));
+			if (counted != null) counters.droppedOnTransmit(exitIf);
 			return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.INTERFACE_NOT_CONNECTED));
 		}
 
@@ -78,6 +109,10 @@ public class RouteResolver {
 			}
 			logger.fine("Forwarding success: reached destination host via exit interface %s on router %s"
 					.formatted(exitIf.getInterfaceName(), currentRouter.getName()));
+			if (counted != null) {
+				counters.transmitted(exitIf, counted.getLength());
+				counters.received(foundHost, counted.getLength());
+			}
 			return RouteStep.terminal(new ForwardingOutcome(true, hops, ForwardingReason.REACHED_HOST));
 		}
 
@@ -96,31 +131,60 @@ public class RouteResolver {
 			if (neighborRouter == null) {
 				logger.fine("Forwarding failure: neighbor router for exit interface %s on router %s not found"
 						.formatted(exitIf.getInterfaceName(), currentRouter.getName()));
+				if (counted != null) counters.droppedOnTransmit(exitIf);
 				return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.NEIGHBOR_ROUTER_NOT_FOUND));
 			}
-			return RouteStep.advance(neighborRouter, hops);
+			if (counted != null) {
+				counters.transmitted(exitIf, counted.getLength());
+				counters.received(neighborRouterIf, counted.getLength());
+			}
+			return RouteStep.advance(neighborRouter, neighborRouterIf, hops);
 		}
 
 		logger.fine("Forwarding failure: unsupported neighbor type connected to exit interface %s on router %s"
 				.formatted(exitIf.getInterfaceName(), currentRouter.getName()));
+		if (counted != null) counters.droppedOnTransmit(exitIf);
 		return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.UNSUPPORTED_NEIGHBOR_TYPE));
 	}
 
-	private RouteStep resolveNextHopRoute(Router currentRouter, IPAddress nextHop,
-	                                      TopologyQuery topologyQuery, int hops, ForwardingContext ctx) {
+	/**
+	 * @param counted the packet if it is counted, otherwise null
+	 */
+	private RouteStep resolveNextHopRoute(Router currentRouter, IPAddress nextHop, RouterInterface ingress, Packet counted,
+	                                      TopologyQuery topologyQuery, int hops) {
 		RouterInterface foundIf = topologyQuery.findInterfaceByIp(nextHop);
 		if (foundIf == null) {
 			logger.fine("Forwarding failure: next-hop IP %s for route on router %s not found in topology"
 					.formatted(nextHop, currentRouter.getName()));
+			if (counted != null) counters.droppedOnReceive(ingress);
 			return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.NEXT_HOP_NOT_IN_TOPOLOGY));
 		}
 
 		Router neighborRouter = topologyQuery.findRouterOwningInterface(foundIf);
 		if (neighborRouter == null) {
 			logger.fine("Forwarding failure: next-hop router for IP %s on router %s not found".formatted(nextHop, currentRouter.getName()));
+			if (counted != null) counters.droppedOnReceive(ingress);
 			return RouteStep.terminal(new ForwardingOutcome(false, hops, ForwardingReason.NEXT_HOP_NOT_FOUND));
 		}
-		return RouteStep.advance(neighborRouter, hops);
+		if (counted != null) {
+			counters.transmitted(nextHopExitInterface(currentRouter, foundIf, nextHop, topologyQuery), counted.getLength());
+			counters.received(foundIf, counted.getLength());
+		}
+		return RouteStep.advance(neighborRouter, foundIf, hops);
+	}
+
+	/**
+	 * Finds the interface a packet for a next-hop leaves through: the local end of the
+	 * next-hop's link when it is directly attached, otherwise the interface on its subnet.
+	 */
+	private RouterInterface nextHopExitInterface(Router currentRouter, RouterInterface nextHopIf, IPAddress nextHop,
+	                                                    TopologyQuery topologyQuery) {
+		Connection connection = topologyQuery.getConnectionForInterface(nextHopIf);
+		if (connection != null && connection.getNeighborInterface(nextHopIf) instanceof RouterInterface local
+				&& currentRouter.getInterface(local.getInterfaceName()) == local) {
+			return local;
+		}
+		return RouteSelector.findDirectSubnetInterface(currentRouter, nextHop).orElse(null);
 	}
 
 	private ReturnRouteStep resolveReturnRouteInterfaceRoute(Router currentRouter, RouterInterface exitIf, IPAddress dstIp,
@@ -174,13 +238,19 @@ public class RouteResolver {
 		return ReturnRouteStep.advance(neighborRouter);
 	}
 
-	public record RouteStep(Router nextRouter, int hops, ForwardingOutcome outcome) {
-		public static RouteStep advance(Router router, int hops) {
-			return new RouteStep(router, hops, null);
+	/**
+	 * @param nextRouter router the packet is forwarded to, null if {@code outcome} is set
+	 * @param ingress    interface the packet arrives on at {@code nextRouter}, or null
+	 * @param hops       hop count on arrival at {@code nextRouter}
+	 * @param outcome    final outcome, or null if the packet was forwarded on
+	 */
+	public record RouteStep(Router nextRouter, RouterInterface ingress, int hops, ForwardingOutcome outcome) {
+		public static RouteStep advance(Router router, RouterInterface ingress, int hops) {
+			return new RouteStep(router, ingress, hops, null);
 		}
 
 		public static RouteStep terminal(ForwardingOutcome outcome) {
-			return new RouteStep(null, 0, outcome);
+			return new RouteStep(null, null, 0, outcome);
 		}
 	}
 
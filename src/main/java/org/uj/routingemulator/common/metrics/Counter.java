@@ -0,0 +1,43 @@
+package org.uj.routingemulator.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter for hot paths.
+ * <p>
+ * Backed by a {@link LongAdder}, so threads incrementing concurrently update separate
+ * cells instead of contending on one value. Reading the total is the expensive side and
+ * happens once per sample.
+ */
+public final class Counter {
+	private final String name;
+	private final LongAdder count = new LongAdder();
+
+	Counter(String name) {
+		this.name = name;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * @param delta number of events, not negative
+	 */
+	public void add(long delta) {
+		if (delta != 0) {
+			count.add(delta);
+		}
+	}
+
+	/**
+	 * @return number of events counted since the counter was created
+	 */
+	public long total() {
+		return count.sum();
+	}
+}
@@ -0,0 +1,81 @@
+package org.uj.routingemulator.common.metrics;
+
+/**
+ * Fixed-size ring buffer of per-second samples of one counter.
+ * <p>
+ * Appending overwrites the oldest sample once the buffer is full, so memory stays
+ * constant however long the emulator runs. Readers copy only the samples they need,
+ * typically the newest few since their last read.
+ */
+public final class MetricSeries {
+	private final long[] samples;
+	private long appended;
+
+	MetricSeries(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Series capacity must be positive");
+		}
+		this.samples = new long[capacity];
+	}
+
+	synchronized void append(long value) {
+		samples[(int) (appended % samples.length)] = value;
+		appended++;
+	}
+
+	public int capacity() {
+		return samples.length;
+	}
+
+	/**
+	 * @return number of samples appended so far, including overwritten ones
+	 */
+	public synchronized long appended() {
+		return appended;
+	}
+
+	/**
+	 * @return number of samples currently held
+	 */
+	public synchronized int size() {
+		return (int) Math.min(appended, samples.length);
+	}
+
+	/**
+	 * @return newest sample, or 0 if there is none
+	 */
+	public synchronized long last() {
+		return appended == 0 ? 0 : samples[(int) ((appended - 1) % samples.length)];
+	}
+
+	/**
+	 * Copies the newest samples.
+	 * @param count maximum number of samples
+	 * @return up to {@code count} samples, oldest first
+	 */
+	public synchronized long[] latest(int count) {
+		int n = Math.max(0, Math.min(count, size()));
+		long[] out = new long[n];
+		long first = appended - n;
+		for (int i = 0; i < n; i++) {
+			out[i] = samples[(int) ((first + i) % samples.length)];
+		}
+		return out;
+	}
+
+	/**
+	 * Copies the samples appended since an earlier read, for incremental readers such as
+	 * charts. Sample {@code i} is the {@code i}-th appended, counting from 0.
+	 * @param fromIndex index of the first sample wanted, usually {@link #appended()} at the previous read
+	 * @return samples from {@code fromIndex} on, oldest first; samples already overwritten are skipped
+	 */
+	public synchronized long[] since(long fromIndex) {
+		long first = Math.max(fromIndex, appended - size());
+		int n = (int) Math.max(0, appended - first);
+		long[] out = new long[n];
+		for (int i = 0; i < n; i++) {
+			out[i] = samples[(int) ((first + i) % samples.length)];
+		}
+		return out;
+	}
+}
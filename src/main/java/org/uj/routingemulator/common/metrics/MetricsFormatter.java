@@ -0,0 +1,109 @@
+package org.uj.routingemulator.common.metrics;
+
+import java.util.List;
+
+/**
+ * Renders metric histories as text: one row per counter with its rates and a sparkline
+ * of the window, followed by hit rates of counter pairs named {@code <cache>.hits} and
+ * {@code <cache>.misses}.
+ */
+public final class MetricsFormatter {
+	private static final char[] BARS = {'▁', '▂', '▃', '▄', '▅', '▆', '▇', '█'};
+	public static final int MAX_CHART_WIDTH = 60;
+	private static final String HITS = ".hits";
+	private static final String MISSES = ".misses";
+
+	private MetricsFormatter() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * @param registry metrics to render
+	 * @param prefix   only counters whose name starts with this, empty for all
+	 * @param seconds  length of the window, in samples
+	 * @return formatted table, or a notice if nothing matches
+	 */
+	public static String format(MetricsRegistry registry, String prefix, int seconds) {
+		List<String> names = registry.names(prefix);
+		if (names.isEmpty()) {
+			return prefix.isEmpty() ? "No metrics recorded yet\n" : "No metrics match '%s'\n".formatted(prefix);
+		}
+		int width = names.stream().mapToInt(String::length).max().orElse(0);
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Activity over the last %d s (%d samples taken)%n", seconds, registry.samples()));
+		sb.append(String.format("%-" + width + "s %12s %9s %9s %9s  %s%n", "Metric", "Total", "Last/s", "Avg/s", "Max/s", "History"));
+		for (String name : names) {
+			long[] window = registry.series(name).map(s -> s.latest(seconds)).orElse(new long[0]);
+			long max = 0;
+			long sum = 0;
+			for (long v : window) {
+				max = Math.max(max, v);
+				sum += v;
+			}
+			double avg = window.length == 0 ? 0 : (double) sum / window.length;
+			long last = window.length == 0 ? 0 : window[window.length - 1];
+			sb.append(String.format("%-" + width + "s %12d %9d %9.1f %9d  %s%n",
+					name, registry.total(name), last, avg, max, sparkline(window, MAX_CHART_WIDTH)));
+		}
+
+		boolean header = false;
+		for (String name : names) {
+			if (!name.endsWith(HITS)) continue;
+			String cache = name.substring(0, name.length() - HITS.length());
+			String misses = cache + MISSES;
+			if (registry.series(misses).isEmpty()) continue;
+			if (!header) {
+				sb.append(String.format("%nCache hit rates (window / since start):%n"));
+				header = true;
+			}
+			long windowHits = sum(registry.series(name).get().latest(seconds));
+			long windowMisses = sum(registry.series(misses).get().latest(seconds));
+			sb.append(String.format("%-" + width + "s %12s %9s%n", cache,
+					percent(windowHits, windowMisses), percent(registry.total(name), registry.total(misses))));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Draws values as a row of block characters scaled to the largest value. Longer
+	 * series are squeezed by averaging neighbouring samples.
+	 * @param values samples, oldest first
+	 * @param width  maximum number of characters
+	 * @return sparkline, empty for no values
+	 */
+	public static String sparkline(long[] values, int width) {
+		int columns = Math.min(values.length, width);
+		if (columns == 0) return "";
+		double[] buckets = new double[columns];
+		double max = 0;
+		for (int c = 0; c < columns; c++) {
+			int from = (int) ((long) c * values.length / columns);
+			int to = (int) ((long) (c + 1) * values.length / columns);
+			double total = 0;
+			for (int i = from; i < to; i++) {
+				total += values[i];
+			}
+			buckets[c] = total / (to - from);
+			max = Math.max(max, buckets[c]);
+		}
+		StringBuilder sb = new StringBuilder(columns);
+		for (double bucket : buckets) {
+			int level = max == 0 ? 0 : (int) Math.round(bucket / max * (BARS.length - 1));
+			sb.append(BARS[level]);
+		}
+		return sb.toString();
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+		for (long v : values) {
+			sum += v;
+		}
+		return sum;
+	}
+
+	private static String percent(long hits, long misses) {
+		long total = hits + misses;
+		return total == 0 ? "-" : String.format("%.1f%%", 100.0 * hits / total);
+	}
+}
@@ -0,0 +1,163 @@
+package org.uj.routingemulator.common.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Named counters and their per-second history.
+ * <p>
+ * Hot paths keep a {@link Counter} in a field and increment it. Once per second a
+ * sampler takes the increase of every counter since the previous sample and appends it
+ * to the counter's {@link MetricSeries}, so the history holds events per second.
+ * <p>
+ * {@link #global()} is the registry the emulator reports to; its sampler runs on a
+ * daemon thread. Registries created directly are sampled by calling {@link #sample()}.
+ */
+public final class MetricsRegistry {
+	private static final Logger logger = Logger.getLogger(MetricsRegistry.class.getName());
+	public static final int DEFAULT_HISTORY_SECONDS = 600;
+
+	private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+	private final int historySeconds;
+	private ScheduledExecutorService sampler;
+	private long samples;
+
+	private static final class Metric {
+		private final Counter counter;
+		private final MetricSeries series;
+		private long lastTotal;
+
+		Metric(Counter counter, MetricSeries series) {
+			this.counter = counter;
+			this.series = series;
+		}
+	}
+
+	private static final class Global {
+		private static final MetricsRegistry INSTANCE = new MetricsRegistry(DEFAULT_HISTORY_SECONDS);
+
+		static {
+			INSTANCE.start();
+		}
+	}
+
+	/**
+	 * @param historySeconds number of per-second samples kept for each counter
+	 */
+	public MetricsRegistry(int historySeconds) {
+		if (historySeconds <= 0) {
+			throw new IllegalArgumentException("History must be at least one second");
+		}
+		this.historySeconds = historySeconds;
+	}
+
+	/**
+	 * @return the registry shared by the whole emulator, sampled every second
+	 */
+	public static MetricsRegistry global() {
+		return Global.INSTANCE;
+	}
+
+	/**
+	 * Gets or creates a counter. Counters created after sampling started get zero
+	 * samples for the time before they existed.
+	 * @param name dotted metric name, e.g. {@code forwarding.packets}
+	 * @return the counter
+	 */
+	public Counter counter(String name) {
+		Metric metric = metrics.get(name);
+		if (metric == null) {
+			synchronized (this) {
+				metric = metrics.get(name);
+				if (metric == null) {
+					MetricSeries series = new MetricSeries(historySeconds);
+					for (long i = Math.max(0, samples - historySeconds); i < samples; i++) {
+						series.append(0);
+					}
+					metric = new Metric(new Counter(name), series);
+					metrics.put(name, metric);
+				}
+			}
+		}
+		return metric.counter;
+	}
+
+	/**
+	 * @return history of a counter, if it exists
+	 */
+	public Optional<MetricSeries> series(String name) {
+		Metric metric = metrics.get(name);
+		return metric != null ? Optional.of(metric.series) : Optional.empty();
+	}
+
+	/**
+	 * @return total count of a counter, 0 if it does not exist
+	 */
+	public long total(String name) {
+		Metric metric = metrics.get(name);
+		return metric != null ? metric.counter.total() : 0;
+	}
+
+	/**
+	 * @param prefix name prefix, empty for all
+	 * @return names of the matching counters in alphabetical order
+	 */
+	public List<String> names(String prefix) {
+		List<String> names = new ArrayList<>();
+		for (String name : metrics.keySet()) {
+			if (name.startsWith(prefix)) {
+				names.add(name);
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @return number of samples taken so far
+	 */
+	public synchronized long samples() {
+		return samples;
+	}
+
+	/**
+	 * Appends the increase of every counter since the previous sample to its history.
+	 */
+	public synchronized void sample() {
+		for (Metric metric : metrics.values()) {
+			long total = metric.counter.total();
+			metric.series.append(total - metric.lastTotal);
+			metric.lastTotal = total;
+		}
+		samples++;
+	}
+
+	/**
+	 * Starts sampling once per second on a daemon thread. Does nothing if already started.
+	 */
+	public synchronized void start() {
+		if (sampler != null) return;
+		sampler = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "metrics-sampler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sample, 1, 1, TimeUnit.SECONDS);
+		logger.fine("Started metrics sampling with %d s of history".formatted(historySeconds));
+	}
+
+	/**
+	 * Stops sampling. Counters keep counting.
+	 */
+	public synchronized void stop() {
+		if (sampler == null) return;
+		sampler.shutdownNow();
+		sampler = null;
+	}
+}
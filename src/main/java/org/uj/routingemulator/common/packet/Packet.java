@@ -21,9 +21,31 @@ public class Packet {
 		return --ttl <= 0;
 	}
 
+	/**
+	 * @return length of the IP packet in bytes, as counted by interface counters
+	 */
+	public int getLength() {
+		return type.length();
+	}
+
 	public enum PacketType {
-		ICMP_ECHO_REQUEST,
-		ICMP_ECHO_REPLY,
-		ICMP_DESTINATION_UNREACHABLE
+		/** Echo request with the default 56-byte payload. */
+		ICMP_ECHO_REQUEST(84),
+		ICMP_ECHO_REPLY(84),
+		/** Carries the IP header and first 8 bytes of the original packet. */
+		ICMP_DESTINATION_UNREACHABLE(56);
+
+		private final int length;
+
+		PacketType(int length) {
+			this.length = length;
+		}
+
+		/**
+		 * @return IP packet length in bytes, headers included
+		 */
+		public int length() {
+			return length;
+		}
 	}
 }
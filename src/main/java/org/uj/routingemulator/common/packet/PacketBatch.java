@@ -0,0 +1,314 @@
+package org.uj.routingemulator.common.packet;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+
+import java.util.Arrays;
+
+/**
+ * A batch of packets stored column by column in primitive arrays.
+ * <p>
+ * Bulk engines forward millions of packets; one {@link Packet} object per packet, with
+ * its boxed addresses, makes allocation the bottleneck. A batch keeps the source and
+ * destination as packed ints ({@link IPAddress#toInt()}), TTL and type as bytes, and the
+ * forwarding state (current topology node, hop count, status and reason) in further
+ * columns, so filling and forwarding a batch allocates nothing once its arrays have grown.
+ * {@link Packet} stays the convenience type for single packets; {@link #view(int)} and
+ * {@link #add(Packet)} convert between the two.
+ * <p>
+ * Batches are meant to be reused: {@link #clear()} keeps the arrays, and batches taken
+ * from a {@link PacketBatchPool} go back to it on {@link #close()}.
+ * <p>
+ * Not thread-safe.
+ */
+public final class PacketBatch implements AutoCloseable {
+	/**
+	 * Value of the reason column while no reason has been set.
+	 */
+	public static final byte NO_REASON = -1;
+	private static final Packet.PacketType[] TYPES = Packet.PacketType.values();
+	private static final Status[] STATUSES = Status.values();
+
+	private final PacketBatchPool pool;
+	private int[] source;
+	private int[] destination;
+	private byte[] ttl;
+	private byte[] type;
+	private int[] node;
+	private int[] hops;
+	private byte[] status;
+	private byte[] reason;
+	private int size;
+
+	/**
+	 * Forwarding state of a packet in a batch.
+	 */
+	public enum Status {
+		IN_FLIGHT,
+		DELIVERED,
+		DROPPED,
+		TTL_EXPIRED
+	}
+
+	/**
+	 * Creates a batch that is not pooled.
+	 * @param capacity initial capacity; the batch grows as needed
+	 */
+	public PacketBatch(int capacity) {
+		this(capacity, null);
+	}
+
+	PacketBatch(int capacity, PacketBatchPool pool) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative");
+		}
+		this.pool = pool;
+		allocate(Math.max(capacity, 16));
+	}
+
+	private void allocate(int capacity) {
+		source = new int[capacity];
+		destination = new int[capacity];
+		ttl = new byte[capacity];
+		type = new byte[capacity];
+		node = new int[capacity];
+		hops = new int[capacity];
+		status = new byte[capacity];
+		reason = new byte[capacity];
+	}
+
+	/**
+	 * Makes room for at least {@code capacity} packets without further growth.
+	 * @param capacity required capacity
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= source.length) return;
+		int grown = Math.max(capacity, source.length + (source.length >> 1));
+		source = Arrays.copyOf(source, grown);
+		destination = Arrays.copyOf(destination, grown);
+		ttl = Arrays.copyOf(ttl, grown);
+		type = Arrays.copyOf(type, grown);
+		node = Arrays.copyOf(node, grown);
+		hops = Arrays.copyOf(hops, grown);
+		status = Arrays.copyOf(status, grown);
+		reason = Arrays.copyOf(reason, grown);
+	}
+
+	/**
+	 * Appends an in-flight packet.
+	 * @param source      packed source address
+	 * @param destination packed destination address
+	 * @param ttl         TTL between 0 and 255; 0 is replaced by the default TTL when forwarding starts
+	 * @param type        packet type
+	 * @param node        topology graph node of the device sending the packet
+	 * @return index of the packet in this batch
+	 * @throws IllegalArgumentException if the TTL is out of range
+	 */
+	public int add(int source, int destination, int ttl, Packet.PacketType type, int node) {
+		if (ttl < 0 || ttl > 255) {
+			throw new IllegalArgumentException("TTL must be between 0 and 255: " + ttl);
+		}
+		ensureCapacity(size + 1);
+		int i = size++;
+		this.source[i] = source;
+		this.destination[i] = destination;
+		this.ttl[i] = (byte) ttl;
+		this.type[i] = (byte) type.ordinal();
+		this.node[i] = node;
+		this.hops[i] = 0;
+		this.status[i] = (byte) Status.IN_FLIGHT.ordinal();
+		this.reason[i] = NO_REASON;
+		return i;
+	}
+
+	/**
+	 * Appends a copy of a packet. Later changes to the packet do not affect the batch.
+	 * @param packet the packet
+	 * @param node   topology graph node of the device sending the packet
+	 * @return index of the packet in this batch
+	 */
+	public int add(Packet packet, int node) {
+		return add(packet.getSource().toInt(), packet.getDestination().toInt(),
+				Math.max(0, packet.getTtl()), packet.getType(), node);
+	}
+
+	/**
+	 * Removes all packets, keeping the arrays for reuse.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return source.length;
+	}
+
+	/**
+	 * Creates a {@link Packet} with the addresses, type and current TTL of a packet.
+	 * @param i packet index
+	 * @return a new packet, independent of this batch
+	 */
+	public Packet view(int i) {
+		checkIndex(i);
+		return new Packet(IPAddress.fromInt(source[i]), IPAddress.fromInt(destination[i]), TYPES[type[i]], ttl(i));
+	}
+
+	public int source(int i) {
+		checkIndex(i);
+		return source[i];
+	}
+
+	public int destination(int i) {
+		checkIndex(i);
+		return destination[i];
+	}
+
+	/**
+	 * @return TTL of a packet, between 0 and 255
+	 */
+	public int ttl(int i) {
+		checkIndex(i);
+		return ttl[i] & 0xFF;
+	}
+
+	public void setTtl(int i, int value) {
+		checkIndex(i);
+		if (value < 0 || value > 255) {
+			throw new IllegalArgumentException("TTL must be between 0 and 255: " + value);
+		}
+		ttl[i] = (byte) value;
+	}
+
+	public Packet.PacketType type(int i) {
+		checkIndex(i);
+		return TYPES[type[i]];
+	}
+
+	/**
+	 * @return topology graph node the packet is at: its sender, the router it is waiting
+	 *         at, or the router that decided its outcome
+	 */
+	public int node(int i) {
+		checkIndex(i);
+		return node[i];
+	}
+
+	public void setNode(int i, int value) {
+		checkIndex(i);
+		node[i] = value;
+	}
+
+	public int hops(int i) {
+		checkIndex(i);
+		return hops[i];
+	}
+
+	public void setHops(int i, int value) {
+		checkIndex(i);
+		hops[i] = value;
+	}
+
+	public Status status(int i) {
+		checkIndex(i);
+		return STATUSES[status[i]];
+	}
+
+	/**
+	 * @return reason code set with the final status, or {@link #NO_REASON}
+	 */
+	public byte reason(int i) {
+		checkIndex(i);
+		return reason[i];
+	}
+
+	/**
+	 * Ends a packet's flight.
+	 * @param i      packet index
+	 * @param status final status, not {@link Status#IN_FLIGHT}
+	 * @param hops   final hop count
+	 * @param reason reason code chosen by the forwarding engine, or {@link #NO_REASON}
+	 */
+	public void finish(int i, Status status, int hops, byte reason) {
+		checkIndex(i);
+		if (status == Status.IN_FLIGHT) {
+			throw new IllegalArgumentException("A finished packet cannot be in flight");
+		}
+		this.status[i] = (byte) status.ordinal();
+		this.hops[i] = hops;
+		this.reason[i] = reason;
+	}
+
+	/**
+	 * @return number of packets with the given status
+	 */
+	public int count(Status wanted) {
+		byte code = (byte) wanted.ordinal();
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (status[i] == code) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Decrements the TTL of every in-flight packet. Packets whose TTL reaches zero get
+	 * {@link Status#TTL_EXPIRED}, like {@link Packet#decrementTTL()} reporting expiry.
+	 * @return number of packets that expired
+	 */
+	public int decrementTtl() {
+		byte inFlight = (byte) Status.IN_FLIGHT.ordinal();
+		int expired = 0;
+		for (int i = 0; i < size; i++) {
+			if (status[i] == inFlight && expire(i)) {
+				expired++;
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Decrements the TTL of the listed packets and removes the expired ones from the list.
+	 * The remaining indices keep their order.
+	 * @param indices indices of in-flight packets; compacted in place
+	 * @param count   number of valid entries in {@code indices}
+	 * @return number of entries left in {@code indices}
+	 */
+	public int decrementTtl(int[] indices, int count) {
+		int kept = 0;
+		for (int k = 0; k < count; k++) {
+			int i = indices[k];
+			if (!expire(i)) {
+				indices[kept++] = i;
+			}
+		}
+		return kept;
+	}
+
+	private boolean expire(int i) {
+		int left = (ttl[i] & 0xFF) - 1;
+		ttl[i] = (byte) Math.max(0, left);
+		if (left > 0) return false;
+		status[i] = (byte) Status.TTL_EXPIRED.ordinal();
+		return true;
+	}
+
+	/**
+	 * Returns the batch to the pool it came from, cleared. Does nothing for batches that
+	 * are not pooled. The batch must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.release(this);
+		}
+	}
+
+	private void checkIndex(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Packet index %d out of bounds for batch of %d".formatted(i, size));
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package org.uj.routingemulator.common.packet;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps released {@link PacketBatch}es for reuse, so repeated bulk runs do not
+ * reallocate their columns. Thread-safe.
+ */
+public final class PacketBatchPool {
+	private final ArrayDeque<PacketBatch> free = new ArrayDeque<>();
+	private final int maxRetained;
+
+	/**
+	 * @param maxRetained number of released batches to keep; further ones are left to the GC
+	 */
+	public PacketBatchPool(int maxRetained) {
+		if (maxRetained < 0) {
+			throw new IllegalArgumentException("Retained batch count must not be negative");
+		}
+		this.maxRetained = maxRetained;
+	}
+
+	/**
+	 * Takes an empty batch from the pool, or creates one.
+	 * @param capacity capacity the batch should have without growing
+	 * @return an empty batch; {@link PacketBatch#close()} returns it to this pool
+	 */
+	public PacketBatch acquire(int capacity) {
+		PacketBatch batch;
+		synchronized (free) {
+			batch = free.pollLast();
+		}
+		if (batch == null) {
+			return new PacketBatch(capacity, this);
+		}
+		batch.ensureCapacity(capacity);
+		return batch;
+	}
+
+	void release(PacketBatch batch) {
+		batch.clear();
+		synchronized (free) {
+			if (free.size() < maxRetained && !free.contains(batch)) {
+				free.addLast(batch);
+			}
+		}
+	}
+
+	/**
+	 * @return number of batches waiting to be reused
+	 */
+	public int available() {
+		synchronized (free) {
+			return free.size();
+		}
+	}
+}
@@ -2,7 +2,7 @@ package org.uj.routingemulator.common.ping;
 
 import org.uj.routingemulator.common.addressing.IPAddress;
 
-import java.util.DoubleSummaryStatistics;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -22,46 +22,94 @@ public class PingFormatter {
      * @return formatted string (multi-line)
      */
     public static String format(IPAddress dst, IPAddress src, int ttl, PingStatistics stats) {
-        StringBuilder sb = new StringBuilder();
-        String dstStr = dst.toString();
-        String srcStr = src != null ? src.toString() : "0.0.0.0";
-
-        sb.append("PING ").append(dstStr).append(" (").append(dstStr).append("): 56(84) bytes of data.%n");
+        StringBuilder sb = new StringBuilder(formatHeader(dst));
+        // Per-probe lines come from the retained results; the summary comes from the aggregate
+        for (PingResult r : stats.results()) {
+            sb.append(formatProbe(dst, src, ttl, r));
+        }
+        sb.append(formatSummary(dst, stats));
+        return sb.toString();
+    }
 
-        List<PingResult> results = stats.results();
+    /**
+     * Formats the first line of ping output, printed before any probe is sent.
+     *
+     * @param dst Destination IPAddress
+     * @return formatted line
+     */
+    public static String formatHeader(IPAddress dst) {
+        return String.format("PING %s (%s): 56(84) bytes of data.%n", dst, dst);
+    }
 
-        for (PingResult r : results) {
-            if (r.success()) {
-                sb.append(String.format("64 bytes from %s: icmp_seq=%d ttl=%d time=%dms%n", dstStr, r.sequence(), ttl, r.rttMs()));
-            } else {
-                String reason = r.errorMessage();
-                if (reason == null || reason.isEmpty()) {
-                    reason = "Destination Host Unreachable";
-                }
-                sb.append(String.format("From %s icmp_seq=%d %s%n", srcStr, r.sequence(), reason));
-            }
+    /**
+     * Formats the output line of a single probe.
+     *
+     * @param dst Destination IPAddress
+     * @param src Source IPAddress used for From lines
+     * @param ttl TTL used for the probe
+     * @param r   probe result
+     * @return formatted line
+     */
+    public static String formatProbe(IPAddress dst, IPAddress src, int ttl, PingResult r) {
+        if (r.success()) {
+            return String.format("64 bytes from %s: icmp_seq=%d ttl=%d time=%dms%n", dst, r.sequence(), ttl, r.rttMs());
+        }
+        String reason = r.errorMessage();
+        if (reason == null || reason.isEmpty()) {
+            reason = "Destination Host Unreachable";
         }
+        return String.format("From %s icmp_seq=%d %s%n", src != null ? src.toString() : "0.0.0.0", r.sequence(), reason);
+    }
 
-        sb.append("%n--- ").append(dstStr).append(" ping statistics ---%n");
+    /**
+     * Formats the statistics printed after the last probe.
+     *
+     * @param dst   Destination IPAddress
+     * @param stats PingStatistics object
+     * @return formatted string (multi-line)
+     */
+    public static String formatSummary(IPAddress dst, PingStatistics stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%n--- %s ping statistics ---%n", dst));
         int transmitted = stats.getSent();
         int received = stats.getReceived();
         long errors = (long) transmitted - received; // simple
-        double loss = transmitted == 0 ? 100.0 : (100.0 * (transmitted - received) / transmitted);
+        double loss = stats.getLossPercent();
         sb.append(String.format("%d packets transmitted, %d received, %s errors, %.0f%% packet loss, time %dms%n",
                 transmitted, received, (errors > 0 ? "+" + errors : "0"), loss, 0));
 
-        // rtt stats
-        List<Long> rtts = results.stream().filter(PingResult::success).map(PingResult::rttMs).toList();
-        if (!rtts.isEmpty()) {
-            DoubleSummaryStatistics stat = rtts.stream().mapToDouble(Long::doubleValue).summaryStatistics();
-            double min = stat.getMin();
-            double avg = stat.getAverage();
-            double max = stat.getMax();
-            double mdev = Math.sqrt(rtts.stream().mapToDouble(v -> (v - avg) * (v - avg)).average().orElse(0));
-            sb.append(String.format("rtt min/avg/max/mdev = %.2f/%.2f/%.2f/%.2f ms%n", min, avg, max, mdev));
+        if (received > 0) {
+            sb.append(String.format("rtt min/avg/max/mdev = %.2f/%.2f/%.2f/%.2f ms%n",
+                    (double) stats.getMinRttMs(), stats.getAvgRttMs(), (double) stats.getMaxRttMs(), stats.getMdevRttMs()));
+            sb.append(String.format("rtt p50/p99 = %d/%d ms%n", stats.getRttPercentileMs(50), stats.getRttPercentileMs(99)));
         }
 
         return sb.toString();
     }
-}
 
+    /**
+     * Formats the results of a ping sweep. Reachable destinations are listed in address order.
+     *
+     * @param sweep   finished sweep
+     * @param results results delivered to the sweep listener
+     * @return formatted string (multi-line)
+     */
+    public static String formatSweep(PingSweep sweep, List<PingSweepResult> results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("PING SWEEP %s: %d addresses%n", sweep.target(), sweep.total()));
+
+        results.stream()
+                .filter(PingSweepResult::reachable)
+                .sorted(Comparator.comparingLong(r -> Integer.toUnsignedLong(r.destination().toInt())))
+                .forEach(r -> sb.append(String.format("%s is alive (%d hops, time=%dms)%n",
+                        r.destination(), r.statistics().getFirstReplyHops(), r.statistics().getMinRttMs())));
+
+        sb.append(String.format("%n--- %s ping sweep statistics ---%n", sweep.target()));
+        sb.append(String.format("%d addresses probed, %d alive, %d unreachable%n",
+                sweep.completed(), sweep.reachable(), sweep.completed() - sweep.reachable()));
+        if (sweep.isCancelled()) {
+            sb.append(String.format("Sweep cancelled, %d addresses not probed%n", sweep.total() - sweep.completed()));
+        }
+        return sb.toString();
+    }
+}
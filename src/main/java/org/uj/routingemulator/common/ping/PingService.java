@@ -5,25 +5,79 @@ import org.uj.routingemulator.common.forwarding.ForwardingEngine;
 import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
 import org.uj.routingemulator.common.forwarding.RouteSelector;
 import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.host.HostInterface;
 import org.uj.routingemulator.router.model.Router;
 import org.uj.routingemulator.router.model.RouterInterface;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.logging.Logger;
 
 /**
- * Simple PingService: host-only L3 ping using ForwardingEngine. RTT is mocked deterministically.
+ * Simple PingService: host-only L3 ping using ForwardingEngine. RTT comes from a {@link ProbeModel},
+ * by default a fixed per-hop latency.
+ * <p>
+ * With a deterministic model every probe of one ping call has the same outcome, so only the
+ * first probe is forwarded and the remaining results are derived from it. Otherwise results
+ * are aggregated as they arrive and only the most recent ones are kept.
+ * <p>
+ * Each probe is forwarded under {@link NetworkTopology#readConfiguration}, so it never
+ * sees a partly published set of router configurations.
+ * <p>
+ * The engine of a ping call records the interfaces each request, and the reply to a
+ * delivered request, cross as it forwards them; the hits are counted on the interface
+ * counters once for every probe the forwarded one stands for.
  */
 public class PingService {
 	private static final Logger logger = Logger.getLogger(PingService.class.getName());
 	private static final long BASE_MS = 1;
 	private static final long PER_HOP_MS = 1;
+	/**
+	 * Most recent probe results kept for per-probe output; older ones only count in the summary.
+	 */
+	private static final int RESULT_WINDOW = 1000;
+	static final int DEFAULT_COUNT = 4;
+	static final int DEFAULT_TTL = 64;
 
-	private final ForwardingEngine engine = new ForwardingEngine();
+	private final Function<InterfaceCounters, ForwardingEngine> engines;
+	private final ProbeModel probeModel;
+	private final InterfaceCounters counters;
+
+	public PingService() {
+		this(ProbeModel.hopLatency(BASE_MS, PER_HOP_MS));
+	}
+
+	public PingService(ProbeModel probeModel) {
+		this(ForwardingEngine::new, probeModel);
+	}
+
+	/**
+	 * @param engines    creates the engine of one ping call, given the counters it counts
+	 *                   into, or null if the ping is not counted
+	 * @param probeModel model turning forwarding outcomes into probe results
+	 */
+	public PingService(Function<InterfaceCounters, ForwardingEngine> engines, ProbeModel probeModel) {
+		this(engines, probeModel, InterfaceCounters.global());
+	}
+
+	/**
+	 * @param engines    creates the engine of one ping call, given the counters it counts
+	 *                   into, or null if the ping is not counted
+	 * @param probeModel model turning forwarding outcomes into probe results
+	 * @param counters   counters updated with the probes and replies, or null to ping without counting
+	 */
+	public PingService(Function<InterfaceCounters, ForwardingEngine> engines, ProbeModel probeModel, InterfaceCounters counters) {
+		this.engines = engines;
+		this.probeModel = probeModel;
+		this.counters = counters;
+	}
 
 	public PingStatistics ping(Host src, String dstIpString, int count, NetworkTopology topology) {
 		logger.fine("%s: Pinging %s with %d probes...".formatted(src.getHostname(), dstIpString, count));
@@ -31,58 +85,74 @@ public class PingService {
 		try {
 			dst = IPAddress.fromString(dstIpString);
 		} catch (RuntimeException e) {
-			List<PingResult> failures = new ArrayList<>();
-			for (int i = 1; i <= Math.max(1, count); i++) {
-				logger.finest("Probe %d failed: Invalid destination IP: %s".formatted(i, dstIpString));
-				failures.add(new PingResult(i, false, 0, 0, "Invalid destination IP: " + dstIpString));
-			}
-			return new PingStatistics(failures);
+			logger.finest("All probes failed: Invalid destination IP: %s".formatted(dstIpString));
+			return new PingStatistics(new RepeatedPingResults(new PingResult(1, false, 0, 0, "Invalid destination IP: " + dstIpString), Math.max(1, count)));
 		}
 		return ping(src, dst, count, topology);
 	}
 
 	public PingStatistics ping(Host src, IPAddress dst, int count, NetworkTopology topology) {
+		return ping(src, dst, count, topology, null);
+	}
+
+	/**
+	 * Pings from a host, reporting every probe as it completes.
+	 * <p>
+	 * If the calling thread is interrupted, no further probes are sent and the statistics
+	 * cover the probes sent so far.
+	 *
+	 * @param listener receives each probe result in sequence order, may be null
+	 */
+	public PingStatistics ping(Host src, IPAddress dst, int count, NetworkTopology topology, Consumer<PingResult> listener) {
 		logger.fine("%s: Pinging %s with %d probes...".formatted(src.getHostname(), dst, count));
-		List<PingResult> results = new ArrayList<>();
-		if (count <= 0) count = 4;
+		if (count <= 0) count = DEFAULT_COUNT;
 		HostInterface hi = src.getHostInterface();
 		if (hi == null) {
-			for (int i = 1; i <= count; i++) {
-				logger.finest("Probe %d failed: Source host has no interface".formatted(i));
-				results.add(new PingResult(i, false, 0, 0, "Source host has no interface"));
-			}
-			return new PingStatistics(results);
+			logger.finest("All probes failed: Source host has no interface");
+			return new PingStatistics(new RepeatedPingResults(new PingResult(1, false, 0, 0, "Source host has no interface"), count));
 		}
 
-		IPAddress sourceIp = null;
-		if (hi.getInterfaceAddress() != null) {
-			sourceIp = hi.getInterfaceAddress().ipAddress();
-		}
+		IPAddress srcAddr = sourceAddress(src);
 
-		for (int seq = 1; seq <= count; seq++) {
-			IPAddress srcAddr = sourceIp != null ? sourceIp : new IPAddress(0, 0, 0, 0);
+		Prober prober = new Prober(topology);
+		return probe(count, listener, prober, seq -> {
 			logger.finest("Probe %d: Sending ICMP Echo Request from %s to %s".formatted(seq, srcAddr, dst));
-			Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, 64);
-			logger.finest("Forwarding packet %s to destination %s".formatted(p, dst));
-			ForwardingOutcome outcome = engine.forward(p, src, topology);
-			if (outcome.reached()) {
-				long rtt = BASE_MS + outcome.hopCount() * PER_HOP_MS;
-				logger.finest("Probe %d succeeded: Reached destination in %d ms with %d hops".formatted(seq, rtt, outcome.hopCount()));
-				results.add(new PingResult(seq, true, outcome.hopCount(), rtt, null));
-			} else {
-				logger.finest("Probe %d failed: %s after %d hops".formatted(seq, outcome.reason(), outcome.hopCount()));
-				results.add(new PingResult(seq, false, outcome.hopCount(), 0, outcome.reason() != null ? outcome.reason().name() : null));
-			}
-		}
-		return new PingStatistics(results);
+			Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, DEFAULT_TTL);
+			return prober.send(p, query -> prober.engine.forward(p, src, query));
+		});
 	}
 
 	public PingStatistics ping(Router srcRouter, IPAddress dst, int count, int ttl, NetworkTopology topology) {
 		logger.fine("%s: Router pinging %s with %d probes (ttl=%d)...".formatted(srcRouter.getName(), dst, count, ttl));
-		List<PingResult> results = new ArrayList<>();
-		if (count <= 0) count = 4;
-		if (ttl <= 0) ttl = 64;
+		if (count <= 0) count = DEFAULT_COUNT;
+		if (ttl <= 0) ttl = DEFAULT_TTL;
+		int probeTtl = ttl;
+
+		IPAddress srcAddr = topology.readConfiguration(() -> sourceAddress(srcRouter, dst));
+
+		Prober prober = new Prober(topology);
+		return probe(count, null, prober, seq -> {
+			logger.finest("Probe %d: Router %s sending ICMP Echo Request from %s to %s with ttl=%d".formatted(seq, srcRouter.getName(), srcAddr, dst, probeTtl));
+			Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, probeTtl);
+			return prober.send(p, query -> prober.engine.forward(p, srcRouter, query));
+		});
+	}
 
+	/**
+	 * @return the source address of probes sent by a host, 0.0.0.0 if it has none
+	 */
+	static IPAddress sourceAddress(Host src) {
+		HostInterface hi = src.getHostInterface();
+		if (hi != null && hi.getInterfaceAddress() != null) {
+			return hi.getInterfaceAddress().ipAddress();
+		}
+		return new IPAddress(0, 0, 0, 0);
+	}
+
+	/**
+	 * @return the source address of probes sent by a router towards {@code dst}, 0.0.0.0 if it has none
+	 */
+	static IPAddress sourceAddress(Router srcRouter, IPAddress dst) {
 		// Select a source IP using the new RouteSelector
 		RouterInterface ri = RouteSelector.determineExitInterface(srcRouter, dst);
 		if (ri == null) {
@@ -93,23 +163,149 @@ public class PingService {
 					.orElse(null);
 		}
 		IPAddress sourceIp = RouteSelector.determineSourceIp(ri);
+		return sourceIp != null ? sourceIp : new IPAddress(0, 0, 0, 0);
+	}
+
+	/**
+	 * @return true if every probe of a ping has the outcome of the first one, see {@link ProbeModel#isDeterministic()}
+	 */
+	boolean isDeterministic() {
+		return probeModel.isDeterministic();
+	}
+
+	/**
+	 * Builds the statistics of a ping whose first probe was forwarded elsewhere, e.g. in a
+	 * batch. Only valid with a {@linkplain #isDeterministic() deterministic} probe model.
+	 * The probes are counted by whoever forwarded the first one.
+	 * @param outcome outcome of the first probe
+	 * @param count   probes of the ping
+	 */
+	PingStatistics statistics(ForwardingOutcome outcome, int count) {
+		PingResult first = probeModel.result(1, outcome);
+		logProbe(first);
+		return new PingStatistics(new RepeatedPingResults(first, count));
+	}
+
+	/**
+	 * Forwards the probes of one ping call and counts them. The engine records the
+	 * interfaces each probe and its reply cross; the hits are counted once per probe the
+	 * forwarded one stands for. Topology lookups are reused until the topology or its
+	 * configuration changes.
+	 */
+	private final class Prober {
+		private final NetworkTopology topology;
+		private final InterfaceCounters.Hits hits = new InterfaceCounters.Hits();
+		private final ForwardingEngine engine;
+		private TopologyQuery query;
+		private long topologyVersion;
+		private long configurationVersion;
+
+		Prober(NetworkTopology topology) {
+			this.topology = topology;
+			this.engine = engines.apply(counters != null ? InterfaceCounters.recording(hits) : null);
+		}
+
+		/**
+		 * Forwards a request under a configuration read and, if it is delivered, its reply.
+		 * @param forward forwards the request with the given lookups
+		 * @return outcome of the request
+		 */
+		ForwardingOutcome send(Packet request, Function<TopologyQuery, ForwardingOutcome> forward) {
+			return topology.readConfiguration(() -> {
+				TopologyQuery lookups = query();
+				int requestHits = hits.size();
+				ForwardingOutcome outcome = forward.apply(lookups);
+				if (outcome.reached() && counters != null) {
+					reply(request, requestHits, lookups);
+				}
+				return outcome;
+			});
+		}
+
+		private TopologyQuery query() {
+			if (query == null || topology.version() != topologyVersion || topology.configurationVersion() != configurationVersion) {
+				topologyVersion = topology.version();
+				configurationVersion = topology.configurationVersion();
+				query = new NetworkTopologyQuery(topology);
+			}
+			return query;
+		}
+
+		/**
+		 * Forwards the reply from the router owning the request's destination, or from the
+		 * host the request was delivered to.
+		 */
+		private void reply(Packet request, int requestHits, TopologyQuery lookups) {
+			Packet reply = new Packet(request.getDestination(), request.getSource(), Packet.PacketType.ICMP_ECHO_REPLY, DEFAULT_TTL);
+			RouterInterface ri = lookups.findInterfaceByIp(request.getDestination());
+			Router router = ri != null ? lookups.findRouterOwningInterface(ri) : null;
+			if (router != null) {
+				engine.forward(reply, router, lookups);
+			} else if (hits.lastReceived(requestHits) instanceof HostInterface target) {
+				TopologyGraph graph = topology.graph();
+				int node = graph.nodeOfInterface(target);
+				if (node >= 0 && graph.device(node) instanceof Host responder) {
+					engine.forward(reply, responder, lookups);
+				}
+			}
+		}
+
+		/**
+		 * Counts what was forwarded since the last call, once for each of {@code probes}.
+		 */
+		void count(long probes) {
+			if (counters != null) {
+				hits.countInto(counters, 0, hits.size(), probes);
+			}
+			hits.clear();
+		}
+	}
 
-		for (int seq = 1; seq <= count; seq++) {
-			performPing(srcRouter, dst, ttl, topology, sourceIp, seq, results);
+	/**
+	 * Sends {@code count} probes. With a deterministic probe model the first probe's
+	 * outcome stands for all of them, and it is counted once for every probe sent. Stops
+	 * early if the thread is interrupted.
+	 */
+	private PingStatistics probe(int count, Consumer<PingResult> listener, Prober prober, IntFunction<ForwardingOutcome> send) {
+		if (probeModel.isDeterministic()) {
+			ForwardingOutcome outcome = send.apply(1);
+			PingResult first = probeModel.result(1, outcome);
+			logProbe(first);
+			if (count > 1) {
+				logger.finest("Probes 2-%d share the outcome of probe 1".formatted(count));
+			}
+			if (listener == null) {
+				prober.count(count);
+				return new PingStatistics(new RepeatedPingResults(first, count));
+			}
+			RepeatedPingResults results = new RepeatedPingResults(first, count);
+			int sent = 0;
+			while (sent < count && !Thread.currentThread().isInterrupted()) {
+				listener.accept(results.get(sent++));
+			}
+			prober.count(sent);
+			return new PingStatistics(new RepeatedPingResults(first, sent));
+		}
+
+		PingStatistics stats = PingStatistics.streaming(Math.min(count, RESULT_WINDOW));
+		for (int seq = 1; seq <= count && !Thread.currentThread().isInterrupted(); seq++) {
+			ForwardingOutcome outcome = send.apply(seq);
+			prober.count(1);
+			PingResult result = probeModel.result(seq, outcome);
+			logProbe(result);
+			stats.record(result);
+			if (listener != null) {
+				listener.accept(result);
+			}
 		}
-		return new PingStatistics(results);
+		return stats;
 	}
 
-	private void performPing(Router srcRouter, IPAddress dst, int ttl, NetworkTopology topology, IPAddress sourceIp, int seq, List<PingResult> results) {
-		IPAddress srcAddr = sourceIp != null ? sourceIp : new IPAddress(0, 0, 0, 0);
-		logger.finest("Probe %d: Router %s sending ICMP Echo Request from %s to %s with ttl=%d".formatted(seq, srcRouter.getName(), srcAddr, dst, ttl));
-		Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, ttl);
-		ForwardingOutcome outcome = engine.forward(p, srcRouter, topology);
-		if (outcome.reached()) {
-			long rtt = BASE_MS + outcome.hopCount() * PER_HOP_MS;
-			results.add(new PingResult(seq, true, outcome.hopCount(), rtt, null));
+	private static void logProbe(PingResult result) {
+		if (result.success()) {
+			logger.finest("Probe %d succeeded: Reached destination in %d ms with %d hops".formatted(result.sequence(), result.rttMs(), result.hopCount()));
 		} else {
-			results.add(new PingResult(seq, false, outcome.hopCount(), 0, outcome.reason() != null ? outcome.reason().name() : null));
+			logger.finest("Probe %d failed: %s after %d hops".formatted(result.sequence(), result.errorMessage(), result.hopCount()));
 		}
 	}
-}
\ No newline at end of file
+}
@@ -1,24 +1,170 @@
 package org.uj.routingemulator.common.ping;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Aggregated ping statistics for a ping operation.
+ * <p>
+ * Results are summarized as they are recorded: counts, RTT min/avg/max and mean
+ * deviation (Welford's method), and an {@link RttHistogram} for percentiles. Summaries
+ * cost the same whatever the number of probes. Individual results are kept only in a
+ * window: all of them when built from a list, or the most recent ones when created with
+ * {@link #streaming(int)} for long or continuous pings.
+ * <p>
+ * Statistics that are still being recorded are not thread-safe.
  */
-public record PingStatistics(List<PingResult> results) {
+public final class PingStatistics {
+    private final List<PingResult> results;
+    private final ArrayDeque<PingResult> window;
+    private final int windowSize;
+    private final RttHistogram histogram = new RttHistogram();
+
+    private int sent;
+    private int received;
+    private long minRtt = Long.MAX_VALUE;
+    private long maxRtt;
+    private double meanRtt;
+    private double squaredDeviations;
+    private int firstReplyHops = -1;
+
+    /**
+     * Summarizes a finished set of probes. {@link #results()} returns the list itself.
+     *
+     * @param results probe results in sequence order
+     */
+    public PingStatistics(List<PingResult> results) {
+        this.results = results;
+        this.window = null;
+        this.windowSize = 0;
+        if (results instanceof RepeatedPingResults repeated) {
+            if (!repeated.isEmpty()) {
+                add(repeated.get(0), repeated.size());
+            }
+        } else {
+            for (PingResult result : results) {
+                add(result, 1);
+            }
+        }
+    }
+
+    private PingStatistics(int windowSize) {
+        this.results = null;
+        this.window = new ArrayDeque<>(Math.min(windowSize, 1024));
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Creates empty statistics to be filled with {@link #record(PingResult)}.
+     *
+     * @param windowSize number of most recent results to keep, 0 to keep none
+     * @return empty statistics
+     */
+    public static PingStatistics streaming(int windowSize) {
+        if (windowSize < 0) {
+            throw new IllegalArgumentException("Window size must not be negative");
+        }
+        return new PingStatistics(windowSize);
+    }
+
+    /**
+     * Adds one probe result to statistics created with {@link #streaming(int)}.
+     *
+     * @param result probe result
+     * @throws UnsupportedOperationException if the statistics were built from a list
+     */
+    public void record(PingResult result) {
+        if (window == null) {
+            throw new UnsupportedOperationException("Statistics built from a list are read-only");
+        }
+        add(result, 1);
+        if (windowSize > 0) {
+            if (window.size() == windowSize) {
+                window.removeFirst();
+            }
+            window.addLast(result);
+        }
+    }
+
+    private void add(PingResult result, int times) {
+        sent += times;
+        if (!result.success()) {
+            return;
+        }
+        long rtt = result.rttMs();
+        if (firstReplyHops < 0) {
+            firstReplyHops = result.hopCount();
+        }
+        // Merge `times` equal values into the running mean and sum of squared deviations
+        int before = received;
+        received += times;
+        double delta = rtt - meanRtt;
+        meanRtt += delta * times / received;
+        squaredDeviations += delta * delta * before * times / received;
+        minRtt = Math.min(minRtt, rtt);
+        maxRtt = Math.max(maxRtt, rtt);
+        histogram.record(rtt, times);
+    }
+
+    /**
+     * @return probe results: every result when built from a list, otherwise the most recent window
+     */
+    public List<PingResult> results() {
+        return results != null ? results : Collections.unmodifiableList(new ArrayList<>(window));
+    }
 
     public int getSent() {
-        return results.size();
+        return sent;
     }
 
     public int getReceived() {
-        return (int) results.stream().filter(PingResult::success).count();
+        return received;
     }
 
     public double getLossPercent() {
-        if (getSent() == 0) return 100.0;
-        return 100.0 * (getSent() - getReceived()) / getSent();
+        if (sent == 0) return 100.0;
+        return 100.0 * (sent - received) / sent;
     }
 
-}
+    /**
+     * @return smallest RTT in ms, 0 if no reply was received
+     */
+    public long getMinRttMs() {
+        return received == 0 ? 0 : minRtt;
+    }
+
+    public long getMaxRttMs() {
+        return maxRtt;
+    }
+
+    public double getAvgRttMs() {
+        return meanRtt;
+    }
 
+    /**
+     * @return mean deviation (population standard deviation) of the RTT in ms
+     */
+    public double getMdevRttMs() {
+        return received == 0 ? 0 : Math.sqrt(squaredDeviations / received);
+    }
+
+    /**
+     * Gets an RTT percentile of the received replies, accurate to about 3%.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return RTT in ms, 0 if no reply was received
+     */
+    public long getRttPercentileMs(double percentile) {
+        if (received == 0) return 0;
+        return Math.max(minRtt, Math.min(maxRtt, histogram.percentile(percentile)));
+    }
+
+    /**
+     * @return hop count of the first reply, 0 if no reply was received
+     */
+    public int getFirstReplyHops() {
+        return Math.max(0, firstReplyHops);
+    }
+}
@@ -0,0 +1,89 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.Subnet;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle to a running ping sweep started by {@link PingSweepService}.
+ * <p>
+ * Results are delivered to the sweep's listener as they complete. {@link #completion()}
+ * completes once every started destination has been reported, including after
+ * {@link #cancel()}; destinations not yet started when the sweep is cancelled are skipped.
+ */
+public final class PingSweep {
+	private final Subnet target;
+	private final int total;
+	private final AtomicInteger completed = new AtomicInteger();
+	private final AtomicInteger reachable = new AtomicInteger();
+	private final CompletableFuture<PingSweep> completion = new CompletableFuture<>();
+	private volatile boolean cancelled;
+
+	PingSweep(Subnet target, int total) {
+		this.target = target;
+		this.total = total;
+	}
+
+	public Subnet target() {
+		return target;
+	}
+
+	/**
+	 * @return number of destinations in the swept prefix
+	 */
+	public int total() {
+		return total;
+	}
+
+	/**
+	 * @return number of destinations reported so far
+	 */
+	public int completed() {
+		return completed.get();
+	}
+
+	/**
+	 * @return number of destinations that answered so far
+	 */
+	public int reachable() {
+		return reachable.get();
+	}
+
+	/**
+	 * Stops starting new destinations. Probes already in flight still report their result.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	/**
+	 * @return future completed with this sweep once it has finished or drained after cancellation
+	 */
+	public CompletableFuture<PingSweep> completion() {
+		return completion;
+	}
+
+	void record(PingSweepResult result) {
+		if (result.reachable()) {
+			reachable.incrementAndGet();
+		}
+		completed.incrementAndGet();
+	}
+
+	void finish() {
+		completion.complete(this);
+	}
+
+	void fail(Throwable error) {
+		completion.completeExceptionally(error);
+	}
+}
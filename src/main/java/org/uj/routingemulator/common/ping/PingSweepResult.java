@@ -0,0 +1,15 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+
+/**
+ * Result of pinging one destination during a sweep.
+ */
+public record PingSweepResult(IPAddress destination, PingStatistics statistics) {
+	/**
+	 * @return true if at least one probe was answered
+	 */
+	public boolean reachable() {
+		return statistics.getReceived() > 0;
+	}
+}
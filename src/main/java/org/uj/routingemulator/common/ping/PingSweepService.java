@@ -0,0 +1,263 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.packet.PacketBatch;
+import org.uj.routingemulator.common.simulation.BatchForwarder;
+import org.uj.routingemulator.common.simulation.ForwardingRequest;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.NetworkInterface;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.host.HostInterface;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Pings every host address of a prefix concurrently.
+ * <p>
+ * Each destination is pinged on its own virtual thread with the sweep's
+ * {@link PingService}, so a sweep costs no more platform threads than a single ping. At most
+ * {@code maxInFlight} destinations are probed at once. Results are streamed to the
+ * listener as they complete, in completion order; the listener is never called
+ * concurrently, so it does not need to be thread-safe.
+ * <p>
+ * If the ping service is {@linkplain PingService#isDeterministic() deterministic}, every
+ * destination needs one forwarded packet, so the sweep forwards {@code maxInFlight} destinations at a time as one {@link PacketBatch}
+ * through a {@link BatchForwarder} instead, on a single virtual thread rather than one
+ * thread and one configuration read per destination. Results of a batch are delivered
+ * together, in address order. Each request stands for all probes of its destination on
+ * the interface counters, and so does the echo reply forwarded for each delivered one.
+ * <p>
+ * Forwarding only reads the topology. Each destination, or each batch, is probed under
+ * {@link NetworkTopology#readConfiguration}, so configurations published in the middle of
+ * a sweep apply to whole destinations, never to part of a path.
+ */
+public class PingSweepService {
+	private static final Logger logger = Logger.getLogger(PingSweepService.class.getName());
+	public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+	public static final int MAX_SWEEP_ADDRESSES = 1 << 16;
+
+	private final PingService pingService;
+	private final int maxInFlight;
+
+	public PingSweepService() {
+		this(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * @param maxInFlight maximum number of destinations probed concurrently
+	 */
+	public PingSweepService(int maxInFlight) {
+		this(new PingService(), maxInFlight);
+	}
+
+	/**
+	 * @param pingService pings each destination; a deterministic one lets the sweep batch destinations
+	 * @param maxInFlight maximum number of destinations probed concurrently
+	 */
+	public PingSweepService(PingService pingService, int maxInFlight) {
+		if (maxInFlight <= 0) {
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		}
+		this.pingService = pingService;
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Starts a sweep from a host.
+	 * @param src      source host
+	 * @param target   prefix to sweep
+	 * @param count    probes per destination
+	 * @param topology network topology
+	 * @param listener receives one result per destination
+	 * @return handle for cancellation and completion
+	 */
+	public PingSweep sweep(Host src, Subnet target, int count, NetworkTopology topology, Consumer<PingSweepResult> listener) {
+		logger.fine("%s: Sweeping %s with %d probes per address...".formatted(src.getHostname(), target, count));
+		if (pingService.isDeterministic() && src.getHostInterface() != null) {
+			IPAddress source = PingService.sourceAddress(src);
+			int probes = count > 0 ? count : PingService.DEFAULT_COUNT;
+			return startBatched(target, topology, listener, probes, dst -> new ForwardingRequest(src,
+					new Packet(source, dst, Packet.PacketType.ICMP_ECHO_REQUEST, PingService.DEFAULT_TTL)));
+		}
+		return start(target, listener, dst -> topology.readConfiguration(() -> pingService.ping(src, dst, count, topology)));
+	}
+
+	/**
+	 * Starts a sweep from a router.
+	 * @param src      source router
+	 * @param target   prefix to sweep
+	 * @param count    probes per destination
+	 * @param ttl      TTL of each probe
+	 * @param topology network topology
+	 * @param listener receives one result per destination
+	 * @return handle for cancellation and completion
+	 */
+	public PingSweep sweep(Router src, Subnet target, int count, int ttl, NetworkTopology topology, Consumer<PingSweepResult> listener) {
+		logger.fine("%s: Sweeping %s with %d probes per address (ttl=%d)...".formatted(src.getName(), target, count, ttl));
+		if (pingService.isDeterministic()) {
+			int probes = count > 0 ? count : PingService.DEFAULT_COUNT;
+			int probeTtl = ttl > 0 ? ttl : PingService.DEFAULT_TTL;
+			return startBatched(target, topology, listener, probes, dst -> new ForwardingRequest(src,
+					new Packet(PingService.sourceAddress(src, dst), dst, Packet.PacketType.ICMP_ECHO_REQUEST, probeTtl)));
+		}
+		return start(target, listener, dst -> topology.readConfiguration(() -> pingService.ping(src, dst, count, ttl, topology)));
+	}
+
+	/**
+	 * Counts the host addresses a sweep of the prefix probes: all addresses except the
+	 * network and broadcast address, or every address of a /31 or /32.
+	 * @param target prefix
+	 * @return number of destinations
+	 */
+	public static int hostCount(Subnet target) {
+		int prefix = target.subnetMask().shortMask();
+		long size = 1L << (32 - prefix);
+		return (int) Math.min(Integer.MAX_VALUE, prefix >= 31 ? size : size - 2);
+	}
+
+	private PingSweep start(Subnet target, Consumer<PingSweepResult> listener, Function<IPAddress, PingStatistics> probe) {
+		PingSweep sweep = new PingSweep(target, checkedHostCount(target));
+		int first = firstHost(target);
+		Thread.ofVirtual().name("ping-sweep-" + target).start(() -> dispatch(sweep, first, listener, probe));
+		return sweep;
+	}
+
+	private PingSweep startBatched(Subnet target, NetworkTopology topology, Consumer<PingSweepResult> listener,
+	                               int count, Function<IPAddress, ForwardingRequest> request) {
+		PingSweep sweep = new PingSweep(target, checkedHostCount(target));
+		int first = firstHost(target);
+		Thread.ofVirtual().name("ping-sweep-" + target).start(() -> dispatchBatched(sweep, first, topology, listener, count, request));
+		return sweep;
+	}
+
+	private static int checkedHostCount(Subnet target) {
+		int total = hostCount(target);
+		if (total > MAX_SWEEP_ADDRESSES) {
+			throw new IllegalArgumentException("Prefix %s is too large to sweep (%d addresses, at most %d)".formatted(target, total, MAX_SWEEP_ADDRESSES));
+		}
+		return total;
+	}
+
+	private static int firstHost(Subnet target) {
+		int prefix = target.subnetMask().shortMask();
+		int mask = prefix == 0 ? 0 : -1 << (32 - prefix);
+		return (target.networkAddress().toInt() & mask) + (prefix >= 31 ? 0 : 1);
+	}
+
+	private void dispatchBatched(PingSweep sweep, int first, NetworkTopology topology, Consumer<PingSweepResult> listener,
+	                             int count, Function<IPAddress, ForwardingRequest> request) {
+		try {
+			BatchForwarder forwarder = new BatchForwarder(topology);
+			for (int start = 0; start < sweep.total() && !sweep.isCancelled(); start += maxInFlight) {
+				if (Thread.currentThread().isInterrupted()) {
+					sweep.cancel();
+					break;
+				}
+				int end = Math.min(sweep.total(), start + maxInFlight);
+				List<ForwardingRequest> requests = new ArrayList<>(end - start);
+				for (int i = start; i < end; i++) {
+					requests.add(request.apply(IPAddress.fromInt(first + i)));
+				}
+				List<ForwardingOutcome> outcomes = forwarder.forwardAll(requests, count);
+				forwarder.forwardAll(replies(requests, outcomes, topology), count);
+				for (int i = 0; i < outcomes.size() && !sweep.isCancelled(); i++) {
+					PingSweepResult result = new PingSweepResult(requests.get(i).packet().getDestination(),
+							pingService.statistics(outcomes.get(i), count));
+					sweep.record(result);
+					listener.accept(result);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.warning("Ping sweep of %s failed: %s".formatted(sweep.target(), e.getMessage()));
+			sweep.fail(e);
+			sweep.cancel();
+		}
+		logger.fine("Ping sweep of %s finished in batches: %d of %d addresses probed, %d reachable%s".formatted(
+				sweep.target(), sweep.completed(), sweep.total(), sweep.reachable(), sweep.isCancelled() ? " (cancelled)" : ""));
+		sweep.finish();
+	}
+
+	/**
+	 * Builds the echo replies to the delivered requests of a batch, each sent by the router
+	 * or host owning the request's destination.
+	 */
+	private static List<ForwardingRequest> replies(List<ForwardingRequest> requests, List<ForwardingOutcome> outcomes,
+	                                               NetworkTopology topology) {
+		Map<IPAddress, Device> owners = topology.readConfiguration(() -> {
+			Map<IPAddress, Device> byAddress = new HashMap<>();
+			for (Device device : topology.devices()) {
+				for (NetworkInterface iface : device.getInterfaces()) {
+					InterfaceAddress address = iface instanceof HostInterface hi ? hi.getInterfaceAddress()
+							: iface instanceof RouterInterface ri ? ri.getInterfaceAddress() : null;
+					// A router answers for its own addresses, as it does for a single ping
+					if (address != null && (device instanceof Router || !byAddress.containsKey(address.ipAddress()))) {
+						byAddress.put(address.ipAddress(), device);
+					}
+				}
+			}
+			return byAddress;
+		});
+		List<ForwardingRequest> replies = new ArrayList<>();
+		for (int i = 0; i < outcomes.size(); i++) {
+			if (!outcomes.get(i).reached()) continue;
+			Packet request = requests.get(i).packet();
+			Device responder = owners.get(request.getDestination());
+			if (responder instanceof Host || responder instanceof Router) {
+				replies.add(new ForwardingRequest(responder, new Packet(request.getDestination(), request.getSource(),
+						Packet.PacketType.ICMP_ECHO_REPLY, PingService.DEFAULT_TTL)));
+			}
+		}
+		return replies;
+	}
+
+	private void dispatch(PingSweep sweep, int first, Consumer<PingSweepResult> listener, Function<IPAddress, PingStatistics> probe) {
+		Semaphore permits = new Semaphore(maxInFlight);
+		Object deliveryLock = new Object();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < sweep.total(); i++) {
+				permits.acquire();
+				if (sweep.isCancelled()) {
+					break;
+				}
+				IPAddress dst = IPAddress.fromInt(first + i);
+				executor.execute(() -> {
+					try {
+						PingSweepResult result = new PingSweepResult(dst, probe.apply(dst));
+						synchronized (deliveryLock) {
+							sweep.record(result);
+							listener.accept(result);
+						}
+					} catch (RuntimeException e) {
+						logger.warning("Ping sweep probe to %s failed: %s".formatted(dst, e.getMessage()));
+						sweep.fail(e);
+						sweep.cancel();
+					} finally {
+						permits.release();
+					}
+				});
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			sweep.cancel();
+		}
+		logger.fine("Ping sweep of %s finished: %d of %d addresses probed, %d reachable%s".formatted(
+				sweep.target(), sweep.completed(), sweep.total(), sweep.reachable(), sweep.isCancelled() ? " (cancelled)" : ""));
+		sweep.finish();
+	}
+}
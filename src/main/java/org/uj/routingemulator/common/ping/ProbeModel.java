@@ -0,0 +1,34 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+
+/**
+ * Turns the forwarding outcome of a probe into the result reported by ping,
+ * deciding its round-trip time and whether it is lost.
+ * <p>
+ * A deterministic model gives the same result, apart from the sequence number, for
+ * every probe with the same outcome. {@link PingService} then forwards only one probe
+ * and reports the rest from it. Models with jitter or random loss must return false
+ * from {@link #isDeterministic()} so that every probe is forwarded.
+ */
+public interface ProbeModel {
+	/**
+	 * Fixed RTT of {@code baseMs + hops * perHopMs} with no loss.
+	 */
+	static ProbeModel hopLatency(long baseMs, long perHopMs) {
+		return (sequence, outcome) -> outcome.reached()
+				? new PingResult(sequence, true, outcome.hopCount(), baseMs + outcome.hopCount() * perHopMs, null)
+				: new PingResult(sequence, false, outcome.hopCount(), 0, outcome.reason() != null ? outcome.reason().name() : null);
+	}
+
+	/**
+	 * @param sequence probe sequence number, starting at 1
+	 * @param outcome  forwarding outcome of the probe
+	 * @return result reported for the probe
+	 */
+	PingResult result(int sequence, ForwardingOutcome outcome);
+
+	default boolean isDeterministic() {
+		return true;
+	}
+}
@@ -0,0 +1,31 @@
+package org.uj.routingemulator.common.ping;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Results of {@code count} identical probes, stored as a single template.
+ * Elements are created on access with sequence numbers 1..count.
+ */
+final class RepeatedPingResults extends AbstractList<PingResult> implements RandomAccess {
+	private final PingResult template;
+	private final int count;
+
+	RepeatedPingResults(PingResult template, int count) {
+		this.template = template;
+		this.count = count;
+	}
+
+	@Override
+	public PingResult get(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("Index: %d, Size: %d".formatted(index, count));
+		}
+		return new PingResult(index + 1, template.success(), template.hopCount(), template.rttMs(), template.errorMessage());
+	}
+
+	@Override
+	public int size() {
+		return count;
+	}
+}
@@ -0,0 +1,69 @@
+package org.uj.routingemulator.common.ping;
+
+/**
+ * Log-bucketed histogram of round-trip times, in the style of HdrHistogram.
+ * <p>
+ * Values below 64 get a bucket each. Above that, every power-of-two range is split into
+ * 32 equal sub-buckets, so any recorded value is known to within about 3% whatever its
+ * magnitude. The histogram has a fixed size of under 2,000 counters, so memory does not
+ * grow with the number of recorded values.
+ */
+final class RttHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long total;
+
+	/**
+	 * Records a value {@code times} times.
+	 * @param value non-negative value
+	 * @param times number of occurrences
+	 */
+	void record(long value, long times) {
+		counts[bucketOf(Math.max(0, value))] += times;
+		total += times;
+	}
+
+	long total() {
+		return total;
+	}
+
+	/**
+	 * Gets the value at a percentile.
+	 * @param percentile percentile between 0 and 100
+	 * @return highest value of the bucket holding that percentile, or 0 if nothing was recorded
+	 */
+	long percentile(double percentile) {
+		if (total == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return highestValueOf(i);
+			}
+		}
+		return highestValueOf(counts.length - 1);
+	}
+
+	static int bucketOf(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	static long highestValueOf(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+		int offset = bucket - LINEAR_LIMIT;
+		int shift = offset / SUB_BUCKETS + 1;
+		long subBucket = offset % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,95 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.simulation.PacketSimulator;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * PingService that times probes with a {@link PacketSimulator} instead of a fixed per-hop
+ * latency. RTT, jitter and loss follow from the link profiles of the topology: latency,
+ * bandwidth, queue limits and per-packet jitter on every link the request and the reply
+ * cross.
+ * <p>
+ * Probes are sent one simulated second apart and every ping call runs its own simulation,
+ * so probes only compete with each other for link capacity. Jitter and queueing make every
+ * probe time differently, so sweeps ping each destination with the full simulation instead
+ * of forwarding one batched request for it.
+ */
+public class SimulatedPingService extends PingService {
+    private static final Logger logger = Logger.getLogger(SimulatedPingService.class.getName());
+    public static final long PROBE_INTERVAL_NS = 1_000_000_000L;
+    private static final long NS_PER_MS = 1_000_000L;
+
+    private final long seed;
+
+    public SimulatedPingService() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * @param seed seed for link jitter, for reproducible runs
+     */
+    public SimulatedPingService(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return false, each probe is simulated on its own
+     */
+    @Override
+    boolean isDeterministic() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The listener is called once the whole simulation has run.
+     */
+    @Override
+    public PingStatistics ping(Host src, IPAddress dst, int count, NetworkTopology topology, Consumer<PingResult> listener) {
+        if (src.getHostInterface() == null) {
+            return super.ping(src, dst, count, topology, listener);
+        }
+        logger.fine("%s: Simulating ping to %s with %d probes...".formatted(src.getHostname(), dst, count));
+        PacketSimulator simulator = new PacketSimulator(topology, seed);
+        PingStatistics stats = simulate(simulator, count, (time, echo) -> simulator.echo(time, src, dst, 64, echo));
+        if (listener != null) {
+            stats.results().forEach(listener);
+        }
+        return stats;
+    }
+
+    @Override
+    public PingStatistics ping(Router srcRouter, IPAddress dst, int count, int ttl, NetworkTopology topology) {
+        logger.fine("%s: Simulating router ping to %s with %d probes (ttl=%d)...".formatted(srcRouter.getName(), dst, count, ttl));
+        int probeTtl = ttl <= 0 ? 64 : ttl;
+        PacketSimulator simulator = new PacketSimulator(topology, seed);
+        return simulate(simulator, count, (time, listener) -> simulator.echo(time, srcRouter, dst, probeTtl, listener));
+    }
+
+    private PingStatistics simulate(PacketSimulator simulator, int count, ProbeScheduler probes) {
+        if (count <= 0) count = 4;
+        PingResult[] results = new PingResult[count];
+        for (int i = 0; i < count; i++) {
+            int seq = i + 1;
+            probes.schedule(i * PROBE_INTERVAL_NS, echo -> results[seq - 1] = echo.replied()
+                    ? new PingResult(seq, true, echo.hops(), Math.round((double) echo.rttNs() / NS_PER_MS), null)
+                    : new PingResult(seq, false, echo.hops(), 0, echo.reason()));
+        }
+        long events = simulator.run();
+        logger.finest("Simulated %d probes in %d events".formatted(count, events));
+        return new PingStatistics(Arrays.asList(results));
+    }
+
+    @FunctionalInterface
+    private interface ProbeScheduler {
+        void schedule(long timeNs, Consumer<PacketSimulator.EchoResult> listener);
+    }
+}
@@ -0,0 +1,46 @@
+package org.uj.routingemulator.common.ping;
+
+/**
+ * Formats TracerouteResult into VyOS-like textual output.
+ */
+public class TracerouteFormatter {
+    private TracerouteFormatter() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Formats a traceroute into human-readable VyOS-style output.
+     *
+     * @param result traceroute result
+     * @return formatted string (multi-line)
+     */
+    public static String format(TracerouteResult result) {
+        StringBuilder sb = new StringBuilder();
+        String dstStr = result.destination().toString();
+        sb.append(String.format("traceroute to %s (%s), %d hops max, 60 byte packets%n", dstStr, dstStr, result.maxHops()));
+
+        if (result.hops().isEmpty()) {
+            String reason = result.outcome() != null && result.outcome().reason() != null
+                    ? result.outcome().reason().name()
+                    : "Network is unreachable";
+            sb.append(String.format("traceroute: %s%n", reason));
+            return sb.toString();
+        }
+
+        for (TracerouteHop hop : result.hops()) {
+            sb.append(String.format("%2d  ", hop.ttl()));
+            if (!hop.answered()) {
+                sb.append("* ".repeat(result.probesPerHop()).stripTrailing());
+            } else {
+                String responder = hop.responder().toString();
+                sb.append(responder).append(" (").append(responder).append(")");
+                String probe = hop.flag() != null
+                        ? String.format("  %d.000 ms %s", hop.rttMs(), hop.flag())
+                        : String.format("  %d.000 ms", hop.rttMs());
+                sb.append(probe.repeat(result.probesPerHop()));
+            }
+            sb.append(String.format("%n"));
+        }
+        return sb.toString();
+    }
+}
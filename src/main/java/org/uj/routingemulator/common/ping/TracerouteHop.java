@@ -0,0 +1,18 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+
+/**
+ * One line of traceroute output: the response to the probes sent with one TTL.
+ *
+ * @param ttl        TTL of the probes
+ * @param responder  address that answered, or null if no answer arrived
+ * @param deviceName name of the answering device, or null
+ * @param rttMs      round-trip time of each probe
+ * @param flag       unreachable annotation such as {@code !N} or {@code !H}, or null
+ */
+public record TracerouteHop(int ttl, IPAddress responder, String deviceName, long rttMs, String flag) {
+	public boolean answered() {
+		return responder != null;
+	}
+}
@@ -0,0 +1,18 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+
+import java.util.List;
+
+/**
+ * Result of a traceroute: one {@link TracerouteHop} per TTL and the outcome of the walk.
+ */
+public record TracerouteResult(IPAddress destination, int maxHops, int probesPerHop, List<TracerouteHop> hops, ForwardingOutcome outcome) {
+	/**
+	 * @return true if the last line is an answer from the destination
+	 */
+	public boolean reached() {
+		return !hops.isEmpty() && destination.equals(hops.getLast().responder());
+	}
+}
@@ -0,0 +1,156 @@
+package org.uj.routingemulator.common.ping;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingTrace;
+import org.uj.routingemulator.common.forwarding.RouteSelector;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.host.HostInterface;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Traceroute built on a single forwarding walk.
+ * <p>
+ * Forwarding decisions do not depend on the TTL, so the path a probe with TTL {@code n}
+ * takes is the first {@code n} routers of the path a probe with the maximum TTL takes.
+ * The service forwards one packet with {@link ForwardingEngine#trace}, then derives the
+ * response for every TTL from the recorded hops: routers answer from the interface the
+ * probe arrived on, the destination answers last, and a router without a route answers
+ * with an unreachable flag. Only the final destination's return path is verified.
+ * <p>
+ * The walk and the derivation run under {@link NetworkTopology#readConfiguration}, so
+ * every line of the result comes from the same configuration version.
+ */
+public class TracerouteService {
+	private static final Logger logger = Logger.getLogger(TracerouteService.class.getName());
+	public static final int DEFAULT_MAX_HOPS = 30;
+	public static final int PROBES_PER_HOP = 3;
+	private static final long BASE_MS = 1;
+	private static final long PER_HOP_MS = 1;
+
+	private final ForwardingEngine engine = new ForwardingEngine();
+
+	public TracerouteResult trace(Host src, IPAddress dst, int maxHops, NetworkTopology topology) {
+		logger.fine("%s: Tracing route to %s (max %d hops)...".formatted(src.getHostname(), dst, maxHops));
+		int hopLimit = maxHops <= 0 ? DEFAULT_MAX_HOPS : maxHops;
+		HostInterface hi = src.getHostInterface();
+		IPAddress srcAddr = hi != null && hi.getInterfaceAddress() != null ? hi.getInterfaceAddress().ipAddress() : new IPAddress(0, 0, 0, 0);
+		// Every router decrements the TTL before forwarding, so maxHops + 1 lets maxHops routers forward
+		Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, hopLimit + 1);
+		return topology.readConfiguration(() -> derive(dst, hopLimit, engine.trace(p, src, topology), false));
+	}
+
+	public TracerouteResult trace(Router src, IPAddress dst, int maxHops, NetworkTopology topology) {
+		logger.fine("%s: Router tracing route to %s (max %d hops)...".formatted(src.getName(), dst, maxHops));
+		int hopLimit = maxHops <= 0 ? DEFAULT_MAX_HOPS : maxHops;
+		return topology.readConfiguration(() -> {
+			IPAddress sourceIp = RouteSelector.determineSourceIp(RouteSelector.determineExitInterface(src, dst));
+			IPAddress srcAddr = sourceIp != null ? sourceIp : new IPAddress(0, 0, 0, 0);
+			// The source router decrements the TTL as well
+			Packet p = new Packet(srcAddr, dst, Packet.PacketType.ICMP_ECHO_REQUEST, hopLimit + 2);
+			return derive(dst, hopLimit, engine.trace(p, src, topology), true);
+		});
+	}
+
+	private TracerouteResult derive(IPAddress dst, int maxHops, ForwardingTrace trace, boolean fromRouter) {
+		Lines lines = new Lines(maxHops);
+		ForwardingOutcome outcome = trace.outcome();
+		List<ForwardingTrace.Hop> hops = trace.hops();
+
+		if (hops.isEmpty() && outcome.reached()) {
+			lines.destination(dst);
+		}
+		for (int i = 0; i < hops.size() && !lines.full(); i++) {
+			ForwardingTrace.Hop hop = hops.get(i);
+			boolean origin = fromRouter && i == 0;
+			ForwardingOutcome hopOutcome = hop.outcome();
+			if (hopOutcome != null && hopOutcome.reached() && ownsDestination(hop, dst)) {
+				if (!origin) lines.destination(dst);
+				break;
+			}
+			if (!origin) {
+				lines.router(hop, null);
+			}
+			if (hopOutcome == null) {
+				continue;
+			}
+			if (hopOutcome.reached()) {
+				lines.destination(dst);
+			} else if (hopOutcome.reason() != null) {
+				switch (hopOutcome.reason()) {
+					case HOST_NOT_FOUND_ON_SUBNET -> lines.router(hop, "!H");
+					case NO_ROUTE, INVALID_ROUTE, NEXT_HOP_NOT_FOUND, NEXT_HOP_NOT_IN_TOPOLOGY, INTERFACE_ADMIN_DOWN,
+					     INTERFACE_NOT_CONNECTED, NEIGHBOR_ROUTER_NOT_FOUND, UNSUPPORTED_NEIGHBOR_TYPE -> lines.router(hop, "!N");
+					case TTL_EXPIRED -> {
+					}
+					default -> lines.silentToEnd();
+				}
+			}
+		}
+		logger.fine("Traceroute to %s finished after %d lines: %s".formatted(dst, lines.hops.size(), outcome.reason()));
+		return new TracerouteResult(dst, maxHops, PROBES_PER_HOP, List.copyOf(lines.hops), outcome);
+	}
+
+	private static boolean ownsDestination(ForwardingTrace.Hop hop, IPAddress dst) {
+		RouterInterface egress = hop.egress();
+		return egress != null && egress.getInterfaceAddress() != null && egress.getInterfaceAddress().ipAddress().equals(dst);
+	}
+
+	private static IPAddress responderAddress(ForwardingTrace.Hop hop) {
+		for (RouterInterface candidate : new RouterInterface[]{hop.ingress(), hop.egress()}) {
+			if (candidate != null && candidate.getInterfaceAddress() != null) {
+				return candidate.getInterfaceAddress().ipAddress();
+			}
+		}
+		return hop.router().getInterfaces().stream()
+				.filter(ri -> ri.getInterfaceAddress() != null)
+				.map(ri -> ri.getInterfaceAddress().ipAddress())
+				.findFirst()
+				.orElse(null);
+	}
+
+	/**
+	 * Output lines in TTL order, capped at the maximum hop count.
+	 */
+	private static final class Lines {
+		private final int maxHops;
+		private final List<TracerouteHop> hops = new ArrayList<>();
+
+		Lines(int maxHops) {
+			this.maxHops = maxHops;
+		}
+
+		boolean full() {
+			return hops.size() >= maxHops;
+		}
+
+		void router(ForwardingTrace.Hop hop, String flag) {
+			IPAddress responder = responderAddress(hop);
+			add(responder, responder != null ? hop.router().getName() : null, flag);
+		}
+
+		void destination(IPAddress dst) {
+			add(dst, null, null);
+		}
+
+		void silentToEnd() {
+			while (!full()) {
+				add(null, null, null);
+			}
+		}
+
+		private void add(IPAddress responder, String deviceName, String flag) {
+			if (full()) return;
+			int ttl = hops.size() + 1;
+			hops.add(new TracerouteHop(ttl, responder, deviceName, responder != null ? BASE_MS + ttl * PER_HOP_MS : 0, flag));
+		}
+	}
+}
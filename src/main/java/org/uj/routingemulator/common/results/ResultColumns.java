@@ -0,0 +1,28 @@
+package org.uj.routingemulator.common.results;
+
+/**
+ * Read access to a table of per-destination results, one row per (source, destination)
+ * probe: a reachability matrix entry, a swept address or a traffic flow.
+ * <p>
+ * Rows are addressed by index. Addresses are packed ints as produced by
+ * {@link org.uj.routingemulator.common.addressing.IPAddress#toInt()}.
+ */
+public interface ResultColumns {
+	int size();
+
+	int source(int row);
+
+	int destination(int row);
+
+	/**
+	 * @return true if the destination was reached
+	 */
+	boolean reached(int row);
+
+	int hops(int row);
+
+	/**
+	 * @return reason of the outcome (e.g. {@code REACHED_HOST}, {@code NO_ROUTE}), or null
+	 */
+	String reason(int row);
+}
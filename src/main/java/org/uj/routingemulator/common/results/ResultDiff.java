@@ -0,0 +1,185 @@
+package org.uj.routingemulator.common.results;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between two result runs, matched by (source, destination).
+ * <p>
+ * Comparing is linear in the number of rows: the earlier run is indexed in a primitive
+ * hash table and the later run is looked up row by row, so runs of millions of probes
+ * can be compared after every configuration change. Only changed pairs are kept.
+ */
+public final class ResultDiff {
+	private final List<Change> changes;
+	private final Map<Kind, Integer> counts;
+
+	/**
+	 * How the outcome of a (source, destination) pair changed.
+	 */
+	public enum Kind {
+		/** reached before, not reached now */
+		BROKEN,
+		/** not reached before, reached now */
+		FIXED,
+		/** same reachability, but a different reason or hop count */
+		CHANGED,
+		/** only in the later run */
+		ADDED,
+		/** only in the earlier run */
+		REMOVED
+	}
+
+	/**
+	 * One changed pair. Fields of the missing side of an added or removed pair are null.
+	 */
+	public record Change(IPAddress source, IPAddress destination, Kind kind,
+	                     Outcome before, Outcome after) {
+		@Override
+		public String toString() {
+			return "%s %s -> %s: %s -> %s".formatted(kind, source, destination,
+					before != null ? before : "-", after != null ? after : "-");
+		}
+	}
+
+	/**
+	 * Outcome of a pair in one run.
+	 */
+	public record Outcome(boolean reached, int hops, String reason) {
+		@Override
+		public String toString() {
+			return "%s in %d hops%s".formatted(reached ? "reached" : "unreachable", hops, reason != null ? " (" + reason + ")" : "");
+		}
+	}
+
+	private ResultDiff(List<Change> changes) {
+		this.changes = Collections.unmodifiableList(changes);
+		this.counts = new EnumMap<>(Kind.class);
+		for (Kind kind : Kind.values()) {
+			counts.put(kind, 0);
+		}
+		for (Change change : changes) {
+			counts.merge(change.kind(), 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Compares two runs. When a pair occurs several times in a run, its last row counts.
+	 * @param before earlier run
+	 * @param after  later run
+	 * @return the pairs whose outcome differs, in the row order of {@code after}, followed by removed pairs
+	 */
+	public static ResultDiff compare(ResultColumns before, ResultColumns after) {
+		RowIndex index = new RowIndex(before.size());
+		for (int row = 0; row < before.size(); row++) {
+			index.put(key(before.source(row), before.destination(row)), row);
+		}
+		boolean[] matched = new boolean[before.size()];
+		RowIndex seen = new RowIndex(after.size());
+		for (int row = 0; row < after.size(); row++) {
+			seen.put(key(after.source(row), after.destination(row)), row);
+		}
+
+		List<Change> changes = new ArrayList<>();
+		for (int row = 0; row < after.size(); row++) {
+			long key = key(after.source(row), after.destination(row));
+			if (seen.get(key) != row) continue;
+			int old = index.get(key);
+			Outcome now = outcome(after, row);
+			if (old < 0) {
+				changes.add(change(after, row, Kind.ADDED, null, now));
+				continue;
+			}
+			matched[old] = true;
+			Outcome then = outcome(before, old);
+			if (then.equals(now)) continue;
+			Kind kind = then.reached() == now.reached() ? Kind.CHANGED : then.reached() ? Kind.BROKEN : Kind.FIXED;
+			changes.add(change(after, row, kind, then, now));
+		}
+		for (int row = 0; row < before.size(); row++) {
+			if (!matched[row] && index.get(key(before.source(row), before.destination(row))) == row) {
+				changes.add(change(before, row, Kind.REMOVED, outcome(before, row), null));
+			}
+		}
+		return new ResultDiff(changes);
+	}
+
+	private static long key(int source, int destination) {
+		return ((long) source << 32) | (destination & 0xFFFFFFFFL);
+	}
+
+	private static Outcome outcome(ResultColumns results, int row) {
+		return new Outcome(results.reached(row), results.hops(row), results.reason(row));
+	}
+
+	private static Change change(ResultColumns results, int row, Kind kind, Outcome before, Outcome after) {
+		return new Change(IPAddress.fromInt(results.source(row)), IPAddress.fromInt(results.destination(row)), kind, before, after);
+	}
+
+	public List<Change> changes() {
+		return changes;
+	}
+
+	/**
+	 * @return number of changes of a kind
+	 */
+	public int count(Kind kind) {
+		return counts.get(kind);
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * @return number of changes of each kind that occurred, e.g. {@code "2 broken, 1 fixed"}, or {@code "no changes"}
+	 */
+	public String summary() {
+		List<String> parts = new ArrayList<>();
+		for (Kind kind : Kind.values()) {
+			if (counts.get(kind) > 0) {
+				parts.add(counts.get(kind) + " " + kind.name().toLowerCase());
+			}
+		}
+		return parts.isEmpty() ? "no changes" : String.join(", ", parts);
+	}
+
+	/**
+	 * Open-addressing hash table from a packed address pair to a row; later rows replace earlier ones.
+	 */
+	private static final class RowIndex {
+		private final long[] keys;
+		private final int[] rows; // row + 1, 0 for an empty slot
+
+		RowIndex(int expected) {
+			int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+			keys = new long[capacity];
+			rows = new int[capacity];
+		}
+
+		void put(long key, int row) {
+			int slot = slot(key);
+			keys[slot] = key;
+			rows[slot] = row + 1;
+		}
+
+		int get(long key) {
+			return rows[slot(key)] - 1;
+		}
+
+		private int slot(long key) {
+			int mask = rows.length - 1;
+			long h = key * 0x9E3779B97F4A7C15L;
+			int slot = (int) (h ^ (h >>> 32)) & mask;
+			while (rows[slot] != 0 && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+}
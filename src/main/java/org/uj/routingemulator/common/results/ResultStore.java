@@ -0,0 +1,303 @@
+package org.uj.routingemulator.common.results;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Reads and writes result tables as files, and exports them as CSV.
+ * <p>
+ * The file format is columnar and big-endian:
+ * {@code [int magic][int version][int rows][int reasonCount]}, then each reason as
+ * {@code [short length][UTF-8 bytes]}, then the columns one after another: source
+ * addresses, destination addresses and hop counts as ints, reason codes as shorts
+ * ({@code -1} for none) and the reached flags as bytes. Fixed-width columns let a
+ * memory-mapped file be read in place, see {@link #map(Path)}.
+ */
+public final class ResultStore {
+	private static final Logger logger = Logger.getLogger(ResultStore.class.getName());
+	private static final int MAGIC = 0x52524553; // "RRES"
+	private static final int VERSION = 1;
+	private static final int BUFFER_BYTES = 1 << 16;
+	private static final long ROW_BYTES = 3 * Integer.BYTES + Short.BYTES + 1;
+
+	private ResultStore() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Writes a table to a file, replacing any existing file.
+	 * @param table results to write
+	 * @param path  target file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(ResultTable table, Path path) throws IOException {
+		int rows = table.size();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+			List<String> reasons = table.reasons();
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(reasons.size());
+			for (String reason : reasons) {
+				byte[] bytes = reason.getBytes(StandardCharsets.UTF_8);
+				if (bytes.length > Short.MAX_VALUE) {
+					throw new IOException("Reason too long to store: " + reason.substring(0, 40) + "...");
+				}
+				ensureRoom(channel, buffer, Short.BYTES + bytes.length);
+				buffer.putShort((short) bytes.length).put(bytes);
+			}
+			for (int row = 0; row < rows; row++) {
+				ensureRoom(channel, buffer, Integer.BYTES);
+				buffer.putInt(table.source(row));
+			}
+			for (int row = 0; row < rows; row++) {
+				ensureRoom(channel, buffer, Integer.BYTES);
+				buffer.putInt(table.destination(row));
+			}
+			for (int row = 0; row < rows; row++) {
+				ensureRoom(channel, buffer, Integer.BYTES);
+				buffer.putInt(table.hops(row));
+			}
+			for (int row = 0; row < rows; row++) {
+				ensureRoom(channel, buffer, Short.BYTES);
+				buffer.putShort(table.reasonCodeAt(row));
+			}
+			for (int row = 0; row < rows; row++) {
+				ensureRoom(channel, buffer, 1);
+				buffer.put((byte) (table.reached(row) ? 1 : 0));
+			}
+			flush(channel, buffer);
+		}
+		logger.fine("Wrote %d results to %s".formatted(rows, path));
+	}
+
+	/**
+	 * Loads a file written by {@link #write} into memory.
+	 * @param path result file
+	 * @return a table that can be extended
+	 * @throws IOException if the file cannot be read or is not a result file
+	 */
+	public static ResultTable read(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE) {
+				throw new IOException("Result file %s is too large to load; map it instead".formatted(path));
+			}
+			buffer = ByteBuffer.allocate((int) length);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// keep reading
+			}
+			buffer.flip();
+		}
+		Layout layout = Layout.parse(buffer, path);
+		ResultTable table = new ResultTable(layout.rows());
+		short[] codes = new short[layout.reasons().size()];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = table.reasonCode(layout.reasons().get(i));
+		}
+		for (int row = 0; row < layout.rows(); row++) {
+			short code = buffer.getShort(layout.reasonOffset() + row * Short.BYTES);
+			if (!layout.isValidReason(code)) {
+				throw new IOException("Result file %s is corrupt: reason code %d in row %d, %d reasons stored"
+						.formatted(path, code, row, codes.length));
+			}
+			table.addCoded(buffer.getInt(layout.sourceOffset() + row * Integer.BYTES),
+					buffer.getInt(layout.destinationOffset() + row * Integer.BYTES),
+					buffer.get(layout.reachedOffset() + row) != 0,
+					buffer.getInt(layout.hopsOffset() + row * Integer.BYTES),
+					code == ResultTable.NO_REASON ? ResultTable.NO_REASON : codes[code]);
+		}
+		return table;
+	}
+
+	/**
+	 * Maps a file written by {@link #write} read-only into memory. Rows are read from the
+	 * page cache on access, so even very large runs open instantly and cost no heap.
+	 * @param path result file
+	 * @return read-only view of the file; it stays valid after the file is closed
+	 * @throws IOException if the file cannot be read or is not a result file
+	 */
+	public static ResultColumns map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedResults(buffer, Layout.parse(buffer, path));
+		}
+	}
+
+	/**
+	 * Writes results as CSV with a header line:
+	 * {@code source,destination,reached,hops,reason}.
+	 * @param results results to export
+	 * @param out     target; not closed
+	 * @throws IOException if writing fails
+	 */
+	public static void writeCsv(ResultColumns results, Writer out) throws IOException {
+		out.write("source,destination,reached,hops,reason\n");
+		for (int row = 0; row < results.size(); row++) {
+			out.write(IPAddress.fromInt(results.source(row)).toString());
+			out.write(',');
+			out.write(IPAddress.fromInt(results.destination(row)).toString());
+			out.write(',');
+			out.write(results.reached(row) ? "true" : "false");
+			out.write(',');
+			out.write(Integer.toString(results.hops(row)));
+			out.write(',');
+			String reason = results.reason(row);
+			if (reason != null) {
+				out.write(csvField(reason));
+			}
+			out.write('\n');
+		}
+	}
+
+	/**
+	 * Writes results as a CSV file, replacing any existing file.
+	 * @see #writeCsv(ResultColumns, Writer)
+	 */
+	public static void writeCsv(ResultColumns results, Path path) throws IOException {
+		try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writeCsv(results, out);
+		}
+	}
+
+	private static String csvField(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	private static void ensureRoom(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush(channel, buffer);
+		}
+	}
+
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Where each column of a result file starts.
+	 */
+	record Layout(int rows, List<String> reasons, int sourceOffset) {
+		static Layout parse(ByteBuffer buffer, Path path) throws IOException {
+			try {
+				if (buffer.getInt(0) != MAGIC) {
+					throw new IOException("%s is not a result file".formatted(path));
+				}
+				int version = buffer.getInt(4);
+				if (version != VERSION) {
+					throw new IOException("Unsupported result file version %d in %s".formatted(version, path));
+				}
+				int rows = buffer.getInt(8);
+				int reasonCount = buffer.getInt(12);
+				// Every reason takes at least its length prefix
+				if (reasonCount < 0 || reasonCount > (buffer.limit() - 16) / Short.BYTES) {
+					throw new IOException("Result file %s is truncated or corrupt".formatted(path));
+				}
+				List<String> reasons = new ArrayList<>(reasonCount);
+				int offset = 16;
+				for (int i = 0; i < reasonCount; i++) {
+					int length = buffer.getShort(offset);
+					if (length < 0) {
+						throw new IOException("Result file %s is truncated or corrupt".formatted(path));
+					}
+					byte[] bytes = new byte[length];
+					buffer.get(offset + Short.BYTES, bytes);
+					reasons.add(new String(bytes, StandardCharsets.UTF_8));
+					offset += Short.BYTES + length;
+				}
+				if (rows < 0 || offset + ROW_BYTES * rows != buffer.limit()) {
+					throw new IOException("Result file %s is truncated or corrupt".formatted(path));
+				}
+				return new Layout(rows, reasons, offset);
+			} catch (IndexOutOfBoundsException e) {
+				throw new IOException("Result file %s is truncated or corrupt".formatted(path), e);
+			}
+		}
+
+		/**
+		 * @return true if the code is {@link ResultTable#NO_REASON} or names a stored reason
+		 */
+		boolean isValidReason(short code) {
+			return code == ResultTable.NO_REASON || (code >= 0 && code < reasons.size());
+		}
+
+		int destinationOffset() {
+			return sourceOffset + rows * Integer.BYTES;
+		}
+
+		int hopsOffset() {
+			return destinationOffset() + rows * Integer.BYTES;
+		}
+
+		int reasonOffset() {
+			return hopsOffset() + rows * Integer.BYTES;
+		}
+
+		int reachedOffset() {
+			return reasonOffset() + rows * Short.BYTES;
+		}
+	}
+
+	/**
+	 * Result columns read in place from a mapped file.
+	 */
+	private record MappedResults(ByteBuffer buffer, Layout layout) implements ResultColumns {
+		@Override
+		public int size() {
+			return layout.rows();
+		}
+
+		@Override
+		public int source(int row) {
+			return buffer.getInt(layout.sourceOffset() + checkRow(row) * Integer.BYTES);
+		}
+
+		@Override
+		public int destination(int row) {
+			return buffer.getInt(layout.destinationOffset() + checkRow(row) * Integer.BYTES);
+		}
+
+		@Override
+		public boolean reached(int row) {
+			return buffer.get(layout.reachedOffset() + checkRow(row)) != 0;
+		}
+
+		@Override
+		public int hops(int row) {
+			return buffer.getInt(layout.hopsOffset() + checkRow(row) * Integer.BYTES);
+		}
+
+		@Override
+		public String reason(int row) {
+			short code = buffer.getShort(layout.reasonOffset() + checkRow(row) * Short.BYTES);
+			if (!layout.isValidReason(code)) {
+				throw new IllegalStateException("Mapped result file is corrupt: reason code %d in row %d".formatted(code, row));
+			}
+			return code == ResultTable.NO_REASON ? null : layout.reasons().get(code);
+		}
+
+		private int checkRow(int row) {
+			if (row < 0 || row >= layout.rows()) {
+				throw new IndexOutOfBoundsException("Row %d out of bounds for %d rows".formatted(row, layout.rows()));
+			}
+			return row;
+		}
+	}
+}
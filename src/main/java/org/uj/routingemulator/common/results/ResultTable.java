@@ -0,0 +1,180 @@
+package org.uj.routingemulator.common.results;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.ping.PingResult;
+import org.uj.routingemulator.common.ping.PingSweepResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Growable in-memory result table with one primitive array per column.
+ * <p>
+ * A row takes 15 bytes instead of a result object with boxed addresses. Reasons are
+ * dictionary-encoded: each distinct reason string is stored once and rows keep its
+ * index, so a million rows with a handful of outcomes share a handful of strings.
+ * <p>
+ * Not thread-safe; fill it from one thread, e.g. a sweep listener.
+ */
+public final class ResultTable implements ResultColumns {
+	static final short NO_REASON = -1;
+
+	private int[] source;
+	private int[] destination;
+	private int[] hops;
+	private short[] reason;
+	private boolean[] reached;
+	private int size;
+	private final List<String> reasons = new ArrayList<>();
+	private final Map<String, Integer> reasonCodes = new HashMap<>();
+
+	public ResultTable() {
+		this(64);
+	}
+
+	/**
+	 * @param capacity initial number of rows; the table grows as needed
+	 */
+	public ResultTable(int capacity) {
+		int initial = Math.max(capacity, 16);
+		source = new int[initial];
+		destination = new int[initial];
+		hops = new int[initial];
+		reason = new short[initial];
+		reached = new boolean[initial];
+	}
+
+	/**
+	 * Appends a row.
+	 * @param source      packed source address
+	 * @param destination packed destination address
+	 * @param reached     true if the destination was reached
+	 * @param hops        hop count
+	 * @param reason      reason of the outcome, or null
+	 * @return index of the new row
+	 */
+	public int add(int source, int destination, boolean reached, int hops, String reason) {
+		return addCoded(source, destination, reached, hops, reasonCode(reason));
+	}
+
+	/**
+	 * Appends the outcome of forwarding one packet.
+	 * @return index of the new row
+	 */
+	public int add(IPAddress source, IPAddress destination, ForwardingOutcome outcome) {
+		return add(source.toInt(), destination.toInt(), outcome.reached(), outcome.hopCount(),
+				outcome.reason() != null ? outcome.reason().name() : null);
+	}
+
+	/**
+	 * Appends the result of one swept address. Unreachable addresses take the error of
+	 * their first failed probe as reason.
+	 * @param source address the sweep was sent from
+	 * @param result sweep result
+	 * @return index of the new row
+	 */
+	public int add(IPAddress source, PingSweepResult result) {
+		String error = null;
+		if (!result.reachable()) {
+			for (PingResult probe : result.statistics().results()) {
+				if (probe.errorMessage() != null) {
+					error = probe.errorMessage();
+					break;
+				}
+			}
+		}
+		return add(source.toInt(), result.destination().toInt(), result.reachable(),
+				result.statistics().getFirstReplyHops(), error);
+	}
+
+	int addCoded(int source, int destination, boolean reached, int hops, short reasonCode) {
+		if (size == this.source.length) {
+			int capacity = size + (size >> 1);
+			this.source = Arrays.copyOf(this.source, capacity);
+			this.destination = Arrays.copyOf(this.destination, capacity);
+			this.hops = Arrays.copyOf(this.hops, capacity);
+			this.reason = Arrays.copyOf(this.reason, capacity);
+			this.reached = Arrays.copyOf(this.reached, capacity);
+		}
+		int row = size++;
+		this.source[row] = source;
+		this.destination[row] = destination;
+		this.reached[row] = reached;
+		this.hops[row] = hops;
+		this.reason[row] = reasonCode;
+		return row;
+	}
+
+	short reasonCode(String value) {
+		if (value == null) return NO_REASON;
+		Integer code = reasonCodes.get(value);
+		if (code == null) {
+			if (reasons.size() > Short.MAX_VALUE) {
+				throw new IllegalStateException("Too many distinct reasons in one result table");
+			}
+			code = reasons.size();
+			reasons.add(value);
+			reasonCodes.put(value, code);
+		}
+		return code.shortValue();
+	}
+
+	short reasonCodeAt(int row) {
+		checkRow(row);
+		return reason[row];
+	}
+
+	/**
+	 * @return distinct reasons, indexed by reason code
+	 */
+	List<String> reasons() {
+		return Collections.unmodifiableList(reasons);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public int source(int row) {
+		checkRow(row);
+		return source[row];
+	}
+
+	@Override
+	public int destination(int row) {
+		checkRow(row);
+		return destination[row];
+	}
+
+	@Override
+	public boolean reached(int row) {
+		checkRow(row);
+		return reached[row];
+	}
+
+	@Override
+	public int hops(int row) {
+		checkRow(row);
+		return hops[row];
+	}
+
+	@Override
+	public String reason(int row) {
+		checkRow(row);
+		short code = reason[row];
+		return code == NO_REASON ? null : reasons.get(code);
+	}
+
+	private void checkRow(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("Row %d out of bounds for %d rows".formatted(row, size));
+		}
+	}
+}
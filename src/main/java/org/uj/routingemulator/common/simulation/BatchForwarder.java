@@ -0,0 +1,527 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingContext;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingMetrics;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingReason;
+import org.uj.routingemulator.common.forwarding.ForwardingStart;
+import org.uj.routingemulator.common.forwarding.RouteResolver;
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.packet.PacketBatch;
+import org.uj.routingemulator.common.packet.PacketBatchPool;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Forwards a whole {@link PacketBatch} through a topology, one hop at a time for every
+ * packet in flight.
+ * <p>
+ * Each round decrements the TTL of all packets still in flight, then looks up the next
+ * router of every survivor. A forwarding decision depends only on the router, the hop
+ * count, the source and destination addresses and, where a packet starts, its type, so
+ * {@link ForwardingEngine} is asked
+ * once per distinct combination and the answer is kept in a primitive hash table; packets
+ * of the same flow replay it without allocating. Outcomes are identical to calling
+ * {@link ForwardingEngine#forward} for each packet.
+ * <p>
+ * Each decision keeps the interface counts the engine recorded while making it. After a
+ * batch, every decision's counts are added to the interface counters once, multiplied by
+ * the packets that replayed it. The batch expires TTLs itself and decides without the
+ * ingress interface, so drops on receive are not counted.
+ * <p>
+ * Not thread-safe. Decisions are cached across batches and dropped whenever the topology
+ * or its {@linkplain NetworkTopology#configurationVersion() configuration version}
+ * changes, so router configurations must be changed through
+ * {@link NetworkTopology#publishConfiguration}. Each batch is forwarded under
+ * {@link NetworkTopology#readConfiguration}, so it never sees a partly published set of
+ * router configurations. A batch filled with {@link #add} must be forwarded before
+ * devices are added to or removed from the topology.
+ */
+public class BatchForwarder {
+	private static final Logger logger = Logger.getLogger(BatchForwarder.class.getName());
+	private static final int DEFAULT_TTL = 64;
+	private static final ForwardingReason[] REASONS = ForwardingReason.values();
+	private static final Counter decisionHits = MetricsRegistry.global().counter("forwarding.decisions.hits");
+	private static final Counter decisionMisses = MetricsRegistry.global().counter("forwarding.decisions.misses");
+
+	// Decisions are shared by every packet of a flow, so the engine only records their interface counts
+	private final InterfaceCounters.Hits hits = new InterfaceCounters.Hits();
+	private final ForwardingEngine engine = new ForwardingEngine(InterfaceCounters.recording(hits));
+	private final InterfaceCounters counters;
+	private final NetworkTopology topology;
+	private TopologyGraph graph;
+	private TopologyQuery topologyQuery;
+	private long topologyVersion;
+	private long configurationVersion;
+	private final PacketBatchPool pool = new PacketBatchPool(1);
+
+	private final DecisionTable starts = new DecisionTable();
+	private final DecisionTable steps = new DecisionTable();
+	private final List<ForwardingContext> contexts = new ArrayList<>();
+	private final Map<ForwardingContext, Integer> contextIds = new HashMap<>();
+
+	// Cached decisions: next node and hop count, or a terminal outcome
+	private boolean[] decisionTerminal = new boolean[64];
+	private int[] decisionNext = new int[64];
+	private int[] decisionHops = new int[64];
+	private int[] decisionContext = new int[64];
+	private byte[] decisionReason = new byte[64];
+	private boolean[] decisionReached = new boolean[64];
+	// Recorded interface counts of each decision, and the packets that replayed it in the current batch
+	private int[] decisionHitsFrom = new int[64];
+	private int[] decisionHitsTo = new int[64];
+	private long[] decisionPackets = new long[64];
+	private long[] decisionBytes = new long[64];
+	private int decisionCount;
+
+	private int[] active = new int[0];
+	private int[] contextOf = new int[0];
+	private long lookups;
+	private int copies = 1;
+
+	/**
+	 * @param topology topology to forward through; its current version is used
+	 */
+	public BatchForwarder(NetworkTopology topology) {
+		this(topology, InterfaceCounters.global());
+	}
+
+	/**
+	 * @param topology topology to forward through; its current version is used
+	 * @param counters counters updated with the forwarded packets, or null to forward without counting
+	 */
+	public BatchForwarder(NetworkTopology topology, InterfaceCounters counters) {
+		this.topology = topology;
+		this.counters = counters;
+		snapshot();
+	}
+
+	private void snapshot() {
+		this.topologyVersion = topology.version();
+		this.configurationVersion = topology.configurationVersion();
+		this.graph = topology.graph();
+		this.topologyQuery = new NetworkTopologyQuery(topology);
+	}
+
+	/**
+	 * Drops cached decisions if the topology or its router configurations changed since
+	 * they were made.
+	 */
+	private void dropStaleDecisions() {
+		if (topology.version() == topologyVersion && topology.configurationVersion() == configurationVersion) {
+			return;
+		}
+		logger.fine("Topology changed, dropping %d cached forwarding decisions".formatted(decisionCount));
+		snapshot();
+		starts.clear();
+		steps.clear();
+		contexts.clear();
+		contextIds.clear();
+		hits.clear();
+		decisionCount = 0;
+	}
+
+	/**
+	 * Gets the graph node of a packet's sender, for {@link PacketBatch#add}.
+	 * @param device a host or router of the topology
+	 * @return graph node
+	 * @throws IllegalArgumentException if the device is not in the topology
+	 */
+	public int nodeOf(Device device) {
+		int node = graph.nodeOf(device);
+		if (node < 0) {
+			throw new IllegalArgumentException("Device %s is not in the topology".formatted(device.getId()));
+		}
+		return node;
+	}
+
+	/**
+	 * Appends a request to a batch.
+	 * @return index of the packet in the batch
+	 */
+	public int add(PacketBatch batch, ForwardingRequest request) {
+		return batch.add(request.packet(), nodeOf(request.source()));
+	}
+
+	/**
+	 * Forwards every in-flight packet of a batch until each one is delivered or dropped.
+	 * Afterwards the status, hop count and reason columns hold the outcomes; see
+	 * {@link #outcome(PacketBatch, int)}.
+	 * @param batch packets to forward
+	 * @throws IllegalArgumentException if a packet's node is not a host or router
+	 */
+	public void forward(PacketBatch batch) {
+		forward(batch, 1);
+	}
+
+	/**
+	 * Forwards a batch whose packets each stand for several identical packets, e.g. the
+	 * probes of a ping with a deterministic outcome. Outcomes are those of single packets;
+	 * the interface counters count every copy.
+	 * @param batch  packets to forward
+	 * @param copies number of packets each packet of the batch stands for
+	 */
+	public void forward(PacketBatch batch, int copies) {
+		this.copies = copies;
+		topology.readConfiguration(() -> {
+			forwardConsistently(batch);
+			return null;
+		});
+	}
+
+	private void forwardConsistently(PacketBatch batch) {
+		dropStaleDecisions();
+		int size = batch.size();
+		if (active.length < size) {
+			active = new int[size];
+			contextOf = new int[size];
+		}
+		int decisionsBefore = decisionCount;
+		long lookupsBefore = lookups;
+		int count = start(batch);
+		int rounds = 0;
+		while (count > 0) {
+			count = batch.decrementTtl(active, count);
+			count = lookupAll(batch, count);
+			rounds++;
+		}
+		int decided = decisionCount - decisionsBefore;
+		decisionMisses.add(decided);
+		decisionHits.add(lookups - lookupsBefore - decided);
+		countInterfaces();
+		recordOutcomes(batch);
+		logger.fine("Forwarded batch of %d packets in %d rounds with %d new forwarding decisions"
+				.formatted(size, rounds, decided));
+	}
+
+	/**
+	 * Counts the recorded interface counts of every decision replayed in the batch.
+	 */
+	private void countInterfaces() {
+		for (int id = 0; id < decisionCount; id++) {
+			if (decisionPackets[id] == 0) continue;
+			if (counters != null) {
+				hits.countInto(counters, decisionHitsFrom[id], decisionHitsTo[id], decisionPackets[id], decisionBytes[id]);
+			}
+			decisionPackets[id] = 0;
+			decisionBytes[id] = 0;
+		}
+	}
+
+	private static void recordOutcomes(PacketBatch batch) {
+		long[] tally = new long[REASONS.length];
+		long withoutReason = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			byte reason = batch.reason(i);
+			if (reason != PacketBatch.NO_REASON) {
+				tally[reason]++;
+			} else if (batch.status(i) == PacketBatch.Status.TTL_EXPIRED) {
+				tally[ForwardingReason.TTL_EXPIRED.ordinal()]++;
+			} else if (batch.status(i) != PacketBatch.Status.IN_FLIGHT) {
+				withoutReason++;
+			}
+		}
+		for (int r = 0; r < tally.length; r++) {
+			ForwardingMetrics.record(REASONS[r], tally[r]);
+		}
+		ForwardingMetrics.record(null, withoutReason);
+	}
+
+	/**
+	 * Forwards a list of requests through a pooled batch.
+	 * @param requests packets to forward; their own TTLs are not changed
+	 * @return one outcome per request, in request order
+	 */
+	public List<ForwardingOutcome> forwardAll(List<ForwardingRequest> requests) {
+		return forwardAll(requests, 1);
+	}
+
+	/**
+	 * Forwards a list of requests that each stand for several identical packets; see
+	 * {@link #forward(PacketBatch, int)}.
+	 * @param requests packets to forward; their own TTLs are not changed
+	 * @param copies   number of packets each request stands for
+	 * @return one outcome per request, in request order
+	 */
+	public List<ForwardingOutcome> forwardAll(List<ForwardingRequest> requests, int copies) {
+		dropStaleDecisions();
+		try (PacketBatch batch = pool.acquire(requests.size())) {
+			for (ForwardingRequest request : requests) {
+				add(batch, request);
+			}
+			forward(batch, copies);
+			List<ForwardingOutcome> outcomes = new ArrayList<>(batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				outcomes.add(outcome(batch, i));
+			}
+			return outcomes;
+		}
+	}
+
+	/**
+	 * Reads the outcome of a forwarded packet.
+	 * @param batch a batch passed to {@link #forward}
+	 * @param i     packet index
+	 * @return the outcome, or null if the packet is still in flight
+	 */
+	public static ForwardingOutcome outcome(PacketBatch batch, int i) {
+		PacketBatch.Status status = batch.status(i);
+		if (status == PacketBatch.Status.IN_FLIGHT) {
+			return null;
+		}
+		byte reason = batch.reason(i);
+		ForwardingReason forwardingReason = reason != PacketBatch.NO_REASON ? REASONS[reason]
+				: status == PacketBatch.Status.TTL_EXPIRED ? ForwardingReason.TTL_EXPIRED : null;
+		return new ForwardingOutcome(status == PacketBatch.Status.DELIVERED, batch.hops(i), forwardingReason);
+	}
+
+	/**
+	 * @return number of distinct forwarding decisions cached so far
+	 */
+	public int cachedDecisions() {
+		return decisionCount;
+	}
+
+	/**
+	 * @return number of per-packet lookups answered so far, from the cache or not
+	 */
+	public long lookups() {
+		return lookups;
+	}
+
+	/**
+	 * Resolves the first router of every in-flight packet and lists the ones that reach it.
+	 * @return number of packets in {@link #active}
+	 */
+	private int start(PacketBatch batch) {
+		int count = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			if (batch.status(i) != PacketBatch.Status.IN_FLIGHT) continue;
+			if (batch.ttl(i) == 0) {
+				batch.setTtl(i, DEFAULT_TTL);
+			}
+			int source = batch.source(i);
+			int destination = batch.destination(i);
+			int node = batch.node(i);
+			Packet.PacketType type = batch.type(i);
+			// The decision was made for a packet of this type, so other types must not replay it
+			long origin = ((long) type.ordinal() << 32) | node;
+			long addresses = ((long) source << 32) | (destination & 0xFFFFFFFFL);
+			int decision = starts.get(origin, addresses);
+			if (decision < 0) {
+				decision = decideStart(node, source, destination, type);
+				starts.put(origin, addresses, decision);
+			}
+			lookups++;
+			if (apply(batch, i, decision)) {
+				active[count++] = i;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Makes the next forwarding decision for every listed packet and drops the finished ones
+	 * from the list.
+	 * @return number of packets left in {@link #active}
+	 */
+	private int lookupAll(PacketBatch batch, int count) {
+		int kept = 0;
+		for (int k = 0; k < count; k++) {
+			int i = active[k];
+			int context = contextOf[i];
+			int node = batch.node(i);
+			int hops = batch.hops(i);
+			long key = ((long) context << 32) | node;
+			int decision = steps.get(key, hops);
+			if (decision < 0) {
+				decision = decideStep(context, node, hops);
+				steps.put(key, hops, decision);
+			}
+			lookups++;
+			if (!apply(batch, i, decision)) continue;
+			int maxHops = contexts.get(context).maxHops();
+			if (batch.hops(i) >= maxHops) {
+				batch.finish(i, PacketBatch.Status.TTL_EXPIRED, batch.hops(i), (byte) ForwardingReason.TTL_EXPIRED.ordinal());
+				continue;
+			}
+			active[kept++] = i;
+		}
+		return kept;
+	}
+
+	/**
+	 * Applies a cached decision to a packet.
+	 * @return true if the packet moved on to another router
+	 */
+	private boolean apply(PacketBatch batch, int i, int decision) {
+		decisionPackets[decision] += copies;
+		decisionBytes[decision] += (long) copies * batch.type(i).length();
+		if (decisionTerminal[decision]) {
+			batch.finish(i, decisionReached[decision] ? PacketBatch.Status.DELIVERED : PacketBatch.Status.DROPPED,
+					decisionHops[decision], decisionReason[decision]);
+			return false;
+		}
+		batch.setNode(i, decisionNext[decision]);
+		batch.setHops(i, decisionHops[decision]);
+		contextOf[i] = decisionContext[decision];
+		return true;
+	}
+
+	private int decideStart(int node, int source, int destination, Packet.PacketType type) {
+		int hitsFrom = hits.size();
+		Packet packet = new Packet(IPAddress.fromInt(source), IPAddress.fromInt(destination), type, DEFAULT_TTL);
+		Device device = graph.device(node);
+		ForwardingStart start;
+		if (device instanceof Host host) {
+			start = engine.start(packet, host, topologyQuery);
+		} else if (device instanceof Router router) {
+			start = engine.start(packet, router);
+		} else {
+			throw new IllegalArgumentException("Packets can only be sent from hosts and routers, not %s".formatted(device.getId()));
+		}
+		int id = start.isFinished()
+				? terminal(start.outcome())
+				: advance(nodeOf(start.router()), start.hops(), contextId(start.context()));
+		return withHits(id, hitsFrom);
+	}
+
+	private int decideStep(int context, int node, int hops) {
+		ForwardingContext ctx = contexts.get(context);
+		int hitsFrom = hits.size();
+		// The batch tracks TTLs itself, so the probe packet must not expire here
+		Packet probe = new Packet(ctx.source(), ctx.destination(), Packet.PacketType.ICMP_ECHO_REQUEST, Integer.MAX_VALUE);
+		RouteResolver.RouteStep step = engine.step(probe, (Router) graph.device(node), hops, topologyQuery, ctx);
+		int id = step.outcome() != null
+				? terminal(step.outcome())
+				: advance(nodeOf(step.nextRouter()), step.hops(), context);
+		return withHits(id, hitsFrom);
+	}
+
+	private int withHits(int decision, int hitsFrom) {
+		decisionHitsFrom[decision] = hitsFrom;
+		decisionHitsTo[decision] = hits.size();
+		return decision;
+	}
+
+	private int contextId(ForwardingContext ctx) {
+		return contextIds.computeIfAbsent(ctx, key -> {
+			contexts.add(key);
+			return contexts.size() - 1;
+		});
+	}
+
+	private int terminal(ForwardingOutcome outcome) {
+		int id = newDecision();
+		decisionTerminal[id] = true;
+		decisionReached[id] = outcome.reached();
+		decisionHops[id] = outcome.hopCount();
+		decisionReason[id] = outcome.reason() != null ? (byte) outcome.reason().ordinal() : PacketBatch.NO_REASON;
+		return id;
+	}
+
+	private int advance(int next, int hops, int context) {
+		int id = newDecision();
+		decisionTerminal[id] = false;
+		decisionNext[id] = next;
+		decisionHops[id] = hops;
+		decisionContext[id] = context;
+		return id;
+	}
+
+	private int newDecision() {
+		if (decisionCount == decisionNext.length) {
+			int capacity = decisionCount * 2;
+			decisionTerminal = Arrays.copyOf(decisionTerminal, capacity);
+			decisionNext = Arrays.copyOf(decisionNext, capacity);
+			decisionHops = Arrays.copyOf(decisionHops, capacity);
+			decisionContext = Arrays.copyOf(decisionContext, capacity);
+			decisionReason = Arrays.copyOf(decisionReason, capacity);
+			decisionReached = Arrays.copyOf(decisionReached, capacity);
+			decisionHitsFrom = Arrays.copyOf(decisionHitsFrom, capacity);
+			decisionHitsTo = Arrays.copyOf(decisionHitsTo, capacity);
+			decisionPackets = Arrays.copyOf(decisionPackets, capacity);
+			decisionBytes = Arrays.copyOf(decisionBytes, capacity);
+		}
+		return decisionCount++;
+	}
+
+	/**
+	 * Open-addressing hash table from a pair of longs to a decision index.
+	 */
+	private static final class DecisionTable {
+		private long[] firstKeys = new long[64];
+		private long[] secondKeys = new long[64];
+		private int[] ids = new int[64]; // decision index + 1, 0 for an empty slot
+		private int size;
+
+		int get(long first, long second) {
+			int mask = ids.length - 1;
+			for (int slot = hash(first, second) & mask; ; slot = (slot + 1) & mask) {
+				int id = ids[slot];
+				if (id == 0) return -1;
+				if (firstKeys[slot] == first && secondKeys[slot] == second) return id - 1;
+			}
+		}
+
+		void put(long first, long second, int decision) {
+			if ((size + 1) * 2 > ids.length) {
+				grow();
+			}
+			insert(first, second, decision + 1);
+			size++;
+		}
+
+		private void insert(long first, long second, int id) {
+			int mask = ids.length - 1;
+			int slot = hash(first, second) & mask;
+			while (ids[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			firstKeys[slot] = first;
+			secondKeys[slot] = second;
+			ids[slot] = id;
+		}
+
+		private void grow() {
+			long[] oldFirst = firstKeys;
+			long[] oldSecond = secondKeys;
+			int[] oldIds = ids;
+			firstKeys = new long[oldIds.length * 2];
+			secondKeys = new long[oldIds.length * 2];
+			ids = new int[oldIds.length * 2];
+			for (int slot = 0; slot < oldIds.length; slot++) {
+				if (oldIds[slot] != 0) {
+					insert(oldFirst[slot], oldSecond[slot], oldIds[slot]);
+				}
+			}
+		}
+
+		void clear() {
+			Arrays.fill(ids, 0);
+			size = 0;
+		}
+
+		private static int hash(long first, long second) {
+			long h = first * 0x9E3779B97F4A7C15L + second * 0xC2B2AE3D27D4EB4FL;
+			return (int) (h ^ (h >>> 29));
+		}
+	}
+}
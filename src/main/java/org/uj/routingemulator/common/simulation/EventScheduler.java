@@ -0,0 +1,176 @@
+package org.uj.routingemulator.common.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Discrete-event scheduler: a clock and a queue of timestamped events.
+ * <p>
+ * Events fire in time order; events scheduled for the same time fire in the order they
+ * were scheduled. The queue is a binary heap kept in parallel primitive arrays, so
+ * scheduling an event allocates nothing once the arrays have grown, and an event object
+ * may be scheduled again from its own {@link Event#fire} to move it forward in time.
+ * <p>
+ * Not thread-safe: one simulation runs on one thread.
+ */
+public final class EventScheduler {
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private long[] times = new long[INITIAL_CAPACITY];
+	private long[] sequences = new long[INITIAL_CAPACITY];
+	private Event[] events = new Event[INITIAL_CAPACITY];
+	private int size;
+	private long nextSequence;
+	private long now;
+	private long processed;
+
+	/**
+	 * An action taking place at a point in simulated time.
+	 */
+	@FunctionalInterface
+	public interface Event {
+		/**
+		 * @param scheduler the scheduler, whose {@link #now()} is the time of this event
+		 */
+		void fire(EventScheduler scheduler);
+	}
+
+	/**
+	 * @return current simulated time in nanoseconds
+	 */
+	public long now() {
+		return now;
+	}
+
+	/**
+	 * @return number of events fired so far
+	 */
+	public long processed() {
+		return processed;
+	}
+
+	/**
+	 * @return number of events waiting to fire
+	 */
+	public int pending() {
+		return size;
+	}
+
+	/**
+	 * Schedules an event.
+	 * @param time  simulated time in nanoseconds, not earlier than {@link #now()}
+	 * @param event the event
+	 * @throws IllegalArgumentException if the time is in the past
+	 */
+	public void schedule(long time, Event event) {
+		if (time < now) {
+			throw new IllegalArgumentException("Cannot schedule an event at %d before the current time %d".formatted(time, now));
+		}
+		if (size == times.length) {
+			int capacity = size * 2;
+			times = Arrays.copyOf(times, capacity);
+			sequences = Arrays.copyOf(sequences, capacity);
+			events = Arrays.copyOf(events, capacity);
+		}
+		long sequence = nextSequence++;
+		int i = size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (!before(time, sequence, parent)) break;
+			move(parent, i);
+			i = parent;
+		}
+		set(i, time, sequence, event);
+	}
+
+	/**
+	 * Schedules an event relative to the current time.
+	 * @param delay delay in nanoseconds, not negative
+	 * @param event the event
+	 */
+	public void scheduleAfter(long delay, Event event) {
+		schedule(now + delay, event);
+	}
+
+	/**
+	 * Fires the earliest event.
+	 * @return false if no event was waiting
+	 */
+	public boolean step() {
+		if (size == 0) return false;
+		long time = times[0];
+		Event event = events[0];
+		removeFirst();
+		now = time;
+		processed++;
+		event.fire(this);
+		return true;
+	}
+
+	/**
+	 * Fires events until none are left.
+	 * @return number of events fired by this call
+	 */
+	public long run() {
+		long start = processed;
+		while (step()) {
+			// keep going
+		}
+		return processed - start;
+	}
+
+	/**
+	 * Fires every event scheduled up to and including {@code time}, then advances the
+	 * clock to {@code time}.
+	 * @param time simulated time in nanoseconds
+	 * @return number of events fired by this call
+	 */
+	public long runUntil(long time) {
+		long start = processed;
+		while (size > 0 && times[0] <= time) {
+			step();
+		}
+		now = Math.max(now, time);
+		return processed - start;
+	}
+
+	private void removeFirst() {
+		int last = --size;
+		long time = times[last];
+		long sequence = sequences[last];
+		Event event = events[last];
+		events[last] = null;
+		if (last == 0) return;
+
+		int i = 0;
+		int half = last >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			int right = child + 1;
+			if (right < last && before(times[right], sequences[right], child)) {
+				child = right;
+			}
+			if (!before(times[child], sequences[child], time, sequence)) break;
+			move(child, i);
+			i = child;
+		}
+		set(i, time, sequence, event);
+	}
+
+	private boolean before(long time, long sequence, int slot) {
+		return before(time, sequence, times[slot], sequences[slot]);
+	}
+
+	private static boolean before(long time, long sequence, long otherTime, long otherSequence) {
+		return time < otherTime || (time == otherTime && sequence < otherSequence);
+	}
+
+	private void move(int from, int to) {
+		set(to, times[from], sequences[from], events[from]);
+	}
+
+	private void set(int slot, long time, long sequence, Event event) {
+		times[slot] = time;
+		sequences[slot] = sequence;
+		events[slot] = event;
+	}
+}
@@ -0,0 +1,43 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.RouteSelector;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+/**
+ * A packet to be forwarded from a host or router.
+ * @param source the originating device, a {@link Host} or {@link Router}
+ * @param packet the packet; its TTL is consumed during forwarding
+ */
+public record ForwardingRequest(Device source, Packet packet) {
+	private static final IPAddress UNSPECIFIED = new IPAddress(0, 0, 0, 0);
+
+	public ForwardingRequest {
+		if (!(source instanceof Host) && !(source instanceof Router)) {
+			throw new IllegalArgumentException("Forwarding source must be a host or a router");
+		}
+	}
+
+	/**
+	 * Creates an ICMP echo request from a host, using the host's address as source.
+	 */
+	public static ForwardingRequest fromHost(Host host, IPAddress destination, int ttl) {
+		IPAddress src = host.getHostInterface() != null && host.getHostInterface().getInterfaceAddress() != null
+				? host.getHostInterface().getInterfaceAddress().ipAddress()
+				: UNSPECIFIED;
+		return new ForwardingRequest(host, new Packet(src, destination, Packet.PacketType.ICMP_ECHO_REQUEST, ttl));
+	}
+
+	/**
+	 * Creates an ICMP echo request from a router, using the exit interface address as source.
+	 */
+	public static ForwardingRequest fromRouter(Router router, IPAddress destination, int ttl) {
+		RouterInterface exit = RouteSelector.determineExitInterface(router, destination);
+		IPAddress src = RouteSelector.determineSourceIp(exit);
+		return new ForwardingRequest(router, new Packet(src != null ? src : UNSPECIFIED, destination, Packet.PacketType.ICMP_ECHO_REQUEST, ttl));
+	}
+}
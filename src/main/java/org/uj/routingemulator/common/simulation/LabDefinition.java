@@ -0,0 +1,30 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.topology.NetworkTopology;
+
+/**
+ * Builds a lab, either whole or only the part one shard process holds.
+ * <p>
+ * A shard worker passes its {@link ShardScope}: the lab creates only the devices the
+ * scope {@linkplain ShardScope#includes includes} and the connections between them, so
+ * the worker never holds devices of other shards. Devices are matched across processes
+ * by name, which must be unique in the lab.
+ * <p>
+ * Implementations need a public no-argument constructor to be usable from
+ * {@link ShardWorker#main(String[])}.
+ */
+@FunctionalInterface
+public interface LabDefinition {
+	/**
+	 * @param scope devices to build
+	 * @return the devices of the lab in the scope and the connections between them
+	 */
+	NetworkTopology build(ShardScope scope);
+
+	/**
+	 * @return the whole lab
+	 */
+	default NetworkTopology build() {
+		return build(ShardScope.all());
+	}
+}
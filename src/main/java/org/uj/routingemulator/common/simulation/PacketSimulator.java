@@ -0,0 +1,365 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingPath;
+import org.uj.routingemulator.common.forwarding.ForwardingTrace;
+import org.uj.routingemulator.common.forwarding.RouteSelector;
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.DeviceId;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.common.topology.LinkProfile;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.host.HostInterface;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Packet-level simulation of a topology in simulated time.
+ * <p>
+ * Every connection gets the {@link LinkProfile} set on the topology. Each direction of a
+ * connection is a FIFO queue in front of a transmitter: a packet waits until the
+ * transmitter is free, takes its serialization time to send, then arrives at the other
+ * end after the propagation delay plus a random jitter. A packet arriving at a full queue
+ * is dropped. Routers forward instantly.
+ * <p>
+ * Which links a packet crosses is decided by {@link ForwardingEngine}: every distinct
+ * (source, destination, TTL) combination is traced once and replayed as a
+ * {@link ForwardingPath}. Echo requests are answered by the destination host or router
+ * along its own forwarding path, so asymmetric routes are timed correctly.
+ * <p>
+ * Every packet that reaches the end of its path, delivered or dropped by forwarding, has
+ * its path {@linkplain ForwardingPath#count counted} on the interface counters. A packet
+ * dropped on a full queue is counted up to the link it was queued for, and as a transmit
+ * drop on the interface in front of that link.
+ * <p>
+ * Not thread-safe. Paths are traced under {@link NetworkTopology#readConfiguration} and
+ * traced again once a new configuration version is published.
+ */
+public class PacketSimulator {
+	private static final Logger logger = Logger.getLogger(PacketSimulator.class.getName());
+	/**
+	 * Size of an ICMP echo packet with the default 56-byte payload, IP header included.
+	 */
+	public static final int ECHO_PACKET_BYTES = 84;
+	private static final String QUEUE_OVERFLOW = "QUEUE_OVERFLOW";
+	private static final Counter routeHits = MetricsRegistry.global().counter("simulation.routes.hits");
+	private static final Counter routeMisses = MetricsRegistry.global().counter("simulation.routes.misses");
+
+	// Paths are traced once and replayed; packets are counted as they complete their path
+	private final ForwardingEngine engine = new ForwardingEngine(null);
+	private final InterfaceCounters counters;
+	private final EventScheduler scheduler = new EventScheduler();
+	private final NetworkTopology topology;
+	private final TopologyGraph graph;
+	private final TopologyQuery query;
+	private final Map<IPAddress, Host> hostsByAddress = new HashMap<>();
+	private final Map<PathKey, Route> routes = new HashMap<>();
+	private final Random random;
+
+	private final LinkProfile[] profiles;
+	private final long[] busyUntil;
+	private final int[] queued;
+
+	private long configurationVersion;
+	private long delivered;
+	private long dropped;
+	private long queueDrops;
+
+	/**
+	 * @param topology topology to simulate; link profiles are read once, here
+	 * @param seed     seed for link jitter
+	 */
+	public PacketSimulator(NetworkTopology topology, long seed) {
+		this(topology, seed, InterfaceCounters.global());
+	}
+
+	/**
+	 * @param topology topology to simulate; link profiles are read once, here
+	 * @param seed     seed for link jitter
+	 * @param counters counters updated with the simulated packets, or null to simulate without counting
+	 */
+	public PacketSimulator(NetworkTopology topology, long seed, InterfaceCounters counters) {
+		this.topology = topology;
+		this.counters = counters;
+		this.graph = topology.graph();
+		this.query = new NetworkTopologyQuery(topology);
+		this.configurationVersion = topology.configurationVersion();
+		this.random = new Random(seed);
+		this.profiles = new LinkProfile[graph.connectionCount()];
+		for (int c = 0; c < profiles.length; c++) {
+			profiles[c] = topology.linkProfile(graph.connection(c));
+		}
+		this.busyUntil = new long[profiles.length * 2];
+		this.queued = new int[profiles.length * 2];
+		for (Device device : topology.devices()) {
+			if (device instanceof Host host && host.getHostInterface() != null && host.getHostInterface().getInterfaceAddress() != null) {
+				hostsByAddress.putIfAbsent(host.getHostInterface().getInterfaceAddress().ipAddress(), host);
+			}
+		}
+	}
+
+	/**
+	 * Result of one echo request.
+	 * @param replied true if the reply arrived back at the source
+	 * @param rttNs   round-trip time in nanoseconds, 0 if no reply arrived
+	 * @param hops    hop count of the request, as reported by forwarding
+	 * @param reason  why no reply arrived, or null
+	 */
+	public record EchoResult(boolean replied, long rttNs, int hops, String reason) {
+	}
+
+	/**
+	 * @return the scheduler driving this simulation, for adding custom events
+	 */
+	public EventScheduler scheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @return packets that reached their destination so far
+	 */
+	public long delivered() {
+		return delivered;
+	}
+
+	/**
+	 * @return packets dropped so far, by forwarding or by a full queue
+	 */
+	public long dropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return packets dropped so far because a link queue was full
+	 */
+	public long queueDrops() {
+		return queueDrops;
+	}
+
+	/**
+	 * Schedules a one-way packet, e.g. background load.
+	 * @param timeNs      simulated send time
+	 * @param source      sending host
+	 * @param destination destination address
+	 * @param bytes       packet size on the wire
+	 * @throws IllegalArgumentException if the host has no interface
+	 */
+	public void send(long timeNs, Host source, IPAddress destination, int bytes) {
+		Route route = route(source, destination, 64);
+		scheduler.schedule(timeNs, new Transit(route.path(), bytes, ok -> {
+		}));
+	}
+
+	/**
+	 * Schedules an ICMP echo request from a host.
+	 * @param timeNs      simulated send time
+	 * @param source      sending host
+	 * @param destination destination address
+	 * @param ttl         TTL of the request
+	 * @param listener    receives the result once the reply arrives or the exchange fails
+	 * @throws IllegalArgumentException if the host has no interface
+	 */
+	public void echo(long timeNs, Host source, IPAddress destination, int ttl, Consumer<EchoResult> listener) {
+		echo(timeNs, route(source, destination, ttl), listener);
+	}
+
+	/**
+	 * Schedules an ICMP echo request from a router.
+	 * @see #echo(long, Host, IPAddress, int, Consumer)
+	 */
+	public void echo(long timeNs, Router source, IPAddress destination, int ttl, Consumer<EchoResult> listener) {
+		echo(timeNs, route(source, destination, ttl), listener);
+	}
+
+	/**
+	 * Runs the simulation until no events are left.
+	 * @return number of events processed
+	 */
+	public long run() {
+		long events = scheduler.run();
+		logger.fine("Simulation finished at %d ns after %d events: %d delivered, %d dropped (%d on full queues)"
+				.formatted(scheduler.now(), events, delivered, dropped, queueDrops));
+		return events;
+	}
+
+	private void echo(long timeNs, Route request, Consumer<EchoResult> listener) {
+		int hops = request.outcome().hopCount();
+		scheduler.schedule(timeNs, new Transit(request.path(), ECHO_PACKET_BYTES, requestArrived -> {
+			if (!requestArrived) {
+				listener.accept(new EchoResult(false, 0, hops, request.path().delivered() ? QUEUE_OVERFLOW : reason(request.outcome())));
+				return;
+			}
+			Route reply = replyRoute(request);
+			if (reply == null) {
+				listener.accept(new EchoResult(false, 0, hops, reason(request.outcome())));
+				return;
+			}
+			scheduler.scheduleAfter(0, new Transit(reply.path(), ECHO_PACKET_BYTES, replyArrived -> {
+				if (replyArrived) {
+					listener.accept(new EchoResult(true, scheduler.now() - timeNs, hops, null));
+				} else {
+					listener.accept(new EchoResult(false, 0, hops, reply.path().delivered() ? QUEUE_OVERFLOW : reason(reply.outcome())));
+				}
+			}));
+		}));
+	}
+
+	private static String reason(ForwardingOutcome outcome) {
+		return outcome.reason() != null ? outcome.reason().name() : null;
+	}
+
+	private Route route(Host source, IPAddress destination, int ttl) {
+		HostInterface hi = source.getHostInterface();
+		if (hi == null) {
+			throw new IllegalArgumentException("Host %s has no interface".formatted(source.getHostname()));
+		}
+		return cachedRoute(new PathKey(source.getId(), destination, ttl), key -> {
+			IPAddress sourceIp = hi.getInterfaceAddress() != null ? hi.getInterfaceAddress().ipAddress() : new IPAddress(0, 0, 0, 0);
+			Packet packet = new Packet(sourceIp, destination, Packet.PacketType.ICMP_ECHO_REQUEST, ttl);
+			ForwardingTrace trace = engine.trace(packet, source, query);
+			return new Route(sourceIp, destination, ForwardingPath.of(trace, hi, destination, graph, query), trace.outcome());
+		});
+	}
+
+	private Route route(Router source, IPAddress destination, int ttl) {
+		return cachedRoute(new PathKey(source.getId(), destination, ttl), key -> {
+			IPAddress sourceIp = RouteSelector.determineSourceIp(RouteSelector.determineExitInterface(source, destination));
+			if (sourceIp == null) sourceIp = new IPAddress(0, 0, 0, 0);
+			Packet packet = new Packet(sourceIp, destination, Packet.PacketType.ICMP_ECHO_REQUEST, ttl);
+			ForwardingTrace trace = engine.trace(packet, source, query);
+			return new Route(sourceIp, destination, ForwardingPath.of(trace, null, destination, graph, query), trace.outcome());
+		});
+	}
+
+	private Route cachedRoute(PathKey key, Function<PathKey, Route> tracer) {
+		if (topology.configurationVersion() != configurationVersion) {
+			routes.clear();
+			configurationVersion = topology.configurationVersion();
+		}
+		Route route = routes.get(key);
+		if (route != null) {
+			routeHits.increment();
+			return route;
+		}
+		routeMisses.increment();
+		route = topology.readConfiguration(() -> tracer.apply(key));
+		routes.put(key, route);
+		return route;
+	}
+
+	/**
+	 * Finds the route of the reply to a delivered request, or null if nobody owns the destination.
+	 */
+	private Route replyRoute(Route request) {
+		Host host = hostsByAddress.get(request.destination());
+		if (host != null) {
+			return route(host, request.source(), 64);
+		}
+		RouterInterface ri = query.findInterfaceByIp(request.destination());
+		Router router = ri != null ? query.findRouterOwningInterface(ri) : null;
+		return router != null ? route(router, request.source(), 64) : null;
+	}
+
+	private record PathKey(DeviceId source, IPAddress destination, int ttl) {
+	}
+
+	private record Route(IPAddress source, IPAddress destination, ForwardingPath path, ForwardingOutcome outcome) {
+	}
+
+	@FunctionalInterface
+	private interface Arrival {
+		/**
+		 * @param arrived true if the packet reached its destination, false if it was dropped
+		 *                on a full queue or by forwarding
+		 */
+		void done(boolean arrived);
+	}
+
+	/**
+	 * One packet moving along a path. The same object is rescheduled for every step, so
+	 * a hop costs two events and no allocation.
+	 */
+	private final class Transit implements EventScheduler.Event {
+		private final ForwardingPath path;
+		private final int[] links;
+		private final boolean delivered;
+		private final int bytes;
+		private final Arrival arrival;
+		private int position;
+		private boolean transmitting;
+
+		Transit(ForwardingPath path, int bytes, Arrival arrival) {
+			this.path = path;
+			this.links = path.links();
+			this.delivered = path.delivered();
+			this.bytes = bytes;
+			this.arrival = arrival;
+		}
+
+		@Override
+		public void fire(EventScheduler scheduler) {
+			if (transmitting) {
+				departed(scheduler);
+			} else if (position < links.length) {
+				enqueue(scheduler);
+			} else {
+				if (delivered) {
+					PacketSimulator.this.delivered++;
+				} else {
+					dropped++;
+				}
+				if (counters != null) {
+					path.count(counters, graph, 1, bytes);
+				}
+				arrival.done(delivered);
+			}
+		}
+
+		private void enqueue(EventScheduler scheduler) {
+			int link = links[position];
+			LinkProfile profile = profiles[link >> 1];
+			if (queued[link] >= profile.queueLimit()) {
+				dropped++;
+				queueDrops++;
+				if (counters != null) {
+					Connection connection = graph.connection(link >> 1);
+					path.countPartial(counters, graph, position, bytes);
+					counters.droppedOnTransmit((link & 1) == 0 ? connection.interfaceA() : connection.interfaceB());
+				}
+				arrival.done(false);
+				return;
+			}
+			queued[link]++;
+			long start = Math.max(scheduler.now(), busyUntil[link]);
+			busyUntil[link] = start + profile.serializationNs(bytes);
+			transmitting = true;
+			scheduler.schedule(busyUntil[link], this);
+		}
+
+		private void departed(EventScheduler scheduler) {
+			int link = links[position++];
+			LinkProfile profile = profiles[link >> 1];
+			queued[link]--;
+			transmitting = false;
+			long jitter = profile.jitterNs() > 0 ? random.nextLong(profile.jitterNs() + 1) : 0;
+			scheduler.scheduleAfter(profile.latencyNs() + jitter, this);
+		}
+	}
+}
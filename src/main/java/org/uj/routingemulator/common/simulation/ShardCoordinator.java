@@ -0,0 +1,129 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingMetrics;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingStart;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Entry point of a multi-process simulation.
+ * <p>
+ * The coordinator keeps the global {@link NetworkTopology}, resolves where each
+ * packet enters the network (host gateway, same-subnet delivery) and hands it to the
+ * worker owning the first router. Workers pass packets between themselves and report
+ * outcomes back here.
+ */
+public class ShardCoordinator implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(ShardCoordinator.class.getName());
+
+	private final int shardCount;
+	private final int[] shardOfNode;
+	private final TopologyGraph graph;
+	private final TopologyQuery topologyQuery;
+	private final ForwardingEngine engine = new ForwardingEngine();
+	private final ShardEndpoint endpoint;
+
+	/**
+	 * Creates the coordinator and binds its endpoint.
+	 * @param topology    the whole lab the workers' scopes were partitioned from
+	 * @param shardCount  number of workers
+	 * @param bindAddress address on which workers report results
+	 * @throws IOException if binding fails
+	 */
+	public ShardCoordinator(NetworkTopology topology, int shardCount, SocketAddress bindAddress) throws IOException {
+		this.shardCount = shardCount;
+		this.graph = topology.graph();
+		this.shardOfNode = TopologyPartitioner.partition(graph, shardCount);
+		this.topologyQuery = new NetworkTopologyQuery(topology);
+		this.endpoint = new ShardEndpoint(ShardEndpoint.COORDINATOR, bindAddress);
+	}
+
+	public SocketAddress localAddress() throws IOException {
+		return endpoint.localAddress();
+	}
+
+	/**
+	 * @param endpoints addresses of all workers, keyed by shard number
+	 */
+	public void connect(Map<Integer, SocketAddress> endpoints) {
+		endpoint.setPeers(endpoints);
+	}
+
+	/**
+	 * Forwards a set of packets through the workers and waits for all outcomes.
+	 * @param requests packets to forward
+	 * @return one outcome per request, in request order
+	 * @throws IOException if a worker cannot be reached or fails to forward a request
+	 */
+	public synchronized List<ForwardingOutcome> forwardAll(List<ForwardingRequest> requests) throws IOException, InterruptedException {
+		ForwardingOutcome[] outcomes = new ForwardingOutcome[requests.size()];
+		int pending = 0;
+		for (int id = 0; id < requests.size(); id++) {
+			ForwardingRequest request = requests.get(id);
+			ForwardingStart start = request.source() instanceof Host host
+					? engine.start(request.packet(), host, topologyQuery)
+					: engine.start(request.packet(), (Router) request.source());
+			if (start.isFinished()) {
+				outcomes[id] = start.outcome();
+				continue;
+			}
+			int node = graph.nodeOf(start.router());
+			int owner = node >= 0 ? shardOfNode[node] : 0;
+			endpoint.send(owner, new ShardFrame.PacketInTransit(id, node, start.hops(), request.packet().getTtl(),
+					request.packet().getSource().toInt(), request.packet().getDestination().toInt(),
+					(byte) request.packet().getType().ordinal(), ShardFrameCodec.flagsOf(start.context()), start.context().maxHops()));
+			pending++;
+		}
+		endpoint.flush();
+
+		ShardFrame.Failure failure = null;
+		while (pending > 0) {
+			ShardFrame frame = endpoint.take();
+			if (frame instanceof ShardFrame.Result result) {
+				outcomes[result.requestId()] = new ForwardingOutcome(result.reached(), result.hops(), result.reason());
+				pending--;
+			} else if (frame instanceof ShardFrame.Failure failed) {
+				// Drain the remaining outcomes so they do not leak into the next batch
+				if (failure == null) failure = failed;
+				pending--;
+			}
+		}
+		if (failure != null) {
+			throw new IOException("Shard worker failed to forward request %d: %s".formatted(failure.requestId(), failure.message()));
+		}
+		for (ForwardingOutcome outcome : outcomes) {
+			ForwardingMetrics.record(outcome);
+		}
+		logger.fine("Forwarded %d requests across %d shard processes".formatted(requests.size(), shardCount));
+		return new ArrayList<>(Arrays.asList(outcomes));
+	}
+
+	/**
+	 * Stops all workers and closes the coordinator endpoint.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			for (int shard = 0; shard < shardCount; shard++) {
+				endpoint.send(shard, new ShardFrame.Shutdown());
+			}
+			endpoint.flush();
+		} finally {
+			endpoint.close();
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package org.uj.routingemulator.common.simulation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Logger;
+
+/**
+ * Socket plumbing shared by shard workers and the coordinator.
+ * <p>
+ * Each endpoint listens on a loopback TCP port or a Unix domain socket. Incoming
+ * connections are read by one virtual thread each, and decoded frames land in a
+ * single inbox. Outgoing connections are opened lazily, one per peer, and frames
+ * are buffered until {@link #flush()} so that a burst of handoffs costs one write
+ * per peer. Sending and flushing must happen on a single owner thread.
+ */
+public class ShardEndpoint implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(ShardEndpoint.class.getName());
+	public static final int COORDINATOR = -1;
+	private static final int BUFFER_BYTES = 64 * 1024;
+
+	private final int id;
+	private final ServerSocketChannel server;
+	private final BlockingQueue<ShardFrame> inbox = new LinkedBlockingQueue<>();
+	private final List<SocketChannel> incoming = new CopyOnWriteArrayList<>();
+	private final Map<Integer, Outgoing> outgoing = new HashMap<>();
+	private volatile Map<Integer, SocketAddress> peers = Map.of();
+	private volatile boolean closed;
+
+	/**
+	 * Binds the endpoint and starts accepting connections.
+	 * @param id          shard number, or {@link #COORDINATOR}
+	 * @param bindAddress loopback TCP address (port 0 picks a free port) or Unix domain socket path
+	 * @throws IOException if binding fails
+	 */
+	public ShardEndpoint(int id, SocketAddress bindAddress) throws IOException {
+		this.id = id;
+		this.server = ServerSocketChannel.open(familyOf(bindAddress)).bind(bindAddress);
+		Thread.ofVirtual().name("shard-accept-" + id).start(this::acceptLoop);
+	}
+
+	/**
+	 * Parses an endpoint address of the form {@code tcp:<port>} (loopback) or {@code unix:<path>}.
+	 * @param spec address specification
+	 * @return socket address
+	 */
+	public static SocketAddress parseAddress(String spec) {
+		if (spec.startsWith("tcp:")) {
+			return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(spec.substring(4)));
+		}
+		if (spec.startsWith("unix:")) {
+			return UnixDomainSocketAddress.of(Path.of(spec.substring(5)));
+		}
+		throw new IllegalArgumentException("Endpoint address must be tcp:<port> or unix:<path>: " + spec);
+	}
+
+	private static ProtocolFamily familyOf(SocketAddress address) {
+		return address instanceof UnixDomainSocketAddress ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+	}
+
+	public SocketAddress localAddress() throws IOException {
+		return server.getLocalAddress();
+	}
+
+	/**
+	 * Sets the addresses of all other endpoints, keyed by endpoint id.
+	 */
+	public void setPeers(Map<Integer, SocketAddress> peers) {
+		this.peers = Map.copyOf(peers);
+	}
+
+	/**
+	 * Buffers a frame for a peer, connecting on first use.
+	 */
+	public void send(int peer, ShardFrame frame) throws IOException {
+		Outgoing out = outgoing.get(peer);
+		if (out == null) {
+			out = connect(peer);
+			outgoing.put(peer, out);
+		}
+		if (out.buffer.remaining() < ShardFrameCodec.MAX_FRAME_BYTES) {
+			out.flush();
+		}
+		ShardFrameCodec.encode(frame, out.buffer);
+	}
+
+	/**
+	 * Writes all buffered frames.
+	 */
+	public void flush() throws IOException {
+		for (Outgoing out : outgoing.values()) {
+			out.flush();
+		}
+	}
+
+	public ShardFrame take() throws InterruptedException {
+		return inbox.take();
+	}
+
+	public ShardFrame poll() {
+		return inbox.poll();
+	}
+
+	private Outgoing connect(int peer) throws IOException {
+		SocketAddress address = peers.get(peer);
+		if (address == null) {
+			throw new IOException("No address known for shard endpoint " + peer);
+		}
+		SocketChannel channel = SocketChannel.open(familyOf(address));
+		channel.connect(address);
+		Outgoing out = new Outgoing(channel);
+		ShardFrameCodec.encode(new ShardFrame.Hello(id), out.buffer);
+		logger.fine("Endpoint %d connected to endpoint %d at %s".formatted(id, peer, address));
+		return out;
+	}
+
+	private void acceptLoop() {
+		while (!closed) {
+			try {
+				SocketChannel channel = server.accept();
+				incoming.add(channel);
+				Thread.ofVirtual().name("shard-read-" + id).start(() -> readLoop(channel));
+			} catch (ClosedChannelException e) {
+				return;
+			} catch (IOException e) {
+				if (!closed) logger.warning("Endpoint %d failed to accept connection: %s".formatted(id, e.getMessage()));
+				return;
+			}
+		}
+	}
+
+	private void readLoop(SocketChannel channel) {
+		ByteBuffer header = ByteBuffer.allocate(ShardFrameCodec.HEADER_BYTES);
+		ByteBuffer body = ByteBuffer.allocate(ShardFrameCodec.MAX_FRAME_BYTES);
+		try {
+			while (!closed) {
+				header.clear();
+				readFully(channel, header);
+				int length = header.getInt(0);
+				if (length <= 0 || length > body.capacity()) {
+					throw new IOException("Invalid shard frame length " + length);
+				}
+				body.clear().limit(length);
+				readFully(channel, body);
+				body.flip();
+				ShardFrame frame = ShardFrameCodec.decode(body);
+				if (frame instanceof ShardFrame.Hello hello) {
+					logger.fine("Endpoint %d accepted connection from endpoint %d".formatted(id, hello.endpointId()));
+				} else {
+					inbox.add(frame);
+				}
+			}
+		} catch (EOFException | ClosedChannelException e) {
+			// Peer closed the connection
+		} catch (IOException | IllegalArgumentException e) {
+			if (!closed) logger.warning("Endpoint %d dropped a connection: %s".formatted(id, e.getMessage()));
+		}
+	}
+
+	private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		server.close();
+		for (Outgoing out : outgoing.values()) {
+			out.channel.close();
+		}
+		for (SocketChannel channel : incoming) {
+			channel.close();
+		}
+	}
+
+	private static final class Outgoing {
+		private final SocketChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+		Outgoing(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
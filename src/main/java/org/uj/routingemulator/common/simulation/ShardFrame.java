@@ -0,0 +1,67 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.forwarding.ForwardingReason;
+
+/**
+ * Messages exchanged between shard processes; encoded by {@link ShardFrameCodec}.
+ */
+public sealed interface ShardFrame {
+
+	/**
+	 * First frame on every connection, identifying the sending endpoint.
+	 * @param endpointId shard number of a worker, or {@link ShardEndpoint#COORDINATOR} for the coordinator
+	 */
+	record Hello(int endpointId) implements ShardFrame {
+	}
+
+	/**
+	 * A packet in transit, handed to the shard owning {@code node}.
+	 * @param requestId  coordinator-assigned request number
+	 * @param node       topology graph node of the router that processes the packet next
+	 * @param hops       hop count on arrival at {@code node}
+	 * @param ttl        remaining packet TTL
+	 * @param source     packed source address
+	 * @param destination packed destination address
+	 * @param packetType ordinal of the packet type
+	 * @param flags      forwarding context flags, see {@link ShardFrameCodec}
+	 * @param maxHops    hop bound of the forwarding context
+	 */
+	record PacketInTransit(int requestId, int node, int hops, int ttl, int source, int destination,
+	                       byte packetType, byte flags, int maxHops) implements ShardFrame {
+	}
+
+	/**
+	 * A return-path walk in transit, handed to the shard owning {@code node}. Sent when
+	 * the packet of a request reached its destination and the return route to its source
+	 * leads into another shard.
+	 * @param requestId   coordinator-assigned request number
+	 * @param node        topology graph node of the router the walk continues on
+	 * @param walkHops    steps the walk has taken so far
+	 * @param destination packed address the walk leads to, the source of the request
+	 * @param hops        hop count of the request's outcome
+	 * @param reason      reason of the request's outcome if the return route exists
+	 */
+	record ReturnInTransit(int requestId, int node, int walkHops, int destination, int hops,
+	                       ForwardingReason reason) implements ShardFrame {
+	}
+
+	/**
+	 * Final outcome of a request, sent to the coordinator.
+	 */
+	record Result(int requestId, boolean reached, int hops, ForwardingReason reason) implements ShardFrame {
+	}
+
+	/**
+	 * A request a worker failed to forward, sent to the coordinator.
+	 * @param requestId coordinator-assigned request number
+	 * @param message   description of the error, truncated to fit one frame
+	 */
+	record Failure(int requestId, String message) implements ShardFrame {
+	}
+
+	/**
+	 * Asks a worker to stop.
+	 */
+	record Shutdown() implements ShardFrame {
+	}
+}
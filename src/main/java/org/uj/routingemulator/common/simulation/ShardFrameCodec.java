@@ -0,0 +1,157 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.forwarding.ForwardingContext;
+import org.uj.routingemulator.common.forwarding.ForwardingReason;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link ShardFrame}s.
+ * <p>
+ * Every frame is {@code [int bodyLength][byte type][body]}, big-endian. A packet in
+ * transit takes 35 bytes on the wire including the header. Addresses travel as packed
+ * integers and the router as its topology graph node number, which is identical in
+ * every process that builds the same lab. Failure messages travel as UTF-8 with a
+ * two-byte length and are cut at a character boundary to fit {@link #MAX_FRAME_BYTES}.
+ */
+public class ShardFrameCodec {
+	public static final int HEADER_BYTES = Integer.BYTES;
+	public static final int MAX_FRAME_BYTES = 256;
+	private static final int MAX_MESSAGE_BYTES = MAX_FRAME_BYTES - Byte.BYTES - Integer.BYTES - Short.BYTES;
+
+	static final byte FLAG_DECREMENT_TTL = 1;
+	static final byte FLAG_VERIFY_RETURN = 1 << 1;
+	static final byte FLAG_RETURN_VERIFICATION = 1 << 2;
+
+	private static final byte TYPE_HELLO = 1;
+	private static final byte TYPE_PACKET = 2;
+	private static final byte TYPE_RESULT = 3;
+	private static final byte TYPE_SHUTDOWN = 4;
+	private static final byte TYPE_RETURN = 5;
+	private static final byte TYPE_FAILURE = 6;
+	private static final ForwardingReason[] REASONS = ForwardingReason.values();
+
+	private ShardFrameCodec() {
+	}
+
+	/**
+	 * Appends one frame to the buffer.
+	 * @param frame the frame
+	 * @param out   buffer with at least {@link #MAX_FRAME_BYTES} remaining
+	 */
+	public static void encode(ShardFrame frame, ByteBuffer out) {
+		int lengthPosition = out.position();
+		out.putInt(0);
+		switch (frame) {
+			case ShardFrame.Hello hello -> {
+				out.put(TYPE_HELLO);
+				out.putInt(hello.endpointId());
+			}
+			case ShardFrame.PacketInTransit p -> {
+				out.put(TYPE_PACKET);
+				out.putInt(p.requestId());
+				out.putInt(p.node());
+				out.putInt(p.hops());
+				out.putInt(p.ttl());
+				out.putInt(p.source());
+				out.putInt(p.destination());
+				out.put(p.packetType());
+				out.put(p.flags());
+				out.putInt(p.maxHops());
+			}
+			case ShardFrame.Result r -> {
+				out.put(TYPE_RESULT);
+				out.putInt(r.requestId());
+				out.put((byte) (r.reached() ? 1 : 0));
+				out.putInt(r.hops());
+				out.put((byte) (r.reason() != null ? r.reason().ordinal() : -1));
+			}
+			case ShardFrame.ReturnInTransit r -> {
+				out.put(TYPE_RETURN);
+				out.putInt(r.requestId());
+				out.putInt(r.node());
+				out.putInt(r.walkHops());
+				out.putInt(r.destination());
+				out.putInt(r.hops());
+				out.put((byte) (r.reason() != null ? r.reason().ordinal() : -1));
+			}
+			case ShardFrame.Failure f -> {
+				out.put(TYPE_FAILURE);
+				out.putInt(f.requestId());
+				encodeMessage(f.message(), out);
+			}
+			case ShardFrame.Shutdown ignored -> out.put(TYPE_SHUTDOWN);
+		}
+		out.putInt(lengthPosition, out.position() - lengthPosition - HEADER_BYTES);
+	}
+
+	/**
+	 * Decodes one frame body (type byte onwards).
+	 * @param body buffer positioned at the type byte, limited to the body
+	 * @return decoded frame
+	 * @throws IllegalArgumentException if the body is malformed
+	 */
+	public static ShardFrame decode(ByteBuffer body) {
+		try {
+			byte type = body.get();
+			return switch (type) {
+				case TYPE_HELLO -> new ShardFrame.Hello(body.getInt());
+				case TYPE_PACKET -> new ShardFrame.PacketInTransit(body.getInt(), body.getInt(), body.getInt(), body.getInt(),
+						body.getInt(), body.getInt(), body.get(), body.get(), body.getInt());
+				case TYPE_RESULT -> {
+					int requestId = body.getInt();
+					boolean reached = body.get() != 0;
+					int hops = body.getInt();
+					byte reason = body.get();
+					yield new ShardFrame.Result(requestId, reached, hops, reason >= 0 ? REASONS[reason] : null);
+				}
+				case TYPE_RETURN -> {
+					int requestId = body.getInt();
+					int node = body.getInt();
+					int walkHops = body.getInt();
+					int destination = body.getInt();
+					int hops = body.getInt();
+					byte reason = body.get();
+					yield new ShardFrame.ReturnInTransit(requestId, node, walkHops, destination, hops,
+							reason >= 0 ? REASONS[reason] : null);
+				}
+				case TYPE_FAILURE -> {
+					int requestId = body.getInt();
+					byte[] message = new byte[Short.toUnsignedInt(body.getShort())];
+					body.get(message);
+					yield new ShardFrame.Failure(requestId, new String(message, StandardCharsets.UTF_8));
+				}
+				case TYPE_SHUTDOWN -> new ShardFrame.Shutdown();
+				default -> throw new IllegalArgumentException("Unknown shard frame type " + type);
+			};
+		} catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated or corrupt shard frame", e);
+		}
+	}
+
+	private static void encodeMessage(String message, ByteBuffer out) {
+		int lengthPosition = out.position();
+		out.putShort((short) 0);
+		ByteBuffer text = out.slice().limit(MAX_MESSAGE_BYTES);
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// Stops before the first character that does not fit
+		encoder.encode(CharBuffer.wrap(message != null ? message : ""), text, true);
+		out.putShort(lengthPosition, (short) text.position());
+		out.position(out.position() + text.position());
+	}
+
+	static byte flagsOf(ForwardingContext ctx) {
+		byte flags = 0;
+		if (ctx.decrementTtl()) flags |= FLAG_DECREMENT_TTL;
+		if (ctx.verifyReturn()) flags |= FLAG_VERIFY_RETURN;
+		if (ctx.isReturnVerification()) flags |= FLAG_RETURN_VERIFICATION;
+		return flags;
+	}
+}
@@ -0,0 +1,199 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.host.Host;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Runs a multi-process simulation: spawns one {@link ShardWorker} JVM per shard and
+ * coordinates them from this process.
+ * <p>
+ * Workers and the coordinator talk over Unix domain sockets in a private temporary
+ * directory. The launcher partitions the lab and writes each worker its
+ * {@link ShardScope} there; the worker builds only that part of the lab from the same
+ * {@link LabDefinition} class.
+ */
+public class ShardLauncher implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(ShardLauncher.class.getName());
+	private static final long STARTUP_TIMEOUT_MILLIS = 30_000;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+	private static final int DEFAULT_TTL = 64;
+
+	private final Path socketDirectory;
+	private final List<Process> workers = new ArrayList<>();
+	private final ShardCoordinator coordinator;
+
+	/**
+	 * Starts the workers and connects the coordinator to them.
+	 * @param labClass   class implementing {@link LabDefinition}, on this JVM's class path
+	 * @param topology   the lab built whole from {@code labClass} in this process
+	 * @param shardCount number of worker processes
+	 * @throws IOException if a worker cannot be started or does not come up
+	 */
+	public ShardLauncher(Class<? extends LabDefinition> labClass, NetworkTopology topology, int shardCount)
+			throws IOException, InterruptedException {
+		List<ShardScope> scopes = ShardScope.partition(topology, shardCount);
+		this.socketDirectory = Files.createTempDirectory("shards");
+		Map<Integer, SocketAddress> endpoints = new HashMap<>();
+		List<String> addresses = new ArrayList<>();
+		for (int shard = 0; shard < shardCount; shard++) {
+			String address = "unix:" + socketDirectory.resolve("shard-" + shard + ".sock");
+			addresses.add(address);
+			endpoints.put(shard, ShardEndpoint.parseAddress(address));
+		}
+		String coordinatorAddress = "unix:" + socketDirectory.resolve("coordinator.sock");
+		endpoints.put(ShardEndpoint.COORDINATOR, ShardEndpoint.parseAddress(coordinatorAddress));
+
+		try {
+			String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+			for (int shard = 0; shard < shardCount; shard++) {
+				Path scopeFile = socketDirectory.resolve("shard-" + shard + ".scope");
+				scopes.get(shard).write(scopeFile);
+				List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+						ShardWorker.class.getName(), labClass.getName(), scopeFile.toString()));
+				command.addAll(addresses);
+				command.add(coordinatorAddress);
+				workers.add(new ProcessBuilder(command).inheritIO().start());
+			}
+			awaitSockets(shardCount);
+			// Workers only report to the coordinator once it sends them packets
+			this.coordinator = new ShardCoordinator(topology, shardCount, endpoints.get(ShardEndpoint.COORDINATOR));
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			workers.forEach(Process::destroyForcibly);
+			deleteSocketDirectory();
+			throw e;
+		}
+		coordinator.connect(endpoints);
+		logger.info("Started %d shard processes for %s".formatted(shardCount, labClass.getName()));
+	}
+
+	/**
+	 * Waits until every worker accepts connections. The socket file appears when a worker
+	 * binds, slightly before it listens, so each socket is probed with a connection.
+	 */
+	private void awaitSockets(int shardCount) throws IOException, InterruptedException {
+		long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+		for (int shard = 0; shard < shardCount; shard++) {
+			UnixDomainSocketAddress socket = UnixDomainSocketAddress.of(socketDirectory.resolve("shard-" + shard + ".sock"));
+			while (!accepts(socket)) {
+				Process worker = workers.get(shard);
+				if (!worker.isAlive()) {
+					throw new IOException("Shard %d exited with status %d during startup".formatted(shard, worker.exitValue()));
+				}
+				if (System.currentTimeMillis() > deadline) {
+					throw new IOException("Shard %d did not start within %d ms".formatted(shard, STARTUP_TIMEOUT_MILLIS));
+				}
+				Thread.sleep(20);
+			}
+		}
+	}
+
+	private static boolean accepts(UnixDomainSocketAddress socket) {
+		try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+			return probe.connect(socket);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Forwards a set of packets through the worker processes.
+	 * @see ShardCoordinator#forwardAll(List)
+	 */
+	public List<ForwardingOutcome> forwardAll(List<ForwardingRequest> requests) throws IOException, InterruptedException {
+		return coordinator.forwardAll(requests);
+	}
+
+	/**
+	 * Stops the workers, waiting for them to exit, and removes their sockets.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			coordinator.close();
+		} finally {
+			stopWorkers();
+			deleteSocketDirectory();
+		}
+	}
+
+	private void stopWorkers() {
+		for (Process worker : workers) {
+			try {
+				if (!worker.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					logger.warning("Shard process %d did not stop, destroying it".formatted(worker.pid()));
+					worker.destroyForcibly();
+				}
+			} catch (InterruptedException e) {
+				worker.destroyForcibly();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void deleteSocketDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(socketDirectory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	/**
+	 * Pings every pair of hosts of a lab across worker processes and prints a summary.
+	 * <p>
+	 * Usage: {@code ShardLauncher <lab-class> <shard-count>}, where the lab class implements
+	 * {@link LabDefinition} and is on the class path.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: ShardLauncher <lab-class> <shard-count>");
+			System.exit(2);
+		}
+		Class<? extends LabDefinition> labClass = Class.forName(args[0]).asSubclass(LabDefinition.class);
+		int shardCount = Integer.parseInt(args[1]);
+		NetworkTopology topology = labClass.getConstructor().newInstance().build();
+
+		List<Host> hosts = new ArrayList<>();
+		for (Device device : topology.devices()) {
+			if (device instanceof Host host && host.getHostInterface() != null && host.getHostInterface().getInterfaceAddress() != null) {
+				hosts.add(host);
+			}
+		}
+		List<ForwardingRequest> requests = new ArrayList<>();
+		for (Host source : hosts) {
+			for (Host destination : hosts) {
+				if (source != destination) {
+					requests.add(ForwardingRequest.fromHost(source,
+							destination.getHostInterface().getInterfaceAddress().ipAddress(), DEFAULT_TTL));
+				}
+			}
+		}
+
+		long startNanos = System.nanoTime();
+		List<ForwardingOutcome> outcomes;
+		try (ShardLauncher launcher = new ShardLauncher(labClass, topology, shardCount)) {
+			outcomes = launcher.forwardAll(requests);
+		}
+		long reached = outcomes.stream().filter(ForwardingOutcome::reached).count();
+		System.out.printf("%d of %d host pairs reachable across %d shard processes (%d ms)%n",
+				reached, outcomes.size(), shardCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+	}
+}
@@ -0,0 +1,156 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.router.model.Router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The part of a lab one shard process keeps, built from its {@link ShardScope}.
+ * <p>
+ * A shard holds the devices it owns, the L2 segments (switches and hosts) reachable from
+ * them, and a stub for every router of another shard attached to those devices. A stub
+ * is a router with the interfaces of the remote router and no routes: it lets forwarding
+ * find the neighbour across a border link, but no forwarding decision is ever made on it.
+ * Routers are identified across processes by their node number in the full lab's
+ * {@link TopologyGraph}.
+ */
+final class ShardPartition {
+	private final NetworkTopology topology;
+	private final TopologyQuery query;
+	private final TopologyGraph graph;
+	private final int[] globalNodes;
+	private final int[] owners;
+	private final Map<Integer, Router> routersByGlobalNode;
+	private final Set<Router> stubs;
+	private final int ownedRouters;
+
+	private ShardPartition(NetworkTopology topology, int[] globalNodes, int[] owners, Set<Router> stubs, int ownedRouters) {
+		this.topology = topology;
+		this.query = new NetworkTopologyQuery(topology);
+		this.graph = topology.graph();
+		this.globalNodes = globalNodes;
+		this.owners = owners;
+		this.stubs = stubs;
+		this.ownedRouters = ownedRouters;
+		this.routersByGlobalNode = new HashMap<>();
+		for (int local = 0; local < globalNodes.length; local++) {
+			if (graph.device(local) instanceof Router router) {
+				routersByGlobalNode.put(globalNodes[local], router);
+			}
+		}
+	}
+
+	/**
+	 * Assembles the partition of one shard from the devices a lab built for its scope.
+	 * @param built devices and connections the lab built for {@code scope}
+	 * @param scope the shard's scope
+	 * @return the shard's partition
+	 * @throws IllegalArgumentException if the lab built a device outside the scope
+	 */
+	static ShardPartition of(NetworkTopology built, ShardScope scope) {
+		List<Device> devices = new ArrayList<>();
+		List<Integer> globalNodes = new ArrayList<>();
+		List<Integer> owners = new ArrayList<>();
+		Set<Router> stubs = Collections.newSetFromMap(new IdentityHashMap<>());
+		Map<Device, Device> placed = new IdentityHashMap<>();
+		int ownedRouters = 0;
+		for (Device device : built.devices()) {
+			ShardScope.Member member = scope.member(device.getDeviceName());
+			if (member == null) {
+				throw new IllegalArgumentException("Lab built device %s outside shard %d"
+						.formatted(device.getDeviceName(), scope.shardId()));
+			}
+			Device kept = device;
+			if (member.stub()) {
+				Router remote = (Router) device;
+				Router placeholder = new Router(remote.getName(), remote.getInterfaces());
+				stubs.add(placeholder);
+				kept = placeholder;
+			} else if (device instanceof Router && member.owner() == scope.shardId()) {
+				ownedRouters++;
+			}
+			placed.put(device, kept);
+			devices.add(kept);
+			globalNodes.add(member.node());
+			owners.add(member.owner());
+		}
+		TopologyGraph builtGraph = built.graph();
+		List<Connection> connections = new ArrayList<>();
+		for (Connection c : built.connections()) {
+			int a = builtGraph.nodeOfInterface(c.interfaceA());
+			int b = builtGraph.nodeOfInterface(c.interfaceB());
+			if (a < 0 || b < 0) continue;
+			// Links between two stubs are never crossed here
+			if (!(stubs.contains(placed.get(builtGraph.device(a))) && stubs.contains(placed.get(builtGraph.device(b))))) {
+				connections.add(c);
+			}
+		}
+		return new ShardPartition(new NetworkTopology(devices, connections),
+				globalNodes.stream().mapToInt(Integer::intValue).toArray(),
+				owners.stream().mapToInt(Integer::intValue).toArray(), stubs, ownedRouters);
+	}
+
+	/**
+	 * @return lookups over the partition
+	 */
+	TopologyQuery query() {
+		return query;
+	}
+
+	/**
+	 * @param globalNode node number in the full lab graph
+	 * @return the owned router or stub with that node number, or null if the shard does not know it
+	 */
+	Router router(int globalNode) {
+		return routersByGlobalNode.get(globalNode);
+	}
+
+	/**
+	 * @param router an owned router or stub of this partition
+	 * @return its node number in the full lab graph, or -1 if it is not part of the partition
+	 */
+	int globalNode(Router router) {
+		int local = graph.nodeOf(router);
+		return local >= 0 ? globalNodes[local] : -1;
+	}
+
+	/**
+	 * @param router an owned router or stub of this partition
+	 * @return shard making forwarding decisions for the router, or -1 if it is not part of the partition
+	 */
+	int owner(Router router) {
+		int local = graph.nodeOf(router);
+		return local >= 0 ? owners[local] : -1;
+	}
+
+	/**
+	 * @return true if the router is a stub for a router of another shard
+	 */
+	boolean isStub(Router router) {
+		return stubs.contains(router);
+	}
+
+	int deviceCount() {
+		return topology.devices().size();
+	}
+
+	int ownedRouterCount() {
+		return ownedRouters;
+	}
+
+	int stubCount() {
+		return stubs.size();
+	}
+}
@@ -0,0 +1,172 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.router.model.Router;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The devices of a lab one shard process builds, identified by device name.
+ * <p>
+ * The launcher partitions the lab and writes one scope per worker; a worker reads its
+ * scope and asks the {@link LabDefinition} to build only the devices in it, so it never
+ * holds the rest of the lab. A scope lists the devices the shard owns, the L2 segments
+ * (switches and hosts) reachable from them, and the border routers of other shards
+ * attached to those devices, which the worker turns into stubs. Each device carries its
+ * node number in the full lab's {@link TopologyGraph}, which identifies routers across
+ * processes, and the shard owning it.
+ */
+public final class ShardScope {
+	private static final ShardScope ALL = new ShardScope(-1, null);
+
+	/**
+	 * @param node  node number in the full lab graph
+	 * @param owner shard that makes forwarding decisions for the device
+	 * @param stub  true if the device is a router of another shard
+	 */
+	record Member(int node, int owner, boolean stub) {
+	}
+
+	private final int shardId;
+	private final Map<String, Member> members;
+
+	private ShardScope(int shardId, Map<String, Member> members) {
+		this.shardId = shardId;
+		this.members = members;
+	}
+
+	/**
+	 * @return a scope including every device, for building a whole lab
+	 */
+	public static ShardScope all() {
+		return ALL;
+	}
+
+	/**
+	 * Partitions a lab and describes the part every shard builds.
+	 * @param lab        the full lab, built in the launching process
+	 * @param shardCount number of shards
+	 * @return one scope per shard, in shard order
+	 * @throws IllegalArgumentException if two devices of the lab share a name
+	 */
+	public static List<ShardScope> partition(NetworkTopology lab, int shardCount) {
+		TopologyGraph graph = lab.graph();
+		int[] shardOfNode = TopologyPartitioner.partition(graph, shardCount);
+		List<ShardScope> scopes = new ArrayList<>();
+		for (int shard = 0; shard < shardCount; shard++) {
+			scopes.add(of(graph, shardOfNode, shard));
+		}
+		return scopes;
+	}
+
+	private static ShardScope of(TopologyGraph full, int[] shardOfNode, int shardId) {
+		int n = full.nodeCount();
+		boolean[] kept = new boolean[n];
+		boolean[] stub = new boolean[n];
+		ArrayDeque<Integer> segment = new ArrayDeque<>();
+		for (int u = 0; u < n; u++) {
+			if (shardOfNode[u] == shardId) {
+				kept[u] = true;
+				segment.add(u);
+			}
+		}
+		// Owned devices pull in the L2 segments around them; routers of other shards become stubs
+		int[] offsets = full.offsets();
+		int[] targets = full.targets();
+		while (!segment.isEmpty()) {
+			int u = segment.poll();
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (kept[v] || stub[v]) continue;
+				if (full.device(v) instanceof Router) {
+					stub[v] = true;
+				} else {
+					kept[v] = true;
+					segment.add(v);
+				}
+			}
+		}
+
+		Map<String, Member> members = new LinkedHashMap<>();
+		for (int u = 0; u < n; u++) {
+			if (kept[u] || stub[u]) {
+				String name = full.device(u).getDeviceName();
+				if (members.put(name, new Member(u, shardOfNode[u], stub[u])) != null) {
+					throw new IllegalArgumentException("Device name %s is not unique in the lab".formatted(name));
+				}
+			}
+		}
+		return new ShardScope(shardId, members);
+	}
+
+	/**
+	 * @param deviceName name of a device of the lab
+	 * @return true if the shard builds the device
+	 */
+	public boolean includes(String deviceName) {
+		return members == null || members.containsKey(deviceName);
+	}
+
+	/**
+	 * @return shard number, or -1 for the scope of a whole lab
+	 */
+	public int shardId() {
+		return shardId;
+	}
+
+	/**
+	 * @return number of devices in the scope, or -1 for the scope of a whole lab
+	 */
+	public int size() {
+		return members == null ? -1 : members.size();
+	}
+
+	/**
+	 * @return the scope entry of a device, or null if the device is not in the scope
+	 */
+	Member member(String deviceName) {
+		return members == null ? null : members.get(deviceName);
+	}
+
+	/**
+	 * Writes the scope for a worker process to read with {@link #read(Path)}.
+	 * @param file file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	void write(Path file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add(Integer.toString(shardId));
+		members.forEach((name, member) ->
+				lines.add("%d\t%d\t%d\t%s".formatted(member.node(), member.owner(), member.stub() ? 1 : 0, name)));
+		Files.write(file, lines);
+	}
+
+	/**
+	 * Reads a scope written by {@link #write(Path)}.
+	 * @param file file to read
+	 * @return the scope
+	 * @throws IOException if the file cannot be read or is malformed
+	 */
+	static ShardScope read(Path file) throws IOException {
+		List<String> lines = Files.readAllLines(file);
+		try {
+			int shardId = Integer.parseInt(lines.getFirst());
+			Map<String, Member> members = new LinkedHashMap<>();
+			for (String line : lines.subList(1, lines.size())) {
+				String[] fields = line.split("\t", 4);
+				members.put(fields[3], new Member(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), fields[2].equals("1")));
+			}
+			return new ShardScope(shardId, members);
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed shard scope %s: %s".formatted(file, e.getMessage()), e);
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingContext;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingReason;
+import org.uj.routingemulator.common.forwarding.ReturnPathHandoff;
+import org.uj.routingemulator.common.forwarding.RouteResolver;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.router.model.Router;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * One shard of a multi-process simulation.
+ * <p>
+ * The worker builds only its {@link ShardPartition} from its {@link ShardScope}: the
+ * routers it owns, the L2 segments around them and stubs for the border routers of other
+ * shards. It makes forwarding
+ * decisions for its routers with a {@link ForwardingEngine}. When a packet moves to a
+ * router owned by another shard it is encoded as a {@link ShardFrame.PacketInTransit}
+ * and sent to that worker; a return-path check that leads into another shard travels
+ * the same way as a {@link ShardFrame.ReturnInTransit}. Final outcomes and errors go to
+ * the coordinator. Outgoing frames are flushed whenever the inbox runs dry, which
+ * batches handoffs under load.
+ */
+public class ShardWorker implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(ShardWorker.class.getName());
+	private static final Packet.PacketType[] PACKET_TYPES = Packet.PacketType.values();
+
+	private final int shardId;
+	private final ShardPartition partition;
+	private final ForwardingEngine engine;
+	private final ShardEndpoint endpoint;
+	private Thread thread;
+	private long decisions;
+
+	/**
+	 * Builds the worker's part of the lab and binds its endpoint.
+	 * @param lab         the lab, asked to build only the devices in {@code scope}
+	 * @param scope       this worker's scope, from {@link ShardScope#partition}
+	 * @param bindAddress address to listen on
+	 * @throws IOException if binding fails
+	 * @throws IllegalArgumentException if the lab builds devices outside the scope
+	 */
+	public ShardWorker(LabDefinition lab, ShardScope scope, SocketAddress bindAddress) throws IOException {
+		this.shardId = scope.shardId();
+		this.partition = ShardPartition.of(lab.build(scope), scope);
+		this.engine = new ForwardingEngine(InterfaceCounters.global(), router -> !partition.isStub(router));
+		this.endpoint = new ShardEndpoint(shardId, bindAddress);
+		logger.info("Shard %d holds %d devices: %d routers and %d border stubs".formatted(shardId,
+				partition.deviceCount(), partition.ownedRouterCount(), partition.stubCount()));
+	}
+
+	/**
+	 * @return number of devices the worker holds, stubs included
+	 */
+	public int deviceCount() {
+		return partition.deviceCount();
+	}
+
+	/**
+	 * @return number of routers the worker makes forwarding decisions for
+	 */
+	public int ownedRouterCount() {
+		return partition.ownedRouterCount();
+	}
+
+	/**
+	 * @return number of stubs standing in for border routers of other shards
+	 */
+	public int stubCount() {
+		return partition.stubCount();
+	}
+
+	public SocketAddress localAddress() throws IOException {
+		return endpoint.localAddress();
+	}
+
+	/**
+	 * Starts processing frames.
+	 * @param endpoints addresses of all workers and the coordinator, keyed by endpoint id
+	 */
+	public void start(Map<Integer, SocketAddress> endpoints) {
+		endpoint.setPeers(endpoints);
+		thread = new Thread(this::run, "shard-worker-" + shardId);
+		thread.start();
+	}
+
+	/**
+	 * Waits until the worker receives a shutdown frame.
+	 */
+	public void awaitShutdown() throws InterruptedException {
+		thread.join();
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				ShardFrame frame = endpoint.poll();
+				if (frame == null) {
+					endpoint.flush();
+					frame = endpoint.take();
+				}
+				if (frame instanceof ShardFrame.Shutdown) {
+					endpoint.flush();
+					logger.info("Shard %d stopping after %d forwarding decisions".formatted(shardId, decisions));
+					return;
+				}
+				try {
+					if (frame instanceof ShardFrame.PacketInTransit packet) {
+						process(packet);
+					} else if (frame instanceof ShardFrame.ReturnInTransit walk) {
+						continueReturnPath(walk);
+					}
+				} catch (RuntimeException e) {
+					fail(frame, e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			logger.severe("Shard %d lost connectivity: %s".formatted(shardId, e.getMessage()));
+		}
+	}
+
+	private void process(ShardFrame.PacketInTransit frame) throws IOException {
+		IPAddress source = IPAddress.fromInt(frame.source());
+		IPAddress destination = IPAddress.fromInt(frame.destination());
+		Packet packet = new Packet(source, destination, PACKET_TYPES[frame.packetType()], frame.ttl());
+		ForwardingContext ctx = new ForwardingContext(source, destination, frame.maxHops(),
+				(frame.flags() & ShardFrameCodec.FLAG_DECREMENT_TTL) != 0,
+				(frame.flags() & ShardFrameCodec.FLAG_VERIFY_RETURN) != 0,
+				(frame.flags() & ShardFrameCodec.FLAG_RETURN_VERIFICATION) != 0);
+		Router router = partition.router(frame.node());
+		int hops = frame.hops();
+
+		while (true) {
+			if (hops >= ctx.maxHops()) {
+				reply(frame.requestId(), new ForwardingOutcome(false, hops, ForwardingReason.TTL_EXPIRED));
+				return;
+			}
+			RouteResolver.RouteStep step;
+			try {
+				step = engine.step(packet, router, hops, partition.query(), ctx);
+			} catch (ReturnPathHandoff handoff) {
+				decisions++;
+				handOff(frame.requestId(), handoff, handoff.outcome().hopCount(), handoff.outcome().reason());
+				return;
+			}
+			decisions++;
+			if (step.outcome() != null) {
+				reply(frame.requestId(), step.outcome());
+				return;
+			}
+			router = step.nextRouter();
+			hops = step.hops();
+			int node = partition.globalNode(router);
+			int owner = partition.owner(router);
+			if (owner != shardId) {
+				endpoint.send(owner, new ShardFrame.PacketInTransit(frame.requestId(), node, hops, packet.getTtl(),
+						frame.source(), frame.destination(), frame.packetType(), frame.flags(), frame.maxHops()));
+				return;
+			}
+		}
+	}
+
+	private void continueReturnPath(ShardFrame.ReturnInTransit frame) throws IOException {
+		Router router = partition.router(frame.node());
+		ForwardingOutcome walk;
+		try {
+			walk = engine.continueReturnPath(router, IPAddress.fromInt(frame.destination()), frame.walkHops(), partition.query());
+		} catch (ReturnPathHandoff handoff) {
+			handOff(frame.requestId(), handoff, frame.hops(), frame.reason());
+			return;
+		}
+		reply(frame.requestId(), walk.reached()
+				? new ForwardingOutcome(true, frame.hops(), frame.reason())
+				: new ForwardingOutcome(false, frame.hops(), ForwardingReason.NO_RETURN_ROUTE));
+	}
+
+	private void handOff(int requestId, ReturnPathHandoff handoff, int hops, ForwardingReason reason) throws IOException {
+		int node = partition.globalNode(handoff.router());
+		endpoint.send(partition.owner(handoff.router()), new ShardFrame.ReturnInTransit(requestId, node, handoff.hops(),
+				handoff.destination().toInt(), hops, reason));
+	}
+
+	private void fail(ShardFrame frame, RuntimeException e) throws IOException {
+		int requestId = switch (frame) {
+			case ShardFrame.PacketInTransit packet -> packet.requestId();
+			case ShardFrame.ReturnInTransit walk -> walk.requestId();
+			default -> -1;
+		};
+		String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+		logger.severe("Shard %d failed to forward request %d: %s".formatted(shardId, requestId, message));
+		endpoint.send(ShardEndpoint.COORDINATOR, new ShardFrame.Failure(requestId, message));
+	}
+
+	private void reply(int requestId, ForwardingOutcome outcome) throws IOException {
+		endpoint.send(ShardEndpoint.COORDINATOR, new ShardFrame.Result(requestId, outcome.reached(), outcome.hopCount(), outcome.reason()));
+	}
+
+	@Override
+	public void close() throws IOException {
+		endpoint.close();
+	}
+
+	/**
+	 * Runs a worker process.
+	 * <p>
+	 * Usage: {@code ShardWorker <lab-class> <scope-file> <endpoint-0> ... <endpoint-n-1> <coordinator-endpoint>},
+	 * where the scope file was written by the launcher, each endpoint is {@code tcp:<port>}
+	 * or {@code unix:<path>} and the lab class implements {@link LabDefinition}.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("Usage: ShardWorker <lab-class> <scope-file> <endpoint>... <coordinator-endpoint>");
+			System.exit(2);
+		}
+		LabDefinition lab = (LabDefinition) Class.forName(args[0]).getConstructor().newInstance();
+		ShardScope scope = ShardScope.read(Path.of(args[1]));
+		int shardCount = args.length - 3;
+		Map<Integer, SocketAddress> endpoints = new HashMap<>();
+		for (int i = 0; i < shardCount; i++) {
+			endpoints.put(i, ShardEndpoint.parseAddress(args[2 + i]));
+		}
+		endpoints.put(ShardEndpoint.COORDINATOR, ShardEndpoint.parseAddress(args[args.length - 1]));
+
+		try (ShardWorker worker = new ShardWorker(lab, scope, endpoints.get(scope.shardId()))) {
+			worker.start(endpoints);
+			worker.awaitShutdown();
+		}
+	}
+}
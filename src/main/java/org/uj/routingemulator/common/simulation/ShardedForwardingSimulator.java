@@ -0,0 +1,323 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingMetrics;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.forwarding.ForwardingReason;
+import org.uj.routingemulator.common.forwarding.ForwardingStart;
+import org.uj.routingemulator.common.forwarding.RouteResolver;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Forwards many packets in parallel by splitting the topology into shards.
+ * <p>
+ * The topology graph is partitioned with {@link TopologyPartitioner}. Each shard is
+ * owned by one worker thread that makes every forwarding decision for the routers in
+ * its shard. A packet that moves to a router owned by another shard is queued in a
+ * per-destination outbox and handed off in batches, so workers synchronise once per
+ * batch rather than once per hop.
+ * <p>
+ * Forwarding decisions are the ones {@link ForwardingEngine} makes. Outcomes are
+ * identical to calling {@link ForwardingEngine#forward} for each request. Return-path
+ * verification runs on the worker that reaches the destination and only reads other
+ * shards' routers. {@link #forwardAll} holds {@link NetworkTopology#readConfiguration}
+ * until every outcome is in, so all packets see the same configuration version; packets
+ * of a {@link #submit submitted} set may see configurations published meanwhile.
+ */
+public class ShardedForwardingSimulator implements AutoCloseable {
+	private static final Logger logger = Logger.getLogger(ShardedForwardingSimulator.class.getName());
+	private static final int HANDOFF_BATCH_SIZE = 64;
+	private static final List<Flight> SHUTDOWN = List.of();
+
+	private final ForwardingEngine engine = new ForwardingEngine();
+	private final NetworkTopology topology;
+	private final TopologyQuery topologyQuery;
+	private final TopologyGraph graph;
+	private final int[] shardOfNode;
+	private final Shard[] shards;
+	private final LongAdder handoffs = new LongAdder();
+
+	/**
+	 * Partitions the topology and starts one worker thread per shard.
+	 * @param topology   the topology to simulate; its current version is used
+	 * @param shardCount number of shards and worker threads
+	 */
+	public ShardedForwardingSimulator(NetworkTopology topology, int shardCount) {
+		this.topology = topology;
+		this.topologyQuery = new NetworkTopologyQuery(topology);
+		this.graph = topology.graph();
+		this.shardOfNode = TopologyPartitioner.partition(graph, shardCount);
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(i);
+		}
+		for (Shard shard : shards) {
+			shard.thread.start();
+		}
+		logger.info("Started sharded forwarding simulation with %d shards over %d devices".formatted(shardCount, graph.nodeCount()));
+	}
+
+	/**
+	 * Submits a set of packets for forwarding.
+	 * @param requests packets to forward
+	 * @return future completed with one outcome per request, in request order
+	 */
+	public CompletableFuture<List<ForwardingOutcome>> submit(List<ForwardingRequest> requests) {
+		Job job = new Job(requests.size());
+		List<List<Flight>> initial = new ArrayList<>(shards.length);
+		for (int i = 0; i < shards.length; i++) {
+			initial.add(new ArrayList<>());
+		}
+
+		for (int slot = 0; slot < requests.size(); slot++) {
+			ForwardingRequest request = requests.get(slot);
+			ForwardingStart start;
+			try {
+				start = request.source() instanceof Host host
+						? engine.start(request.packet(), host, topologyQuery)
+						: engine.start(request.packet(), (Router) request.source());
+			} catch (RuntimeException e) {
+				job.fail(e);
+				continue;
+			}
+			if (start.isFinished()) {
+				job.complete(slot, start.outcome());
+			} else {
+				Flight flight = new Flight(job, slot, request.packet(), start);
+				initial.get(shardOf(start.router())).add(flight);
+			}
+		}
+
+		for (int i = 0; i < shards.length; i++) {
+			if (!initial.get(i).isEmpty()) {
+				shards[i].inbox.add(initial.get(i));
+			}
+		}
+		return job.future;
+	}
+
+	/**
+	 * Forwards a set of packets over one configuration version and waits for all outcomes.
+	 * Configurations are published only after the last outcome is in.
+	 * @param requests packets to forward
+	 * @return one outcome per request, in request order
+	 */
+	public List<ForwardingOutcome> forwardAll(List<ForwardingRequest> requests) {
+		// Workers never take the lock, so holding it here while they run cannot deadlock
+		return topology.readConfiguration(() -> submit(requests).join());
+	}
+
+	/**
+	 * Gets the shard owning a router. Routers outside the partitioned topology belong to shard 0.
+	 * @param router the router
+	 * @return shard number
+	 */
+	public int shardOf(Router router) {
+		int node = graph.nodeOf(router);
+		return node >= 0 ? shardOfNode[node] : 0;
+	}
+
+	public int shardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * @return number of packets that crossed a shard boundary so far
+	 */
+	public long handoffCount() {
+		return handoffs.sum();
+	}
+
+	/**
+	 * @return number of forwarding decisions made by each shard so far
+	 */
+	public long[] decisionsPerShard() {
+		return Arrays.stream(shards).mapToLong(s -> s.decisions.sum()).toArray();
+	}
+
+	/**
+	 * Stops all workers. Packets still in flight are abandoned.
+	 */
+	@Override
+	public void close() {
+		for (Shard shard : shards) {
+			shard.inbox.add(SHUTDOWN);
+		}
+		for (Shard shard : shards) {
+			try {
+				shard.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		logger.info("Stopped sharded forwarding simulation after %d shard handoffs".formatted(handoffCount()));
+	}
+
+	/**
+	 * One worker: a local run queue, an inbox of batches from other shards and one outbox per peer.
+	 */
+	private final class Shard implements Runnable {
+		private final int id;
+		private final Thread thread;
+		private final BlockingQueue<List<Flight>> inbox = new LinkedBlockingQueue<>();
+		private final ArrayDeque<Flight> local = new ArrayDeque<>();
+		private final List<List<Flight>> outboxes = new ArrayList<>();
+		private final LongAdder decisions = new LongAdder();
+
+		Shard(int id) {
+			this.id = id;
+			for (int i = 0; i < shards.length; i++) {
+				outboxes.add(new ArrayList<>(HANDOFF_BATCH_SIZE));
+			}
+			this.thread = new Thread(this, "forwarding-shard-" + id);
+			this.thread.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					List<Flight> batch = local.isEmpty() ? inbox.take() : inbox.poll();
+					while (batch != null) {
+						if (batch == SHUTDOWN) return;
+						local.addAll(batch);
+						batch = inbox.poll();
+					}
+					Flight flight = local.poll();
+					if (flight != null) {
+						advance(flight);
+					}
+					if (local.isEmpty()) {
+						flushAll();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		private void advance(Flight flight) {
+			if (flight.hops >= flight.start.context().maxHops()) {
+				flight.job.complete(flight.slot, new ForwardingOutcome(false, flight.hops, ForwardingReason.TTL_EXPIRED));
+				return;
+			}
+			RouteResolver.RouteStep step;
+			try {
+				step = engine.step(flight.packet, flight.router, flight.ingress, flight.hops, topologyQuery, flight.start.context());
+			} catch (RuntimeException e) {
+				flight.job.fail(e);
+				return;
+			}
+			decisions.increment();
+			if (step.outcome() != null) {
+				flight.job.complete(flight.slot, step.outcome());
+				return;
+			}
+			flight.router = step.nextRouter();
+			flight.ingress = step.ingress();
+			flight.hops = step.hops();
+
+			int target = shardOf(flight.router);
+			if (target == id) {
+				local.add(flight);
+				return;
+			}
+			List<Flight> outbox = outboxes.get(target);
+			outbox.add(flight);
+			if (outbox.size() >= HANDOFF_BATCH_SIZE) {
+				flush(target);
+			}
+		}
+
+		private void flushAll() {
+			for (int i = 0; i < outboxes.size(); i++) {
+				if (!outboxes.get(i).isEmpty()) {
+					flush(i);
+				}
+			}
+		}
+
+		private void flush(int target) {
+			List<Flight> outbox = outboxes.get(target);
+			handoffs.add(outbox.size());
+			shards[target].inbox.add(outbox);
+			outboxes.set(target, new ArrayList<>(HANDOFF_BATCH_SIZE));
+		}
+	}
+
+	/**
+	 * A packet in transit; owned by exactly one shard at a time.
+	 */
+	private static final class Flight {
+		private final Job job;
+		private final int slot;
+		private final Packet packet;
+		private final ForwardingStart start;
+		private Router router;
+		private RouterInterface ingress;
+		private int hops;
+
+		Flight(Job job, int slot, Packet packet, ForwardingStart start) {
+			this.job = job;
+			this.slot = slot;
+			this.packet = packet;
+			this.start = start;
+			this.router = start.router();
+			this.ingress = start.ingress();
+			this.hops = start.hops();
+		}
+	}
+
+	/**
+	 * Collects outcomes of one submitted set of requests.
+	 */
+	private static final class Job {
+		private final AtomicReferenceArray<ForwardingOutcome> outcomes;
+		private final AtomicInteger remaining;
+		private final CompletableFuture<List<ForwardingOutcome>> future = new CompletableFuture<>();
+
+		Job(int size) {
+			this.outcomes = new AtomicReferenceArray<>(size);
+			this.remaining = new AtomicInteger(size);
+			if (size == 0) {
+				future.complete(List.of());
+			}
+		}
+
+		void complete(int slot, ForwardingOutcome outcome) {
+			ForwardingMetrics.record(outcome);
+			outcomes.set(slot, outcome);
+			if (remaining.decrementAndGet() == 0) {
+				List<ForwardingOutcome> result = new ArrayList<>(outcomes.length());
+				for (int i = 0; i < outcomes.length(); i++) {
+					result.add(outcomes.get(i));
+				}
+				future.complete(result);
+			}
+		}
+
+		void fail(Throwable error) {
+			future.completeExceptionally(error);
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package org.uj.routingemulator.common.simulation;
+
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyGraphAlgorithms;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Splits a topology graph into shards of connected devices.
+ * <p>
+ * Seeds are picked farthest-first, every device joins its nearest seed, and a few
+ * rounds of size-capped label propagation then pull devices towards the shard most
+ * of their neighbours belong to. Switches and hosts are ordinary nodes here, so an
+ * L2 segment ends up in the shard of the routers around it and router clusters stay
+ * together, keeping the number of cut links (shard handoffs) low.
+ */
+public class TopologyPartitioner {
+	private static final Logger logger = Logger.getLogger(TopologyPartitioner.class.getName());
+	private static final int MAX_ROUNDS = 16;
+	private static final double BALANCE_SLACK = 1.1;
+
+	private TopologyPartitioner() {
+	}
+
+	/**
+	 * Assigns every node of the graph to a shard.
+	 * @param graph  the topology graph
+	 * @param shards requested number of shards
+	 * @return shard number per node, in {@code [0, shards)}
+	 */
+	public static int[] partition(TopologyGraph graph, int shards) {
+		if (shards < 1) {
+			throw new IllegalArgumentException("Shard count must be positive");
+		}
+		int n = graph.nodeCount();
+		int[] labels = new int[n];
+		if (shards == 1 || n == 0) {
+			return labels;
+		}
+		int k = Math.min(shards, n);
+
+		int[] seeds = pickSeeds(graph, k);
+		int[] sizes = growRegions(graph, seeds, labels);
+		int capacity = (int) Math.ceil(BALANCE_SLACK * n / k) + 1;
+		int rounds = refine(graph, labels, sizes, capacity);
+
+		logger.fine("Partitioned %d devices into %d shards (%d refinement rounds, %d cut links)"
+				.formatted(n, k, rounds, cutConnections(graph, labels)));
+		return labels;
+	}
+
+	/**
+	 * Counts connections whose endpoints lie in different shards.
+	 * @param graph  the topology graph
+	 * @param labels shard number per node
+	 * @return number of cut connections
+	 */
+	public static int cutConnections(TopologyGraph graph, int[] labels) {
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int cut = 0;
+		for (int u = 0; u < graph.nodeCount(); u++) {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				if (u < targets[e] && labels[u] != labels[targets[e]]) cut++;
+			}
+		}
+		return cut;
+	}
+
+	private static int[] pickSeeds(TopologyGraph graph, int k) {
+		int n = graph.nodeCount();
+		int[] seeds = new int[k];
+		// Distance to the nearest chosen seed; unreachable nodes count as infinitely far
+		int[] nearest = new int[n];
+		Arrays.fill(nearest, Integer.MAX_VALUE);
+		int next = 0;
+		for (int s = 0; s < k; s++) {
+			seeds[s] = next;
+			int[] dist = TopologyGraphAlgorithms.bfs(graph, next);
+			int farthest = -1;
+			for (int v = 0; v < n; v++) {
+				if (dist[v] >= 0) nearest[v] = Math.min(nearest[v], dist[v]);
+				if (farthest < 0 || nearest[v] > nearest[farthest]) farthest = v;
+			}
+			next = farthest;
+		}
+		return seeds;
+	}
+
+	private static int[] growRegions(TopologyGraph graph, int[] seeds, int[] labels) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] sizes = new int[seeds.length];
+		Arrays.fill(labels, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		for (int s = 0; s < seeds.length; s++) {
+			if (labels[seeds[s]] < 0) {
+				labels[seeds[s]] = s;
+				sizes[s]++;
+				queue[tail++] = seeds[s];
+			}
+		}
+		while (head < tail) {
+			int u = queue[head++];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (labels[v] < 0) {
+					labels[v] = labels[u];
+					sizes[labels[u]]++;
+					queue[tail++] = v;
+				}
+			}
+		}
+		// Components without a seed go to the currently smallest shard
+		for (int v = 0; v < n; v++) {
+			if (labels[v] < 0) {
+				int smallest = 0;
+				for (int s = 1; s < sizes.length; s++) {
+					if (sizes[s] < sizes[smallest]) smallest = s;
+				}
+				labels[v] = smallest;
+				sizes[smallest]++;
+			}
+		}
+		return sizes;
+	}
+
+	private static int refine(TopologyGraph graph, int[] labels, int[] sizes, int capacity) {
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] votes = new int[sizes.length];
+		int round = 0;
+		while (round < MAX_ROUNDS) {
+			round++;
+			int moves = 0;
+			for (int u = 0; u < graph.nodeCount(); u++) {
+				int current = labels[u];
+				for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+					votes[labels[targets[e]]]++;
+				}
+				int best = current;
+				for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+					int l = labels[targets[e]];
+					if (votes[l] > votes[best] && sizes[l] < capacity) best = l;
+				}
+				for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+					votes[labels[targets[e]]] = 0;
+				}
+				if (best != current && sizes[current] > 1) {
+					labels[u] = best;
+					sizes[current]--;
+					sizes[best]++;
+					moves++;
+				}
+			}
+			if (moves == 0) break;
+		}
+		return round;
+	}
+}
@@ -2,8 +2,14 @@ package org.uj.routingemulator.common.topology;
 
 import java.util.UUID;
 
-public record ConnectionId(String id) {
+/**
+ * Identity of a connection in the topology.
+ *
+ * @param id    stable UUID string used by the GUI and external references
+ * @param index dense integer index used for array-based lookups
+ */
+public record ConnectionId(String id, int index) {
 	public static ConnectionId generate() {
-		return new ConnectionId(UUID.randomUUID().toString());
+		return new ConnectionId(UUID.randomUUID().toString(), IndexAllocator.nextConnectionIndex());
 	}
-}
\ No newline at end of file
+}
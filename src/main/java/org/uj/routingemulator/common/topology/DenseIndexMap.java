@@ -0,0 +1,70 @@
+package org.uj.routingemulator.common.topology;
+
+import java.util.Arrays;
+
+/**
+ * Immutable map from global {@link IndexAllocator} indices to dense ids {@code 0..size()-1}.
+ * <p>
+ * Global indices grow with every object ever created, so arrays addressed by them
+ * would be as large as the largest index handed out in the process. Snapshots map the
+ * indices they contain to their own dense ids instead, and size their arrays by the
+ * number of objects they actually hold. The map is an open-addressed int table: a
+ * lookup hashes a primitive and never boxes.
+ */
+final class DenseIndexMap {
+	private static final int EMPTY = -1;
+
+	private final int[] keys;
+	private final int[] values;
+	private final int mask;
+	private int size;
+
+	/**
+	 * @param expected number of indices that will be added
+	 */
+	DenseIndexMap(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(2, expected) * 2 - 1) << 1;
+		this.keys = new int[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity - 1;
+		Arrays.fill(keys, EMPTY);
+	}
+
+	/**
+	 * Assigns the next dense id to an index unless it already has one.
+	 * @param index global index
+	 * @return the dense id of the index
+	 */
+	int add(int index) {
+		int slot = slotOf(index);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = index;
+			values[slot] = size++;
+		}
+		return values[slot];
+	}
+
+	/**
+	 * @param index global index
+	 * @return dense id, or -1 if the index was never added
+	 */
+	int get(int index) {
+		int slot = slotOf(index);
+		return keys[slot] == EMPTY ? -1 : values[slot];
+	}
+
+	/**
+	 * @return number of indices added
+	 */
+	int size() {
+		return size;
+	}
+
+	private int slotOf(int index) {
+		int slot = (index * 0x9E3779B9) >>> 1 & mask;
+		while (keys[slot] != EMPTY && keys[slot] != index) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
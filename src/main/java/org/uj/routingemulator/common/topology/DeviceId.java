@@ -2,8 +2,14 @@ package org.uj.routingemulator.common.topology;
 
 import java.util.UUID;
 
-public record DeviceId(String id) {
+/**
+ * Identity of a device in the topology.
+ *
+ * @param id    stable UUID string used by the GUI and external references
+ * @param index dense integer index used for array-based lookups
+ */
+public record DeviceId(String id, int index) {
 	public static DeviceId generate() {
-		return new DeviceId(UUID.randomUUID().toString());
+		return new DeviceId(UUID.randomUUID().toString(), IndexAllocator.nextDeviceIndex());
 	}
-}
\ No newline at end of file
+}
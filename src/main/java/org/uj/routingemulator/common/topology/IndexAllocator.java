@@ -0,0 +1,44 @@
+package org.uj.routingemulator.common.topology;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out dense integer indices for devices, interfaces and connections.
+ * <p>
+ * The UUID carried by {@link DeviceId} and {@link ConnectionId} stays the stable
+ * external identity used by the GUI. The dense index is assigned once per object,
+ * never reused, and lets hot paths address plain arrays and bitsets instead of
+ * hashing mutable objects.
+ */
+public final class IndexAllocator {
+	private static final AtomicInteger nextDeviceIndex = new AtomicInteger();
+	private static final AtomicInteger nextInterfaceIndex = new AtomicInteger();
+	private static final AtomicInteger nextConnectionIndex = new AtomicInteger();
+
+	private IndexAllocator() {
+	}
+
+	/**
+	 * Allocates the next device index.
+	 * @return a fresh, non-negative device index
+	 */
+	public static int nextDeviceIndex() {
+		return nextDeviceIndex.getAndIncrement();
+	}
+
+	/**
+	 * Allocates the next interface index.
+	 * @return a fresh, non-negative interface index
+	 */
+	public static int nextInterfaceIndex() {
+		return nextInterfaceIndex.getAndIncrement();
+	}
+
+	/**
+	 * Allocates the next connection index.
+	 * @return a fresh, non-negative connection index
+	 */
+	public static int nextConnectionIndex() {
+		return nextConnectionIndex.getAndIncrement();
+	}
+}
@@ -0,0 +1,301 @@
+package org.uj.routingemulator.common.topology;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Packet, byte and drop counters of every interface, updated by the forwarding engine.
+ * <p>
+ * Counters live in the {@linkplain NetworkInterface#getCounterSlot() slot} of each
+ * interface, which staged and running copies of a router interface share, so a route
+ * bound to either copy counts on the same interface and counters go away with the
+ * interface. Each counter is a {@link LongAdder}: forwarding threads add to striped cells
+ * without contending, and only readers sum them.
+ * <p>
+ * A forwarding decision made once on behalf of many packets counts into
+ * {@linkplain #recording recording} counters instead, and its {@link Hits} are counted
+ * later for every packet that took it.
+ */
+public final class InterfaceCounters {
+	private static final InterfaceCounters GLOBAL = new InterfaceCounters(null);
+
+	/**
+	 * Counter values of one interface at the time they were read.
+	 *
+	 * @param rxPackets packets received
+	 * @param rxBytes   bytes received
+	 * @param rxDrops   received packets dropped, e.g. for lack of a route or an expired TTL
+	 * @param txPackets packets transmitted
+	 * @param txBytes   bytes transmitted
+	 * @param txDrops   packets that could not be transmitted, e.g. through an interface that is down
+	 */
+	public record Snapshot(long rxPackets, long rxBytes, long rxDrops, long txPackets, long txBytes, long txDrops) {
+	}
+
+	/**
+	 * Storage for the counters of one logical interface. An interface creates its slot
+	 * once and hands it to its copies; the counters in it are read and updated through
+	 * {@link InterfaceCounters}.
+	 */
+	public static final class Slot {
+		private final LongAdder rxPackets = new LongAdder();
+		private final LongAdder rxBytes = new LongAdder();
+		private final LongAdder rxDrops = new LongAdder();
+		private final LongAdder txPackets = new LongAdder();
+		private final LongAdder txBytes = new LongAdder();
+		private final LongAdder txDrops = new LongAdder();
+
+		public Slot() {
+		}
+	}
+
+	/**
+	 * Counts recorded by forwarding decisions, in the order they were made, so they can be
+	 * counted again for every packet a decision stands for. Not thread-safe.
+	 */
+	public static final class Hits {
+		private static final byte RECEIVED = 0;
+		private static final byte TRANSMITTED = 1;
+		private static final byte DROPPED_ON_RECEIVE = 2;
+		private static final byte DROPPED_ON_TRANSMIT = 3;
+
+		private NetworkInterface[] interfaces = new NetworkInterface[16];
+		private byte[] kinds = new byte[16];
+		private long[] bytes = new long[16];
+		private int size;
+
+		public Hits() {
+		}
+
+		private void add(NetworkInterface iface, byte kind, long length) {
+			if (size == kinds.length) {
+				interfaces = Arrays.copyOf(interfaces, size * 2);
+				kinds = Arrays.copyOf(kinds, size * 2);
+				bytes = Arrays.copyOf(bytes, size * 2);
+			}
+			interfaces[size] = iface;
+			kinds[size] = kind;
+			bytes[size] = length;
+			size++;
+		}
+
+		/**
+		 * @return number of hits recorded so far; hits are numbered from 0 in recording order
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * Forgets all recorded hits.
+		 */
+		public void clear() {
+			Arrays.fill(interfaces, 0, size, null);
+			size = 0;
+		}
+
+		/**
+		 * @param from first hit to look at
+		 * @return the interface of the last receive recorded from {@code from} on, or null
+		 */
+		public NetworkInterface lastReceived(int from) {
+			for (int i = size - 1; i >= from; i--) {
+				if (kinds[i] == RECEIVED) return interfaces[i];
+			}
+			return null;
+		}
+
+		/**
+		 * Counts hits {@code [from, to)} for a number of packets each as long as the packet
+		 * they were recorded for.
+		 *
+		 * @param counters counters to update
+		 * @param packets  number of packets that took the recorded decisions
+		 */
+		public void countInto(InterfaceCounters counters, int from, int to, long packets) {
+			for (int i = from; i < to; i++) {
+				count(counters, i, packets, packets * bytes[i]);
+			}
+		}
+
+		/**
+		 * Counts hits {@code [from, to)} for packets whose lengths differ from the packet
+		 * the hits were recorded for.
+		 *
+		 * @param counters    counters to update
+		 * @param packets     number of packets that took the recorded decisions
+		 * @param totalLength total length of those packets
+		 */
+		public void countInto(InterfaceCounters counters, int from, int to, long packets, long totalLength) {
+			for (int i = from; i < to; i++) {
+				count(counters, i, packets, totalLength);
+			}
+		}
+
+		private void count(InterfaceCounters counters, int i, long packets, long length) {
+			switch (kinds[i]) {
+				case RECEIVED -> counters.received(interfaces[i], packets, length);
+				case TRANSMITTED -> counters.transmitted(interfaces[i], packets, length);
+				case DROPPED_ON_RECEIVE -> counters.droppedOnReceive(interfaces[i], packets);
+				default -> counters.droppedOnTransmit(interfaces[i], packets);
+			}
+		}
+	}
+
+	private final Hits hits;
+
+	private InterfaceCounters(Hits hits) {
+		this.hits = hits;
+	}
+
+	/**
+	 * @return the counters updated by the forwarding engine
+	 */
+	public static InterfaceCounters global() {
+		return GLOBAL;
+	}
+
+	/**
+	 * Creates counters that record every count as a hit instead of updating the interface,
+	 * for a forwarding engine deciding on behalf of many packets. The engine counts one
+	 * packet at a time, so each hit stands for one packet.
+	 *
+	 * @param hits receives the hits; confined to the thread using the counters
+	 * @return the recording counters
+	 */
+	public static InterfaceCounters recording(Hits hits) {
+		return new InterfaceCounters(hits);
+	}
+
+	/**
+	 * Counts a packet received on an interface.
+	 *
+	 * @param iface interface, or null if it is not known
+	 * @param bytes packet length
+	 */
+	public void received(NetworkInterface iface, int bytes) {
+		received(iface, 1, bytes);
+	}
+
+	/**
+	 * Counts packets received on an interface, e.g. every packet that took a traced path.
+	 *
+	 * @param iface   interface, or null if it is not known
+	 * @param packets number of packets
+	 * @param bytes   total length of the packets
+	 */
+	public void received(NetworkInterface iface, long packets, long bytes) {
+		if (iface == null) return;
+		if (hits != null) {
+			hits.add(iface, Hits.RECEIVED, bytes);
+			return;
+		}
+		Slot slot = iface.getCounterSlot();
+		slot.rxPackets.add(packets);
+		slot.rxBytes.add(bytes);
+	}
+
+	/**
+	 * Counts a packet transmitted through an interface.
+	 *
+	 * @param iface interface, or null if it is not known
+	 * @param bytes packet length
+	 */
+	public void transmitted(NetworkInterface iface, int bytes) {
+		transmitted(iface, 1, bytes);
+	}
+
+	/**
+	 * Counts packets transmitted through an interface.
+	 *
+	 * @param iface   interface, or null if it is not known
+	 * @param packets number of packets
+	 * @param bytes   total length of the packets
+	 */
+	public void transmitted(NetworkInterface iface, long packets, long bytes) {
+		if (iface == null) return;
+		if (hits != null) {
+			hits.add(iface, Hits.TRANSMITTED, bytes);
+			return;
+		}
+		Slot slot = iface.getCounterSlot();
+		slot.txPackets.add(packets);
+		slot.txBytes.add(bytes);
+	}
+
+	/**
+	 * Counts a packet dropped after it was received on an interface.
+	 *
+	 * @param iface interface, or null if it is not known
+	 */
+	public void droppedOnReceive(NetworkInterface iface) {
+		droppedOnReceive(iface, 1);
+	}
+
+	/**
+	 * Counts packets dropped after they were received on an interface.
+	 *
+	 * @param iface   interface, or null if it is not known
+	 * @param packets number of packets
+	 */
+	public void droppedOnReceive(NetworkInterface iface, long packets) {
+		if (iface == null) return;
+		if (hits != null) {
+			hits.add(iface, Hits.DROPPED_ON_RECEIVE, 0);
+		} else {
+			iface.getCounterSlot().rxDrops.add(packets);
+		}
+	}
+
+	/**
+	 * Counts a packet that could not be transmitted through an interface.
+	 *
+	 * @param iface interface, or null if it is not known
+	 */
+	public void droppedOnTransmit(NetworkInterface iface) {
+		droppedOnTransmit(iface, 1);
+	}
+
+	/**
+	 * Counts packets that could not be transmitted through an interface.
+	 *
+	 * @param iface   interface, or null if it is not known
+	 * @param packets number of packets
+	 */
+	public void droppedOnTransmit(NetworkInterface iface, long packets) {
+		if (iface == null) return;
+		if (hits != null) {
+			hits.add(iface, Hits.DROPPED_ON_TRANSMIT, 0);
+		} else {
+			iface.getCounterSlot().txDrops.add(packets);
+		}
+	}
+
+	/**
+	 * Reads the counters of an interface.
+	 *
+	 * @param iface interface to read
+	 * @return the current values
+	 */
+	public Snapshot get(NetworkInterface iface) {
+		Slot slot = iface.getCounterSlot();
+		return new Snapshot(slot.rxPackets.sum(), slot.rxBytes.sum(), slot.rxDrops.sum(),
+				slot.txPackets.sum(), slot.txBytes.sum(), slot.txDrops.sum());
+	}
+
+	/**
+	 * Resets the counters of an interface to zero. Packets counted while the counters are
+	 * being cleared may be kept or cleared.
+	 *
+	 * @param iface interface to clear
+	 */
+	public void clear(NetworkInterface iface) {
+		Slot slot = iface.getCounterSlot();
+		slot.rxPackets.reset();
+		slot.rxBytes.reset();
+		slot.rxDrops.reset();
+		slot.txPackets.reset();
+		slot.txBytes.reset();
+		slot.txDrops.reset();
+	}
+}
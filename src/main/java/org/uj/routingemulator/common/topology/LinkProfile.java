@@ -0,0 +1,39 @@
+package org.uj.routingemulator.common.topology;
+
+/**
+ * Physical characteristics of a connection, used by the packet-level simulation.
+ * <p>
+ * Both directions of a connection share one profile but have separate queues.
+ *
+ * @param latencyNs    one-way propagation delay in nanoseconds
+ * @param jitterNs     maximum extra propagation delay, drawn uniformly per packet
+ * @param bandwidthBps transmission rate in bits per second
+ * @param queueLimit   packets that may wait for or be in transmission in one direction;
+ *                     further packets are dropped
+ */
+public record LinkProfile(long latencyNs, long jitterNs, long bandwidthBps, int queueLimit) {
+	/**
+	 * 1 ms latency, no jitter, 1 Gbps, 64-packet queue.
+	 */
+	public static final LinkProfile DEFAULT = new LinkProfile(1_000_000L, 0, 1_000_000_000L, 64);
+
+	public LinkProfile {
+		if (latencyNs < 0 || jitterNs < 0) {
+			throw new IllegalArgumentException("Latency and jitter must not be negative");
+		}
+		if (bandwidthBps <= 0) {
+			throw new IllegalArgumentException("Bandwidth must be positive");
+		}
+		if (queueLimit < 1) {
+			throw new IllegalArgumentException("Queue limit must be at least 1");
+		}
+	}
+
+	/**
+	 * @param bytes packet size
+	 * @return time needed to put the packet on the wire, in nanoseconds
+	 */
+	public long serializationNs(int bytes) {
+		return Math.ceilDiv(bytes * 8L * 1_000_000_000L, bandwidthBps);
+	}
+}
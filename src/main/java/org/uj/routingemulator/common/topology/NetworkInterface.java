@@ -19,6 +19,22 @@ import org.uj.routingemulator.router.model.RouterInterface;
  * </ul>
  */
 public interface NetworkInterface {
+	/**
+	 * Gets the dense index of this interface.
+	 * <p>
+	 * The index is allocated once by {@link IndexAllocator} and is shared by copies of
+	 * the same logical interface (e.g. staged and running router interfaces).
+	 * @return non-negative interface index
+	 */
+	int getIndex();
+
+	/**
+	 * Gets the storage of the {@link InterfaceCounters} of this interface. Like the index,
+	 * the slot is shared by copies of the same logical interface.
+	 * @return counter slot
+	 */
+	InterfaceCounters.Slot getCounterSlot();
+
 	/**
 	 * Gets the name of this interface.
 	 * @return interface name (e.g., "eth0", "GigabitEthernet0/1")
@@ -1,12 +1,20 @@
 package org.uj.routingemulator.common.topology;
 
 import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
 import org.uj.routingemulator.common.topology.exceptions.DuplicateConnectionException;
 import org.uj.routingemulator.common.topology.exceptions.InterfaceAlreadyConnectedException;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
@@ -20,9 +28,29 @@ import java.util.logging.Logger;
  * <p>
  * Provides operations for adding/removing devices and connections,
  * with validation to prevent duplicate or invalid connections.
+ * <p>
+ * Every structural change (device or connection added or removed) bumps the
+ * topology {@linkplain #version() version}. Derived views such as the
+ * {@link TopologyGraph} are cached per version. Link profiles are not structural
+ * and do not change the version.
+ * <p>
+ * Router configurations published together through {@link #publishConfiguration} form a
+ * {@linkplain #configurationVersion() configuration version}. Readers that must not see
+ * some routers with the new configuration and others with the old one run under
+ * {@link #readConfiguration}.
  */
-public record NetworkTopology(List<Device> devices, List<Connection> connections) {
+public final class NetworkTopology {
 	private static final Logger logger = Logger.getLogger(NetworkTopology.class.getName());
+	private static final Counter graphHits = MetricsRegistry.global().counter("topology.graph.hits");
+	private static final Counter graphMisses = MetricsRegistry.global().counter("topology.graph.misses");
+
+	private final List<Device> devices;
+	private final List<Connection> connections;
+	private final Map<ConnectionId, LinkProfile> linkProfiles = new ConcurrentHashMap<>();
+	private final AtomicLong version = new AtomicLong();
+	private final AtomicLong configurationVersion = new AtomicLong();
+	private final ReadWriteLock configurationLock = new ReentrantReadWriteLock();
+	private volatile TopologyGraph graph;
 
 	/**
 	 * Creates an empty network topology.
@@ -44,16 +72,96 @@ public record NetworkTopology(List<Device> devices, List<Connection> connections
 		logger.config("Initialized custom network topology with provided devices and connections");
 	}
 
-	@Override
 	public List<Device> devices() {
 		return Collections.unmodifiableList(devices);
 	}
 
-	@Override
 	public List<Connection> connections() {
 		return Collections.unmodifiableList(connections);
 	}
 
+	/**
+	 * Returns the structural version of this topology.
+	 * <p>
+	 * The version increases whenever a device or connection is added or removed.
+	 *
+	 * @return current topology version
+	 */
+	public long version() {
+		return version.get();
+	}
+
+	/**
+	 * Returns the configuration version of this topology.
+	 * <p>
+	 * The version increases each time router configurations are published with
+	 * {@link #publishConfiguration}.
+	 *
+	 * @return current configuration version
+	 */
+	public long configurationVersion() {
+		return configurationVersion.get();
+	}
+
+	/**
+	 * Runs a reader that needs a consistent view of router configurations.
+	 * <p>
+	 * Configurations published with {@link #publishConfiguration} are applied either
+	 * entirely before or entirely after the reader. Readers may run concurrently.
+	 *
+	 * @param reader code reading router configurations
+	 * @return the reader's result
+	 */
+	public <T> T readConfiguration(Supplier<T> reader) {
+		configurationLock.readLock().lock();
+		try {
+			return reader.get();
+		} finally {
+			configurationLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Applies new router configurations as one configuration version.
+	 * <p>
+	 * Waits for running {@linkplain #readConfiguration readers}, and holds new ones back
+	 * until the publisher returns, so the publisher should only swap in configurations
+	 * prepared beforehand.
+	 *
+	 * @param publisher code applying the configurations
+	 * @return the new configuration version
+	 */
+	public long publishConfiguration(Runnable publisher) {
+		configurationLock.writeLock().lock();
+		try {
+			publisher.run();
+			return configurationVersion.incrementAndGet();
+		} finally {
+			configurationLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the compressed-sparse-row graph of this topology.
+	 * <p>
+	 * The graph is built lazily and reused until the topology version changes.
+	 *
+	 * @return CSR graph for the current version
+	 */
+	public TopologyGraph graph() {
+		TopologyGraph current = graph;
+		long v = version.get();
+		if (current == null || current.version() != v) {
+			graphMisses.increment();
+			current = TopologyGraph.build(this, v);
+			graph = current;
+			logger.finer("Rebuilt topology graph for version %d".formatted(v));
+		} else {
+			graphHits.increment();
+		}
+		return current;
+	}
+
 	/**
 	 * Adds a device to the topology.
 	 *
@@ -61,6 +169,7 @@ public record NetworkTopology(List<Device> devices, List<Connection> connections
 	 */
 	public void addDevice(Device device) {
 		this.devices.add(device);
+		version.incrementAndGet();
 		logger.info("Device %s added to topology".formatted(device.getDeviceName()));
 	}
 
@@ -116,6 +225,29 @@ public record NetworkTopology(List<Device> devices, List<Connection> connections
 				connection.interfaceA().getInterfaceName(),
 				connection.interfaceB().getInterfaceName()));
 		this.connections.add(connection);
+		version.incrementAndGet();
+	}
+
+	/**
+	 * Gets the physical characteristics of a connection.
+	 *
+	 * @param connection the connection
+	 * @return its profile, or {@link LinkProfile#DEFAULT} if none was set
+	 */
+	public LinkProfile linkProfile(Connection connection) {
+		return linkProfiles.getOrDefault(connection.id(), LinkProfile.DEFAULT);
+	}
+
+	/**
+	 * Sets the physical characteristics of a connection.
+	 *
+	 * @param connection the connection
+	 * @param profile    its profile
+	 */
+	public void setLinkProfile(Connection connection, LinkProfile profile) {
+		linkProfiles.put(connection.id(), profile);
+		logger.info("Link profile of connection between %s and %s set to %s".formatted(
+				connection.interfaceA().getInterfaceName(), connection.interfaceB().getInterfaceName(), profile));
 	}
 
 	/**
@@ -128,9 +260,16 @@ public record NetworkTopology(List<Device> devices, List<Connection> connections
 		Device device = getDevice(deviceId);
 		if (device != null) {
 			logger.finer("Removing device %s connections".formatted(device.getDeviceName()));
-			connections.removeIf(conn -> device.getInterfaces().contains(conn.interfaceA()) || device.getInterfaces().contains(conn.interfaceB()));
+			connections.removeIf(conn -> {
+				boolean attached = device.getInterfaces().contains(conn.interfaceA()) || device.getInterfaces().contains(conn.interfaceB());
+				if (attached) {
+					linkProfiles.remove(conn.id());
+				}
+				return attached;
+			});
 			logger.info("Removing device %s from topology".formatted(device.getDeviceName()));
 			this.devices.remove(device);
+			version.incrementAndGet();
 		}
 	}
 
@@ -143,7 +282,11 @@ public record NetworkTopology(List<Device> devices, List<Connection> connections
 		logger.info("Removing connection between %s and %s".formatted(
 				connection.interfaceA().getInterfaceName(),
 				connection.interfaceB().getInterfaceName()));
-		this.connections.remove(connection);
+		int position = this.connections.indexOf(connection);
+		if (position >= 0) {
+			linkProfiles.remove(this.connections.remove(position).id());
+			version.incrementAndGet();
+		}
 	}
 
 	/**
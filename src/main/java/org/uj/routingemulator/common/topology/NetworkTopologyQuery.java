@@ -5,17 +5,15 @@ import org.uj.routingemulator.router.model.Router;
 import org.uj.routingemulator.router.model.RouterInterface;
 
 public class NetworkTopologyQuery implements TopologyQuery {
-	private final NetworkTopology topology;
 	private final TopologyIndex index;
 
 	public NetworkTopologyQuery(NetworkTopology topology) {
-		this.topology = topology;
 		this.index = new TopologyIndex(topology);
 	}
 
 	@Override
 	public boolean isDirectlyConnectedNeighbor(NetworkInterface localIf, NetworkInterface candidate) {
-		Connection directConn = topology.getConnectionForInterface(localIf);
+		Connection directConn = index.getConnectionForInterface(localIf);
 		return directConn != null
 				&& directConn.getNeighborInterface(localIf) instanceof RouterInterface
 				&& directConn.getNeighborInterface(localIf).equals(candidate);
@@ -33,11 +31,11 @@ public class NetworkTopologyQuery implements TopologyQuery {
 
 	@Override
 	public Connection getConnectionForInterface(NetworkInterface iface) {
-		return topology.getConnectionForInterface(iface);
+		return index.getConnectionForInterface(iface);
 	}
 
 	@Override
 	public NetworkInterface findHostInterfaceByIpConnectedToInterface(NetworkInterface start, IPAddress ip) {
-		return topology.findHostInterfaceByIpConnectedToInterface(start, ip);
+		return TopologyGraphSearch.findHostInterfaceByIpConnectedToInterface(index, start, ip);
 	}
 }
\ No newline at end of file
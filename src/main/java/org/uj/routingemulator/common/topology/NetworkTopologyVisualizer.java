@@ -2,70 +2,201 @@ package org.uj.routingemulator.common.topology;
 
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
 import org.uj.routingemulator.switching.Switch;
+import org.uj.routingemulator.switching.SwitchPort;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Renders a text view of a topology.
+ * <p>
+ * Output is written incrementally to an {@link Appendable}, so only the selected
+ * window is ever materialised. Connection endpoints are resolved to device names
+ * through the cached {@link TopologyGraph} rather than by scanning devices.
+ */
 public class NetworkTopologyVisualizer {
+	private static final String EXTENDER = " ";
 
 	private NetworkTopologyVisualizer() {
 	}
 
 	public static String visualize(NetworkTopology topology) {
-		final String EXTENDER = " ";
 		StringBuilder sb = new StringBuilder();
+		try {
+			visualize(topology, sb, TopologyViewOptions.all());
+		} catch (IOException e) {
+			// StringBuilder never throws
+			throw new UncheckedIOException(e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the topology view selected by {@code options} to {@code out}.
+	 *
+	 * @param topology the topology to render
+	 * @param out      destination for the text
+	 * @param options  filtering and paging options
+	 * @throws IOException if writing to {@code out} fails
+	 */
+	public static void visualize(NetworkTopology topology, Appendable out, TopologyViewOptions options) throws IOException {
+		Window window = new Window(out, options);
+		List<Device> devices = topology.devices();
 
-		sb.append("=== Network Topology ===\n\n");
-
-		sb.append("Hosts:\n");
-		for (Device d : topology.devices()) {
-			if (d instanceof Host host) {
-				sb.append("  %s ".formatted(EXTENDER)).append(host.getHostname()).append("\n");
-				sb.append("        Interface: ").append(host.getHostInterface().getInterfaceName()).append("\n");
-				if (host.getHostInterface().getInterfaceAddress() != null) {
-					sb.append("        IP: ").append(host.getHostInterface().getInterfaceAddress()).append("\n");
-				}
-				sb.append("      %s Gateway: ".formatted(EXTENDER)).append(host.getHostInterface().getDefaultGateway()).append("\n\n");
+		out.append("=== Network Topology ===\n\n");
+
+		window.section("Hosts:\n", includes(options, Host.class));
+		for (Device d : devices) {
+			if (d instanceof Host host && options.matches(host) && window.next()) {
+				writeHost(out, host);
 			}
 		}
 
-		sb.append("Switches:\n");
-		for (Device d : topology.devices()) {
-			if (d instanceof Switch sw) {
-				sb.append("  %s ".formatted(EXTENDER)).append(sw.getName()).append("\n");
-				sb.append("        Ports: ");
-				sb.append(sw.getPorts().stream()
-						.map(NetworkInterface::getInterfaceName)
-						.reduce((a, b) -> a + ", " + b)
-						.orElse("none"));
-				sb.append("\n\n");
+		window.section("Switches:\n", includes(options, Switch.class));
+		for (Device d : devices) {
+			if (d instanceof Switch sw && options.matches(sw) && window.next()) {
+				writeSwitch(out, sw);
 			}
 		}
 
-		sb.append("Routers:\n");
-		for (Device d : topology.devices()) {
-			if (d instanceof Router router) {
-				sb.append("    ").append(router.getName()).append("\n");
-				sb.append("        Interfaces: ");
-				sb.append(router.getInterfaces().stream()
-						.map(iface -> iface.getInterfaceName() + (iface.getSubnet() != null ? " (" + iface.getSubnet().networkAddress() + "/" + iface.getSubnet().subnetMask() + ")" : " (unconfigured)"))
-						.reduce((a, b) -> a + ", " + b)
-						.orElse("none"));
-				sb.append("\n\n");
+		window.section("Routers:\n", includes(options, Router.class));
+		for (Device d : devices) {
+			if (d instanceof Router router && options.matches(router) && window.next()) {
+				writeRouter(out, router);
 			}
 		}
 
-		sb.append("Connections:\n");
+		TopologyGraph graph = topology.graph();
+		window.section("Connections:\n", true);
 		for (Connection conn : topology.connections()) {
-			String deviceA = DeviceLookup.getDeviceName(conn.interfaceA(), topology);
-			String deviceB = DeviceLookup.getDeviceName(conn.interfaceB(), topology);
-
-			sb.append("  ").append(deviceA)
-					.append("[").append(conn.interfaceA().getInterfaceName()).append("]")
-					.append(" < > ")
-					.append(deviceB)
-					.append("[").append(conn.interfaceB().getInterfaceName()).append("]")
-					.append("\n");
+			Device deviceA = deviceOf(graph, conn.interfaceA());
+			Device deviceB = deviceOf(graph, conn.interfaceB());
+			if ((options.matches(deviceA) || options.matches(deviceB)) && window.next()) {
+				writeConnection(out, conn, deviceA, deviceB);
+			}
 		}
 
-		return sb.toString();
+		window.finish();
+	}
+
+	private static boolean includes(TopologyViewOptions options, Class<? extends Device> type) {
+		return options.deviceType() == null || options.deviceType().isAssignableFrom(type);
+	}
+
+	private static Device deviceOf(TopologyGraph graph, NetworkInterface iface) {
+		int node = graph.nodeOfInterface(iface);
+		return node >= 0 ? graph.device(node) : null;
+	}
+
+	private static void writeHost(Appendable out, Host host) throws IOException {
+		out.append("  %s ".formatted(EXTENDER)).append(host.getHostname()).append("\n");
+		out.append("        Interface: ").append(host.getHostInterface().getInterfaceName()).append("\n");
+		if (host.getHostInterface().getInterfaceAddress() != null) {
+			out.append("        IP: ").append(String.valueOf(host.getHostInterface().getInterfaceAddress())).append("\n");
+		}
+		out.append("      %s Gateway: ".formatted(EXTENDER)).append(String.valueOf(host.getHostInterface().getDefaultGateway())).append("\n\n");
+	}
+
+	private static void writeSwitch(Appendable out, Switch sw) throws IOException {
+		out.append("  %s ".formatted(EXTENDER)).append(sw.getName()).append("\n");
+		out.append("        Ports: ");
+		if (sw.getPorts().isEmpty()) {
+			out.append("none");
+		}
+		boolean first = true;
+		for (SwitchPort port : sw.getPorts()) {
+			if (!first) out.append(", ");
+			out.append(port.getInterfaceName());
+			first = false;
+		}
+		out.append("\n\n");
+	}
+
+	private static void writeRouter(Appendable out, Router router) throws IOException {
+		out.append("    ").append(router.getName()).append("\n");
+		out.append("        Interfaces: ");
+		if (router.getInterfaces().isEmpty()) {
+			out.append("none");
+		}
+		boolean first = true;
+		for (RouterInterface iface : router.getInterfaces()) {
+			if (!first) out.append(", ");
+			out.append(iface.getInterfaceName());
+			if (iface.getSubnet() != null) {
+				out.append(" (").append(String.valueOf(iface.getSubnet().networkAddress()))
+						.append("/").append(String.valueOf(iface.getSubnet().subnetMask())).append(")");
+			} else {
+				out.append(" (unconfigured)");
+			}
+			first = false;
+		}
+		out.append("\n\n");
+	}
+
+	private static void writeConnection(Appendable out, Connection conn, Device deviceA, Device deviceB) throws IOException {
+		out.append("  ").append(DeviceLookup.getDeviceNameFromObject(deviceA))
+				.append("[").append(conn.interfaceA().getInterfaceName()).append("]")
+				.append(" < > ")
+				.append(DeviceLookup.getDeviceNameFromObject(deviceB))
+				.append("[").append(conn.interfaceB().getInterfaceName()).append("]")
+				.append("\n");
+	}
+
+	/**
+	 * Tracks the position in the sequence of matching items and decides what is rendered.
+	 * Section headers are deferred in paged mode so an empty section inside a window is not printed.
+	 */
+	private static final class Window {
+		private final Appendable out;
+		private final TopologyViewOptions options;
+		private final long end;
+		private long position;
+		private String pendingHeader;
+
+		Window(Appendable out, TopologyViewOptions options) {
+			this.out = out;
+			this.options = options;
+			this.end = (long) options.offset() + options.limit();
+		}
+
+		void section(String header, boolean included) throws IOException {
+			pendingHeader = null;
+			if (!included) return;
+			if (options.isPaged()) {
+				pendingHeader = header;
+			} else {
+				out.append(header);
+			}
+		}
+
+		/**
+		 * Advances past one matching item.
+		 * @return true if the item falls inside the window and should be written
+		 */
+		boolean next() throws IOException {
+			long current = position++;
+			if (current < options.offset() || current >= end) {
+				return false;
+			}
+			if (pendingHeader != null) {
+				out.append(pendingHeader);
+				pendingHeader = null;
+			}
+			return true;
+		}
+
+		void finish() throws IOException {
+			if (!options.isPaged()) return;
+			long first = Math.min(options.offset(), position);
+			long last = Math.min(end, position);
+			if (first == last) {
+				out.append("No items in range (%d matching)\n".formatted(position));
+			} else {
+				out.append("Showing items %d-%d of %d\n".formatted(first + 1, last, position));
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,248 @@
+package org.uj.routingemulator.common.topology;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable compressed-sparse-row (CSR) view of device connectivity.
+ * <p>
+ * Devices are numbered {@code 0..nodeCount()-1} in topology order. The neighbours
+ * of node {@code u} are {@code targets()[offsets()[u] .. offsets()[u + 1])}. Each
+ * connection contributes two directed edges, one per endpoint, and every edge
+ * remembers the connection it came from and the local interface it leaves through.
+ * <p>
+ * A graph is a snapshot of one {@linkplain NetworkTopology#version() topology version};
+ * obtain it through {@link NetworkTopology#graph()} so it is rebuilt only when the
+ * topology structure changes. The arrays returned by accessors are shared and must
+ * not be modified.
+ */
+public final class TopologyGraph {
+	private final long version;
+	private final Device[] nodes;
+	private final Connection[] connections;
+	private final NetworkInterface[] interfaces;
+	private final DenseIndexMap deviceIds;
+	private final DenseIndexMap interfaceIds;
+	private final int[] nodeByInterface;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] edgeConnection;
+	private final int[] edgeInterface;
+
+	private TopologyGraph(long version, Device[] nodes, Connection[] connections, NetworkInterface[] interfaces,
+						  DenseIndexMap deviceIds, DenseIndexMap interfaceIds, int[] nodeByInterface,
+						  int[] offsets, int[] targets, int[] edgeConnection, int[] edgeInterface) {
+		this.version = version;
+		this.nodes = nodes;
+		this.connections = connections;
+		this.interfaces = interfaces;
+		this.deviceIds = deviceIds;
+		this.interfaceIds = interfaceIds;
+		this.nodeByInterface = nodeByInterface;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.edgeConnection = edgeConnection;
+		this.edgeInterface = edgeInterface;
+	}
+
+	static TopologyGraph build(NetworkTopology topology, long version) {
+		List<Device> deviceList = topology.devices();
+		List<Connection> connectionList = topology.connections();
+		Device[] nodes = deviceList.toArray(new Device[0]);
+		Connection[] connections = connectionList.toArray(new Connection[0]);
+
+		// Interfaces are numbered in node order, so the ports of one device are contiguous
+		int interfaceCount = 0;
+		for (Device d : nodes) {
+			interfaceCount += d.getInterfaces().size();
+		}
+		DenseIndexMap deviceIds = new DenseIndexMap(nodes.length);
+		DenseIndexMap interfaceIds = new DenseIndexMap(interfaceCount);
+		NetworkInterface[] interfaces = new NetworkInterface[interfaceCount];
+		int[] nodeByInterface = new int[interfaceCount];
+		for (int u = 0; u < nodes.length; u++) {
+			deviceIds.add(nodes[u].getId().index());
+			for (NetworkInterface ni : nodes[u].getInterfaces()) {
+				int id = interfaceIds.add(ni.getIndex());
+				interfaces[id] = ni;
+				nodeByInterface[id] = u;
+			}
+		}
+		interfaces = Arrays.copyOf(interfaces, interfaceIds.size());
+		nodeByInterface = Arrays.copyOf(nodeByInterface, interfaceIds.size());
+
+		// First pass: degrees. Connections to interfaces outside the topology are skipped.
+		int[] endpointA = new int[connections.length];
+		int[] endpointB = new int[connections.length];
+		int[] offsets = new int[nodes.length + 1];
+		for (int c = 0; c < connections.length; c++) {
+			endpointA[c] = lookup(nodeByInterface, interfaceIds.get(connections[c].interfaceA().getIndex()));
+			endpointB[c] = lookup(nodeByInterface, interfaceIds.get(connections[c].interfaceB().getIndex()));
+			if (endpointA[c] >= 0 && endpointB[c] >= 0) {
+				offsets[endpointA[c] + 1]++;
+				offsets[endpointB[c] + 1]++;
+			}
+		}
+		for (int u = 0; u < nodes.length; u++) {
+			offsets[u + 1] += offsets[u];
+		}
+
+		// Second pass: fill adjacency in connection order
+		int edgeCount = offsets[nodes.length];
+		int[] targets = new int[edgeCount];
+		int[] edgeConnection = new int[edgeCount];
+		int[] edgeInterface = new int[edgeCount];
+		int[] cursor = Arrays.copyOf(offsets, nodes.length);
+		for (int c = 0; c < connections.length; c++) {
+			int a = endpointA[c];
+			int b = endpointB[c];
+			if (a < 0 || b < 0) continue;
+			int e = cursor[a]++;
+			targets[e] = b;
+			edgeConnection[e] = c;
+			edgeInterface[e] = interfaceIds.get(connections[c].interfaceA().getIndex());
+			e = cursor[b]++;
+			targets[e] = a;
+			edgeConnection[e] = c;
+			edgeInterface[e] = interfaceIds.get(connections[c].interfaceB().getIndex());
+		}
+
+		return new TopologyGraph(version, nodes, connections, interfaces, deviceIds, interfaceIds, nodeByInterface,
+				offsets, targets, edgeConnection, edgeInterface);
+	}
+
+	private static int lookup(int[] table, int id) {
+		return id >= 0 ? table[id] : -1;
+	}
+
+	/**
+	 * @return topology version this graph was built from
+	 */
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * @return number of device nodes
+	 */
+	public int nodeCount() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return number of directed edges (twice the number of mapped connections)
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @return number of connections in the snapshot, including unmapped ones
+	 */
+	public int connectionCount() {
+		return connections.length;
+	}
+
+	public Device device(int node) {
+		return nodes[node];
+	}
+
+	public Connection connection(int connectionIndex) {
+		return connections[connectionIndex];
+	}
+
+	/**
+	 * Gets the node number of a device.
+	 * @param device the device
+	 * @return node number, or -1 if the device is not part of this snapshot
+	 */
+	public int nodeOf(Device device) {
+		return deviceIds.get(device.getId().index());
+	}
+
+	/**
+	 * Gets the node number of the device owning an interface.
+	 * @param iface the interface
+	 * @return node number, or -1 if no device in this snapshot owns the interface
+	 */
+	public int nodeOfInterface(NetworkInterface iface) {
+		return lookup(nodeByInterface, interfaceOf(iface));
+	}
+
+	/**
+	 * @return number of interfaces owned by the devices of this snapshot
+	 */
+	public int interfaceCount() {
+		return interfaces.length;
+	}
+
+	/**
+	 * Gets the id of an interface within this snapshot. Ids run from 0 to
+	 * {@code interfaceCount() - 1}, so arrays addressed by them are sized by this
+	 * topology rather than by every interface ever created.
+	 * @param iface the interface
+	 * @return interface id, or -1 if no device in this snapshot owns the interface
+	 */
+	public int interfaceOf(NetworkInterface iface) {
+		return interfaceIds.get(iface.getIndex());
+	}
+
+	/**
+	 * @param id interface id in this snapshot
+	 * @return the interface with that id
+	 */
+	public NetworkInterface networkInterface(int id) {
+		return interfaces[id];
+	}
+
+	/**
+	 * Gets the connection attached to an interface.
+	 * @param iface the interface
+	 * @return connection index in this snapshot, or -1 if the interface is not connected
+	 */
+	public int connectionOfInterface(NetworkInterface iface) {
+		int id = interfaceOf(iface);
+		if (id < 0) {
+			return -1;
+		}
+		int node = nodeByInterface[id];
+		for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+			if (edgeInterface[e] == id) {
+				return edgeConnection[e];
+			}
+		}
+		return -1;
+	}
+
+	public int degree(int node) {
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * @return CSR row offsets, length {@code nodeCount() + 1}
+	 */
+	public int[] offsets() {
+		return offsets;
+	}
+
+	/**
+	 * @return CSR column array holding the target node of every directed edge
+	 */
+	public int[] targets() {
+		return targets;
+	}
+
+	/**
+	 * @return for every directed edge, the index of its connection in this snapshot
+	 */
+	public int[] edgeConnections() {
+		return edgeConnection;
+	}
+
+	/**
+	 * @return for every directed edge, the {@linkplain #interfaceOf id} of the interface it leaves through
+	 */
+	public int[] edgeInterfaces() {
+		return edgeInterface;
+	}
+}
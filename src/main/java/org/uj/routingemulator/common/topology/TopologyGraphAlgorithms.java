@@ -0,0 +1,284 @@
+package org.uj.routingemulator.common.topology;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Graph algorithms over a {@link TopologyGraph}.
+ * <p>
+ * All algorithms work on the primitive CSR arrays and return node-indexed
+ * {@code int[]} results. Distances are hop counts between devices; {@code -1}
+ * marks unreachable nodes.
+ */
+public class TopologyGraphAlgorithms {
+	/**
+	 * Frontiers smaller than this are expanded sequentially; forking is not worth it.
+	 */
+	private static final int PARALLEL_FRONTIER_THRESHOLD = 1024;
+
+	private TopologyGraphAlgorithms() {
+	}
+
+	/**
+	 * Computes hop distances from a source node with a sequential BFS.
+	 * @param graph  the graph
+	 * @param source source node
+	 * @return distance per node, -1 if unreachable
+	 */
+	public static int[] bfs(TopologyGraph graph, int source) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] dist = new int[n];
+		Arrays.fill(dist, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		dist[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int u = queue[head++];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (dist[v] < 0) {
+					dist[v] = dist[u] + 1;
+					queue[tail++] = v;
+				}
+			}
+		}
+		return dist;
+	}
+
+	/**
+	 * Computes hop distances from a source node with a level-synchronous parallel BFS.
+	 * <p>
+	 * Each level's frontier is expanded in parallel; nodes are claimed with a
+	 * compare-and-set on the distance array so each is visited exactly once.
+	 * @param graph  the graph
+	 * @param source source node
+	 * @return distance per node, -1 if unreachable
+	 */
+	public static int[] parallelBfs(TopologyGraph graph, int source) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		AtomicIntegerArray dist = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			dist.set(i, -1);
+		}
+		dist.set(source, 0);
+
+		int[] frontier = {source};
+		int level = 0;
+		while (frontier.length > 0) {
+			int next = level + 1;
+			IntStream nodes = Arrays.stream(frontier);
+			if (frontier.length >= PARALLEL_FRONTIER_THRESHOLD) {
+				nodes = nodes.parallel();
+			}
+			frontier = nodes
+					.flatMap(u -> IntStream.range(offsets[u], offsets[u + 1])
+							.map(e -> targets[e])
+							.filter(v -> dist.compareAndSet(v, -1, next)))
+					.toArray();
+			level = next;
+		}
+
+		int[] result = new int[n];
+		for (int i = 0; i < n; i++) {
+			result[i] = dist.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds a shortest (fewest hops) node path between two nodes.
+	 * @param graph  the graph
+	 * @param source source node
+	 * @param target target node
+	 * @return nodes from source to target inclusive, or an empty array if unreachable
+	 */
+	public static int[] shortestPath(TopologyGraph graph, int source, int target) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] parent = new int[n];
+		Arrays.fill(parent, -1);
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		parent[source] = source;
+		queue[tail++] = source;
+		while (head < tail && parent[target] < 0) {
+			int u = queue[head++];
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (parent[v] < 0) {
+					parent[v] = u;
+					queue[tail++] = v;
+				}
+			}
+		}
+		if (parent[target] < 0) {
+			return new int[0];
+		}
+		int length = 1;
+		for (int v = target; v != source; v = parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target, i = length - 1; i >= 0; v = parent[v], i--) {
+			path[i] = v;
+		}
+		return path;
+	}
+
+	/**
+	 * Labels connected components using a concurrent union-find over the edges.
+	 * <p>
+	 * Every node is labelled with the smallest node number in its component.
+	 * @param graph the graph
+	 * @return component label per node
+	 */
+	public static int[] connectedComponents(TopologyGraph graph) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		AtomicIntegerArray parent = new AtomicIntegerArray(n);
+		for (int i = 0; i < n; i++) {
+			parent.set(i, i);
+		}
+
+		IntStream nodes = IntStream.range(0, n);
+		if (graph.edgeCount() >= PARALLEL_FRONTIER_THRESHOLD) {
+			nodes = nodes.parallel();
+		}
+		nodes.forEach(u -> {
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int v = targets[e];
+				if (u < v) {
+					union(parent, u, v);
+				}
+			}
+		});
+
+		int[] labels = new int[n];
+		for (int i = 0; i < n; i++) {
+			labels[i] = find(parent, i);
+		}
+		return labels;
+	}
+
+	/**
+	 * Counts distinct components in a labelling produced by {@link #connectedComponents}.
+	 * @param labels component label per node
+	 * @return number of components
+	 */
+	public static int componentCount(int[] labels) {
+		int count = 0;
+		for (int i = 0; i < labels.length; i++) {
+			if (labels[i] == i) count++;
+		}
+		return count;
+	}
+
+	private static int find(AtomicIntegerArray parent, int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x) return x;
+			int gp = parent.get(p);
+			// Path halving; a lost race only means less compression
+			parent.compareAndSet(x, p, gp);
+			x = gp;
+		}
+	}
+
+	private static void union(AtomicIntegerArray parent, int a, int b) {
+		while (true) {
+			int ra = find(parent, a);
+			int rb = find(parent, b);
+			if (ra == rb) return;
+			// Always hang the larger root under the smaller one so labels end up minimal
+			if (ra < rb) {
+				int t = ra;
+				ra = rb;
+				rb = t;
+			}
+			if (parent.compareAndSet(ra, ra, rb)) return;
+		}
+	}
+
+	/**
+	 * Finds bridge connections, i.e. links whose failure disconnects part of the topology.
+	 * <p>
+	 * Iterative Tarjan low-link search. Parallel links between the same pair of
+	 * devices are never bridges.
+	 * @param graph the graph
+	 * @return snapshot connection indices of all bridges, in ascending order
+	 */
+	public static int[] bridges(TopologyGraph graph) {
+		int n = graph.nodeCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] edgeConnection = graph.edgeConnections();
+		int[] disc = new int[n];
+		int[] low = new int[n];
+		int[] parentConnection = new int[n];
+		int[] nextEdge = new int[n];
+		int[] stack = new int[n];
+		Arrays.fill(disc, -1);
+		boolean[] isBridge = new boolean[graph.connectionCount()];
+		int time = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (disc[root] >= 0) continue;
+			int top = 0;
+			stack[top++] = root;
+			disc[root] = low[root] = time++;
+			parentConnection[root] = -1;
+			nextEdge[root] = offsets[root];
+			while (top > 0) {
+				int u = stack[top - 1];
+				if (nextEdge[u] < offsets[u + 1]) {
+					int e = nextEdge[u]++;
+					int v = targets[e];
+					if (edgeConnection[e] == parentConnection[u]) continue;
+					if (disc[v] < 0) {
+						disc[v] = low[v] = time++;
+						parentConnection[v] = edgeConnection[e];
+						nextEdge[v] = offsets[v];
+						stack[top++] = v;
+					} else {
+						low[u] = Math.min(low[u], disc[v]);
+					}
+				} else {
+					top--;
+					if (top > 0) {
+						int p = stack[top - 1];
+						low[p] = Math.min(low[p], low[u]);
+						if (low[u] > disc[p]) {
+							isBridge[parentConnection[u]] = true;
+						}
+					}
+				}
+			}
+		}
+		return IntStream.range(0, isBridge.length).filter(c -> isBridge[c]).toArray();
+	}
+
+	/**
+	 * Computes the hop diameter, the longest shortest path between any two connected devices.
+	 * <p>
+	 * Runs one BFS per node, spread across the common fork-join pool.
+	 * @param graph the graph
+	 * @return diameter in hops, 0 for an empty or edgeless graph
+	 */
+	public static int diameter(TopologyGraph graph) {
+		return IntStream.range(0, graph.nodeCount())
+				.parallel()
+				.map(u -> Arrays.stream(bfs(graph, u)).max().orElse(0))
+				.max()
+				.orElse(0);
+	}
+}
@@ -5,9 +5,8 @@ import org.uj.routingemulator.host.HostInterface;
 import org.uj.routingemulator.switching.Switch;
 
 import java.util.ArrayDeque;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.Queue;
-import java.util.Set;
 
 public class TopologyGraphSearch {
 
@@ -15,10 +14,15 @@ public class TopologyGraphSearch {
 	}
 
 	public static NetworkInterface findHostInterfaceByIpConnectedToInterface(NetworkTopology topology, NetworkInterface start, IPAddress ip) {
+		return findHostInterfaceByIpConnectedToInterface(new TopologyIndex(topology), start, ip);
+	}
+
+	public static NetworkInterface findHostInterfaceByIpConnectedToInterface(TopologyIndex index, NetworkInterface start, IPAddress ip) {
 		Queue<NetworkInterface> q = new ArrayDeque<>();
-		Set<NetworkInterface> visited = new HashSet<>();
+		// Interface ids are dense, so a bitset replaces a hash set of mutable interfaces
+		BitSet visited = new BitSet(index.interfaceCapacity());
 		q.add(start);
-		visited.add(start);
+		markVisited(index, visited, start);
 
 		while (!q.isEmpty()) {
 			NetworkInterface cur = q.remove();
@@ -27,22 +31,20 @@ public class TopologyGraphSearch {
 				return hif;
 			}
 
-			Device device = topology.findDeviceByInterface(cur);
+			Device device = index.getDeviceForInterface(cur);
 			// Only traverse Switch ports (Layer 2). Do not traverse across Routers or Hosts.
 			if (device instanceof Switch) {
 				for (NetworkInterface sibling : device.getInterfaces()) {
-					if (!visited.contains(sibling)) {
-						visited.add(sibling);
+					if (markVisited(index, visited, sibling)) {
 						q.add(sibling);
 					}
 				}
 			}
 
-			NetworkInterface neighbor = processInterface(topology, cur);
+			NetworkInterface neighbor = processInterface(index, cur);
 			if (neighbor == null) continue;
 
-			if (!visited.contains(neighbor)) {
-				visited.add(neighbor);
+			if (markVisited(index, visited, neighbor)) {
 				if (neighbor instanceof HostInterface hif && hasHostIp(hif, ip)) {
 					return hif;
 				}
@@ -52,13 +54,30 @@ public class TopologyGraphSearch {
 		return null;
 	}
 
+	/**
+	 * Marks an interface visited. Interfaces outside the snapshot have no id; they have no
+	 * device or connection to lead anywhere, so they are reported as new every time.
+	 * @return true if the interface was not visited before
+	 */
+	private static boolean markVisited(TopologyIndex index, BitSet visited, NetworkInterface iface) {
+		int id = index.interfaceId(iface);
+		if (id < 0) {
+			return true;
+		}
+		if (visited.get(id)) {
+			return false;
+		}
+		visited.set(id);
+		return true;
+	}
+
 	private static boolean hasHostIp(HostInterface hostInterface, IPAddress ip) {
 		return hostInterface.getInterfaceAddress() != null && hostInterface.getInterfaceAddress().ipAddress().equals(ip);
 	}
 
-	private static NetworkInterface processInterface(NetworkTopology topology, NetworkInterface cur) {
-		Connection c = topology.getConnectionForInterface(cur);
+	private static NetworkInterface processInterface(TopologyIndex index, NetworkInterface cur) {
+		Connection c = index.getConnectionForInterface(cur);
 		if (c == null) return null;
 		return c.getNeighborInterface(cur);
 	}
-}
\ No newline at end of file
+}
@@ -7,28 +7,85 @@ import org.uj.routingemulator.router.model.RouterInterface;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Snapshot lookup tables for a topology, addressed by interface id.
+ * <p>
+ * Every interface of the topology, including the far ends of its connections, gets an
+ * id from {@code 0} to {@code interfaceCapacity() - 1}. Interface-to-device and
+ * interface-to-connection lookups are then plain array reads instead of hash lookups on
+ * mutable interface objects, and the arrays are sized by this topology alone.
+ */
 public class TopologyIndex {
-	private final Map<RouterInterface, Router> interfaceToRouter = new HashMap<>();
+	private final DenseIndexMap interfaceIds;
+	private final Device[] deviceByInterface;
+	private final Connection[] connectionByInterface;
 	private final Map<IPAddress, RouterInterface> ipToInterface = new HashMap<>();
 
 	public TopologyIndex(NetworkTopology topology) {
+		int expected = topology.connections().size() * 2;
 		for (Device d : topology.devices()) {
-			if (d instanceof Router r) {
-				for (RouterInterface ri : r.getInterfaces()) {
-					interfaceToRouter.put(ri, r);
-					if (ri.getInterfaceAddress() != null && ri.getInterfaceAddress().ipAddress() != null) {
-						ipToInterface.put(ri.getInterfaceAddress().ipAddress(), ri);
-					}
+			expected += d.getInterfaces().size();
+		}
+		this.interfaceIds = new DenseIndexMap(expected);
+		for (Device d : topology.devices()) {
+			for (NetworkInterface ni : d.getInterfaces()) {
+				interfaceIds.add(ni.getIndex());
+			}
+		}
+		for (Connection c : topology.connections()) {
+			interfaceIds.add(c.interfaceA().getIndex());
+			interfaceIds.add(c.interfaceB().getIndex());
+		}
+
+		this.deviceByInterface = new Device[interfaceIds.size()];
+		this.connectionByInterface = new Connection[interfaceIds.size()];
+
+		for (Device d : topology.devices()) {
+			for (NetworkInterface ni : d.getInterfaces()) {
+				deviceByInterface[interfaceId(ni)] = d;
+				if (ni instanceof RouterInterface ri && ri.getInterfaceAddress() != null && ri.getInterfaceAddress().ipAddress() != null) {
+					ipToInterface.put(ri.getInterfaceAddress().ipAddress(), ri);
 				}
 			}
 		}
+		for (Connection c : topology.connections()) {
+			connectionByInterface[interfaceId(c.interfaceA())] = c;
+			connectionByInterface[interfaceId(c.interfaceB())] = c;
+		}
 	}
 
 	public Router getRouterForInterface(RouterInterface iface) {
-		return interfaceToRouter.get(iface);
+		return getDeviceForInterface(iface) instanceof Router r ? r : null;
+	}
+
+	public Device getDeviceForInterface(NetworkInterface iface) {
+		int i = interfaceId(iface);
+		return i >= 0 ? deviceByInterface[i] : null;
+	}
+
+	public Connection getConnectionForInterface(NetworkInterface iface) {
+		int i = interfaceId(iface);
+		return i >= 0 ? connectionByInterface[i] : null;
 	}
 
 	public RouterInterface getInterfaceForIp(IPAddress ip) {
 		return ipToInterface.get(ip);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Gets the id of an interface within this snapshot.
+	 * @param iface the interface
+	 * @return interface id, or -1 if the interface is not part of the topology
+	 */
+	public int interfaceId(NetworkInterface iface) {
+		return interfaceIds.get(iface.getIndex());
+	}
+
+	/**
+	 * Returns the exclusive upper bound of interface ids in this snapshot.
+	 * @return interface id capacity
+	 */
+	public int interfaceCapacity() {
+		return deviceByInterface.length;
+	}
+}
@@ -0,0 +1,68 @@
+package org.uj.routingemulator.common.topology;
+
+/**
+ * Filtering and paging options for {@link NetworkTopologyVisualizer}.
+ * <p>
+ * Devices and connections that pass the filter form one numbered sequence
+ * (hosts, switches, routers, then connections); {@code offset} and {@code limit}
+ * select a window of that sequence. A connection passes the filter when either
+ * of its endpoint devices does.
+ *
+ * @param deviceType only devices of this type are shown, or null for all types
+ * @param namePrefix only devices whose name starts with this prefix are shown, or null for all names
+ * @param offset     number of matching items to skip
+ * @param limit      maximum number of items to render
+ */
+public record TopologyViewOptions(Class<? extends Device> deviceType, String namePrefix, int offset, int limit) {
+	private static final TopologyViewOptions ALL = new TopologyViewOptions(null, null, 0, Integer.MAX_VALUE);
+
+	public TopologyViewOptions {
+		if (offset < 0) {
+			throw new IllegalArgumentException("Offset must not be negative");
+		}
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Limit must be positive");
+		}
+	}
+
+	/**
+	 * @return options rendering the whole topology
+	 */
+	public static TopologyViewOptions all() {
+		return ALL;
+	}
+
+	/**
+	 * Creates options for a 1-based page of the given size.
+	 * @param page     page number, starting at 1
+	 * @param pageSize number of items per page
+	 * @return options selecting that page
+	 */
+	public TopologyViewOptions page(int page, int pageSize) {
+		if (page < 1) {
+			throw new IllegalArgumentException("Page number must be at least 1");
+		}
+		return new TopologyViewOptions(deviceType, namePrefix, Math.multiplyExact(page - 1, pageSize), pageSize);
+	}
+
+	public TopologyViewOptions withDeviceType(Class<? extends Device> type) {
+		return new TopologyViewOptions(type, namePrefix, offset, limit);
+	}
+
+	public TopologyViewOptions withNamePrefix(String prefix) {
+		return new TopologyViewOptions(deviceType, prefix, offset, limit);
+	}
+
+	/**
+	 * @return true if only a window of the matching items is rendered
+	 */
+	public boolean isPaged() {
+		return offset > 0 || limit != Integer.MAX_VALUE;
+	}
+
+	boolean matches(Device device) {
+		return device != null
+				&& (deviceType == null || deviceType.isInstance(device))
+				&& (namePrefix == null || device.getDeviceName().startsWith(namePrefix));
+	}
+}
@@ -0,0 +1,18 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.topology.NetworkInterface;
+
+/**
+ * Load sent and received by one router interface.
+ *
+ * @param deviceName  name of the owning device
+ * @param iface       the interface
+ * @param txBps       transmitted load, in bits per second
+ * @param rxBps       received load, in bits per second
+ * @param utilization load of the busier direction divided by the link capacity
+ */
+public record InterfaceLoad(String deviceName, NetworkInterface iface, long txBps, long rxBps, double utilization) {
+	public long peakBps() {
+		return Math.max(txBps, rxBps);
+	}
+}
@@ -0,0 +1,23 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.topology.Connection;
+
+/**
+ * Load carried by one connection.
+ *
+ * @param connection  the connection
+ * @param deviceA     name of the device owning {@code connection.interfaceA()}
+ * @param deviceB     name of the device owning {@code connection.interfaceB()}
+ * @param aToBBps     load from side A to side B, in bits per second
+ * @param bToABps     load from side B to side A, in bits per second
+ * @param utilization load of the busier direction divided by the link capacity
+ */
+public record LinkLoad(Connection connection, String deviceA, String deviceB, long aToBBps, long bToABps, double utilization) {
+	public long peakBps() {
+		return Math.max(aToBBps, bToABps);
+	}
+
+	public boolean saturated() {
+		return utilization >= 1.0;
+	}
+}
@@ -0,0 +1,159 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingPath;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.topology.NetworkInterface;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyQuery;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.host.HostInterface;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Routes a traffic matrix over the forwarding paths of a topology and accumulates
+ * per-link and per-interface load.
+ * <p>
+ * Forwarding depends only on the source host and destination address, so every
+ * distinct pair is traced once with {@link ForwardingEngine#trace} and turned into a
+ * compact {@link ForwardingPath} of connection and interface ids. Flows are then
+ * summed along their paths in parallel into plain {@code long[]} counters, one set per
+ * worker, which are added together at the end. Flows that are dropped load the links up
+ * to the router that drops them.
+ * <p>
+ * Paths are traced under {@link NetworkTopology#readConfiguration}, so a matrix is routed
+ * over a single configuration version.
+ */
+public class TrafficEngine {
+	private static final Logger logger = Logger.getLogger(TrafficEngine.class.getName());
+	public static final long DEFAULT_LINK_CAPACITY_BPS = 1_000_000_000L;
+
+	// One representative is traced per path; flow rates are not interface counter traffic
+	private final ForwardingEngine engine = new ForwardingEngine(null);
+	private final long linkCapacityBps;
+
+	public TrafficEngine() {
+		this(DEFAULT_LINK_CAPACITY_BPS);
+	}
+
+	/**
+	 * @param linkCapacityBps capacity of every link, used for utilization
+	 */
+	public TrafficEngine(long linkCapacityBps) {
+		if (linkCapacityBps <= 0) {
+			throw new IllegalArgumentException("Link capacity must be positive");
+		}
+		this.linkCapacityBps = linkCapacityBps;
+	}
+
+	/**
+	 * Routes all flows and returns the resulting load.
+	 * @param topology topology to route over
+	 * @param flows    traffic matrix
+	 * @return per-link and per-interface load
+	 */
+	public TrafficReport route(NetworkTopology topology, List<TrafficFlow> flows) {
+		long version = topology.version();
+		TopologyGraph graph = topology.graph();
+		TopologyQuery query = new NetworkTopologyQuery(topology);
+		NetworkInterface[] interfaces = interfacesById(graph);
+		String[] owners = ownersById(graph);
+
+		Map<Long, TrafficFlow> representatives = flows.parallelStream()
+				.collect(Collectors.toConcurrentMap(TrafficEngine::pathKey, f -> f, (a, b) -> a));
+		Map<Long, ForwardingPath> paths = new ConcurrentHashMap<>(representatives.size() * 2);
+		// The calling thread holds the lock for the parallel workers, which do not take it themselves
+		topology.readConfiguration(() -> {
+			representatives.entrySet().parallelStream()
+					.forEach(e -> paths.put(e.getKey(), tracePath(e.getValue(), graph, query)));
+			return null;
+		});
+
+		Accumulator total = flows.parallelStream().collect(
+				() -> new Accumulator(graph.connectionCount(), interfaces.length),
+				(acc, flow) -> acc.add(flow.rateBps(), paths.get(pathKey(flow))),
+				Accumulator::merge);
+
+		logger.info("Routed %d flows over %d distinct paths: %d bps delivered, %d bps dropped"
+				.formatted(flows.size(), paths.size(), total.deliveredBps, total.droppedBps));
+		return new TrafficReport(version, graph, interfaces, owners, total.links, total.tx, total.rx,
+				linkCapacityBps, flows.size(), paths.size(), total.deliveredBps, total.droppedBps);
+	}
+
+	private static long pathKey(TrafficFlow flow) {
+		HostInterface hi = flow.source().getHostInterface();
+		int source = hi != null ? hi.getIndex() : -1;
+		return ((long) source << 32) | Integer.toUnsignedLong(flow.destination().toInt());
+	}
+
+	private ForwardingPath tracePath(TrafficFlow flow, TopologyGraph graph, TopologyQuery query) {
+		Host host = flow.source();
+		HostInterface hi = host.getHostInterface();
+		if (hi == null || hi.getInterfaceAddress() == null) {
+			return ForwardingPath.UNROUTABLE;
+		}
+		IPAddress dst = flow.destination();
+		Packet packet = new Packet(hi.getInterfaceAddress().ipAddress(), dst, Packet.PacketType.ICMP_ECHO_REQUEST, 64);
+		return ForwardingPath.of(engine.trace(packet, host, query), hi, dst, graph, query);
+	}
+
+	private static NetworkInterface[] interfacesById(TopologyGraph graph) {
+		NetworkInterface[] interfaces = new NetworkInterface[graph.interfaceCount()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = graph.networkInterface(i);
+		}
+		return interfaces;
+	}
+
+	private static String[] ownersById(TopologyGraph graph) {
+		String[] owners = new String[graph.interfaceCount()];
+		for (int i = 0; i < owners.length; i++) {
+			owners[i] = graph.device(graph.nodeOfInterface(graph.networkInterface(i))).getDeviceName();
+		}
+		return owners;
+	}
+
+	/**
+	 * Per-worker counters, merged once per parallel split.
+	 */
+	private static final class Accumulator {
+		private final long[] links;
+		private final long[] tx;
+		private final long[] rx;
+		private long deliveredBps;
+		private long droppedBps;
+
+		Accumulator(int connectionCount, int interfaceCount) {
+			this.links = new long[connectionCount * 2];
+			this.tx = new long[interfaceCount];
+			this.rx = new long[interfaceCount];
+		}
+
+		void add(long rate, ForwardingPath path) {
+			for (int link : path.links()) links[link] += rate;
+			for (int i : path.tx()) tx[i] += rate;
+			for (int i : path.rx()) rx[i] += rate;
+			if (path.delivered()) {
+				deliveredBps += rate;
+			} else {
+				droppedBps += rate;
+			}
+		}
+
+		void merge(Accumulator other) {
+			for (int i = 0; i < links.length; i++) links[i] += other.links[i];
+			for (int i = 0; i < tx.length; i++) tx[i] += other.tx[i];
+			for (int i = 0; i < rx.length; i++) rx[i] += other.rx[i];
+			deliveredBps += other.deliveredBps;
+			droppedBps += other.droppedBps;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.host.Host;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Constant-rate traffic demand from a host to a destination address.
+ *
+ * @param source      sending host
+ * @param destination destination address
+ * @param rateBps     offered rate in bits per second
+ */
+public record TrafficFlow(Host source, IPAddress destination, long rateBps) {
+	public TrafficFlow {
+		if (rateBps < 0) {
+			throw new IllegalArgumentException("Flow rate must not be negative: " + rateBps);
+		}
+	}
+
+	/**
+	 * Generates flows between random pairs of distinct addressed hosts.
+	 * @param topology topology to pick hosts from
+	 * @param count    number of flows
+	 * @param rateBps  rate of every flow
+	 * @param seed     random seed, so that the same lab always gets the same matrix
+	 * @return generated flows, empty if the topology has fewer than two addressed hosts
+	 */
+	public static List<TrafficFlow> randomHostPairs(NetworkTopology topology, int count, long rateBps, long seed) {
+		List<Host> hosts = topology.devices().stream()
+				.filter(Host.class::isInstance)
+				.map(Host.class::cast)
+				.filter(h -> h.getHostInterface() != null && h.getHostInterface().getInterfaceAddress() != null)
+				.toList();
+		if (hosts.size() < 2) {
+			return List.of();
+		}
+		SplittableRandom random = new SplittableRandom(seed);
+		List<TrafficFlow> flows = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int a = random.nextInt(hosts.size());
+			int b = random.nextInt(hosts.size() - 1);
+			if (b >= a) b++;
+			flows.add(new TrafficFlow(hosts.get(a), hosts.get(b).getHostInterface().getInterfaceAddress().ipAddress(), rateBps));
+		}
+		return flows;
+	}
+}
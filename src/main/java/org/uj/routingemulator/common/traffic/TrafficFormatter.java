@@ -0,0 +1,65 @@
+package org.uj.routingemulator.common.traffic;
+
+import java.util.List;
+
+/**
+ * Formats traffic reports as tables.
+ */
+public class TrafficFormatter {
+	private TrafficFormatter() {
+		// Prevent instantiation
+	}
+
+	/**
+	 * Formats a hot-link table.
+	 * @param report the report the links come from
+	 * @param links  links to list, in display order
+	 * @return formatted string (multi-line)
+	 */
+	public static String formatLinks(TrafficReport report, List<LinkLoad> links) {
+		StringBuilder sb = new StringBuilder(summary(report));
+		sb.append(String.format("%-40s %12s %12s %7s%n", "Link", "A->B", "B->A", "Util"));
+		sb.append(String.format("%-40s %12s %12s %7s%n", "----", "----", "----", "----"));
+		for (LinkLoad link : links) {
+			String name = "%s:%s <-> %s:%s".formatted(
+					link.deviceA(), link.connection().interfaceA().getInterfaceName(),
+					link.deviceB(), link.connection().interfaceB().getInterfaceName());
+			sb.append(String.format("%-40s %12s %12s %6.1f%%%s%n", name, rate(link.aToBBps()), rate(link.bToABps()),
+					link.utilization() * 100, link.saturated() ? " !" : ""));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Formats a hot-interface table.
+	 * @param report     the report the interfaces come from
+	 * @param interfaces interfaces to list, in display order
+	 * @return formatted string (multi-line)
+	 */
+	public static String formatInterfaces(TrafficReport report, List<InterfaceLoad> interfaces) {
+		StringBuilder sb = new StringBuilder(summary(report));
+		sb.append(String.format("%-30s %12s %12s %7s%n", "Interface", "TX", "RX", "Util"));
+		sb.append(String.format("%-30s %12s %12s %7s%n", "---------", "--", "--", "----"));
+		for (InterfaceLoad load : interfaces) {
+			String name = "%s:%s".formatted(load.deviceName(), load.iface().getInterfaceName());
+			sb.append(String.format("%-30s %12s %12s %6.1f%%%n", name, rate(load.txBps()), rate(load.rxBps()), load.utilization() * 100));
+		}
+		return sb.toString();
+	}
+
+	private static String summary(TrafficReport report) {
+		return String.format("Traffic matrix: %d flows over %d paths, offered %s, delivered %s, dropped %s, link capacity %s%n%n",
+				report.flowCount(), report.pathCount(), rate(report.offeredBps()), rate(report.deliveredBps()),
+				rate(report.droppedBps()), rate(report.linkCapacityBps()));
+	}
+
+	/**
+	 * Formats a rate with a decimal unit prefix, e.g. {@code 1.50 Gbps}.
+	 */
+	public static String rate(long bps) {
+		if (bps >= 1_000_000_000L) return String.format("%.2f Gbps", bps / 1e9);
+		if (bps >= 1_000_000L) return String.format("%.2f Mbps", bps / 1e6);
+		if (bps >= 1_000L) return String.format("%.2f kbps", bps / 1e3);
+		return bps + " bps";
+	}
+}
@@ -0,0 +1,186 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.NetworkInterface;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.router.model.RouterInterface;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Load produced by routing a traffic matrix with {@link TrafficEngine}.
+ * <p>
+ * Counters are indexed by connection position and by interface id in the topology graph
+ * snapshot. The report is immutable and refers to the topology version it
+ * was computed for.
+ */
+public final class TrafficReport {
+	private final long topologyVersion;
+	private final TopologyGraph graph;
+	private final NetworkInterface[] interfaces;
+	private final String[] owners;
+	private final long[] links;
+	private final long[] tx;
+	private final long[] rx;
+	private final long linkCapacityBps;
+	private final int flowCount;
+	private final int pathCount;
+	private final long deliveredBps;
+	private final long droppedBps;
+
+	TrafficReport(long topologyVersion, TopologyGraph graph, NetworkInterface[] interfaces, String[] owners,
+	              long[] links, long[] tx, long[] rx, long linkCapacityBps,
+	              int flowCount, int pathCount, long deliveredBps, long droppedBps) {
+		this.topologyVersion = topologyVersion;
+		this.graph = graph;
+		this.interfaces = interfaces;
+		this.owners = owners;
+		this.links = links;
+		this.tx = tx;
+		this.rx = rx;
+		this.linkCapacityBps = linkCapacityBps;
+		this.flowCount = flowCount;
+		this.pathCount = pathCount;
+		this.deliveredBps = deliveredBps;
+		this.droppedBps = droppedBps;
+	}
+
+	public long topologyVersion() {
+		return topologyVersion;
+	}
+
+	public long linkCapacityBps() {
+		return linkCapacityBps;
+	}
+
+	public int flowCount() {
+		return flowCount;
+	}
+
+	/**
+	 * @return number of distinct (source, destination) paths traced
+	 */
+	public int pathCount() {
+		return pathCount;
+	}
+
+	public long offeredBps() {
+		return deliveredBps + droppedBps;
+	}
+
+	public long deliveredBps() {
+		return deliveredBps;
+	}
+
+	public long droppedBps() {
+		return droppedBps;
+	}
+
+	/**
+	 * Gets the load of one connection.
+	 * @param connection the connection
+	 * @return load, or null if the connection is not part of the routed topology
+	 */
+	public LinkLoad linkLoad(Connection connection) {
+		int c = graph.connectionOfInterface(connection.interfaceA());
+		return c >= 0 ? linkLoad(c) : null;
+	}
+
+	/**
+	 * Gets the load of one interface.
+	 * @param iface the interface
+	 * @return load, zero if no flow used the interface
+	 */
+	public InterfaceLoad interfaceLoad(NetworkInterface iface) {
+		int i = graph.interfaceOf(iface);
+		long t = i >= 0 ? tx[i] : 0;
+		long r = i >= 0 ? rx[i] : 0;
+		String owner = i >= 0 ? owners[i] : null;
+		return new InterfaceLoad(owner, iface, t, r, utilization(Math.max(t, r)));
+	}
+
+	/**
+	 * Lists loaded links, busiest first unless another order is requested.
+	 * @param order sort key
+	 * @param limit maximum number of links, or 0 for all
+	 * @return loaded links
+	 */
+	public List<LinkLoad> hotLinks(TrafficSortKey order, int limit) {
+		Comparator<LinkLoad> comparator = switch (order) {
+			case LOAD -> Comparator.comparingLong(LinkLoad::peakBps).reversed();
+			case TX -> Comparator.comparingLong(LinkLoad::aToBBps).reversed();
+			case RX -> Comparator.comparingLong(LinkLoad::bToABps).reversed();
+			case NAME -> Comparator.comparing(LinkLoad::deviceA).thenComparing(LinkLoad::deviceB);
+		};
+		List<LinkLoad> loaded = new ArrayList<>();
+		for (int c = 0; c < graph.connectionCount(); c++) {
+			if (links[c * 2] != 0 || links[c * 2 + 1] != 0) {
+				loaded.add(linkLoad(c));
+			}
+		}
+		return top(loaded, comparator, limit);
+	}
+
+	/**
+	 * Lists loaded router interfaces, busiest first unless another order is requested.
+	 * @param order sort key
+	 * @param limit maximum number of interfaces, or 0 for all
+	 * @return loaded interfaces
+	 */
+	public List<InterfaceLoad> hotInterfaces(TrafficSortKey order, int limit) {
+		Comparator<InterfaceLoad> comparator = switch (order) {
+			case LOAD -> Comparator.comparingLong(InterfaceLoad::peakBps).reversed();
+			case TX -> Comparator.comparingLong(InterfaceLoad::txBps).reversed();
+			case RX -> Comparator.comparingLong(InterfaceLoad::rxBps).reversed();
+			case NAME -> Comparator.comparing(InterfaceLoad::deviceName).thenComparing(l -> l.iface().getInterfaceName());
+		};
+		List<InterfaceLoad> loaded = new ArrayList<>();
+		for (int i = 0; i < interfaces.length; i++) {
+			if (interfaces[i] instanceof RouterInterface && (tx[i] != 0 || rx[i] != 0)) {
+				loaded.add(interfaceLoad(interfaces[i]));
+			}
+		}
+		return top(loaded, comparator, limit);
+	}
+
+	private LinkLoad linkLoad(int c) {
+		Connection connection = graph.connection(c);
+		long aToB = links[c * 2];
+		long bToA = links[c * 2 + 1];
+		return new LinkLoad(connection, ownerOf(connection.interfaceA()), ownerOf(connection.interfaceB()),
+				aToB, bToA, utilization(Math.max(aToB, bToA)));
+	}
+
+	private String ownerOf(NetworkInterface iface) {
+		int i = graph.interfaceOf(iface);
+		String owner = i >= 0 ? owners[i] : null;
+		return owner != null ? owner : "?";
+	}
+
+	private double utilization(long bps) {
+		return (double) bps / linkCapacityBps;
+	}
+
+	/**
+	 * Selects the first {@code limit} elements in order without sorting the whole list.
+	 */
+	private static <T> List<T> top(List<T> items, Comparator<T> comparator, int limit) {
+		if (limit <= 0 || limit >= items.size()) {
+			items.sort(comparator);
+			return items;
+		}
+		PriorityQueue<T> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+		for (T item : items) {
+			heap.add(item);
+			if (heap.size() > limit) {
+				heap.poll();
+			}
+		}
+		List<T> result = new ArrayList<>(heap);
+		result.sort(comparator);
+		return result;
+	}
+}
@@ -0,0 +1,32 @@
+package org.uj.routingemulator.common.traffic;
+
+import org.uj.routingemulator.common.topology.NetworkTopology;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Latest traffic report of each topology, shared by the CLI and the GUI.
+ * Entries disappear together with their topology.
+ */
+public final class TrafficReports {
+	private static final Map<NetworkTopology, TrafficReport> LATEST = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private TrafficReports() {
+		// Prevent instantiation
+	}
+
+	public static void publish(NetworkTopology topology, TrafficReport report) {
+		LATEST.put(topology, report);
+	}
+
+	public static Optional<TrafficReport> latest(NetworkTopology topology) {
+		return Optional.ofNullable(LATEST.get(topology));
+	}
+
+	public static void clear(NetworkTopology topology) {
+		LATEST.remove(topology);
+	}
+}
@@ -0,0 +1,23 @@
+package org.uj.routingemulator.common.traffic;
+
+/**
+ * Ordering of hot-link and hot-interface reports.
+ */
+public enum TrafficSortKey {
+	/**
+	 * Busiest direction first.
+	 */
+	LOAD,
+	/**
+	 * Most transmitted traffic first; for links, traffic from side A to side B.
+	 */
+	TX,
+	/**
+	 * Most received traffic first; for links, traffic from side B to side A.
+	 */
+	RX,
+	/**
+	 * Alphabetical by device and interface name.
+	 */
+	NAME
+}
@@ -0,0 +1,56 @@
+package org.uj.routingemulator.gui.dialogs;
+
+import javafx.application.Platform;
+
+import java.util.function.Consumer;
+
+/**
+ * Hands text produced on a background thread over to the JavaFX application thread.
+ * <p>
+ * Text is buffered and delivered in batches: at most one {@link Platform#runLater} is
+ * pending at a time, so a command printing thousands of lines costs a handful of UI
+ * updates rather than one per line.
+ */
+final class FxTextBatcher implements Consumer<String> {
+	private final Consumer<String> sink;
+	private final Runnable afterFlush;
+	private final StringBuilder pending = new StringBuilder();
+	private boolean scheduled;
+
+	/**
+	 * @param sink       receives batched text on the FX thread
+	 * @param afterFlush runs on the FX thread after every batch, e.g. to update progress
+	 */
+	FxTextBatcher(Consumer<String> sink, Runnable afterFlush) {
+		this.sink = sink;
+		this.afterFlush = afterFlush;
+	}
+
+	FxTextBatcher(Consumer<String> sink) {
+		this(sink, () -> {
+		});
+	}
+
+	@Override
+	public void accept(String text) {
+		synchronized (this) {
+			pending.append(text);
+			if (scheduled) return;
+			scheduled = true;
+		}
+		Platform.runLater(this::flush);
+	}
+
+	private void flush() {
+		String text;
+		synchronized (this) {
+			text = pending.toString();
+			pending.setLength(0);
+			scheduled = false;
+		}
+		if (!text.isEmpty()) {
+			sink.accept(text);
+		}
+		afterFlush.run();
+	}
+}
@@ -1,16 +1,23 @@
 package org.uj.routingemulator.gui.dialogs;
 
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
-import org.uj.routingemulator.common.ping.PingStatistics;
+import org.uj.routingemulator.gui.services.BackgroundTask;
 import org.uj.routingemulator.gui.services.HostConfigurationService;
 import org.uj.routingemulator.gui.services.PingApplicationService;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.host.HostInterface;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class HostConfigDialog extends Dialog<Void> {
+    private static final int PING_COUNT = 4;
+
     private final Host host;
     private final HostConfigurationService hostConfigService;
     private final PingApplicationService pingService;
@@ -19,6 +26,11 @@ public class HostConfigDialog extends Dialog<Void> {
     private final TextField prefixField = new TextField();
     private final TextField gatewayField = new TextField();
     private final TextArea outputArea = new TextArea();
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Button cancelBtn = new Button("Cancel");
+    private final Button pingBtn = new Button("Ping");
+    private final Button tracerouteBtn = new Button("Traceroute");
+    private BackgroundTask running;
 
     public HostConfigDialog(Host host, HostConfigurationService hostConfigService, PingApplicationService pingService) {
         this.host = host;
@@ -41,20 +53,29 @@ public class HostConfigDialog extends Dialog<Void> {
         grid.add(gatewayField, 1, 2);
 
         Button applyBtn = new Button("Apply");
-        Button pingBtn = new Button("Ping");
         TextField pingTarget = new TextField();
         pingTarget.setPromptText("destination IP (e.g., 192.168.1.1)");
 
         applyBtn.setOnAction(e -> applyConfiguration());
         pingBtn.setOnAction(e -> doPing(pingTarget.getText()));
+        tracerouteBtn.setOnAction(e -> doTraceroute(pingTarget.getText()));
+        cancelBtn.setOnAction(e -> {
+            if (running != null) running.cancel();
+        });
+        cancelBtn.setDisable(true);
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(progressBar, Priority.ALWAYS);
 
         VBox vbox = new VBox(10);
         vbox.setPadding(new Insets(10));
-        vbox.getChildren().addAll(grid, applyBtn, new Separator(), new Label("Ping target:"), pingTarget, pingBtn, new Separator(), outputArea);
+        vbox.getChildren().addAll(grid, applyBtn, new Separator(), new Label("Ping target:"), pingTarget, new HBox(10, pingBtn, tracerouteBtn, cancelBtn, progressBar), new Separator(), outputArea);
 
         outputArea.setEditable(false);
         outputArea.setPrefRowCount(10);
         getDialogPane().setContent(vbox);
+        setOnCloseRequest(e -> {
+            if (running != null) running.cancel();
+        });
 
         HostInterface hi = host.getHostInterface();
         if (hi != null && hi.getInterfaceAddress() != null) {
@@ -81,11 +102,46 @@ public class HostConfigDialog extends Dialog<Void> {
     }
 
     private void doPing(String target) {
+        AtomicInteger completed = new AtomicInteger();
+        progressBar.setProgress(0);
+        FxTextBatcher output = new FxTextBatcher(outputArea::appendText,
+                () -> progressBar.setProgress((double) completed.get() / PING_COUNT));
         try {
-            PingStatistics stats = pingService.pingFromHost(host, target);
-            outputArea.appendText(stats.toString() + "\n");
+            run(pingService.pingFromHostAsync(host, target, PING_COUNT, output, completed::set));
         } catch (Exception ex) {
             outputArea.appendText("Ping failed: " + ex.getMessage() + "\n");
         }
     }
-}
\ No newline at end of file
+
+    private void doTraceroute(String target) {
+        try {
+            progressBar.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
+            run(pingService.tracerouteFromHostAsync(host, target, new FxTextBatcher(outputArea::appendText)));
+        } catch (Exception ex) {
+            progressBar.setProgress(0);
+            outputArea.appendText("Traceroute failed: " + ex.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * Tracks a background operation: buttons are disabled until it finishes or is cancelled.
+     */
+    private void run(BackgroundTask task) {
+        running = task;
+        pingBtn.setDisable(true);
+        tracerouteBtn.setDisable(true);
+        cancelBtn.setDisable(false);
+        task.completion().whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                outputArea.appendText("Operation failed: " + error.getMessage() + "\n");
+            } else if (task.isCancelled()) {
+                outputArea.appendText("Cancelled.\n");
+            }
+            running = null;
+            pingBtn.setDisable(false);
+            tracerouteBtn.setDisable(false);
+            cancelBtn.setDisable(true);
+            if (progressBar.getProgress() < 0) progressBar.setProgress(1);
+        }));
+    }
+}
@@ -0,0 +1,120 @@
+package org.uj.routingemulator.gui.dialogs;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import org.uj.routingemulator.common.forwarding.ForwardingMetrics;
+import org.uj.routingemulator.common.metrics.MetricSeries;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+
+import java.util.List;
+
+/**
+ * Non-modal window charting the per-second history of one metric of a {@link MetricsRegistry}.
+ * <p>
+ * Once a second only the samples taken since the previous refresh are added to the chart
+ * and points that fell out of the window are removed, so a refresh costs the same however
+ * long the emulator has been running.
+ */
+public class MetricsMonitorDialog extends Dialog<Void> {
+	private static final int WINDOW_SECONDS = 120;
+
+	private final MetricsRegistry registry;
+	private final ComboBox<String> metricBox = new ComboBox<>();
+	private final XYChart.Series<Number, Number> points = new XYChart.Series<>();
+	private final NumberAxis timeAxis = new NumberAxis();
+	private final Label summary = new Label();
+	private final Timeline refresh;
+	private MetricSeries shown;
+	private long nextSample;
+
+	public MetricsMonitorDialog(MetricsRegistry registry) {
+		this.registry = registry;
+		setTitle("Emulator Activity");
+		setHeaderText("Events per second, sampled every second");
+		getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+		setResizable(true);
+
+		timeAxis.setLabel("sample (s)");
+		timeAxis.setForceZeroInRange(false);
+		timeAxis.setAutoRanging(false);
+		NumberAxis rateAxis = new NumberAxis();
+		rateAxis.setLabel("events/s");
+		LineChart<Number, Number> chart = new LineChart<>(timeAxis, rateAxis);
+		chart.setAnimated(false);
+		chart.setCreateSymbols(false);
+		chart.setLegendVisible(false);
+		chart.getData().add(points);
+		chart.setPrefSize(640, 320);
+
+		updateMetricNames();
+		metricBox.getSelectionModel().select(metricBox.getItems().contains(ForwardingMetrics.PACKETS) ? ForwardingMetrics.PACKETS : null);
+		metricBox.valueProperty().addListener((obs, old, name) -> reload(name));
+		reload(metricBox.getValue());
+
+		VBox content = new VBox(10, new HBox(10, new Label("Metric:"), metricBox), chart, summary);
+		content.setPadding(new Insets(10));
+		getDialogPane().setContent(content);
+
+		refresh = new Timeline(new KeyFrame(Duration.seconds(1), e -> update()));
+		refresh.setCycleCount(Timeline.INDEFINITE);
+		setOnShown(e -> refresh.play());
+		setOnHidden(e -> refresh.stop());
+	}
+
+	private void updateMetricNames() {
+		List<String> names = registry.names("");
+		if (!names.equals(metricBox.getItems())) {
+			String selected = metricBox.getValue();
+			metricBox.getItems().setAll(names);
+			metricBox.setValue(selected);
+		}
+	}
+
+	/**
+	 * Shows the last window of a metric's history.
+	 */
+	private void reload(String name) {
+		points.getData().clear();
+		shown = name != null ? registry.series(name).orElse(null) : null;
+		if (shown == null) {
+			summary.setText("No metric selected");
+			return;
+		}
+		nextSample = Math.max(0, shown.appended() - WINDOW_SECONDS);
+		update();
+	}
+
+	/**
+	 * Appends the samples taken since the last refresh.
+	 */
+	private void update() {
+		updateMetricNames();
+		if (shown == null) return;
+		// Refreshes are a second apart and the history holds minutes, so no sample is skipped
+		long[] fresh = shown.since(nextSample);
+		for (int i = 0; i < fresh.length; i++) {
+			points.getData().add(new XYChart.Data<>(nextSample + i, fresh[i]));
+		}
+		nextSample += fresh.length;
+		int excess = points.getData().size() - WINDOW_SECONDS;
+		if (excess > 0) {
+			points.getData().remove(0, excess);
+		}
+		timeAxis.setLowerBound(Math.max(0, nextSample - WINDOW_SECONDS));
+		timeAxis.setUpperBound(Math.max(WINDOW_SECONDS, nextSample));
+		timeAxis.setTickUnit(WINDOW_SECONDS / 6.0);
+		String name = metricBox.getValue();
+		summary.setText("%s: %d total, %d in the last second".formatted(name, registry.total(name), shown.last()));
+	}
+}
@@ -14,7 +14,11 @@ import javafx.scene.text.Text;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
 import org.uj.routingemulator.common.topology.*;
+import org.uj.routingemulator.common.traffic.LinkLoad;
+import org.uj.routingemulator.common.traffic.TrafficFormatter;
+import org.uj.routingemulator.common.traffic.TrafficReport;
 import org.uj.routingemulator.gui.services.*;
 import org.uj.routingemulator.gui.viewmodel.TopologyViewModel;
 import org.uj.routingemulator.host.Host;
@@ -59,6 +63,12 @@ public class NetworkTopologyController {
 	private Button loadConfigButton;
 	@FXML
 	private Button saveConfigButton;
+	@FXML
+	private Button generateTrafficButton;
+	@FXML
+	private Button clearTrafficButton;
+	@FXML
+	private Button showMetricsButton;
 
 	private NetworkTopology topology;
 	private TopologyApplicationService applicationService;
@@ -67,9 +77,11 @@ public class NetworkTopologyController {
 	private PingApplicationService pingApplicationService;
 	private HostConfigurationService hostConfigurationService;
 	private RouterCLIService routerCLIService;
+	private TrafficApplicationService trafficApplicationService;
 
 	private Map<DeviceId, DeviceNode> deviceNodes;
 	private Map<ConnectionId, Line> connectionLines;
+	private Map<ConnectionId, Tooltip> trafficTooltips;
 
 	private DeviceNode selectedNode;
 	private DeviceNode connectionStartNode;
@@ -86,9 +98,11 @@ public class NetworkTopologyController {
 		this.pingApplicationService = new PingApplicationService(topology);
 		this.hostConfigurationService = new HostConfigurationService();
 		this.routerCLIService = new RouterCLIService(topology);
+		this.trafficApplicationService = new TrafficApplicationService(topology);
 
 		this.deviceNodes = new HashMap<>();
 		this.connectionLines = new HashMap<>();
+		this.trafficTooltips = new HashMap<>();
 
 		updateDeviceList();
 		setupEventHandlers();
@@ -106,6 +120,10 @@ public class NetworkTopologyController {
 		loadConfigButton.setOnAction(e -> loadRouterConfiguration());
 		saveConfigButton.setOnAction(e -> saveRouterConfiguration());
 
+		generateTrafficButton.setOnAction(e -> generateTraffic());
+		clearTrafficButton.setOnAction(e -> clearTrafficOverlay());
+		showMetricsButton.setOnAction(e -> new MetricsMonitorDialog(MetricsRegistry.global()).show());
+
 		canvasPane.setOnMouseClicked(e -> {
 			if (e.getButton() == MouseButton.PRIMARY && connectionStartNode == null) {
 				selectedNode = null;
@@ -238,6 +256,7 @@ public class NetworkTopologyController {
 
 			for (Connection conn : connectionsToRemove) {
 				Line line = connectionLines.remove(conn.id());
+				trafficTooltips.remove(conn.id());
 				if (line != null) {
 					canvasPane.getChildren().remove(line);
 				}
@@ -357,6 +376,7 @@ public class NetworkTopologyController {
 		dialog.showAndWait().ifPresent(conn -> {
 			applicationService.removeConnection(conn);
 			Line line = connectionLines.remove(conn.id());
+			trafficTooltips.remove(conn.id());
 			if (line != null) {
 				canvasPane.getChildren().remove(line);
 			}
@@ -420,6 +440,77 @@ public class NetworkTopologyController {
 		line.setEndY(endY);
 	}
 
+	private void generateTraffic() {
+		TextInputDialog dialog = new TextInputDialog("1000");
+		dialog.setTitle("Generate Traffic");
+		dialog.setHeaderText("Route random host-to-host flows of 1 Mbps each");
+		dialog.setContentText("Number of flows:");
+		Optional<String> result = dialog.showAndWait();
+		if (result.isEmpty()) return;
+
+		int flows;
+		try {
+			flows = Integer.parseInt(result.get().trim());
+		} catch (NumberFormatException e) {
+			showError("Invalid number of flows: " + result.get());
+			return;
+		}
+		if (flows < 1) {
+			showError("Invalid number of flows: " + flows);
+			return;
+		}
+		Optional<TrafficReport> report = trafficApplicationService.generate(flows, 1_000_000L);
+		if (report.isEmpty()) {
+			showError("The topology needs at least two hosts with IP addresses");
+			return;
+		}
+		showTrafficOverlay(report.get());
+	}
+
+	/**
+	 * Colours every connection line by the utilization of its busier direction:
+	 * grey when idle, green to red up to saturation, thicker when busier.
+	 */
+	private void showTrafficOverlay(TrafficReport report) {
+		for (Map.Entry<ConnectionId, Line> entry : connectionLines.entrySet()) {
+			Connection conn = queryService.getConnection(entry.getKey());
+			Line line = entry.getValue();
+			LinkLoad load = conn != null ? report.linkLoad(conn) : null;
+			if (load == null || load.peakBps() == 0) {
+				resetConnectionLine(entry.getKey(), line);
+				continue;
+			}
+			double utilization = Math.min(1.0, load.utilization());
+			line.setStroke(Color.hsb(120 * (1 - utilization), 0.9, 0.85));
+			line.setStrokeWidth(3 + 5 * utilization);
+			Tooltip tooltip = new Tooltip("%s -> %s: %s%n%s -> %s: %s%nUtilization: %.1f%%".formatted(
+					load.deviceA(), load.deviceB(), TrafficFormatter.rate(load.aToBBps()),
+					load.deviceB(), load.deviceA(), TrafficFormatter.rate(load.bToABps()),
+					load.utilization() * 100));
+			Tooltip previous = trafficTooltips.put(entry.getKey(), tooltip);
+			if (previous != null) {
+				Tooltip.uninstall(line, previous);
+			}
+			Tooltip.install(line, tooltip);
+		}
+	}
+
+	private void clearTrafficOverlay() {
+		trafficApplicationService.clear();
+		for (Map.Entry<ConnectionId, Line> entry : connectionLines.entrySet()) {
+			resetConnectionLine(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private void resetConnectionLine(ConnectionId id, Line line) {
+		line.setStroke(Color.DARKGRAY);
+		line.setStrokeWidth(3);
+		Tooltip tooltip = trafficTooltips.remove(id);
+		if (tooltip != null) {
+			Tooltip.uninstall(line, tooltip);
+		}
+	}
+
 	private String formatInterfaceDisplay(NetworkInterface iface) {
 		if (iface == null) return "null";
 		StringBuilder display = new StringBuilder();
@@ -5,6 +5,7 @@ import javafx.geometry.Insets;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Dialog;
 import javafx.scene.layout.VBox;
+import org.uj.routingemulator.gui.services.BackgroundTask;
 import org.uj.routingemulator.gui.services.RouterCLIService;
 import org.uj.routingemulator.gui.viewmodel.RouterSessionState;
 import org.uj.routingemulator.router.model.Router;
@@ -20,6 +21,7 @@ public class SimpleCLIDialog extends Dialog<Void> {
     private final Router router;
     private final RouterCLIService cliService;
     private final SimpleTerminalTextArea terminal;
+    private BackgroundTask running;
 
     public SimpleCLIDialog(Router router, RouterCLIService cliService) {
         this.router = router;
@@ -41,6 +43,7 @@ public class SimpleCLIDialog extends Dialog<Void> {
 
         terminal.setOnCommandSubmit(this::processCommand);
         terminal.setOnTabComplete(this::handleTabCompletion);
+        terminal.setOnInterrupt(this::interrupt);
 
         VBox content = new VBox(10);
         content.setPadding(new Insets(10));
@@ -55,7 +58,10 @@ public class SimpleCLIDialog extends Dialog<Void> {
             terminal.requestFocus();
         });
 
-        setOnCloseRequest(event -> saveTerminalBuffer());
+        setOnCloseRequest(event -> {
+            interrupt();
+            saveTerminalBuffer();
+        });
     }
 
     private void processCommand(String command) {
@@ -65,13 +71,26 @@ public class SimpleCLIDialog extends Dialog<Void> {
             return;
         }
 
-        String output = cliService.executeCommand(command, router);
-        if (output != null && !output.isEmpty()) {
-            terminal.appendColoredText(output);
-        }
+        // Commands run off the FX thread; output is streamed into the terminal in batches
+        terminal.setEditable(false);
+        BackgroundTask task = cliService.executeCommandAsync(command, router, new FxTextBatcher(terminal::appendColoredText));
+        running = task;
+        task.completion().whenComplete((ignored, error) -> Platform.runLater(() -> {
+            if (task.isCancelled()) {
+                terminal.appendColoredText("^C\n");
+            }
+            running = null;
+            terminal.setEditable(true);
+            showPrompt();
+            saveTerminalBuffer();
+            terminal.requestFocus();
+        }));
+    }
 
-        showPrompt();
-        saveTerminalBuffer();
+    private void interrupt() {
+        if (running != null) {
+            running.cancel();
+        }
     }
 
     private void handleTabCompletion(String input, java.util.function.Consumer<List<String>> callback) {
@@ -17,6 +17,9 @@ import java.util.function.Consumer;
  * - Command history (arrow up/down)
  * - Tab completion
  * - Protected prompt area
+ * - Ctrl+C to interrupt a running command
+ * <p>
+ * While a command runs the terminal is made non-editable and only Ctrl+C is handled.
  * <p>
  * Note: ANSI color codes are stripped since TextArea doesn't support rich text.
  * For color support, a more complex solution with TextFlow would be needed.
@@ -40,6 +43,12 @@ public class SimpleTerminalTextArea extends TextArea {
 	 */
 	@Setter
 	private BiConsumer<String, Consumer<List<String>>> onTabComplete;
+	/**
+	 * -- SETTER --
+	 * Sets the handler for Ctrl+C.
+	 */
+	@Setter
+	private Runnable onInterrupt;
 
 	public SimpleTerminalTextArea() {
 		super();
@@ -98,6 +107,17 @@ public class SimpleTerminalTextArea extends TextArea {
 	 */
 	@SuppressWarnings("java:S6916")
 	private void handleKeyPress(KeyEvent event) {
+		if (event.isControlDown() && event.getCode() == KeyCode.C && (!isEditable() || getSelectedText().isEmpty())) {
+			if (onInterrupt != null) {
+				onInterrupt.run();
+			}
+			event.consume();
+			return;
+		}
+		if (!isEditable()) {
+			event.consume();
+			return;
+		}
 		switch (event.getCode()) {
 			case KeyCode.ENTER -> handleEnter();
 			case KeyCode.UP -> navigateHistory(-1);
@@ -0,0 +1,90 @@
+package org.uj.routingemulator.gui.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Handle to an operation running on its own virtual thread, off the JavaFX application thread.
+ * <p>
+ * {@link #cancel()} interrupts the thread; operations check for interruption between
+ * steps and finish early. {@link #completion()} completes when the operation has
+ * returned, whether it finished, was cancelled or failed.
+ * <p>
+ * Operations that must stay on the calling thread run through
+ * {@link #runOnCallingThread}, which returns an already completed handle.
+ */
+public final class BackgroundTask {
+	private static final Logger logger = Logger.getLogger(BackgroundTask.class.getName());
+
+	private final CompletableFuture<Void> completion = new CompletableFuture<>();
+	/**
+	 * Thread running the operation, or null if it ran on the calling thread.
+	 */
+	private final Thread thread;
+	private volatile boolean cancelled;
+
+	private BackgroundTask(String name, Runnable body, boolean onVirtualThread) {
+		this.thread = onVirtualThread ? Thread.ofVirtual().name(name).unstarted(() -> run(name, body)) : null;
+	}
+
+	private void run(String name, Runnable body) {
+		try {
+			body.run();
+			completion.complete(null);
+		} catch (Throwable e) {
+			// Errors complete the task too, or callers waiting for it would never resume
+			logger.log(Level.WARNING, "Background task %s failed".formatted(name), e);
+			completion.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Starts an operation on a new virtual thread.
+	 * @param name thread name, for logs and debugging
+	 * @param body the operation
+	 * @return handle to the running operation
+	 */
+	public static BackgroundTask start(String name, Runnable body) {
+		BackgroundTask task = new BackgroundTask(name, body, true);
+		task.thread.start();
+		return task;
+	}
+
+	/**
+	 * Runs an operation on the calling thread.
+	 * @param name operation name, for logs
+	 * @param body the operation
+	 * @return completed handle to the operation
+	 */
+	public static BackgroundTask runOnCallingThread(String name, Runnable body) {
+		BackgroundTask task = new BackgroundTask(name, body, false);
+		task.run(name, body);
+		return task;
+	}
+
+	/**
+	 * Asks the operation to stop.
+	 */
+	public void cancel() {
+		cancelled = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	/**
+	 * @return future completed once the operation has returned, exceptionally if it failed
+	 */
+	public CompletableFuture<Void> completion() {
+		return completion;
+	}
+}
@@ -1,12 +1,25 @@
 package org.uj.routingemulator.gui.services;
 
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.ping.PingFormatter;
 import org.uj.routingemulator.common.ping.PingService;
 import org.uj.routingemulator.common.ping.PingStatistics;
+import org.uj.routingemulator.common.ping.PingSweep;
+import org.uj.routingemulator.common.ping.PingSweepResult;
+import org.uj.routingemulator.common.ping.PingSweepService;
+import org.uj.routingemulator.common.ping.TracerouteFormatter;
+import org.uj.routingemulator.common.ping.TracerouteResult;
+import org.uj.routingemulator.common.ping.TracerouteService;
 import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.host.Host;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 public class PingApplicationService {
 	private final NetworkTopology topology;
+	private final PingSweepService sweepService = new PingSweepService();
 
 	public PingApplicationService(NetworkTopology topology) {
 		this.topology = topology;
@@ -15,4 +28,62 @@ public class PingApplicationService {
 	public PingStatistics pingFromHost(Host host, String targetIp) {
 		return new PingService().ping(host, targetIp, 4, topology);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Pings from a host on a background thread, streaming the output line by line.
+	 * Output and progress are delivered on the background thread; GUI callers must hand
+	 * them over to the FX thread themselves. Cancelling stops before the next probe and
+	 * still prints the statistics of the probes sent.
+	 * @param host     source host
+	 * @param targetIp destination IP address
+	 * @param count    number of probes
+	 * @param output   receives output text as it is produced
+	 * @param progress receives the number of probes completed so far
+	 * @return handle for cancellation and completion
+	 * @throws IllegalArgumentException if the target is not a valid IP address
+	 */
+	public BackgroundTask pingFromHostAsync(Host host, String targetIp, int count, Consumer<String> output, IntConsumer progress) {
+		IPAddress dst = IPAddress.fromString(targetIp.trim());
+		IPAddress src = host.getHostInterface() != null && host.getHostInterface().getInterfaceAddress() != null
+				? host.getHostInterface().getInterfaceAddress().ipAddress()
+				: null;
+		return BackgroundTask.start("ping-" + host.getHostname(), () -> {
+			output.accept(PingFormatter.formatHeader(dst));
+			PingStatistics stats = new PingService().ping(host, dst, count, topology, result -> {
+				output.accept(PingFormatter.formatProbe(dst, src, 64, result));
+				progress.accept(result.sequence());
+			});
+			output.accept(PingFormatter.formatSummary(dst, stats));
+		});
+	}
+
+	public TracerouteResult tracerouteFromHost(Host host, String targetIp) {
+		return new TracerouteService().trace(host, IPAddress.fromString(targetIp), TracerouteService.DEFAULT_MAX_HOPS, topology);
+	}
+
+	/**
+	 * Runs a traceroute from a host on a background thread.
+	 * @param host     source host
+	 * @param targetIp destination IP address
+	 * @param output   receives the formatted result, on the background thread
+	 * @return handle for cancellation and completion
+	 * @throws IllegalArgumentException if the target is not a valid IP address
+	 */
+	public BackgroundTask tracerouteFromHostAsync(Host host, String targetIp, Consumer<String> output) {
+		IPAddress dst = IPAddress.fromString(targetIp.trim());
+		return BackgroundTask.start("traceroute-" + host.getHostname(), () -> output.accept(TracerouteFormatter.format(
+				new TracerouteService().trace(host, dst, TracerouteService.DEFAULT_MAX_HOPS, topology))));
+	}
+
+	/**
+	 * Starts a ping sweep of a prefix from a host. Results are delivered on a background
+	 * thread; GUI callers must hand them over to the FX thread themselves.
+	 * @param host     source host
+	 * @param prefix   prefix in CIDR notation, e.g. 10.0.0.0/24
+	 * @param listener receives one result per destination
+	 * @return handle for cancellation and completion
+	 */
+	public PingSweep sweepFromHost(Host host, String prefix, Consumer<PingSweepResult> listener) {
+		return sweepService.sweep(host, Subnet.fromString(prefix), 1, topology, listener);
+	}
+}
@@ -10,14 +10,17 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class RouterCLIService {
 	private final NetworkTopology topology;
+	private final RouterCLIParser parser;
 	private final CommandExecutor executor;
 
 	public RouterCLIService(NetworkTopology topology) {
 		this.topology = topology;
-		this.executor = new DefaultCommandExecutor(new RouterCLIParser(CommandRegistry.defaultRegistry()));
+		this.parser = new RouterCLIParser(CommandRegistry.defaultRegistry());
+		this.executor = new DefaultCommandExecutor(parser);
 	}
 
 	public String executeCommand(String command, Router router) {
@@ -32,6 +35,38 @@ public class RouterCLIService {
 		return stringWriter.toString();
 	}
 
+	/**
+	 * Executes a command, on a background thread if it is
+	 * {@linkplain RouterCommand#isReadOnly() read-only}. Commands changing router state run
+	 * on the calling thread, the FX thread in the GUI, and the returned task is already
+	 * complete. Output is delivered as the command writes it, on the thread running the
+	 * command; GUI callers must hand it over to the FX thread themselves. Callers should
+	 * run one command at a time per router.
+	 * @param command command line
+	 * @param router  router to run it on
+	 * @param output  receives output text
+	 * @return handle for cancellation and completion
+	 */
+	public BackgroundTask executeCommandAsync(String command, Router router, Consumer<String> output) {
+		CommandOutput streamed = new CommandOutput() {
+			@Override
+			public void print(String text) {
+				output.accept(text);
+			}
+
+			@Override
+			public void println(String text) {
+				output.accept(text + System.lineSeparator());
+			}
+		};
+		CliSession session = new CliSession(executor, new CommandExecutionContext(router, topology, streamed));
+		String name = "cli-" + router.getName();
+		if (!parser.isReadOnly(command)) {
+			return BackgroundTask.runOnCallingThread(name, () -> session.execute(command));
+		}
+		return BackgroundTask.start(name, () -> session.execute(command));
+	}
+
 	public List<String> getCompletions(String input, Router router) {
 		RouterCommandCompleter completer = new RouterCommandCompleter(router);
 		List<Candidate> candidates = new ArrayList<>();
@@ -0,0 +1,42 @@
+package org.uj.routingemulator.gui.services;
+
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.traffic.TrafficEngine;
+import org.uj.routingemulator.common.traffic.TrafficFlow;
+import org.uj.routingemulator.common.traffic.TrafficReport;
+import org.uj.routingemulator.common.traffic.TrafficReports;
+
+import java.util.List;
+import java.util.Optional;
+
+public class TrafficApplicationService {
+	private final NetworkTopology topology;
+
+	public TrafficApplicationService(NetworkTopology topology) {
+		this.topology = topology;
+	}
+
+	/**
+	 * Routes a random host-to-host traffic matrix and publishes the result for the CLI as well.
+	 * @param flows   number of flows
+	 * @param rateBps rate of every flow
+	 * @return resulting load, empty if the topology has fewer than two addressed hosts
+	 */
+	public Optional<TrafficReport> generate(int flows, long rateBps) {
+		List<TrafficFlow> matrix = TrafficFlow.randomHostPairs(topology, flows, rateBps, System.nanoTime());
+		if (matrix.isEmpty()) {
+			return Optional.empty();
+		}
+		TrafficReport report = new TrafficEngine().route(topology, matrix);
+		TrafficReports.publish(topology, report);
+		return Optional.of(report);
+	}
+
+	public Optional<TrafficReport> latest() {
+		return TrafficReports.latest(topology);
+	}
+
+	public void clear() {
+		TrafficReports.clear(topology);
+	}
+}
@@ -6,6 +6,8 @@ import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.MacAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.topology.IndexAllocator;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 
 /**
@@ -17,6 +19,8 @@ import org.uj.routingemulator.common.topology.NetworkInterface;
 @Getter
 @Setter
 public class HostInterface implements NetworkInterface {
+	private final int index = IndexAllocator.nextInterfaceIndex();
+	private final InterfaceCounters.Slot counterSlot = new InterfaceCounters.Slot();
 	private String interfaceName;
 	private InterfaceAddress interfaceAddress;
 	private MacAddress macAddress;
@@ -57,6 +61,22 @@ public class HostInterface implements NetworkInterface {
 		return interfaceAddress != null ? interfaceAddress.getSubnet() : null;
 	}
 
+	/**
+	 * Gets the packet, byte and drop counters of this interface.
+	 *
+	 * @return the current counter values
+	 */
+	public InterfaceCounters.Snapshot getCounters() {
+		return InterfaceCounters.global().get(this);
+	}
+
+	/**
+	 * Resets the counters of this interface to zero.
+	 */
+	public void clearCounters() {
+		InterfaceCounters.global().clear(this);
+	}
+
 	/**
 	 * Sets the subnet by converting to interface address.
 	 *
@@ -0,0 +1,50 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.Optional;
+
+/**
+ * Resets interface counters to zero.
+ * <p>
+ * Usage: {@code clear interfaces counters [<interface>]}. Without an interface name, the
+ * counters of every interface of the router are cleared.
+ */
+public class ClearInterfacesCountersCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("clear interfaces counters [<interface>]");
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: clear [interfaces]");
+			}
+
+			String[] parts = args.get("rawInput").split("\\s+");
+			if (parts.length > 4) {
+				return new CommandFailure("Invalid option: " + parts[4]);
+			}
+			if (parts.length == 4) {
+				RouterInterface iface = context.router().getInterface(parts[3]);
+				if (iface == null) {
+					return new CommandFailure("Interface %s does not exist on this router".formatted(parts[3]));
+				}
+				iface.clearCounters();
+			} else {
+				context.router().getInterfaces().forEach(RouterInterface::clearCounters);
+			}
+			return new CommandSuccess("");
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Reset interface packet and byte counters";
+	}
+}
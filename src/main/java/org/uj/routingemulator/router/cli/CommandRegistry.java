@@ -16,10 +16,19 @@ public class CommandRegistry {
 		registry.register(new ShowIpRouteCommand());
 		registry.register(new ShowConfigurationCommand());
 		registry.register(new ShowInterfacesCommand());
+		registry.register(new ShowInterfacesCountersCommand());
+		registry.register(new ClearInterfacesCountersCommand());
+		registry.register(new ShowTopologyCommand());
+		registry.register(new ShowTrafficCommand());
 		registry.register(new PingCommand());
+		registry.register(new TracerouteCommand());
+		registry.register(new GenerateTrafficCommand());
+		registry.register(new MonitorCommand());
 
 		registry.register(new ConfigureCommand());
 		registry.register(new CommitCommand());
+		registry.register(new CompareCommand());
+		registry.register(new RollbackCommand());
 		registry.register(new ExitCommand());
 		registry.register(new ForceExitCommand());
 
@@ -62,6 +71,30 @@ public class CommandRegistry {
 		return new ArrayList<>(commandsByPath.values());
 	}
 
+	/**
+	 * @param input command line
+	 * @return true if the line resolves to exactly one {@linkplain RouterCommand#isReadOnly() read-only} command
+	 */
+	public boolean isReadOnly(String input) {
+		if (input == null || input.trim().isEmpty()) {
+			return false;
+		}
+		List<RouterCommand> matches = new ArrayList<>();
+		for (RouterCommand command : commandsByPath.values()) {
+			if (command.parse(input).isPresent()) {
+				matches.add(command);
+			}
+		}
+		if (matches.isEmpty()) {
+			for (RouterCommand command : commandsByPath.values()) {
+				if (command.getSyntax().matchesPrefix(input)) {
+					matches.add(command);
+				}
+			}
+		}
+		return matches.size() == 1 && matches.get(0).isReadOnly();
+	}
+
 	public ParsedCommand resolve(String input) {
 		if (input == null || input.trim().isEmpty()) {
 			return null;
@@ -25,11 +25,17 @@ public class CommandSyntax {
 
 		String[] inputTokens = input.trim().split("\\s+");
 
-		if (elements.stream().anyMatch(e -> e.startsWith("["))) {
-			if (inputTokens[0].equals(elements.get(0))) {
-				return Optional.of(Map.of("rawInput", input.trim()));
+		if (hasOptionalElements()) {
+			List<String> head = literalHead();
+			if (inputTokens.length < head.size()) {
+				return Optional.empty();
 			}
-			return Optional.empty();
+			for (int i = 0; i < head.size(); i++) {
+				if (!head.get(i).equals(inputTokens[i])) {
+					return Optional.empty();
+				}
+			}
+			return Optional.of(Map.of("rawInput", input.trim()));
 		}
 
 		if (inputTokens.length != elements.size()) {
@@ -58,8 +64,15 @@ public class CommandSyntax {
 		}
 		String[] inputTokens = input.trim().split("\\s+");
 
-		if (elements.stream().anyMatch(e -> e.startsWith("["))) {
-			return elements.get(0).startsWith(inputTokens[0]);
+		if (hasOptionalElements()) {
+			List<String> head = literalHead();
+			for (int i = 0; i < Math.min(inputTokens.length, head.size()); i++) {
+				boolean last = i == inputTokens.length - 1;
+				if (last ? !head.get(i).startsWith(inputTokens[i]) : !head.get(i).equals(inputTokens[i])) {
+					return false;
+				}
+			}
+			return true;
 		}
 
 		if (inputTokens.length > elements.size()) {
@@ -86,4 +99,20 @@ public class CommandSyntax {
 		}
 		return true;
 	}
-}
\ No newline at end of file
+
+	private boolean hasOptionalElements() {
+		return elements.stream().anyMatch(e -> e.startsWith("["));
+	}
+
+	/**
+	 * Returns the fixed keywords preceding the first optional or placeholder element.
+	 * Patterns with optional elements are matched on this head only; the command parses the rest.
+	 */
+	private List<String> literalHead() {
+		int i = 0;
+		while (i < elements.size() && !elements.get(i).startsWith("[") && !elements.get(i).startsWith("<")) {
+			i++;
+		}
+		return elements.subList(0, i);
+	}
+}
@@ -1,6 +1,7 @@
 package org.uj.routingemulator.router.cli;
 
 import org.uj.routingemulator.router.exceptions.NoChangesToCommitException;
+import org.uj.routingemulator.router.session.ConfigDiff;
 
 import java.util.Optional;
 
@@ -16,8 +17,8 @@ public class CommitCommand implements RouterCommand {
 	public Optional<ParsedCommand> parse(String command) {
 		return SYNTAX.parseFully(command).map(args -> context -> {
 			try {
-				context.router().getConfigSession().commit();
-				return new CommandSuccess("[edit]");
+				ConfigDiff diff = context.router().getConfigSession().prepareCommit().publish(context.topology());
+				return new CommandSuccess(diff.isEmpty() ? "[edit]" : diff.format() + "\n[edit]");
 			} catch (NoChangesToCommitException e) {
 				return new CommandFailure("No configuration changes to commit\n[edit]");
 			}
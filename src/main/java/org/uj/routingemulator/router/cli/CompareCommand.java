@@ -0,0 +1,55 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.router.session.ConfigDiff;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Shows how the candidate configuration differs from the running one or, with a revision
+ * number, from an archived configuration.
+ * <p>
+ * Usage: {@code compare [<revision>]}.
+ */
+public class CompareCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("compare [<revision>]");
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			String[] parts = args.get("rawInput").split("\\s+");
+			if (parts.length > 2) {
+				return new CommandFailure("Invalid option: " + parts[2]);
+			}
+			ConfigDiff diff;
+			if (parts.length == 1) {
+				diff = context.router().getConfigSession().compare();
+			} else {
+				OptionalInt revision = RollbackCommand.parseRevision(parts[1]);
+				if (revision.isEmpty()) {
+					return new CommandFailure("Invalid revision number: " + parts[1]);
+				}
+				diff = context.router().getConfigSession().compare(revision.getAsInt());
+			}
+			if (diff.isEmpty()) {
+				return new CommandSuccess("No changes between working and %s configurations.\n[edit]".formatted(parts.length == 1 ? "active" : "revision " + parts[1]));
+			}
+			return new CommandSuccess(diff.format() + "\n[edit]");
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Compare candidate with running or archived configuration";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
@@ -0,0 +1,98 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.traffic.TrafficEngine;
+import org.uj.routingemulator.common.traffic.TrafficFlow;
+import org.uj.routingemulator.common.traffic.TrafficFormatter;
+import org.uj.routingemulator.common.traffic.TrafficReport;
+import org.uj.routingemulator.common.traffic.TrafficReports;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loads the lab with a synthetic traffic matrix between random host pairs and routes it.
+ * <p>
+ * Usage: {@code generate traffic <flows> [rate <bps>] [seed <n>]}. The result is kept
+ * for {@code show traffic}.
+ */
+public class GenerateTrafficCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("generate traffic <flows> [rate <bps>] [seed <n>]");
+	private static final long DEFAULT_RATE_BPS = 1_000_000L;
+	private static final int MAX_FLOWS = 10_000_000;
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: generate [traffic]");
+			}
+			if (context.topology() == null) {
+				return new CommandFailure("generate traffic: no network topology available");
+			}
+
+			String[] parts = args.get("rawInput").split("\\s+");
+			if (parts.length < 3) {
+				return new CommandFailure("Invalid command: generate traffic requires a flow count");
+			}
+			int flows;
+			long rate = DEFAULT_RATE_BPS;
+			long seed = 0;
+			try {
+				flows = Integer.parseInt(parts[2]);
+			} catch (NumberFormatException e) {
+				return new CommandFailure("Invalid flow count");
+			}
+			if (flows < 1 || flows > MAX_FLOWS) {
+				return new CommandFailure("Invalid flow count");
+			}
+
+			int i = 3;
+			while (i < parts.length) {
+				String p = parts[i];
+				if ((p.equals("rate") || p.equals("seed")) && i + 1 < parts.length) {
+					long value;
+					try {
+						value = Long.parseLong(parts[++i]);
+					} catch (NumberFormatException e) {
+						return new CommandFailure("Invalid %s value".formatted(p));
+					}
+					if (p.equals("rate")) {
+						if (value < 0) return new CommandFailure("Invalid rate value");
+						rate = value;
+					} else {
+						seed = value;
+					}
+				} else {
+					return new CommandFailure("Invalid option: " + p);
+				}
+				i++;
+			}
+
+			List<TrafficFlow> matrix = TrafficFlow.randomHostPairs(context.topology(), flows, rate, seed);
+			if (matrix.isEmpty()) {
+				return new CommandFailure("generate traffic: the topology needs at least two hosts with addresses");
+			}
+			TrafficReport report = new TrafficEngine().route(context.topology(), matrix);
+			TrafficReports.publish(context.topology(), report);
+			return new CommandSuccess("Routed %d flows over %d paths: offered %s, delivered %s, dropped %s\n".formatted(
+					report.flowCount(), report.pathCount(), TrafficFormatter.rate(report.offeredBps()),
+					TrafficFormatter.rate(report.deliveredBps()), TrafficFormatter.rate(report.droppedBps())));
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Route a synthetic traffic matrix between random hosts";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
@@ -0,0 +1,69 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.metrics.MetricsFormatter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.Optional;
+
+/**
+ * Shows the emulator's recent activity from the global metrics registry: per-second
+ * rates with a sparkline of each counter, and cache hit rates.
+ * <p>
+ * Usage: {@code monitor [<prefix>] [seconds <n>]}, e.g. {@code monitor forwarding.reason}.
+ */
+public class MonitorCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("monitor [<prefix>] [seconds <n>]");
+	private static final int DEFAULT_SECONDS = 60;
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: monitor");
+			}
+
+			String[] parts = args.get("rawInput").split("\\s+");
+			String prefix = "";
+			int seconds = DEFAULT_SECONDS;
+			int i = 1;
+			while (i < parts.length) {
+				String p = parts[i];
+				if (p.equals("seconds")) {
+					if (i + 1 >= parts.length) {
+						return new CommandFailure("Invalid command: seconds requires a value");
+					}
+					try {
+						seconds = Integer.parseInt(parts[++i]);
+					} catch (NumberFormatException e) {
+						return new CommandFailure("Invalid seconds value");
+					}
+					if (seconds < 1 || seconds > MetricsRegistry.DEFAULT_HISTORY_SECONDS) {
+						return new CommandFailure("Invalid seconds value (1-%d)".formatted(MetricsRegistry.DEFAULT_HISTORY_SECONDS));
+					}
+				} else if (prefix.isEmpty()) {
+					prefix = p;
+				} else {
+					return new CommandFailure("Invalid option: " + p);
+				}
+				i++;
+			}
+			return new CommandSuccess(MetricsFormatter.format(MetricsRegistry.global(), prefix, seconds));
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Display per-second activity of the emulator (forwarding, commits, caches)";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
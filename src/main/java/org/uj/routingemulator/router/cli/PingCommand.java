@@ -1,17 +1,30 @@
 package org.uj.routingemulator.router.cli;
 
 import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.ping.PingFormatter;
 import org.uj.routingemulator.common.ping.PingService;
 import org.uj.routingemulator.common.ping.PingStatistics;
+import org.uj.routingemulator.common.ping.PingSweep;
+import org.uj.routingemulator.common.ping.PingSweepResult;
+import org.uj.routingemulator.common.ping.PingSweepService;
+import org.uj.routingemulator.common.ping.SimulatedPingService;
+import org.uj.routingemulator.common.results.ResultDiff;
+import org.uj.routingemulator.common.results.ResultStore;
+import org.uj.routingemulator.common.results.ResultTable;
 import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.router.model.RouterMode;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 
 public class PingCommand implements RouterCommand {
-    private static final CommandSyntax SYNTAX = new CommandSyntax("ping [-c <count>] [-t <ttl>] <ip>");
+    private static final CommandSyntax SYNTAX = new CommandSyntax("ping [-c <count>] [-t <ttl>] [-S] <ip>");
     private static final String PING_ERROR = "ping: %s: System error";
     private static final Pattern MASK_PATTERN = Pattern.compile(".*/\\d{1,2}$");
 
@@ -30,7 +43,13 @@ public class PingCommand implements RouterCommand {
 
     @Override
     public String getDescription() {
-        return "Send ICMP Echo Requests to an IPv4 address";
+        return "Send ICMP Echo Requests to an IPv4 address (-S for simulated link timing), or to every address of a prefix with 'ping sweep' [-S] "
+                + "(-w <file> saves the results, -d <file> compares them with a saved sweep)";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
     }
 
     private record Invocation(String rawInput) implements ParsedCommand {
@@ -41,11 +60,15 @@ public class PingCommand implements RouterCommand {
             }
 
             String[] parts = rawInput.split("\\s+");
-            int count = 4;
+            boolean sweep = parts.length > 1 && "sweep".equals(parts[1]);
+            int count = sweep ? 1 : 4;
             int ttl = 64;
+            boolean simulated = false;
             String ipArg = null;
+            String saveFile = null;
+            String diffFile = null;
 
-            int i = 1;
+            int i = sweep ? 2 : 1;
             while (i < parts.length) {
                 String p = parts[i];
                 if ("-c".equals(p) && i + 1 < parts.length) {
@@ -60,6 +83,12 @@ public class PingCommand implements RouterCommand {
                     } catch (NumberFormatException e) {
                         return new CommandFailure("Invalid ttl value");
                     }
+                } else if ("-S".equals(p)) {
+                    simulated = true;
+                } else if ("-w".equals(p) && sweep && i + 1 < parts.length) {
+                    saveFile = parts[++i];
+                } else if ("-d".equals(p) && sweep && i + 1 < parts.length) {
+                    diffFile = parts[++i];
                 } else if (p.startsWith("-")) {
                     return new CommandFailure("Invalid option: " + p);
                 } else {
@@ -68,6 +97,7 @@ public class PingCommand implements RouterCommand {
                 i++;
             }
 
+            if (sweep) return executeSweep(context, ipArg, count, ttl, simulated, saveFile, diffFile);
             if (ipArg == null) return new CommandFailure("Invalid command: ping requires target IP");
             if (MASK_PATTERN.matcher(ipArg).matches()) return new CommandFailure(String.format(PING_ERROR, ipArg));
             if (!ipArg.matches("\\d{1,3}(\\.\\d{1,3}){3}")) return new CommandFailure(String.format(PING_ERROR, ipArg));
@@ -79,7 +109,8 @@ public class PingCommand implements RouterCommand {
                 return new CommandFailure(String.format(PING_ERROR, ipArg));
             }
 
-            PingService svc = new PingService();
+            // -S times probes with the packet-level simulation of the topology's link profiles
+            PingService svc = simulated ? new SimulatedPingService() : new PingService();
             NetworkTopology topology = context.topology();
             if (topology == null) return new CommandFailure("ping: no network topology available");
 
@@ -97,5 +128,72 @@ public class PingCommand implements RouterCommand {
             String outText = PingFormatter.format(dst, srcIp, ttl, stats);
             return new CommandSuccess(outText);
         }
+
+        private static CommandResult executeSweep(CommandExecutionContext context, String prefixArg, int count, int ttl,
+                                                  boolean simulated, String saveFile, String diffFile) {
+            if (prefixArg == null) return new CommandFailure("Invalid command: ping sweep requires target prefix");
+            Subnet target;
+            try {
+                target = Subnet.fromString(prefixArg);
+            } catch (RuntimeException e) {
+                return new CommandFailure(String.format(PING_ERROR, prefixArg));
+            }
+            NetworkTopology topology = context.topology();
+            if (topology == null) return new CommandFailure("ping: no network topology available");
+
+            List<PingSweepResult> results = new ArrayList<>();
+            PingSweep sweep;
+            try {
+                PingService svc = simulated ? new SimulatedPingService() : new PingService();
+                sweep = new PingSweepService(svc, PingSweepService.DEFAULT_MAX_IN_FLIGHT).sweep(context.router(), target, count, ttl, topology, results::add);
+            } catch (IllegalArgumentException e) {
+                return new CommandFailure("ping: " + e.getMessage());
+            }
+            try {
+                sweep.completion().get();
+            } catch (InterruptedException e) {
+                // Interrupted by the caller: stop probing and report what completed
+                sweep.cancel();
+                sweep.completion().join();
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | RuntimeException e) {
+                return new CommandFailure("ping: sweep failed: " + e.getMessage());
+            }
+            String outText = PingFormatter.formatSweep(sweep, results);
+            if (saveFile == null && diffFile == null) return new CommandSuccess(outText);
+
+            // Rows are keyed by the router's first address so runs stay comparable when routes change
+            IPAddress src = new IPAddress(0, 0, 0, 0);
+            for (var ri : context.router().getInterfaces()) {
+                if (ri.getInterfaceAddress() != null) {
+                    src = ri.getInterfaceAddress().ipAddress();
+                    break;
+                }
+            }
+            ResultTable table = new ResultTable(results.size());
+            for (PingSweepResult result : results) {
+                table.add(src, result);
+            }
+            StringBuilder sb = new StringBuilder(outText);
+            if (diffFile != null) {
+                ResultDiff diff;
+                try {
+                    diff = ResultDiff.compare(ResultStore.map(Path.of(diffFile)), table);
+                } catch (IOException | RuntimeException e) {
+                    return new CommandFailure("ping: cannot read sweep results from %s: %s".formatted(diffFile, e.getMessage()));
+                }
+                sb.append(String.format("%n--- changes since %s: %s ---%n", diffFile, diff.summary()));
+                diff.changes().forEach(change -> sb.append(change).append(System.lineSeparator()));
+            }
+            if (saveFile != null) {
+                try {
+                    ResultStore.write(table, Path.of(saveFile));
+                } catch (IOException | RuntimeException e) {
+                    return new CommandFailure("ping: cannot save sweep results to %s: %s".formatted(saveFile, e.getMessage()));
+                }
+                sb.append(String.format("Results saved to %s%n", saveFile));
+            }
+            return new CommandSuccess(sb.toString());
+        }
     }
-}
\ No newline at end of file
+}
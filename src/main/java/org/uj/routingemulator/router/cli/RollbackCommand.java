@@ -0,0 +1,55 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.router.exceptions.NoChangesToCommitException;
+import org.uj.routingemulator.router.session.ConfigDiff;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Restores an archived configuration and commits it.
+ * <p>
+ * Usage: {@code rollback <revision>}, where revision 1 is the configuration before the
+ * last commit.
+ */
+public class RollbackCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("rollback <revision>");
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			OptionalInt revision = parseRevision(args.get("revision"));
+			if (revision.isEmpty()) {
+				return new CommandFailure("Invalid revision number: " + args.get("revision"));
+			}
+			try {
+				ConfigDiff diff = context.router().getConfigSession().prepareRollback(revision.getAsInt()).publish(context.topology());
+				return new CommandSuccess(diff.format() + "\n[edit]");
+			} catch (NoChangesToCommitException e) {
+				return new CommandFailure("Revision %d matches the running configuration\n[edit]".formatted(revision.getAsInt()));
+			}
+		});
+	}
+
+	/**
+	 * @return the revision number, or empty if the text is not a non-negative number
+	 */
+	static OptionalInt parseRevision(String text) {
+		try {
+			int revision = Integer.parseInt(text);
+			return revision >= 0 ? OptionalInt.of(revision) : OptionalInt.empty();
+		} catch (NumberFormatException e) {
+			return OptionalInt.empty();
+		}
+	}
+
+	@Override
+	public String getDescription() {
+		return "Roll back to an archived configuration and commit it";
+	}
+}
@@ -14,6 +14,10 @@ public class RouterCLIParser {
 		return registry.getCommands();
 	}
 
+	public boolean isReadOnly(String input) {
+		return registry.isReadOnly(input);
+	}
+
 	public ParsedCommand parse(String input) {
 		return registry.resolve(input);
 	}
@@ -7,4 +7,12 @@ public interface RouterCommand {
 
 	Optional<ParsedCommand> parse(String command);
 	String getDescription();
+
+	/**
+	 * @return true if the command only reads router state, so it may run off the JavaFX
+	 * application thread; commands changing router state run on it
+	 */
+	default boolean isReadOnly() {
+		return false;
+	}
 }
\ No newline at end of file
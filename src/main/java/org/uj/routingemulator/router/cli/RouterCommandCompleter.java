@@ -124,12 +124,17 @@ public class RouterCommandCompleter implements Completer {
 		if (words.length <= 1) {
 			addCandidateIfMatches(candidates, "configure", "Enter configuration mode", currentWord);
 			addCandidateIfMatches(candidates, "show", "Show information", currentWord);
+			addCandidateIfMatches(candidates, "clear", "Reset counters", currentWord);
+			addCandidateIfMatches(candidates, "monitor", "Show recent emulator activity", currentWord);
+			addCandidateIfMatches(candidates, "traceroute", "Trace the route to a destination", currentWord);
 		} else if (words[0].equalsIgnoreCase("show")) {
 			// 'show' commands
 			if (words.length == 2) {
 				addCandidateIfMatches(candidates, "ip", "Show IP information", currentWord);
 				addCandidateIfMatches(candidates, INTERFACES, "Show interface information", currentWord);
 				addCandidateIfMatches(candidates, "configuration", "Show configuration", currentWord);
+				addCandidateIfMatches(candidates, "topology", "Show network topology", currentWord);
+				addCandidateIfMatches(candidates, "traffic", "Show traffic matrix load", currentWord);
 			}
 		} else if (words.length == 3 && words[1].equalsIgnoreCase("ip")) {
 			addCandidateIfMatches(candidates, ROUTE, "Show IP routing table", currentWord);
@@ -142,6 +147,8 @@ public class RouterCommandCompleter implements Completer {
 			addCandidateIfMatches(candidates, DELETE, "Remove configuration", currentWord);
 			addCandidateIfMatches(candidates, "show", "Show current configuration", currentWord);
 			addCandidateIfMatches(candidates, "commit", "Apply configuration changes", currentWord);
+			addCandidateIfMatches(candidates, "compare", "Compare candidate with running or archived configuration", currentWord);
+			addCandidateIfMatches(candidates, "rollback", "Roll back to an archived configuration", currentWord);
 			addCandidateIfMatches(candidates, "exit", "Exit configuration mode", currentWord);
 		} else if (words[0].equalsIgnoreCase("set") || words[0].equalsIgnoreCase(DELETE)) {
 			completeSetDeleteCommand(words, currentWord, candidates);
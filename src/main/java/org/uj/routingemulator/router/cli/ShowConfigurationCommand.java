@@ -21,7 +21,7 @@ public class ShowConfigurationCommand implements RouterCommand {
 
 			Router router = context.router();
 			Router committedRouter = new Router(router.getName(), router.getInterfaces());
-			committedRouter.getRoutingTable().getRoutingEntries().addAll(router.getRoutingTable().getRoutingEntries());
+			router.getRoutingTable().getRoutingEntries().forEach(committedRouter.getRoutingTable()::addRoute);
 
 			String output = generator.generateConfiguration(committedRouter);
 
@@ -37,4 +37,9 @@ public class ShowConfigurationCommand implements RouterCommand {
 	public String getDescription() {
 		return "Display the current configuration";
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -46,4 +46,9 @@ public class ShowInterfacesCommand implements RouterCommand {
 	public String getDescription() {
 		return "Display information about interfaces";
 	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.Optional;
+
+/**
+ * Shows the packet, byte and drop counters of every interface.
+ * <p>
+ * Usage: {@code show interfaces counters}. Counters are updated by the forwarding engine
+ * and reset with {@code clear interfaces counters}.
+ */
+public class ShowInterfacesCountersCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("show interfaces counters");
+	private static final String HEADER = "%-16s %12s %14s %10s %12s %14s %10s%n";
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: show [interfaces]");
+			}
+
+			StringBuilder output = new StringBuilder();
+			output.append(String.format(HEADER, "Interface", "Rx Packets", "Rx Bytes", "Rx Drops", "Tx Packets", "Tx Bytes", "Tx Drops"));
+			output.append(String.format(HEADER, "---------", "----------", "--------", "--------", "----------", "--------", "--------"));
+
+			for (RouterInterface iface : context.router().getInterfaces()) {
+				InterfaceCounters.Snapshot counters = iface.getCounters();
+				output.append(String.format(HEADER, iface.getInterfaceName(),
+						counters.rxPackets(), counters.rxBytes(), counters.rxDrops(),
+						counters.txPackets(), counters.txBytes(), counters.txDrops()));
+			}
+
+			return new CommandSuccess(output.toString());
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Display interface packet and byte counters";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
@@ -1,11 +1,27 @@
 package org.uj.routingemulator.router.cli;
 
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.router.model.IpRouteQuery;
 import org.uj.routingemulator.router.model.RoutingTablePresenter;
 
+import java.io.IOException;
 import java.util.Optional;
 
+/**
+ * Shows the IP routing table in numeric prefix order.
+ * <p>
+ * Usage: {@code show ip route [<prefix> [longer-prefixes] | <address>] [page <n>] [page-size <n>]}.
+ * A prefix shows the routes for that prefix, or with {@code longer-prefixes} every route
+ * inside it; an address shows the routes used to reach it. Output is paged only when
+ * {@code page} or {@code page-size} is given.
+ * <p>
+ * {@code show ip route summary [all]} shows the route counts of the router, or with
+ * {@code all} of every router in the topology.
+ */
 public class ShowIpRouteCommand implements RouterCommand {
-	private static final CommandSyntax SYNTAX = new CommandSyntax("show ip route");
+	private static final CommandSyntax SYNTAX = new CommandSyntax("show ip route [summary [all]|<prefix>|<address>] [longer-prefixes] [page <n>] [page-size <n>]");
+	private static final int DEFAULT_PAGE_SIZE = 50;
 
 	@Override
 	public CommandSyntax getSyntax() {
@@ -15,13 +31,103 @@ public class ShowIpRouteCommand implements RouterCommand {
 	@Override
 	public Optional<ParsedCommand> parse(String command) {
 		return SYNTAX.parseFully(command).map(args -> context -> {
-			String output = RoutingTablePresenter.showIpRoute(context.router());
-			return new CommandSuccess(output);
+			String[] parts = args.get("rawInput").split("\\s+");
+			if (parts.length > 3 && parts[3].equals("summary")) {
+				return showSummary(context, parts);
+			}
+			IpRouteQuery query = IpRouteQuery.all();
+			String target = null;
+			boolean longerPrefixes = false;
+			Integer page = null;
+			Integer pageSize = null;
+
+			int i = 3;
+			while (i < parts.length) {
+				String p = parts[i];
+				switch (p) {
+					case "longer-prefixes" -> longerPrefixes = true;
+					case "page", "page-size" -> {
+						if (i + 1 >= parts.length) {
+							return new CommandFailure("Invalid command: %s requires a value".formatted(p));
+						}
+						int number;
+						try {
+							number = Integer.parseInt(parts[++i]);
+						} catch (NumberFormatException e) {
+							return new CommandFailure("Invalid %s value".formatted(p));
+						}
+						if (number < 1) {
+							return new CommandFailure("Invalid %s value".formatted(p));
+						}
+						if (p.equals("page")) {
+							page = number;
+						} else {
+							pageSize = number;
+						}
+					}
+					default -> {
+						if (target != null) {
+							return new CommandFailure("Invalid option: " + p);
+						}
+						target = p;
+					}
+				}
+				i++;
+			}
+
+			if (target != null && target.contains("/")) {
+				try {
+					query = query.withPrefix(Subnet.fromString(target), longerPrefixes);
+				} catch (RuntimeException e) {
+					return new CommandFailure("Invalid prefix: " + target);
+				}
+			} else if (longerPrefixes) {
+				return new CommandFailure("Invalid command: longer-prefixes requires a prefix");
+			} else if (target != null) {
+				try {
+					query = query.withAddress(IPAddress.fromString(target));
+				} catch (RuntimeException e) {
+					return new CommandFailure("Invalid address: " + target);
+				}
+			}
+			if (page != null || pageSize != null) {
+				query = query.page(page != null ? page : 1, pageSize != null ? pageSize : DEFAULT_PAGE_SIZE);
+			}
+
+			StringBuilder output = new StringBuilder();
+			try {
+				RoutingTablePresenter.showIpRoute(context.router(), query, output);
+			} catch (IOException e) {
+				return new CommandFailure("show ip route: " + e.getMessage());
+			}
+			return new CommandSuccess(output.toString());
 		});
 	}
 
+	private static CommandResult showSummary(CommandExecutionContext context, String[] parts) {
+		boolean all = parts.length == 5 && parts[4].equals("all");
+		if (parts.length > 5 || (parts.length == 5 && !all)) {
+			return new CommandFailure("Invalid option: " + parts[parts.length - 1]);
+		}
+		if (all && context.topology() == null) {
+			return new CommandFailure("show ip route summary: no network topology available");
+		}
+		StringBuilder output = new StringBuilder();
+		try {
+			RoutingTablePresenter.showIpRouteSummary(context.router(), all ? context.topology() : null, output);
+		} catch (IOException e) {
+			return new CommandFailure("show ip route: " + e.getMessage());
+		}
+		return new CommandSuccess(output.toString());
+	}
+
 	@Override
 	public String getDescription() {
 		return "Display IP routing table";
 	}
-}
\ No newline at end of file
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
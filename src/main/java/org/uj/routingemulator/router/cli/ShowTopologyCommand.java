@@ -0,0 +1,100 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.topology.NetworkTopologyVisualizer;
+import org.uj.routingemulator.common.topology.TopologyViewOptions;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterMode;
+import org.uj.routingemulator.switching.Switch;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Shows a window of the network topology.
+ * <p>
+ * Usage: {@code show topology [hosts|switches|routers] [prefix <name>] [page <n>] [page-size <n>]}.
+ * Output is paged by default so large labs stay readable.
+ */
+public class ShowTopologyCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("show topology [hosts|switches|routers] [prefix <name>] [page <n>] [page-size <n>]");
+	private static final int DEFAULT_PAGE_SIZE = 50;
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: show [topology]");
+			}
+			if (context.topology() == null) {
+				return new CommandFailure("show topology: no network topology available");
+			}
+
+			String[] parts = args.get("rawInput").split("\\s+");
+			TopologyViewOptions options = TopologyViewOptions.all();
+			int page = 1;
+			int pageSize = DEFAULT_PAGE_SIZE;
+
+			int i = 2;
+			while (i < parts.length) {
+				String p = parts[i];
+				switch (p) {
+					case "hosts" -> options = options.withDeviceType(Host.class);
+					case "switches" -> options = options.withDeviceType(Switch.class);
+					case "routers" -> options = options.withDeviceType(Router.class);
+					case "prefix", "page", "page-size" -> {
+						if (i + 1 >= parts.length) {
+							return new CommandFailure("Invalid command: %s requires a value".formatted(p));
+						}
+						String value = parts[++i];
+						if (p.equals("prefix")) {
+							options = options.withNamePrefix(value);
+						} else {
+							int number;
+							try {
+								number = Integer.parseInt(value);
+							} catch (NumberFormatException e) {
+								return new CommandFailure("Invalid %s value".formatted(p));
+							}
+							if (number < 1) {
+								return new CommandFailure("Invalid %s value".formatted(p));
+							}
+							if (p.equals("page")) {
+								page = number;
+							} else {
+								pageSize = number;
+							}
+						}
+					}
+					default -> {
+						return new CommandFailure("Invalid option: " + p);
+					}
+				}
+				i++;
+			}
+
+			StringBuilder output = new StringBuilder();
+			try {
+				NetworkTopologyVisualizer.visualize(context.topology(), output, options.page(page, pageSize));
+			} catch (IOException e) {
+				return new CommandFailure("show topology: " + e.getMessage());
+			}
+			return new CommandSuccess(output.toString());
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Display a page of the network topology";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
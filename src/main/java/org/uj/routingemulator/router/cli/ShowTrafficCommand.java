@@ -0,0 +1,100 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.traffic.TrafficFormatter;
+import org.uj.routingemulator.common.traffic.TrafficReport;
+import org.uj.routingemulator.common.traffic.TrafficReports;
+import org.uj.routingemulator.common.traffic.TrafficSortKey;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Shows the busiest links or router interfaces of the last generated traffic matrix.
+ * <p>
+ * Usage: {@code show traffic [hot-links|interfaces] [sort load|tx|rx|name] [limit <n>]}.
+ */
+public class ShowTrafficCommand implements RouterCommand {
+	private static final CommandSyntax SYNTAX = new CommandSyntax("show traffic [hot-links|interfaces] [sort <key>] [limit <n>]");
+	private static final int DEFAULT_LIMIT = 20;
+
+	@Override
+	public CommandSyntax getSyntax() {
+		return SYNTAX;
+	}
+
+	@Override
+	public Optional<ParsedCommand> parse(String command) {
+		return SYNTAX.parseFully(command).map(args -> context -> {
+			if (context.router().getMode() != RouterMode.OPERATIONAL) {
+				return new CommandFailure("Invalid command: show [traffic]");
+			}
+			if (context.topology() == null) {
+				return new CommandFailure("show traffic: no network topology available");
+			}
+
+			String[] parts = args.get("rawInput").split("\\s+");
+			boolean interfaces = false;
+			TrafficSortKey order = TrafficSortKey.LOAD;
+			int limit = DEFAULT_LIMIT;
+
+			int i = 2;
+			while (i < parts.length) {
+				String p = parts[i];
+				switch (p) {
+					case "hot-links" -> interfaces = false;
+					case "interfaces" -> interfaces = true;
+					case "sort", "limit" -> {
+						if (i + 1 >= parts.length) {
+							return new CommandFailure("Invalid command: %s requires a value".formatted(p));
+						}
+						String value = parts[++i];
+						if (p.equals("sort")) {
+							try {
+								order = TrafficSortKey.valueOf(value.toUpperCase(Locale.ROOT));
+							} catch (IllegalArgumentException e) {
+								return new CommandFailure("Invalid sort key: %s (expected load, tx, rx or name)".formatted(value));
+							}
+						} else {
+							try {
+								limit = Integer.parseInt(value);
+							} catch (NumberFormatException e) {
+								return new CommandFailure("Invalid limit value");
+							}
+							if (limit < 1) {
+								return new CommandFailure("Invalid limit value");
+							}
+						}
+					}
+					default -> {
+						return new CommandFailure("Invalid option: " + p);
+					}
+				}
+				i++;
+			}
+
+			Optional<TrafficReport> latest = TrafficReports.latest(context.topology());
+			if (latest.isEmpty()) {
+				return new CommandSuccess("No traffic matrix loaded. Use 'generate traffic <flows>' first.\n");
+			}
+			TrafficReport report = latest.get();
+			String output = interfaces
+					? TrafficFormatter.formatInterfaces(report, report.hotInterfaces(order, limit))
+					: TrafficFormatter.formatLinks(report, report.hotLinks(order, limit));
+			if (report.topologyVersion() != context.topology().version()) {
+				output = "Warning: topology changed since the traffic matrix was routed\n" + output;
+			}
+			return new CommandSuccess(output);
+		});
+	}
+
+	@Override
+	public String getDescription() {
+		return "Display the busiest links or interfaces of the traffic matrix";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+}
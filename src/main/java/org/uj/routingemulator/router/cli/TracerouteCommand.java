@@ -0,0 +1,85 @@
+package org.uj.routingemulator.router.cli;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.ping.TracerouteFormatter;
+import org.uj.routingemulator.common.ping.TracerouteResult;
+import org.uj.routingemulator.common.ping.TracerouteService;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.Optional;
+
+public class TracerouteCommand implements RouterCommand {
+    private static final CommandSyntax SYNTAX = new CommandSyntax("traceroute [-m <max-hops>] <ip>");
+    private static final String TRACEROUTE_ERROR = "traceroute: %s: Name or service not known";
+
+    @Override
+    public CommandSyntax getSyntax() {
+        return SYNTAX;
+    }
+
+    @Override
+    public Optional<ParsedCommand> parse(String input) {
+        if (input == null) return Optional.empty();
+        String t = input.trim();
+        if (!t.equals("traceroute") && !t.startsWith("traceroute ")) return Optional.empty();
+        return Optional.of(new Invocation(t));
+    }
+
+    @Override
+    public String getDescription() {
+        return "Trace the route packets take to an IPv4 address";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    private record Invocation(String rawInput) implements ParsedCommand {
+        @Override
+        public CommandResult execute(CommandExecutionContext context) {
+            if (context.router().getMode() != RouterMode.OPERATIONAL) {
+                return new CommandFailure("Invalid command: traceroute");
+            }
+
+            String[] parts = rawInput.split("\\s+");
+            int maxHops = TracerouteService.DEFAULT_MAX_HOPS;
+            String ipArg = null;
+
+            int i = 1;
+            while (i < parts.length) {
+                String p = parts[i];
+                if ("-m".equals(p) && i + 1 < parts.length) {
+                    try {
+                        maxHops = Integer.parseInt(parts[++i]);
+                    } catch (NumberFormatException e) {
+                        return new CommandFailure("Invalid max-hops value");
+                    }
+                    if (maxHops <= 0 || maxHops > 255) return new CommandFailure("Invalid max-hops value");
+                } else if (p.startsWith("-")) {
+                    return new CommandFailure("Invalid option: " + p);
+                } else {
+                    ipArg = p;
+                }
+                i++;
+            }
+
+            if (ipArg == null) return new CommandFailure("Invalid command: traceroute requires target IP");
+            if (!ipArg.matches("\\d{1,3}(\\.\\d{1,3}){3}")) return new CommandFailure(String.format(TRACEROUTE_ERROR, ipArg));
+
+            IPAddress dst;
+            try {
+                dst = IPAddress.fromString(ipArg);
+            } catch (RuntimeException e) {
+                return new CommandFailure(String.format(TRACEROUTE_ERROR, ipArg));
+            }
+
+            NetworkTopology topology = context.topology();
+            if (topology == null) return new CommandFailure("traceroute: no network topology available");
+
+            TracerouteResult result = new TracerouteService().trace(context.router(), dst, maxHops, topology);
+            return new CommandSuccess(TracerouteFormatter.format(result));
+        }
+    }
+}
@@ -5,8 +5,10 @@ import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.addressing.SubnetMask;
 import org.uj.routingemulator.router.model.*;
+import org.uj.routingemulator.router.session.ConfigChange;
 import org.uj.routingemulator.router.session.RouterConfigurationService;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class CommandConfigurationParser implements ConfigurationParser {
@@ -14,13 +16,15 @@ public class CommandConfigurationParser implements ConfigurationParser {
 	private List<Token> tokens;
 	private int position;
 	private final RouterConfigurationService service = new RouterConfigurationService();
+	/** Route lines, staged together once the whole configuration is parsed. */
+	private final List<ConfigChange> routeChanges = new ArrayList<>();
 
 	private void disableNextHopRoute(Router router, StaticRoutingEntry subnet) {
-		service.disableRoute(router, subnet);
+		routeChanges.add(new ConfigChange.DisableRoute(subnet));
 	}
 
 	private void addNextHopRoute(Router router, StaticRoutingEntry subnet) {
-		service.addRoute(router, subnet);
+		routeChanges.add(new ConfigChange.AddRoute(subnet));
 	}
 
 	@Override
@@ -28,6 +32,7 @@ public class CommandConfigurationParser implements ConfigurationParser {
 		ConfigurationTokenizer tokenizer = new ConfigurationTokenizer();
 		this.tokens = tokenizer.tokenize(config);
 		this.position = 0;
+		this.routeChanges.clear();
 		RouterMode originalMode = router.getMode();
 		RouterModeController.setModeForced(router, RouterMode.CONFIGURATION);
 		try {
@@ -35,6 +40,7 @@ public class CommandConfigurationParser implements ConfigurationParser {
 			while (position < tokens.size()) {
 				parseCommand(router);
 			}
+			service.applyChanges(router, routeChanges);
 			router.getConfigSession().commit();
 		} catch (RuntimeException e) {
 			router.getConfigSession().discard();
@@ -4,13 +4,15 @@ import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.addressing.SubnetMask;
-import org.uj.routingemulator.router.exceptions.RouteAlreadyExistsException;
 import org.uj.routingemulator.router.model.*;
+import org.uj.routingemulator.router.session.ConfigChange;
 import org.uj.routingemulator.router.session.RouterConfigurationService;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class HierarchicalConfigurationParser implements ConfigurationParser {
 	private static final String DISABLE_COMMAND = "disable";
@@ -18,16 +20,21 @@ public class HierarchicalConfigurationParser implements ConfigurationParser {
 	private int position;
 
 	private final RouterConfigurationService service = new RouterConfigurationService();
+	/** Route blocks, staged together once the whole configuration is parsed. */
+	private final List<ConfigChange> routeChanges = new ArrayList<>();
+	/**
+	 * Keys of the routes already in {@link #routeChanges}; repeated route blocks are ignored.
+	 * Keys rather than entries, since interface blocks parsed later change the interfaces the
+	 * entries hash through.
+	 */
+	private final Set<RouteKey> stagedRoutes = new HashSet<>();
 
 	private void applyRouteConfiguration(Router router, String nextHop, Subnet subnet, int distance, String interfaceName, boolean disabled) {
-		if (addRoute(router, nextHop, subnet, distance, interfaceName)) return;
+		StaticRoutingEntry entry = createRoute(router, nextHop, subnet, distance, interfaceName);
+		if (entry == null || !stagedRoutes.add(RouteKey.of(entry))) return;
+		routeChanges.add(new ConfigChange.AddRoute(entry));
 		if (disabled) {
-			for (StaticRoutingEntry entry : router.getConfigSession().getStagedRoutingTable().getRoutingEntries()) {
-				if (entry.getSubnet().equals(subnet)) {
-					disableRoute(router, entry);
-					return;
-				}
-			}
+			routeChanges.add(new ConfigChange.DisableRoute(entry));
 		}
 	}
 
@@ -43,41 +50,18 @@ public class HierarchicalConfigurationParser implements ConfigurationParser {
 		return result;
 	}
 
-	private boolean addRoute(Router router, String nextHop, Subnet subnet, int distance, String interfaceName) {
+	private StaticRoutingEntry createRoute(Router router, String nextHop, Subnet subnet, int distance, String interfaceName) {
 		if (nextHop != null) {
-			return addNextHopRoute(router, nextHop, subnet, distance);
+			return new StaticRoutingEntry(subnet, IPAddress.fromString(nextHop), distance);
 		} else if (interfaceName != null) {
 			RouterInterface iface = router.findFromName(interfaceName);
 			if (iface == null) {
 				throw new ConfigurationParseException(
 						String.format("Interface %s does not exist on this router", interfaceName));
 			}
-			return addInterfaceRoute(router, subnet, iface, distance);
-		}
-		return false;
-	}
-
-	private boolean addInterfaceRoute(Router router, Subnet subnet, RouterInterface iface, int distance) {
-		try {
-			service.addRoute(router, new StaticRoutingEntry(subnet, iface, distance));
-		} catch (RouteAlreadyExistsException e) {
-			return true;
-		}
-		return false;
-	}
-
-	private void disableRoute(Router router, StaticRoutingEntry entry) {
-		service.disableRoute(router, entry);
-	}
-
-	private boolean addNextHopRoute(Router router, String nextHop, Subnet subnet, int distance) {
-		IPAddress nextHopAddress = IPAddress.fromString(nextHop);
-		try {
-			service.addRoute(router, new StaticRoutingEntry(subnet, nextHopAddress, distance));
-		} catch (RouteAlreadyExistsException e) {
-			return true;
+			return new StaticRoutingEntry(subnet, iface, distance);
 		}
-		return false;
+		return null;
 	}
 
 	private void disableInterface(Router router, String interfaceName) {
@@ -100,12 +84,15 @@ public class HierarchicalConfigurationParser implements ConfigurationParser {
 	public void loadConfiguration(Router router, String config) {
 		this.lines = preprocessConfig(config);
 		this.position = 0;
+		this.routeChanges.clear();
+		this.stagedRoutes.clear();
 
 		RouterMode originalMode = router.getMode();
 		RouterModeController.setModeForced(router, RouterMode.CONFIGURATION);
 		try {
 			router.getConfigSession().resetCandidateConfiguration();
 			parseConfiguration(router, new ArrayList<>());
+			service.applyChanges(router, routeChanges);
 			router.getConfigSession().commit();
 		} catch (RuntimeException e) {
 			router.getConfigSession().discard();
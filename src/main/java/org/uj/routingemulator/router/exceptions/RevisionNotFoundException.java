@@ -0,0 +1,29 @@
+package org.uj.routingemulator.router.exceptions;
+
+/**
+ * Exception thrown when a configuration revision is not kept in the commit archive.
+ * <p>
+ * Revisions are numbered from 0, the running configuration; old revisions are dropped
+ * according to the archive retention policy.
+ */
+public class RevisionNotFoundException extends RouterException {
+
+	/**
+	 * Creates a new revision not found exception with the specified message.
+	 *
+	 * @param message the error message
+	 */
+	public RevisionNotFoundException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Creates a new revision not found exception with the specified message and cause.
+	 *
+	 * @param message the error message
+	 * @param cause   underlying cause
+	 */
+	public RevisionNotFoundException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package org.uj.routingemulator.router.model;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+
+/**
+ * Selects the routes shown by {@code show ip route}.
+ * <p>
+ * At most one of {@code prefix} and {@code address} is set. Without either, every route is
+ * shown.
+ *
+ * @param prefix         show routes for this prefix only
+ * @param longerPrefixes with a prefix, also show the routes for longer prefixes inside it
+ * @param address        show the routes used to reach this address
+ * @param offset         number of matching routes to skip
+ * @param limit          maximum number of routes to show
+ */
+public record IpRouteQuery(Subnet prefix, boolean longerPrefixes, IPAddress address, int offset, int limit) {
+	private static final IpRouteQuery ALL = new IpRouteQuery(null, false, null, 0, Integer.MAX_VALUE);
+
+	/**
+	 * @return a query showing every route
+	 */
+	public static IpRouteQuery all() {
+		return ALL;
+	}
+
+	public IpRouteQuery withPrefix(Subnet prefix, boolean longerPrefixes) {
+		return new IpRouteQuery(prefix, longerPrefixes, null, offset, limit);
+	}
+
+	public IpRouteQuery withAddress(IPAddress address) {
+		return new IpRouteQuery(null, false, address, offset, limit);
+	}
+
+	/**
+	 * Creates a query for a 1-based page of the given size.
+	 *
+	 * @param page     page number, starting at 1
+	 * @param pageSize number of routes per page
+	 * @return query selecting that page
+	 */
+	public IpRouteQuery page(int page, int pageSize) {
+		if (page < 1 || pageSize < 1) {
+			throw new IllegalArgumentException("Page number and size must be at least 1");
+		}
+		return new IpRouteQuery(prefix, longerPrefixes, address, Math.multiplyExact(page - 1, pageSize), pageSize);
+	}
+
+	/**
+	 * @return true if only a window of the matching routes is shown
+	 */
+	public boolean isPaged() {
+		return offset > 0 || limit != Integer.MAX_VALUE;
+	}
+}
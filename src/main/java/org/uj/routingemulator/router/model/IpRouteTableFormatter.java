@@ -1,12 +1,38 @@
 package org.uj.routingemulator.router.model;
 
+import org.uj.routingemulator.common.addressing.Subnet;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Responsible for formatting the routing table into a VyOS-style text display.
+ * <p>
+ * Routes are listed in numeric prefix order. Static routes are read from the routing
+ * table's {@link PrefixTrie}, so prefix and address filters walk only the matching part of
+ * the trie, and output is written incrementally: a page stops the walk once it is full.
+ * Connected routes, one per interface, are merged into the walk.
  */
 public class IpRouteTableFormatter {
+	private static final String CODES = """
+			Codes: K - kernel route, C - connected, S - static, R - RIP,
+			       O - OSPF, I - IS-IS, B - BGP, E - EIGRP, N - NHRP,
+			       T - Table, v - VNC, V - VNC-Direct, A - Babel, F - PBR,
+			       f - OpenFabric,
+			       > - selected route, * - FIB route, q - queued, r - rejected, b - backup
+			       t - trapped, o - offload failure
+
+			""";
+	private static final String NOT_IN_TABLE = "% Network not in table\n";
+
+	/** Numeric prefix order, the order of {@link PrefixTrie} walks. */
+	private static final Comparator<RouteDisplayEntry> PREFIX_ORDER = Comparator
+			.comparing((RouteDisplayEntry e) -> e.subnet().networkAddress().toInt(), Integer::compareUnsigned)
+			.thenComparingInt(e -> e.subnet().subnetMask().shortMask());
 
 	private IpRouteTableFormatter() {
 	}
@@ -16,38 +42,156 @@ public class IpRouteTableFormatter {
 	 */
 	public static String format(Router router) {
 		StringBuilder output = new StringBuilder();
+		try {
+			format(router, IpRouteQuery.all(), output);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return output.toString();
+	}
 
-		output.append("Codes: K - kernel route, C - connected, S - static, R - RIP,\n");
-		output.append("       O - OSPF, I - IS-IS, B - BGP, E - EIGRP, N - NHRP,\n");
-		output.append("       T - Table, v - VNC, V - VNC-Direct, A - Babel, F - PBR,\n");
-		output.append("       f - OpenFabric,\n");
-		output.append("       > - selected route, * - FIB route, q - queued, r - rejected, b - backup\n");
-		output.append("       t - trapped, o - offload failure\n\n");
+	/**
+	 * Writes the routes selected by a query.
+	 *
+	 * @param router router whose routes are shown
+	 * @param query  routes to show
+	 * @param out    destination of the output
+	 * @throws IOException if writing fails
+	 */
+	public static void format(Router router, IpRouteQuery query, Appendable out) throws IOException {
+		PrefixTrie<StaticRoutingEntry> trie = router.getRoutingTable().getPrefixTrie();
+		if (query.address() != null) {
+			formatLookup(router, query, trie, out);
+			return;
+		}
 
-		List<RouteDisplayEntry> displayEntries = getRouteDisplayEntries(router);
+		Subnet prefix = query.prefix();
+		int length = prefix != null ? prefix.subnetMask().shortMask() : 0;
+		int network = prefix != null ? prefix.networkAddress().toInt() & mask(length) : 0;
+		boolean longer = prefix == null || query.longerPrefixes();
+		Predicate<Subnet> selected = subnet -> {
+			int subnetLength = subnet.subnetMask().shortMask();
+			return longer
+					? subnetLength >= length && (subnet.networkAddress().toInt() & mask(length)) == network
+					: subnetLength == length && subnet.networkAddress().toInt() == network;
+		};
 
-		for (RouteDisplayEntry entry : displayEntries) {
-			if (entry.isDisabled()) {
-				continue;
+		if (longer) {
+			out.append(CODES);
+		}
+		Page page = new Page(out, query, longer ? null : "Routing entry for " + prefix + "\n");
+		Iterator<RouteDisplayEntry> connected = connectedRoutes(router, selected).iterator();
+		RouteDisplayEntry[] nextConnected = {connected.hasNext() ? connected.next() : null};
+		trie.walk(network, length, longer, entry -> {
+			if (entry.isDisabled()) return true;
+			RouteDisplayEntry route = staticRoute(entry);
+			while (nextConnected[0] != null && PREFIX_ORDER.compare(nextConnected[0], route) <= 0) {
+				if (!page.write(nextConnected[0])) return false;
+				nextConnected[0] = connected.hasNext() ? connected.next() : null;
 			}
+			return page.write(route);
+		});
+		while (nextConnected[0] != null && page.write(nextConnected[0])) {
+			nextConnected[0] = connected.hasNext() ? connected.next() : null;
+		}
+		page.finish(longer);
+	}
 
-			parseRouteFormatting(entry, output);
+	/**
+	 * Writes the routes for the longest prefix containing the queried address.
+	 */
+	private static void formatLookup(Router router, IpRouteQuery query, PrefixTrie<StaticRoutingEntry> trie, Appendable out) throws IOException {
+		int address = query.address().toInt();
+		List<RouteDisplayEntry> routes = new ArrayList<>();
+		int bestLength = -1;
+		for (RouteDisplayEntry entry : connectedRoutes(router, subnet -> subnet.contains(query.address()))) {
+			int length = entry.subnet().subnetMask().shortMask();
+			if (length > bestLength) {
+				routes.clear();
+				bestLength = length;
+			}
+			if (length == bestLength) routes.add(entry);
 		}
-		return output.toString();
+		List<StaticRoutingEntry> matches = trie.longestMatch(address, entry -> !entry.isDisabled());
+		if (!matches.isEmpty()) {
+			int length = matches.getFirst().getSubnet().subnetMask().shortMask();
+			if (length > bestLength) {
+				routes.clear();
+				bestLength = length;
+			}
+			if (length == bestLength) matches.forEach(entry -> routes.add(staticRoute(entry)));
+		}
+		if (routes.isEmpty()) {
+			out.append(NOT_IN_TABLE);
+			return;
+		}
+		Page page = new Page(out, query, "Routing entry for " + routes.getFirst().subnet() + "\n");
+		for (RouteDisplayEntry route : routes) {
+			if (!page.write(route)) break;
+		}
+		page.finish(false);
+	}
+
+	/**
+	 * Writes route counts as shown by {@code show ip route summary}. Summaries of several
+	 * routers start with the number of routers.
+	 *
+	 * @param summary counts to show
+	 * @param out     destination of the output
+	 * @throws IOException if writing fails
+	 */
+	public static void formatSummary(RouteSummary summary, Appendable out) throws IOException {
+		if (summary.routers() != 1) {
+			out.append("%-20s %d\n".formatted("Routers", summary.routers()));
+		}
+		out.append("%-20s %-20s %s\n".formatted("Route Source", "Routes", "FIB  (vrf default)"));
+		out.append("%-20s %-20d %d\n".formatted("connected", summary.connectedRoutes(), summary.connectedFibRoutes()));
+		out.append("%-20s %-20d %d\n".formatted("static", summary.staticRoutes(), summary.staticFibRoutes()));
+		out.append("------\n");
+		out.append("%-20s %-20d %d\n".formatted("Totals", summary.totalRoutes(), summary.totalFibRoutes()));
+		out.append("\n");
+		out.append("%-20s %d\n".formatted("Disabled", summary.disabledRoutes()));
+		out.append("%-20s %s\n".formatted("Prefix Length", "FIB"));
+		for (int length = 0; length <= 32; length++) {
+			if (summary.fibRoutes(length) > 0) {
+				out.append("%-20s %d\n".formatted("/" + length, summary.fibRoutes(length)));
+			}
+		}
+		out.append("%-20s %d bytes (estimated)\n".formatted("FIB memory", summary.fibMemoryBytes()));
+	}
+
+	private static List<RouteDisplayEntry> connectedRoutes(Router router, Predicate<Subnet> selected) {
+		List<RouteDisplayEntry> displayEntries = new ArrayList<>();
+		for (RouterInterface iface : router.getInterfaces()) {
+			Subnet subnet = iface.getSubnet();
+			if (subnet != null && iface.getStatus() != null && iface.getStatus().admin() == AdminState.UP && selected.test(subnet)) {
+				displayEntries.add(new RouteDisplayEntry(
+						"C", subnet, null, iface.getInterfaceName(), 0, false, true));
+			}
+		}
+		displayEntries.sort(PREFIX_ORDER);
+		return displayEntries;
 	}
 
-	private static void parseRouteFormatting(RouteDisplayEntry entry, StringBuilder output) {
+	private static RouteDisplayEntry staticRoute(StaticRoutingEntry entry) {
+		return new RouteDisplayEntry(
+				"S", entry.getSubnet(), entry.getNextHop(),
+				entry.getRouterInterface() != null ? entry.getRouterInterface().getInterfaceName() : null,
+				entry.getAdministrativeDistance(), entry.isDisabled(), false);
+	}
+
+	private static void formatRoute(RouteDisplayEntry entry, Appendable output) throws IOException {
 		String prefix = entry.isConnected() ? "C>*" : "S>*";
 		output.append(prefix).append(" ");
-		output.append(entry.subnet().networkAddress()).append("/");
-		output.append(entry.subnet().subnetMask().shortMask());
+		output.append(entry.subnet().networkAddress().toString()).append("/");
+		output.append(String.valueOf(entry.subnet().subnetMask().shortMask()));
 
 		if (entry.isConnected()) {
 			output.append(" is directly connected, ").append(entry.interfaceName());
 		} else {
-			output.append(" [").append(entry.distance()).append("]");
+			output.append(" [").append(String.valueOf(entry.distance())).append("]");
 			if (entry.nextHop() != null) {
-				output.append(" via ").append(entry.nextHop());
+				output.append(" via ").append(entry.nextHop().toString());
 				if (entry.interfaceName() != null) {
 					output.append(", ").append(entry.interfaceName());
 				}
@@ -58,34 +202,72 @@ public class IpRouteTableFormatter {
 		output.append("\n");
 	}
 
-	private static List<RouteDisplayEntry> getRouteDisplayEntries(Router router) {
-		List<RouteDisplayEntry> displayEntries = new ArrayList<>();
+	private static int mask(int prefixLength) {
+		return prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+	}
 
-		for (RouterInterface iface : router.getInterfaces()) {
-			if (iface.getSubnet() != null && iface.getStatus() != null && iface.getStatus().admin() == AdminState.UP) {
-				displayEntries.add(new RouteDisplayEntry(
-						"C", iface.getSubnet(), null, iface.getInterfaceName(), 0, false, true));
-			}
-		}
+	/**
+	 * Writes the routes that fall inside the queried window and tells the walk when to stop.
+	 */
+	private static final class Page {
+		private final Appendable out;
+		private final IpRouteQuery query;
+		private final long end;
+		/** Written before the first route, or null. */
+		private String header;
+		private long position;
+		private boolean more;
+		private IOException failure;
 
-		for (StaticRoutingEntry entry : router.getRoutingTable().getRoutingEntries()) {
-			displayEntries.add(new RouteDisplayEntry(
-					"S", entry.getSubnet(), entry.getNextHop(),
-					entry.getRouterInterface() != null ? entry.getRouterInterface().getInterfaceName() : null,
-					entry.getAdministrativeDistance(), entry.isDisabled(), false));
+		Page(Appendable out, IpRouteQuery query, String header) {
+			this.out = out;
+			this.query = query;
+			this.header = header;
+			this.end = (long) query.offset() + query.limit();
 		}
 
-		displayEntries.sort((a, b) -> {
-			int addrCompare = a.subnet().networkAddress().toString()
-					.compareTo(b.subnet().networkAddress().toString());
-			if (addrCompare != 0) return addrCompare;
-
-			return Integer.compare(
-					b.subnet().subnetMask().shortMask(),
-					a.subnet().subnetMask().shortMask()
-			);
-		});
+		/**
+		 * Advances past one matching route, writing it if it is inside the window.
+		 * @return false once the window is full and the walk can stop
+		 */
+		boolean write(RouteDisplayEntry route) {
+			if (position >= end) {
+				more = true;
+				return false;
+			}
+			if (position++ < query.offset()) {
+				return true;
+			}
+			try {
+				if (header != null) {
+					out.append(header);
+					header = null;
+				}
+				formatRoute(route, out);
+				return true;
+			} catch (IOException e) {
+				failure = e;
+				return false;
+			}
+		}
 
-		return displayEntries;
+		void finish(boolean listing) throws IOException {
+			if (failure != null) {
+				throw failure;
+			}
+			if (position == 0 && !listing) {
+				out.append(NOT_IN_TABLE);
+				return;
+			}
+			if (!query.isPaged()) return;
+			if (position <= query.offset()) {
+				out.append("No routes in range (%d matching)\n".formatted(position));
+			} else if (more) {
+				long page = query.offset() / query.limit() + 2;
+				out.append("Showing routes %d-%d, more on page %d\n".formatted(query.offset() + 1, position, page));
+			} else {
+				out.append("Showing routes %d-%d of %d\n".formatted(query.offset() + 1, position, position));
+			}
+		}
 	}
-}
\ No newline at end of file
+}
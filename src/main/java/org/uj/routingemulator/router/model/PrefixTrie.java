@@ -0,0 +1,132 @@
+package org.uj.routingemulator.router.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Binary trie of IPv4 prefixes, one level per prefix bit.
+ * <p>
+ * Walks visit prefixes in numeric order: by network address compared as an unsigned
+ * number, then shorter prefixes before longer ones with the same address. Values stored
+ * under the same prefix are visited in insertion order. Looking up a prefix, the prefixes
+ * inside it or the longest prefix containing an address costs at most 32 steps plus the
+ * size of the result, independent of the number of prefixes stored.
+ *
+ * @param <V> type of the values stored under each prefix
+ */
+public final class PrefixTrie<V> {
+	private static final class Node<V> {
+		private Node<V> zero;
+		private Node<V> one;
+		private List<V> values;
+	}
+
+	private final Node<V> root = new Node<>();
+	private int size;
+
+	/**
+	 * Stores a value under a prefix. Host bits of the network address are ignored.
+	 *
+	 * @param network      network address as returned by {@code IPAddress.toInt()}
+	 * @param prefixLength prefix length, 0 to 32
+	 * @param value        value to store
+	 */
+	public void put(int network, int prefixLength, V value) {
+		Node<V> node = root;
+		for (int bit = 0; bit < prefixLength; bit++) {
+			if (bit(network, bit)) {
+				if (node.one == null) node.one = new Node<>();
+				node = node.one;
+			} else {
+				if (node.zero == null) node.zero = new Node<>();
+				node = node.zero;
+			}
+		}
+		if (node.values == null) {
+			node.values = new ArrayList<>(1);
+		}
+		node.values.add(value);
+		size++;
+	}
+
+	/**
+	 * @return number of values stored
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Visits the values stored under a prefix and, if requested, under every longer
+	 * prefix inside it, in numeric order.
+	 *
+	 * @param network      network address of the prefix
+	 * @param prefixLength prefix length, 0 to 32
+	 * @param longer       whether to visit longer prefixes as well
+	 * @param visitor      receives each value and returns false to stop the walk
+	 * @return false if the visitor stopped the walk
+	 */
+	public boolean walk(int network, int prefixLength, boolean longer, Predicate<V> visitor) {
+		Node<V> node = root;
+		for (int bit = 0; bit < prefixLength && node != null; bit++) {
+			node = bit(network, bit) ? node.one : node.zero;
+		}
+		if (node == null) {
+			return true;
+		}
+		return longer ? walkSubtree(node, visitor) : visitValues(node, visitor);
+	}
+
+	/**
+	 * Visits every value in numeric order.
+	 *
+	 * @param visitor receives each value and returns false to stop the walk
+	 * @return false if the visitor stopped the walk
+	 */
+	public boolean forEach(Predicate<V> visitor) {
+		return walkSubtree(root, visitor);
+	}
+
+	/**
+	 * Finds the longest prefix containing an address that stores at least one accepted value.
+	 *
+	 * @param address address to look up
+	 * @param filter  selects the values taken into account
+	 * @return the accepted values of that prefix, or an empty list if no prefix matches
+	 */
+	public List<V> longestMatch(int address, Predicate<V> filter) {
+		List<V> best = List.of();
+		Node<V> node = root;
+		for (int bit = 0; node != null; bit++) {
+			if (node.values != null) {
+				List<V> accepted = node.values.stream().filter(filter).toList();
+				if (!accepted.isEmpty()) {
+					best = accepted;
+				}
+			}
+			if (bit == 32) break;
+			node = bit(address, bit) ? node.one : node.zero;
+		}
+		return best;
+	}
+
+	private static <V> boolean walkSubtree(Node<V> node, Predicate<V> visitor) {
+		if (!visitValues(node, visitor)) return false;
+		if (node.zero != null && !walkSubtree(node.zero, visitor)) return false;
+		return node.one == null || walkSubtree(node.one, visitor);
+	}
+
+	private static <V> boolean visitValues(Node<V> node, Predicate<V> visitor) {
+		if (node.values != null) {
+			for (V value : node.values) {
+				if (!visitor.test(value)) return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean bit(int address, int bit) {
+		return (address & (1 << (31 - bit))) != 0;
+	}
+}
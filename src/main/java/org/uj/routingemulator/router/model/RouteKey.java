@@ -0,0 +1,39 @@
+package org.uj.routingemulator.router.model;
+
+/**
+ * Compact identity of a static route, used to index the routing table of one router.
+ * <p>
+ * The key holds the destination, the next hop or the name of the exit interface, and the
+ * administrative distance. {@linkplain StaticRoutingEntry#equals Equal} entries always have
+ * equal keys. Entries whose exit interfaces share a name but differ in configuration, such
+ * as a route bound to a staged interface and the same route bound to its running copy,
+ * also have equal keys, since interface names are unique within a router. The key is
+ * built from immutable values only, so it stays valid while the interface is reconfigured.
+ *
+ * @param network       packed network address of the destination
+ * @param prefixLength  prefix length of the destination, -1 if the route has none
+ * @param viaInterface  true for interface routes, false for next-hop routes
+ * @param nextHop       packed next-hop address, 0 for interface routes
+ * @param exitInterface name of the exit interface, or null for next-hop routes and unset interfaces
+ * @param distance      administrative distance
+ */
+public record RouteKey(int network, int prefixLength, boolean viaInterface, int nextHop, String exitInterface, int distance) {
+
+	/**
+	 * @param entry a routing entry
+	 * @return the key of the entry
+	 */
+	public static RouteKey of(StaticRoutingEntry entry) {
+		int network = 0;
+		int prefixLength = -1;
+		if (entry.getSubnet() != null) {
+			network = entry.getSubnet().networkAddress().toInt();
+			prefixLength = entry.getSubnet().subnetMask().shortMask();
+		}
+		if (entry.getNextHop() != null) {
+			return new RouteKey(network, prefixLength, false, entry.getNextHop().toInt(), null, entry.getAdministrativeDistance());
+		}
+		String name = entry.getRouterInterface() != null ? entry.getRouterInterface().getInterfaceName() : null;
+		return new RouteKey(network, prefixLength, true, 0, name, entry.getAdministrativeDistance());
+	}
+}
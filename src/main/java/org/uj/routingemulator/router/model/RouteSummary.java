@@ -0,0 +1,196 @@
+package org.uj.routingemulator.router.model;
+
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+
+/**
+ * Route counts of a routing table, a router or a whole topology, as shown by
+ * {@code show ip route summary}.
+ * <p>
+ * Routing tables and routers keep their counts up to date as routes are added or removed
+ * and interfaces are applied, so reading a summary does not scan the routes. A route is
+ * in the FIB when it is used for forwarding: enabled static routes and connected routes
+ * of administratively up interfaces. Counts by prefix length cover FIB routes only.
+ */
+public final class RouteSummary {
+	/**
+	 * Approximate heap used by one FIB route: the entry, its key, the map node, the list
+	 * slot and its share of the prefix trie.
+	 */
+	static final int ROUTE_BYTES = 160;
+
+	private int routers;
+	private int connectedRoutes;
+	private int connectedFibRoutes;
+	private int staticRoutes;
+	private int staticFibRoutes;
+	private final int[] fibRoutesByPrefixLength = new int[33];
+
+	/**
+	 * Creates an empty summary.
+	 */
+	public RouteSummary() {
+	}
+
+	/**
+	 * Creates a summary holding the same counts as another one.
+	 *
+	 * @param other the summary to copy
+	 */
+	public RouteSummary(RouteSummary other) {
+		add(other);
+	}
+
+	/**
+	 * Sums the summaries of every router of a topology. Routers are read as one
+	 * configuration version, see {@link NetworkTopology#readConfiguration}.
+	 *
+	 * @param topology topology of the routers
+	 * @return the counts of all routers
+	 */
+	public static RouteSummary of(NetworkTopology topology) {
+		return topology.readConfiguration(() -> {
+			RouteSummary total = new RouteSummary();
+			for (Device device : topology.devices()) {
+				if (device instanceof Router router) {
+					total.add(router.getRouteSummary());
+				}
+			}
+			return total;
+		});
+	}
+
+	/**
+	 * Adds the counts of another summary to this one.
+	 *
+	 * @param other the summary to add
+	 * @return this summary
+	 */
+	public RouteSummary add(RouteSummary other) {
+		this.routers += other.routers;
+		this.connectedRoutes += other.connectedRoutes;
+		this.connectedFibRoutes += other.connectedFibRoutes;
+		this.staticRoutes += other.staticRoutes;
+		this.staticFibRoutes += other.staticFibRoutes;
+		for (int length = 0; length < fibRoutesByPrefixLength.length; length++) {
+			this.fibRoutesByPrefixLength[length] += other.fibRoutesByPrefixLength[length];
+		}
+		return this;
+	}
+
+	void countRouter() {
+		this.routers++;
+	}
+
+	/**
+	 * Counts a static route replaced by another one, for summaries derived from a table's
+	 * changes rather than from its routes.
+	 *
+	 * @param removed route no longer in the table, or null
+	 * @param added   route now in the table, or null
+	 * @return this summary
+	 */
+	public RouteSummary replaceStatic(StaticRoutingEntry removed, StaticRoutingEntry added) {
+		if (removed != null) {
+			countStatic(removed, -1);
+		}
+		if (added != null) {
+			countStatic(added, 1);
+		}
+		return this;
+	}
+
+	/**
+	 * Counts a static route in or out.
+	 *
+	 * @param entry the route
+	 * @param delta 1 when the route is added, -1 when it is removed
+	 */
+	void countStatic(StaticRoutingEntry entry, int delta) {
+		this.staticRoutes += delta;
+		if (!entry.isDisabled()) {
+			this.staticFibRoutes += delta;
+			countPrefix(entry.getSubnet(), delta);
+		}
+	}
+
+	/**
+	 * Counts the connected route of an interface in or out. Interfaces without an address
+	 * have none.
+	 *
+	 * @param iface the interface
+	 * @param delta 1 when the interface is added, -1 when it is removed
+	 */
+	void countConnected(RouterInterface iface, int delta) {
+		Subnet subnet = iface.getSubnet();
+		if (subnet == null) {
+			return;
+		}
+		this.connectedRoutes += delta;
+		if (iface.getStatus() != null && iface.getStatus().admin() == AdminState.UP) {
+			this.connectedFibRoutes += delta;
+			countPrefix(subnet, delta);
+		}
+	}
+
+	private void countPrefix(Subnet subnet, int delta) {
+		if (subnet != null) {
+			this.fibRoutesByPrefixLength[subnet.subnetMask().shortMask()] += delta;
+		}
+	}
+
+	/**
+	 * @return number of routers counted
+	 */
+	public int routers() {
+		return routers;
+	}
+
+	public int connectedRoutes() {
+		return connectedRoutes;
+	}
+
+	public int connectedFibRoutes() {
+		return connectedFibRoutes;
+	}
+
+	public int staticRoutes() {
+		return staticRoutes;
+	}
+
+	public int staticFibRoutes() {
+		return staticFibRoutes;
+	}
+
+	public int totalRoutes() {
+		return connectedRoutes + staticRoutes;
+	}
+
+	public int totalFibRoutes() {
+		return connectedFibRoutes + staticFibRoutes;
+	}
+
+	/**
+	 * @return number of routes not in the FIB: disabled static routes and connected routes
+	 * of administratively down interfaces
+	 */
+	public int disabledRoutes() {
+		return totalRoutes() - totalFibRoutes();
+	}
+
+	/**
+	 * @param prefixLength prefix length, 0 to 32
+	 * @return number of FIB routes with that prefix length
+	 */
+	public int fibRoutes(int prefixLength) {
+		return fibRoutesByPrefixLength[prefixLength];
+	}
+
+	/**
+	 * @return estimated heap used by the FIB routes, in bytes
+	 */
+	public long fibMemoryBytes() {
+		return (long) totalFibRoutes() * ROUTE_BYTES;
+	}
+}
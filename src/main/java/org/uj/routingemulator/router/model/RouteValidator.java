@@ -5,7 +5,14 @@ import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.router.exceptions.InvalidAddressException;
 import org.uj.routingemulator.router.exceptions.InvalidSubnetException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 
 /**
@@ -29,46 +36,74 @@ public class RouteValidator {
 	}
 
 	public static void validateNextHop(IPAddress nh, List<RouterInterface> stagedInterfaces) {
-		RouterInterface found = stagedInterfaces.stream()
-				.filter(i -> i.getInterfaceAddress() != null && i.getInterfaceAddress().ipAddress().equals(nh))
-				.findFirst()
-				.orElse(null);
+		NextHopIndex index = new NextHopIndex(stagedInterfaces);
+		logger.info(NEXT_HOP_INTERFACE + nh + (index.isLocal(nh) ? " is a local interface on the router" : " not found on the router"));
+		logger.warning(index.warning(nh));
+	}
+
+	/**
+	 * Addresses and connected networks of a router's interfaces, indexed for checking
+	 * next-hops.
+	 * <p>
+	 * Built once per set of interfaces, it answers each check with a hash lookup per
+	 * distinct prefix length instead of a scan over the interfaces, which matters when
+	 * many routes are validated at once.
+	 */
+	public static final class NextHopIndex {
+		private final Map<IPAddress, InterfaceAddress> localAddresses = new HashMap<>();
+		/** Connected network addresses by prefix length, longest prefix first. */
+		private final NavigableMap<Integer, Set<Integer>> networks = new TreeMap<>(Comparator.reverseOrder());
 
-		if (found != null) {
-			String nhFormatted = found.getInterfaceAddress().toString();
-			String msg = String.format("Next-hop interface %s is a local interface on the router%nPackets routed through this route will not be forwarded%nEnsure this action is deliberate", nhFormatted);
-			logger.info(NEXT_HOP_INTERFACE + nh + " is a local interface on the router");
-			logger.warning(msg);
-		} else {
-			Integer inferredMask = findNextHopFromStagedInterfaces(nh, stagedInterfaces);
-			if (inferredMask != null) {
-				String nhFormatted = nh + "/" + inferredMask;
-				String msg = String.format("Next-hop interface %s not found on the router%nPackets routed through this interface will be dropped%nEnsure this action is deliberate", nhFormatted);
-				logger.info(NEXT_HOP_INTERFACE + nh + " not found on the router");
-				logger.warning(msg);
-			} else {
-				String msg = String.format("Next-hop interface %s is not a directly connected neighbor interface%nThis may be fine if configuration is not yet complete%nPackets routed through this route will be dropped until the next-hop is reachable%nEnsure this action is deliberate", nh);
-				logger.info(NEXT_HOP_INTERFACE + nh + " not found on the router");
-				logger.warning(msg);
+		public NextHopIndex(List<RouterInterface> interfaces) {
+			for (RouterInterface ri : interfaces) {
+				InterfaceAddress address = ri.getInterfaceAddress();
+				if (address == null) {
+					continue;
+				}
+				localAddresses.putIfAbsent(address.ipAddress(), address);
+				int prefix = address.subnetMask().shortMask();
+				networks.computeIfAbsent(prefix, p -> new HashSet<>()).add(address.ipAddress().toInt() & mask(prefix));
 			}
 		}
-	}
 
-	private static Integer findNextHopFromStagedInterfaces(IPAddress nh, List<RouterInterface> stagedInterfaces) {
-		for (RouterInterface ri : stagedInterfaces) {
-			if (ri.getSubnet() != null && ri.getSubnet().subnetMask() != null) {
-				Subnet s = ri.getSubnet();
-				long ipAsLong = ((long) nh.octet1() << 24) | ((long) nh.octet2() << 16) | ((long) nh.octet3() << 8) | nh.octet4();
-				int prefix = s.subnetMask().shortMask();
-				long networkMask = (prefix == 0) ? 0 : (0xFFFFFFFFL << (32 - prefix));
-				long net = ((long) s.networkAddress().octet1() << 24) | ((long) s.networkAddress().octet2() << 16) | ((long) s.networkAddress().octet3() << 8) | s.networkAddress().octet4();
+		/**
+		 * @return whether the address is assigned to one of the interfaces
+		 */
+		public boolean isLocal(IPAddress nh) {
+			return localAddresses.containsKey(nh);
+		}
 
-				if ((ipAsLong & networkMask) == (net & networkMask)) {
-					return prefix;
+		/**
+		 * Describes what happens to packets routed through a next-hop.
+		 *
+		 * @param nh next-hop address
+		 * @return the warning shown when a route through the next-hop is added
+		 */
+		public String warning(IPAddress nh) {
+			InterfaceAddress local = localAddresses.get(nh);
+			if (local != null) {
+				return String.format("Next-hop interface %s is a local interface on the router%nPackets routed through this route will not be forwarded%nEnsure this action is deliberate", local);
+			}
+			Integer connectedPrefix = connectedPrefix(nh);
+			if (connectedPrefix != null) {
+				return String.format("Next-hop interface %s/%d not found on the router%nPackets routed through this interface will be dropped%nEnsure this action is deliberate", nh, connectedPrefix);
+			}
+			return String.format("Next-hop interface %s is not a directly connected neighbor interface%nThis may be fine if configuration is not yet complete%nPackets routed through this route will be dropped until the next-hop is reachable%nEnsure this action is deliberate", nh);
+		}
+
+		private Integer connectedPrefix(IPAddress nh) {
+			int ip = nh.toInt();
+			for (Map.Entry<Integer, Set<Integer>> entry : networks.entrySet()) {
+				if (entry.getValue().contains(ip & mask(entry.getKey()))) {
+					return entry.getKey();
 				}
 			}
+			return null;
+		}
+
+		private static int mask(int prefix) {
+			return prefix == 0 ? 0 : -1 << (32 - prefix);
 		}
-		return null;
 	}
 
 	public static void validateInterfaceAddress(InterfaceAddress interfaceAddress, String routerInterfaceName) {
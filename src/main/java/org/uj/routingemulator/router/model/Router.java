@@ -1,5 +1,6 @@
 package org.uj.routingemulator.router.model;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import org.uj.routingemulator.common.topology.Device;
@@ -7,13 +8,11 @@ import org.uj.routingemulator.common.topology.DeviceId;
 import org.uj.routingemulator.router.session.ConfigurationSession;
 import org.uj.routingemulator.router.session.RouterConfiguration;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.logging.Logger;
 
 @Getter
-@EqualsAndHashCode(exclude = {"configSession"})
+@EqualsAndHashCode(exclude = {"configSession", "interfacesByName", "connectedRoutes"})
 public class Router implements Device {
 	private static final Logger logger = Logger.getLogger(Router.class.getName());
 
@@ -21,8 +20,14 @@ public class Router implements Device {
 	private String name;
 	private RoutingTable routingTable;
 	private List<RouterInterface> interfaces;
+	@Getter(AccessLevel.NONE)
+	private final Map<String, RouterInterface> interfacesByName = new HashMap<>();
+	/** Counts of the connected routes of the running interfaces, kept up to date as they are applied. */
+	@Getter(AccessLevel.NONE)
+	private RouteSummary connectedRoutes;
 	private RouterMode mode;
-	private final ConfigurationSession configSession;
+	@Getter(AccessLevel.NONE)
+	private ConfigurationSession configSession;
 
 	public Router(String name) {
 		this.name = name;
@@ -30,9 +35,8 @@ public class Router implements Device {
 		this.interfaces = new ArrayList<>();
 		this.interfaces.add(new RouterInterface("eth0"));
 		this.interfaces.add(new RouterInterface("lo"));
+		reindexInterfaces();
 		this.mode = RouterMode.OPERATIONAL;
-		this.configSession = new ConfigurationSession(this);
-		this.configSession.discard();
 		logger.fine("Creating new router %s with default configuration".formatted(name));
 	}
 
@@ -40,9 +44,8 @@ public class Router implements Device {
 		this.name = name;
 		this.routingTable = new RoutingTable();
 		this.interfaces = new ArrayList<>(interfaces);
+		reindexInterfaces();
 		this.mode = RouterMode.OPERATIONAL;
-		this.configSession = new ConfigurationSession(this);
-		this.configSession.discard();
 		logger.fine("Creating new router %s with custom interfaces: %s".formatted(name, interfaces));
 	}
 
@@ -69,29 +72,84 @@ public class Router implements Device {
 	}
 
 	public void applyConfiguration(RouterConfiguration configuration) {
+		Set<String> configured = new HashSet<>();
 		for (RouterInterface newIf : configuration.interfaces()) {
-			RouterInterface existing = this.interfaces.stream()
-					.filter(i -> i.getInterfaceName().equals(newIf.getInterfaceName()))
-					.findFirst()
-					.orElse(null);
-			if (existing != null) {
-				existing.setInterfaceAddress(newIf.getInterfaceAddress());
-				existing.setMacAddress(newIf.getMacAddress());
-				existing.setDescription(newIf.getDescription());
-				existing.setVrf(newIf.getVrf());
-				existing.setMtu(newIf.getMtu());
-				existing.setStatus(newIf.getStatus());
-			} else {
-				this.interfaces.add(newIf);
-			}
+			configured.add(newIf.getInterfaceName());
+			applyInterface(interfacesByName.get(newIf.getInterfaceName()), newIf);
+		}
+		if (this.interfaces.removeIf(existing -> !configured.contains(existing.getInterfaceName()))) {
+			reindexInterfaces();
 		}
-		this.interfaces.removeIf(existing -> configuration.interfaces().stream()
-				.noneMatch(newIf -> newIf.getInterfaceName().equals(existing.getInterfaceName())));
 		this.routingTable = configuration.routingTable();
 	}
 
+	/**
+	 * Copies the configuration of an interface onto the running interface with the same name,
+	 * or adds the interface if there is none.
+	 *
+	 * @param configured interface holding the new configuration
+	 * @return the running interface
+	 */
+	public RouterInterface applyInterface(RouterInterface configured) {
+		return applyInterface(interfacesByName.get(configured.getInterfaceName()), configured);
+	}
+
+	private RouterInterface applyInterface(RouterInterface existing, RouterInterface configured) {
+		if (existing == null) {
+			this.interfaces.add(configured);
+			this.interfacesByName.putIfAbsent(configured.getInterfaceName(), configured);
+			this.connectedRoutes.countConnected(configured, 1);
+			return configured;
+		}
+		this.connectedRoutes.countConnected(existing, -1);
+		existing.setInterfaceAddress(configured.getInterfaceAddress());
+		existing.setMacAddress(configured.getMacAddress());
+		existing.setDescription(configured.getDescription());
+		existing.setVrf(configured.getVrf());
+		existing.setMtu(configured.getMtu());
+		existing.setStatus(configured.getStatus());
+		this.connectedRoutes.countConnected(existing, 1);
+		return existing;
+	}
+
+	/**
+	 * Replaces the running routing table. Used by commits that apply deltas, which build the
+	 * new table from the current one instead of from a full candidate configuration.
+	 *
+	 * @param routingTable new running routing table
+	 */
+	public void setRoutingTable(RoutingTable routingTable) {
+		this.routingTable = routingTable;
+	}
+
+	/**
+	 * Gets the counts of the running routes: the static routes of the running table and the
+	 * connected routes of the running interfaces. The counts are kept up to date by commits,
+	 * so this does not scan the routes.
+	 *
+	 * @return the route counts of this router
+	 */
+	public RouteSummary getRouteSummary() {
+		RouteSummary summary = this.routingTable.getSummary().add(this.connectedRoutes);
+		summary.countRouter();
+		return summary;
+	}
+
+	/**
+	 * Gets the configuration session, creating it on first use. Routers that are never
+	 * configured through the CLI do not need one.
+	 *
+	 * @return the configuration session of this router
+	 */
+	public ConfigurationSession getConfigSession() {
+		if (configSession == null) {
+			configSession = new ConfigurationSession(this);
+		}
+		return configSession;
+	}
+
 	public boolean hasUncommittedChanges() {
-		return configSession.hasUncommittedChanges();
+		return configSession != null && configSession.hasUncommittedChanges();
 	}
 
 	public void reset() {
@@ -99,16 +157,50 @@ public class Router implements Device {
 		this.interfaces = new ArrayList<>();
 		this.interfaces.add(new RouterInterface("eth0"));
 		this.interfaces.add(new RouterInterface("lo"));
+		reindexInterfaces();
 		this.mode = RouterMode.OPERATIONAL;
-		this.configSession.discard();
+		if (this.configSession != null) {
+			this.configSession.discard();
+		}
 	}
 
+	/**
+	 * Finds an interface by name, in the candidate configuration while in configuration
+	 * mode and in the running configuration otherwise.
+	 *
+	 * @param interfaceName interface name
+	 * @return the interface, or null if there is none
+	 */
 	public RouterInterface findFromName(String interfaceName) {
-		List<RouterInterface> interfaceList = (mode == RouterMode.CONFIGURATION) ? configSession.getStagedInterfaces() : interfaces;
-		return interfaceList.stream()
-				.filter(intf -> intf.getInterfaceName().equals(interfaceName))
-				.findFirst()
-				.orElse(null);
+		if (mode == RouterMode.CONFIGURATION) {
+			return getConfigSession().getStagedInterface(interfaceName);
+		}
+		return interfacesByName.get(interfaceName);
+	}
+
+	/**
+	 * Finds a running interface by name, whatever the mode.
+	 *
+	 * @param interfaceName interface name
+	 * @return the interface, or null if there is none
+	 */
+	public RouterInterface getInterface(String interfaceName) {
+		return interfacesByName.get(interfaceName);
+	}
+
+	/**
+	 * Rebuilds the name index and the connected route counts after the interface list was
+	 * replaced. Interface names are not expected to change while an interface belongs to a
+	 * router.
+	 */
+	private void reindexInterfaces() {
+		this.interfacesByName.clear();
+		RouteSummary connected = new RouteSummary();
+		for (RouterInterface iface : this.interfaces) {
+			this.interfacesByName.putIfAbsent(iface.getInterfaceName(), iface);
+			connected.countConnected(iface, 1);
+		}
+		this.connectedRoutes = connected;
 	}
 
 	@Override
@@ -7,6 +7,8 @@ import lombok.ToString;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.MacAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.topology.IndexAllocator;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.router.exceptions.InterfaceAlreadyDisabledException;
@@ -37,14 +39,21 @@ import java.util.logging.Logger;
  * The interface status combines administrative state (controlled by configuration)
  * and link state (physical layer status). Both must be UP for the interface
  * to be operational.
+ * <p>
+ * Equality compares configuration, as it did before interfaces had an index: a staged
+ * copy equals its running counterpart only while their configuration is the same, and
+ * so does a {@link StaticRoutingEntry} bound to either of them. Code that needs to know
+ * whether two objects are the same logical interface compares {@link #getIndex()}.
  */
 @Setter
 @Getter
-@EqualsAndHashCode
-@ToString
+@EqualsAndHashCode(exclude = {"index", "counterSlot"})
+@ToString(exclude = "counterSlot")
 public class RouterInterface implements NetworkInterface {
 	private static final Logger logger = Logger.getLogger(RouterInterface.class.getName());
 
+	private final int index;
+	private final InterfaceCounters.Slot counterSlot;
 	private String interfaceName;
 	private InterfaceAddress interfaceAddress;
 	private MacAddress macAddress;
@@ -67,6 +76,8 @@ public class RouterInterface implements NetworkInterface {
 	 * @param interfaceName the name of the interface (e.g., "eth0", "lo")
 	 */
 	public RouterInterface(String interfaceName) {
+		this.index = IndexAllocator.nextInterfaceIndex();
+		this.counterSlot = new InterfaceCounters.Slot();
 		this.interfaceName = interfaceName;
 		this.interfaceAddress = null;
 		this.macAddress = new MacAddress();
@@ -89,6 +100,8 @@ public class RouterInterface implements NetworkInterface {
 	 * @param status the interface status (admin and link state)
 	 */
 	public RouterInterface(String interfaceName, InterfaceAddress interfaceAddress, MacAddress macAddress, int mtu, InterfaceStatus status) {
+		this.index = IndexAllocator.nextInterfaceIndex();
+		this.counterSlot = new InterfaceCounters.Slot();
 		this.interfaceName = interfaceName;
 		this.interfaceAddress = interfaceAddress;
 		this.macAddress = macAddress;
@@ -106,6 +119,8 @@ public class RouterInterface implements NetworkInterface {
 	 * @param status the interface status (admin and link state)
 	 */
 	public RouterInterface(String interfaceName, InterfaceAddress interfaceAddress, MacAddress macAddress, String vrf, int mtu, InterfaceStatus status) {
+		this.index = IndexAllocator.nextInterfaceIndex();
+		this.counterSlot = new InterfaceCounters.Slot();
 		this.interfaceName = interfaceName;
 		this.interfaceAddress = interfaceAddress;
 		this.macAddress = macAddress;
@@ -124,6 +139,22 @@ public class RouterInterface implements NetworkInterface {
 		return interfaceAddress != null ? interfaceAddress.getSubnet() : null;
 	}
 
+	/**
+	 * Gets the packet, byte and drop counters of this interface.
+	 *
+	 * @return the current counter values
+	 */
+	public InterfaceCounters.Snapshot getCounters() {
+		return InterfaceCounters.global().get(this);
+	}
+
+	/**
+	 * Resets the counters of this interface to zero.
+	 */
+	public void clearCounters() {
+		InterfaceCounters.global().clear(this);
+	}
+
 	/**
 	 * Sets the subnet by converting to interface address.
 	 * @param subnet the subnet to set
@@ -144,6 +175,8 @@ public class RouterInterface implements NetworkInterface {
 	 * @param other The RouterInterface to copy
 	 */
 	public RouterInterface(RouterInterface other) {
+		this.index = other.index;                       // Same logical interface
+		this.counterSlot = other.counterSlot;           // Counters follow the logical interface
 		this.interfaceName = other.interfaceName;
 		this.interfaceAddress = other.interfaceAddress; // InterfaceAddress is immutable
 		this.macAddress = other.macAddress;             // MacAddress is immutable
@@ -1,36 +1,98 @@
 package org.uj.routingemulator.router.model;
 
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
-
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a routing table containing static routing entries.
  * <p>
  * The routing table maintains a list of static routes that determine how packets
  * are forwarded to different network destinations.
+ * <p>
+ * Entries are indexed by their {@link RouteKey}, so lookups, inserts and deletes take
+ * constant time while iteration keeps insertion order. Equal entries are stored once.
+ * <p>
+ * A {@link RouteSummary} of the routes is updated as routes are added and removed. It sees
+ * the disabled state of an entry when the entry is added, so entries are re-added rather
+ * than changed in place once they are in a running table.
  */
-@Getter
-@EqualsAndHashCode
 public class RoutingTable {
-	private final List<StaticRoutingEntry> routingEntries;
+	private final Map<RouteKey, StaticRoutingEntry> routes;
+	private List<StaticRoutingEntry> entryView;
+	private volatile TrieView trieView;
+	private final RouteSummary summary;
+
+	/** Prefix trie built from one {@link #getRoutingEntries()} list. */
+	private record TrieView(List<StaticRoutingEntry> source, PrefixTrie<StaticRoutingEntry> trie) {
+	}
 
 	/**
 	 * Creates an empty routing table.
 	 */
 	public RoutingTable() {
-		this.routingEntries = new ArrayList<>();
+		this(new LinkedHashMap<>());
+	}
+
+	/**
+	 * Creates a table indexing its routes in the given map, which the table then owns.
+	 * Subclasses that keep their routes elsewhere pass an empty immutable map and override
+	 * every method that reads or changes routes, {@link #getSummary()} included.
+	 *
+	 * @param routes routes by key, in iteration order
+	 */
+	protected RoutingTable(Map<RouteKey, StaticRoutingEntry> routes) {
+		this.routes = routes;
+		this.summary = new RouteSummary();
+		for (StaticRoutingEntry entry : routes.values()) {
+			this.summary.countStatic(entry, 1);
+		}
+	}
+
+	/**
+	 * Creates a table holding the same routes as another one, in the same order.
+	 * The entries themselves are shared, not copied.
+	 *
+	 * @param other the table to copy
+	 */
+	public RoutingTable(RoutingTable other) {
+		this();
+		for (StaticRoutingEntry entry : other.getRoutingEntries()) {
+			if (this.routes.put(RouteKey.of(entry), entry) == null) {
+				this.summary.countStatic(entry, 1);
+			}
+		}
 	}
 
 	/**
-	 * Adds a route to the routing table.
+	 * Adds a route to the routing table. An equal route already in the table is
+	 * replaced and keeps its position.
 	 *
 	 * @param entry the routing entry to add
 	 */
 	public void addRoute(StaticRoutingEntry entry) {
-		this.routingEntries.add(entry);
+		StaticRoutingEntry replaced = this.routes.put(RouteKey.of(entry), entry);
+		if (replaced != null) {
+			this.summary.countStatic(replaced, -1);
+		}
+		this.summary.countStatic(entry, 1);
+		this.entryView = null;
+	}
+
+	/**
+	 * Removes the route equal to the given entry.
+	 *
+	 * @param entry the routing entry to remove
+	 * @return true if the table contained the entry
+	 */
+	public boolean removeRoute(StaticRoutingEntry entry) {
+		StaticRoutingEntry removed = this.routes.remove(RouteKey.of(entry));
+		if (removed == null) {
+			return false;
+		}
+		this.summary.countStatic(removed, -1);
+		this.entryView = null;
+		return true;
 	}
 
 	/**
@@ -40,14 +102,92 @@ public class RoutingTable {
 	 * @return true if the entry exists in the table
 	 */
 	public boolean contains(StaticRoutingEntry entry) {
-		return this.routingEntries.contains(entry);
+		return this.routes.containsKey(RouteKey.of(entry));
+	}
+
+	/**
+	 * Finds the stored route equal to the given entry.
+	 *
+	 * @param entry the routing entry to look up
+	 * @return the entry held by this table, or null if there is none
+	 */
+	public StaticRoutingEntry find(StaticRoutingEntry entry) {
+		return this.routes.get(RouteKey.of(entry));
+	}
+
+	/**
+	 * Gets the routes in insertion order.
+	 *
+	 * @return an unmodifiable list of the routes, reused until the table changes
+	 */
+	public List<StaticRoutingEntry> getRoutingEntries() {
+		List<StaticRoutingEntry> view = this.entryView;
+		if (view == null) {
+			view = List.copyOf(this.routes.values());
+			this.entryView = view;
+		}
+		return view;
+	}
+
+	/**
+	 * Gets the routes indexed by destination prefix, for lookups and walks in numeric
+	 * prefix order. Disabled routes are included.
+	 * <p>
+	 * The trie is built on first use and reused until the routes change; it must not be
+	 * modified.
+	 *
+	 * @return the routes by destination prefix
+	 */
+	public PrefixTrie<StaticRoutingEntry> getPrefixTrie() {
+		List<StaticRoutingEntry> entries = getRoutingEntries();
+		TrieView view = this.trieView;
+		if (view == null || view.source() != entries) {
+			PrefixTrie<StaticRoutingEntry> trie = new PrefixTrie<>();
+			for (StaticRoutingEntry entry : entries) {
+				if (entry.getSubnet() != null) {
+					trie.put(entry.getSubnet().networkAddress().toInt(), entry.getSubnet().subnetMask().shortMask(), entry);
+				}
+			}
+			view = new TrieView(entries, trie);
+			this.trieView = view;
+		}
+		return view.trie();
+	}
+
+	/**
+	 * Gets the counts of the routes in this table, without scanning them.
+	 *
+	 * @return a copy of the counts
+	 */
+	public RouteSummary getSummary() {
+		return new RouteSummary(this.summary);
+	}
+
+	public int size() {
+		return this.routes.size();
+	}
+
+	public boolean isEmpty() {
+		return this.routes.isEmpty();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof RoutingTable other)) return false;
+		return getRoutingEntries().equals(other.getRoutingEntries());
+	}
+
+	@Override
+	public int hashCode() {
+		return getRoutingEntries().hashCode();
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder stringBuilder = new StringBuilder();
 		stringBuilder.append("RoutingTable{" + "routingEntries=\n");
-		for (StaticRoutingEntry entry : routingEntries) {
+		for (StaticRoutingEntry entry : getRoutingEntries()) {
 			stringBuilder.append("\t").append(entry.toString()).append("\n");
 		}
 		stringBuilder.append("}");
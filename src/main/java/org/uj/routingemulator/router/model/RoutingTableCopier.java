@@ -1,7 +1,9 @@
 package org.uj.routingemulator.router.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RoutingTableCopier {
 	private RoutingTableCopier() {
@@ -16,34 +18,47 @@ public class RoutingTableCopier {
 	}
 
 	public static RoutingTable copyRoutingTableWithUpdatedInterfaces(RoutingTable routingTable, List<RouterInterface> newInterfaces) {
+		Map<String, RouterInterface> byName = new HashMap<>();
+		for (RouterInterface iface : newInterfaces) {
+			byName.putIfAbsent(iface.getInterfaceName(), iface);
+		}
 		RoutingTable newTable = new RoutingTable();
 		for (StaticRoutingEntry entry : routingTable.getRoutingEntries()) {
-			StaticRoutingEntry newEntry;
+			RouterInterface newInterface = null;
 			if (entry.getRouterInterface() != null) {
-				String interfaceName = entry.getRouterInterface().getInterfaceName();
-				RouterInterface newInterface = newInterfaces.stream()
-						.filter(intf -> intf.getInterfaceName().equals(interfaceName))
-						.findFirst()
-						.orElse(null);
+				newInterface = byName.get(entry.getRouterInterface().getInterfaceName());
+			}
+			newTable.addRoute(copyEntry(entry, newInterface));
+		}
+		return newTable;
+	}
 
-				if (entry.getAdministrativeDistance() == 1) {
-					newEntry = new StaticRoutingEntry(entry.getSubnet(), newInterface);
-				} else {
-					newEntry = new StaticRoutingEntry(entry.getSubnet(), newInterface, entry.getAdministrativeDistance());
-				}
+	/**
+	 * Copies a routing entry, binding interface routes to another instance of their exit interface.
+	 *
+	 * @param entry          entry to copy
+	 * @param routerInterface exit interface for the copy; ignored for next-hop routes
+	 * @return a new entry with the same destination, distance and disabled state
+	 */
+	public static StaticRoutingEntry copyEntry(StaticRoutingEntry entry, RouterInterface routerInterface) {
+		StaticRoutingEntry newEntry;
+		if (entry.getRouterInterface() != null) {
+			if (entry.getAdministrativeDistance() == 1) {
+				newEntry = new StaticRoutingEntry(entry.getSubnet(), routerInterface);
 			} else {
-				if (entry.getAdministrativeDistance() == 1) {
-					newEntry = new StaticRoutingEntry(entry.getSubnet(), entry.getNextHop());
-				} else {
-					newEntry = new StaticRoutingEntry(entry.getSubnet(), entry.getNextHop(), entry.getAdministrativeDistance());
-				}
+				newEntry = new StaticRoutingEntry(entry.getSubnet(), routerInterface, entry.getAdministrativeDistance());
 			}
-
-			if (entry.isDisabled()) {
-				newEntry.disable();
+		} else {
+			if (entry.getAdministrativeDistance() == 1) {
+				newEntry = new StaticRoutingEntry(entry.getSubnet(), entry.getNextHop());
+			} else {
+				newEntry = new StaticRoutingEntry(entry.getSubnet(), entry.getNextHop(), entry.getAdministrativeDistance());
 			}
-			newTable.addRoute(newEntry);
 		}
-		return newTable;
+
+		if (entry.isDisabled()) {
+			newEntry.disable();
+		}
+		return newEntry;
 	}
 }
\ No newline at end of file
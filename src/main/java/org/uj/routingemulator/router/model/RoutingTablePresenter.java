@@ -1,7 +1,9 @@
 package org.uj.routingemulator.router.model;
 
+import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.router.exceptions.InvalidModeException;
 
+import java.io.IOException;
 import java.util.logging.Logger;
 
 public class RoutingTablePresenter {
@@ -11,10 +13,32 @@ public class RoutingTablePresenter {
 	}
 
 	public static String showIpRoute(Router router) {
+		requireOperationalMode(router);
+		return IpRouteTableFormatter.format(router);
+	}
+
+	public static void showIpRoute(Router router, IpRouteQuery query, Appendable out) throws IOException {
+		requireOperationalMode(router);
+		IpRouteTableFormatter.format(router, query, out);
+	}
+
+	/**
+	 * Writes the route counts of a router, or of every router of a topology.
+	 *
+	 * @param router   router the command runs on
+	 * @param topology topology to summarize, or null for the router alone
+	 * @param out      destination of the output
+	 * @throws IOException if writing fails
+	 */
+	public static void showIpRouteSummary(Router router, NetworkTopology topology, Appendable out) throws IOException {
+		requireOperationalMode(router);
+		IpRouteTableFormatter.formatSummary(topology != null ? RouteSummary.of(topology) : router.getRouteSummary(), out);
+	}
+
+	private static void requireOperationalMode(Router router) {
 		if (router.getMode() != RouterMode.OPERATIONAL) {
 			logger.warning("Attempted to show IP route while in %s mode".formatted(router.getMode()));
 			throw new InvalidModeException("Invalid command: show [ip]");
 		}
-		return IpRouteTableFormatter.format(router);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,234 @@
+package org.uj.routingemulator.router.session;
+
+import org.uj.routingemulator.router.model.RouteKey;
+import org.uj.routingemulator.router.model.RouteSummary;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RoutingTable;
+import org.uj.routingemulator.router.model.RoutingTableCopier;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Candidate routing table layered over the running one.
+ * <p>
+ * The candidate shares every route of the running table and records only the routes
+ * that were added, deleted or modified, keyed by {@link RouteKey}. Creating a candidate
+ * is therefore constant time whatever the size of the running table, and a route is
+ * copied only when it is modified through {@link #edit(StaticRoutingEntry)}. The running
+ * table is never changed through the candidate; commits replace it with a new table.
+ * <p>
+ * Iteration order matches a table that had the same operations applied: modified routes
+ * keep their place, new routes and routes deleted and added again come last.
+ * <p>
+ * The candidate stores no routes of its own in the {@link RoutingTable} it extends; every
+ * method reading or changing routes is answered from the running table and the deltas.
+ */
+final class CandidateRoutingTable extends RoutingTable {
+	private final RoutingTable running;
+	private final Map<RouteKey, RouteDelta> deltas = new LinkedHashMap<>();
+	private int size;
+	private List<StaticRoutingEntry> entryView;
+
+	private static final class RouteDelta {
+		/** The route in the running table, or null for new routes. */
+		private final StaticRoutingEntry running;
+		/** Candidate entry, or null while the route is deleted. */
+		private StaticRoutingEntry staged;
+		/** Deleted and added again, which moves the route to the end of the table. */
+		private boolean moved;
+
+		private RouteDelta(StaticRoutingEntry running) {
+			this.running = running;
+		}
+	}
+
+	/**
+	 * @param running running table to share routes with; it must not be modified afterwards
+	 */
+	CandidateRoutingTable(RoutingTable running) {
+		super(Map.of());
+		this.running = running;
+		this.size = running.size();
+	}
+
+	@Override
+	public void addRoute(StaticRoutingEntry entry) {
+		RouteKey key = RouteKey.of(entry);
+		RouteDelta delta = deltas.get(key);
+		if (delta == null) {
+			delta = new RouteDelta(running.find(entry));
+			if (delta.running == null) size++;
+			deltas.put(key, delta);
+		} else if (delta.staged == null) {
+			// Re-insert so the route moves behind the routes added before it
+			deltas.remove(key);
+			delta.moved = delta.running != null;
+			deltas.put(key, delta);
+			size++;
+		}
+		delta.staged = entry;
+		entryView = null;
+	}
+
+	@Override
+	public boolean removeRoute(StaticRoutingEntry entry) {
+		RouteKey key = RouteKey.of(entry);
+		RouteDelta delta = deltas.get(key);
+		if (delta == null) {
+			StaticRoutingEntry existing = running.find(entry);
+			if (existing == null) return false;
+			delta = new RouteDelta(existing);
+			deltas.put(key, delta);
+		} else if (delta.staged == null) {
+			return false;
+		} else if (delta.running == null) {
+			deltas.remove(key);
+		}
+		delta.staged = null;
+		size--;
+		entryView = null;
+		return true;
+	}
+
+	@Override
+	public boolean contains(StaticRoutingEntry entry) {
+		return find(entry) != null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Routes that were not modified are the running entries and must not be changed;
+	 * use {@link #edit(StaticRoutingEntry)} to change a route.
+	 */
+	@Override
+	public StaticRoutingEntry find(StaticRoutingEntry entry) {
+		RouteDelta delta = deltas.get(RouteKey.of(entry));
+		return delta != null ? delta.staged : running.find(entry);
+	}
+
+	/**
+	 * Finds a route for modification, copying it first if it is still shared with the
+	 * running table.
+	 *
+	 * @param entry the route to look up
+	 * @return an entry owned by the candidate, or null if there is none
+	 */
+	StaticRoutingEntry edit(StaticRoutingEntry entry) {
+		RouteKey key = RouteKey.of(entry);
+		RouteDelta delta = deltas.get(key);
+		if (delta != null) {
+			return delta.staged;
+		}
+		StaticRoutingEntry existing = running.find(entry);
+		if (existing == null) return null;
+		delta = new RouteDelta(existing);
+		delta.staged = new StaticRoutingEntry(existing);
+		deltas.put(key, delta);
+		entryView = null;
+		return delta.staged;
+	}
+
+	@Override
+	public List<StaticRoutingEntry> getRoutingEntries() {
+		if (deltas.isEmpty()) {
+			return running.getRoutingEntries();
+		}
+		List<StaticRoutingEntry> view = entryView;
+		if (view == null) {
+			List<StaticRoutingEntry> entries = new ArrayList<>(size);
+			for (StaticRoutingEntry entry : running.getRoutingEntries()) {
+				RouteDelta delta = deltas.get(RouteKey.of(entry));
+				if (delta == null) {
+					entries.add(entry);
+				} else if (delta.staged != null && !delta.moved) {
+					entries.add(delta.staged);
+				}
+			}
+			for (RouteDelta delta : deltas.values()) {
+				if (delta.staged != null && (delta.running == null || delta.moved)) {
+					entries.add(delta.staged);
+				}
+			}
+			view = Collections.unmodifiableList(entries);
+			entryView = view;
+		}
+		return view;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The counts of the running table with every changed route counted out and its staged
+	 * entry counted in, so reading them takes time proportional to the changes. Staged
+	 * entries are counted as they are now, including routes disabled after they were staged.
+	 */
+	@Override
+	public RouteSummary getSummary() {
+		RouteSummary summary = running.getSummary();
+		for (RouteDelta delta : deltas.values()) {
+			summary.replaceStatic(delta.running, delta.staged);
+		}
+		return summary;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds the differences between the running table and the candidate.
+	 */
+	void diff(ConfigDiff.Builder diff) {
+		for (RouteDelta delta : deltas.values()) {
+			diff.routeChanged(delta.running, delta.staged);
+		}
+	}
+
+	/**
+	 * Builds the running table that results from committing the candidate. Interface routes
+	 * are bound to the router's running interfaces, so these must be committed first.
+	 *
+	 * @param router router owning the running table
+	 * @return the new running table, or the current one if no route changed
+	 */
+	RoutingTable commit(Router router) {
+		if (deltas.isEmpty()) {
+			return running;
+		}
+		RoutingTable next = new RoutingTable(running);
+		for (RouteDelta delta : deltas.values()) {
+			if (delta.staged == null || delta.moved) {
+				next.removeRoute(delta.running);
+			}
+			if (delta.staged == null) {
+				continue;
+			}
+			if (delta.running != null && !delta.moved) {
+				// Replaced in place; keep the running entry if nothing it holds has changed
+				if (delta.staged.isDisabled() != delta.running.isDisabled()) {
+					next.addRoute(RoutingTableCopier.copyEntry(delta.staged, delta.running.getRouterInterface()));
+				}
+				continue;
+			}
+			RouterInterface exit = null;
+			if (delta.staged.getRouterInterface() != null) {
+				exit = router.getInterface(delta.staged.getRouterInterface().getInterfaceName());
+			}
+			next.addRoute(RoutingTableCopier.copyEntry(delta.staged, exit));
+		}
+		return next;
+	}
+}
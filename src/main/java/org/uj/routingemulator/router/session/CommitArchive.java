@@ -0,0 +1,138 @@
+package org.uj.routingemulator.router.session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Commit history of a router, used by {@code rollback} and {@code compare} with a revision.
+ * <p>
+ * Revisions are numbered as in VyOS: revision 0 is the running configuration, 1 the one
+ * before the last commit, and so on. Each revision stores only the {@link ConfigDiff} that
+ * produced it from its predecessor. Every {@link RetentionPolicy#checkpointInterval()}
+ * revisions a full copy of the configuration is stored as a checkpoint, so rebuilding a
+ * revision starts from the nearest older checkpoint and applies at most that many diffs,
+ * whatever the number of revisions kept. The oldest revision is always a checkpoint.
+ * <p>
+ * At most {@link RetentionPolicy#maxRevisions()} revisions are kept; older ones are dropped.
+ */
+public class CommitArchive {
+
+	/**
+	 * @param maxRevisions       number of revisions kept, including the running configuration
+	 * @param checkpointInterval number of revisions between two full copies of the configuration
+	 */
+	public record RetentionPolicy(int maxRevisions, int checkpointInterval) {
+		public static final RetentionPolicy DEFAULT = new RetentionPolicy(100, 20);
+
+		public RetentionPolicy {
+			if (maxRevisions < 1) {
+				throw new IllegalArgumentException("At least one revision must be kept: " + maxRevisions);
+			}
+			if (checkpointInterval < 1) {
+				throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+			}
+		}
+	}
+
+	private static final class Revision {
+		private final ConfigDiff delta;
+		/** Full configuration, or null if it must be rebuilt from an older checkpoint. */
+		private List<ConfigElement> checkpoint;
+
+		private Revision(ConfigDiff delta) {
+			this.delta = delta;
+		}
+	}
+
+	/** Revisions, oldest first. */
+	private final List<Revision> revisions = new ArrayList<>();
+	private RetentionPolicy policy;
+	private int sinceCheckpoint;
+
+	public CommitArchive() {
+		this(RetentionPolicy.DEFAULT);
+	}
+
+	public CommitArchive(RetentionPolicy policy) {
+		this.policy = policy;
+	}
+
+	public RetentionPolicy getRetentionPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Changes the retention policy, dropping revisions beyond the new limit.
+	 */
+	public void setRetentionPolicy(RetentionPolicy policy) {
+		this.policy = policy;
+		trim();
+	}
+
+	/**
+	 * @return number of revisions kept, 0 before the first commit
+	 */
+	public int size() {
+		return revisions.size();
+	}
+
+	/**
+	 * Records a commit.
+	 *
+	 * @param before configuration before the commit; needed only for the first commit
+	 * @param delta  lines changed by the commit
+	 * @param after  configuration after the commit, read only when a checkpoint is due
+	 */
+	void record(Set<ConfigElement> before, ConfigDiff delta, Supplier<Set<ConfigElement>> after) {
+		if (revisions.isEmpty()) {
+			Revision initial = new Revision(ConfigDiff.EMPTY);
+			initial.checkpoint = List.copyOf(before);
+			revisions.add(initial);
+			sinceCheckpoint = 0;
+		}
+		Revision revision = new Revision(delta);
+		if (++sinceCheckpoint >= policy.checkpointInterval()) {
+			revision.checkpoint = List.copyOf(after.get());
+			sinceCheckpoint = 0;
+		}
+		revisions.add(revision);
+		trim();
+	}
+
+	/**
+	 * Rebuilds an archived configuration.
+	 *
+	 * @param revision revision number, 0 for the running configuration
+	 * @return the configuration, or null if the revision is not kept
+	 */
+	Set<ConfigElement> configuration(int revision) {
+		if (revision < 0 || revision >= revisions.size()) {
+			return null;
+		}
+		int target = revisions.size() - 1 - revision;
+		int start = target;
+		while (revisions.get(start).checkpoint == null) {
+			start--;
+		}
+		Set<ConfigElement> elements = new LinkedHashSet<>(revisions.get(start).checkpoint);
+		for (int i = start + 1; i <= target; i++) {
+			revisions.get(i).delta.applyTo(elements);
+		}
+		return elements;
+	}
+
+	private void trim() {
+		int excess = revisions.size() - policy.maxRevisions();
+		if (excess <= 0) {
+			return;
+		}
+		Revision oldest = revisions.get(excess);
+		if (oldest.checkpoint == null) {
+			oldest.checkpoint = List.copyOf(configuration(revisions.size() - 1 - excess));
+		}
+		revisions.subList(0, excess).clear();
+	}
+}
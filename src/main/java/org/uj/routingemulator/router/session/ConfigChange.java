@@ -0,0 +1,31 @@
+package org.uj.routingemulator.router.session;
+
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+
+/**
+ * One change to the candidate configuration, applied in bulk by
+ * {@link RouterConfigurationService#applyChanges}.
+ * <p>
+ * Each change has the effect of the {@link RouterConfigurationService} method of the same name.
+ */
+public sealed interface ConfigChange {
+
+	record AddRoute(StaticRoutingEntry entry) implements ConfigChange {
+	}
+
+	record RemoveRoute(StaticRoutingEntry entry) implements ConfigChange {
+	}
+
+	record DisableRoute(StaticRoutingEntry entry) implements ConfigChange {
+	}
+
+	record ConfigureInterface(String interfaceName, InterfaceAddress address) implements ConfigChange {
+	}
+
+	record DisableInterface(String interfaceName) implements ConfigChange {
+	}
+
+	record DeleteInterfaceAddress(String interfaceName) implements ConfigChange {
+	}
+}
@@ -0,0 +1,216 @@
+package org.uj.routingemulator.router.session;
+
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RoutingTable;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Difference between the running and the candidate configuration of a router, as the
+ * {@code set} commands that appear in or disappear from it.
+ * <p>
+ * Returned by {@link ConfigurationSession#commit()} and {@link ConfigurationSession#compare()},
+ * and printed by the {@code commit} and {@code compare} commands in the style of VyOS
+ * {@code compare}: added lines start with {@code +}, removed lines with {@code -}.
+ *
+ * @param changes changed configuration lines, interfaces first, then routes
+ */
+public record ConfigDiff(List<Change> changes) {
+	public static final ConfigDiff EMPTY = new ConfigDiff(List.of());
+
+	public ConfigDiff {
+		changes = List.copyOf(changes);
+	}
+
+	public enum Action {
+		ADD("+"),
+		DELETE("-");
+
+		private final String marker;
+
+		Action(String marker) {
+			this.marker = marker;
+		}
+
+		public String marker() {
+			return marker;
+		}
+	}
+
+	/**
+	 * One configuration line added to or removed from the running configuration.
+	 *
+	 * @param action  whether the line is added or removed
+	 * @param element the configuration line
+	 */
+	public record Change(Action action, ConfigElement element) {
+		/**
+		 * @return the configuration path, without the leading {@code set}
+		 */
+		public String path() {
+			return element.path();
+		}
+
+		@Override
+		public String toString() {
+			return action.marker() + " set " + path();
+		}
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	public long count(Action action) {
+		return changes.stream().filter(c -> c.action() == action).count();
+	}
+
+	/**
+	 * @return one line per change, or an empty string if nothing changed
+	 */
+	public String format() {
+		return changes.stream().map(Change::toString).collect(Collectors.joining("\n"));
+	}
+
+	/**
+	 * Applies this difference to a configuration.
+	 *
+	 * @param elements configuration to update in place
+	 */
+	void applyTo(Set<ConfigElement> elements) {
+		for (Change change : changes) {
+			if (change.action() == Action.DELETE) {
+				elements.remove(change.element());
+			} else {
+				elements.add(change.element());
+			}
+		}
+	}
+
+	/**
+	 * Compares two configurations given as their elements.
+	 *
+	 * @param before the original configuration
+	 * @param after  the changed configuration
+	 * @return the lines removed from and added to {@code before}
+	 */
+	static ConfigDiff between(Set<ConfigElement> before, Set<ConfigElement> after) {
+		Builder diff = new Builder();
+		for (ConfigElement element : before) {
+			if (!after.contains(element)) diff.add(Action.DELETE, element);
+		}
+		for (ConfigElement element : after) {
+			if (!before.contains(element)) diff.add(Action.ADD, element);
+		}
+		return diff.build();
+	}
+
+	/**
+	 * Compares two whole configurations.
+	 *
+	 * @param runningInterfaces interfaces of the running configuration
+	 * @param runningTable      routing table of the running configuration
+	 * @param stagedInterfaces  interfaces of the candidate configuration
+	 * @param stagedTable       routing table of the candidate configuration
+	 * @return differences between the running configuration and the candidate
+	 */
+	static ConfigDiff between(List<RouterInterface> runningInterfaces, RoutingTable runningTable,
+							  List<RouterInterface> stagedInterfaces, RoutingTable stagedTable) {
+		Builder diff = new Builder();
+		Map<String, RouterInterface> running = new LinkedHashMap<>();
+		for (RouterInterface iface : runningInterfaces) {
+			running.putIfAbsent(iface.getInterfaceName(), iface);
+		}
+		for (RouterInterface staged : stagedInterfaces) {
+			diff.interfaceChanged(running.remove(staged.getInterfaceName()), staged);
+		}
+		running.values().forEach(removed -> diff.interfaceChanged(removed, null));
+
+		for (StaticRoutingEntry staged : stagedTable.getRoutingEntries()) {
+			diff.routeChanged(runningTable.find(staged), staged);
+		}
+		for (StaticRoutingEntry entry : runningTable.getRoutingEntries()) {
+			if (!stagedTable.contains(entry)) diff.routeChanged(entry, null);
+		}
+		return diff.build();
+	}
+
+	/**
+	 * Collects changes in display order.
+	 */
+	static final class Builder {
+		private final List<Change> interfaces = new ArrayList<>();
+		private final List<Change> routes = new ArrayList<>();
+
+		/**
+		 * Adds the lines that differ between two versions of an interface.
+		 *
+		 * @param before running interface, or null if it does not exist
+		 * @param after  candidate interface, or null if it is removed
+		 */
+		void interfaceChanged(RouterInterface before, RouterInterface after) {
+			RouterInterface named = after != null ? after : before;
+			if (named == null) return;
+			String name = named.getInterfaceName();
+			InterfaceAddress addressBefore = before != null ? before.getInterfaceAddress() : null;
+			InterfaceAddress addressAfter = after != null ? after.getInterfaceAddress() : null;
+			if (!Objects.equals(addressBefore, addressAfter)) {
+				if (addressBefore != null) add(Action.DELETE, new ConfigElement.Address(name, addressBefore));
+				if (addressAfter != null) add(Action.ADD, new ConfigElement.Address(name, addressAfter));
+			}
+			boolean disabledBefore = before != null && before.isDisabled();
+			boolean disabledAfter = after != null && after.isDisabled();
+			if (disabledBefore != disabledAfter) {
+				add(disabledAfter ? Action.ADD : Action.DELETE, new ConfigElement.InterfaceDisable(name));
+			}
+		}
+
+		/**
+		 * Adds the lines that differ between two versions of a route.
+		 *
+		 * @param before running route, or null if it does not exist
+		 * @param after  candidate route, or null if it is removed
+		 */
+		void routeChanged(StaticRoutingEntry before, StaticRoutingEntry after) {
+			if (before == null && after == null) return;
+			ConfigElement.Route route = ConfigElement.Route.of(after != null ? after : before);
+			ConfigElement.RouteDisable disable = new ConfigElement.RouteDisable(route);
+			if (before == null) {
+				add(Action.ADD, route);
+				if (after.isDisabled()) add(Action.ADD, disable);
+			} else if (after == null) {
+				if (before.isDisabled()) add(Action.DELETE, disable);
+				add(Action.DELETE, route);
+			} else if (before.isDisabled() != after.isDisabled()) {
+				add(after.isDisabled() ? Action.ADD : Action.DELETE, disable);
+			}
+		}
+
+		/**
+		 * Adds one changed line.
+		 */
+		void add(Action action, ConfigElement element) {
+			Change change = new Change(action, element);
+			if (element instanceof ConfigElement.Route || element instanceof ConfigElement.RouteDisable) {
+				routes.add(change);
+			} else {
+				interfaces.add(change);
+			}
+		}
+
+		ConfigDiff build() {
+			List<Change> all = new ArrayList<>(interfaces.size() + routes.size());
+			all.addAll(interfaces);
+			all.addAll(routes);
+			return new ConfigDiff(all);
+		}
+	}
+}
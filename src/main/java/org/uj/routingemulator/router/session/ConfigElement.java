@@ -0,0 +1,119 @@
+package org.uj.routingemulator.router.session;
+
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RoutingTable;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * One line of a router configuration, such as an interface address or a static route.
+ * <p>
+ * A configuration is the set of its elements, and {@link ConfigDiff} lists the elements
+ * added and removed between two configurations. Elements refer to interfaces by name,
+ * so they stay valid while interfaces are copied between the running and the candidate
+ * configuration.
+ */
+public sealed interface ConfigElement {
+
+	/**
+	 * @return the configuration path, without the leading {@code set}
+	 */
+	String path();
+
+	record Address(String interfaceName, InterfaceAddress address) implements ConfigElement {
+		@Override
+		public String path() {
+			return "interfaces ethernet " + interfaceName + " address " + address;
+		}
+	}
+
+	record InterfaceDisable(String interfaceName) implements ConfigElement {
+		@Override
+		public String path() {
+			return "interfaces ethernet " + interfaceName + " disable";
+		}
+	}
+
+	/**
+	 * @param subnet        destination
+	 * @param nextHop       next hop, or null for interface routes
+	 * @param interfaceName exit interface, or null for next-hop routes
+	 * @param distance      administrative distance
+	 */
+	record Route(Subnet subnet, IPAddress nextHop, String interfaceName, int distance) implements ConfigElement {
+		public static Route of(StaticRoutingEntry entry) {
+			String interfaceName = entry.getRouterInterface() != null ? entry.getRouterInterface().getInterfaceName() : null;
+			return new Route(entry.getSubnet(), entry.getNextHop(), interfaceName, entry.getAdministrativeDistance());
+		}
+
+		/**
+		 * Creates an enabled routing entry for this route.
+		 *
+		 * @param interfaces finds interfaces by name
+		 * @return the entry, or null if the exit interface does not exist
+		 */
+		public StaticRoutingEntry toEntry(Function<String, RouterInterface> interfaces) {
+			if (nextHop != null || interfaceName == null) {
+				return new StaticRoutingEntry(subnet, nextHop, distance);
+			}
+			RouterInterface exit = interfaces.apply(interfaceName);
+			return exit != null ? new StaticRoutingEntry(subnet, exit, distance) : null;
+		}
+
+		@Override
+		public String path() {
+			StringBuilder path = new StringBuilder("protocols static route ").append(subnet);
+			if (nextHop != null) {
+				path.append(" next-hop ").append(nextHop);
+			} else if (interfaceName != null) {
+				path.append(" interface ").append(interfaceName);
+			}
+			if (distance != 1) {
+				path.append(" distance ").append(distance);
+			}
+			return path.toString();
+		}
+	}
+
+	record RouteDisable(Route route) implements ConfigElement {
+		@Override
+		public String path() {
+			return route.path() + " disable";
+		}
+	}
+
+	/**
+	 * Lists the elements of a configuration: interface lines in interface order, then
+	 * routes in table order, each disabled route followed by its {@code disable} line.
+	 *
+	 * @param interfaces interfaces of the configuration
+	 * @param table      routing table of the configuration
+	 * @return the elements, in order
+	 */
+	static Set<ConfigElement> of(List<RouterInterface> interfaces, RoutingTable table) {
+		Set<ConfigElement> elements = new LinkedHashSet<>();
+		for (RouterInterface iface : interfaces) {
+			if (iface.getInterfaceAddress() != null) {
+				elements.add(new Address(iface.getInterfaceName(), iface.getInterfaceAddress()));
+			}
+			if (iface.isDisabled()) {
+				elements.add(new InterfaceDisable(iface.getInterfaceName()));
+			}
+		}
+		for (StaticRoutingEntry entry : table.getRoutingEntries()) {
+			Route route = Route.of(entry);
+			elements.add(route);
+			if (entry.isDisabled()) {
+				elements.add(new RouteDisable(route));
+			}
+		}
+		return elements;
+	}
+}
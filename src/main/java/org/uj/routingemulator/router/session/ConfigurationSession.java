@@ -1,27 +1,48 @@
 package org.uj.routingemulator.router.session;
 
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.router.exceptions.InvalidModeException;
 import org.uj.routingemulator.router.exceptions.NoChangesToCommitException;
+import org.uj.routingemulator.router.exceptions.RevisionNotFoundException;
+import org.uj.routingemulator.router.exceptions.UncommittedChangesException;
 import org.uj.routingemulator.router.model.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.logging.Logger;
 
+/**
+ * Candidate configuration of a router, edited in configuration mode and applied by
+ * {@link #commit()}.
+ * <p>
+ * The candidate shares the running configuration instead of copying it: the routing
+ * table is a {@link CandidateRoutingTable} layered over the running table, and interfaces
+ * are copied only when first edited. Starting or discarding a candidate therefore costs
+ * the same whatever the size of the configuration, and a commit applies only what was
+ * edited. Staged interfaces and routes must be changed through {@link RouterConfigurationService},
+ * which asks for private copies; objects returned by the getters may be running ones.
+ * <p>
+ * {@link #setStagedInterfaces}, {@link #setStagedRoutingTable} and
+ * {@link #resetCandidateConfiguration()} replace the candidate wholesale, after which it
+ * is compared and committed in full.
+ */
 public class ConfigurationSession {
 	private static final Logger logger = Logger.getLogger(ConfigurationSession.class.getName());
+	private static final Counter commits = MetricsRegistry.global().counter("config.commits");
 
 	private final Router router;
 	private RoutingTable stagedRoutingTable;
-	private List<RouterInterface> stagedInterfaces;
+	/** Interfaces copied for editing, by name. */
+	private final Map<String, RouterInterface> editedInterfaces = new LinkedHashMap<>();
+	/** Interfaces set with {@link #setStagedInterfaces}, or null while they are shared with the router. */
+	private List<RouterInterface> replacedInterfaces;
 	private boolean hasUncommittedChanges;
+	private final CommitArchive archive = new CommitArchive();
 
 	public ConfigurationSession(Router router) {
 		this.router = router;
-		this.stagedRoutingTable = new RoutingTable();
-		this.stagedInterfaces = new ArrayList<>();
-		this.hasUncommittedChanges = false;
+		discard();
 	}
 
 	public boolean hasUncommittedChanges() {
@@ -32,12 +53,72 @@ public class ConfigurationSession {
 		this.hasUncommittedChanges = hasUncommittedChanges;
 	}
 
+	/**
+	 * @return the candidate interfaces, in the order of the running ones
+	 */
 	public List<RouterInterface> getStagedInterfaces() {
-		return Collections.unmodifiableList(stagedInterfaces);
+		if (replacedInterfaces != null) {
+			return Collections.unmodifiableList(replacedInterfaces);
+		}
+		List<RouterInterface> running = router.getInterfaces();
+		if (editedInterfaces.isEmpty()) {
+			return running;
+		}
+		List<RouterInterface> staged = new ArrayList<>(running.size());
+		for (RouterInterface iface : running) {
+			staged.add(editedInterfaces.getOrDefault(iface.getInterfaceName(), iface));
+		}
+		return Collections.unmodifiableList(staged);
 	}
 
 	public void setStagedInterfaces(List<RouterInterface> stagedInterfaces) {
-		this.stagedInterfaces = stagedInterfaces;
+		this.replacedInterfaces = stagedInterfaces;
+		this.editedInterfaces.clear();
+		for (RouterInterface iface : stagedInterfaces) {
+			this.editedInterfaces.putIfAbsent(iface.getInterfaceName(), iface);
+		}
+	}
+
+	/**
+	 * Finds a staged interface by name.
+	 *
+	 * @param interfaceName interface name
+	 * @return the staged interface, or null if there is none
+	 */
+	public RouterInterface getStagedInterface(String interfaceName) {
+		RouterInterface edited = editedInterfaces.get(interfaceName);
+		if (edited != null || replacedInterfaces != null) {
+			return edited;
+		}
+		return router.getInterface(interfaceName);
+	}
+
+	/**
+	 * Finds a staged interface for modification, copying it first if it is still shared
+	 * with the running configuration.
+	 *
+	 * @param interfaceName interface name
+	 * @return an interface owned by the candidate, or null if there is none
+	 */
+	RouterInterface editStagedInterface(String interfaceName) {
+		RouterInterface edited = editedInterfaces.get(interfaceName);
+		if (edited != null || replacedInterfaces != null) {
+			return edited;
+		}
+		RouterInterface running = router.getInterface(interfaceName);
+		if (running == null) {
+			return null;
+		}
+		edited = new RouterInterface(running);
+		editedInterfaces.put(interfaceName, edited);
+		return edited;
+	}
+
+	/**
+	 * @return the commit history of the router
+	 */
+	public CommitArchive getArchive() {
+		return archive;
 	}
 
 	public RoutingTable getStagedRoutingTable() {
@@ -48,6 +129,24 @@ public class ConfigurationSession {
 		this.stagedRoutingTable = stagedRoutingTable;
 	}
 
+	/**
+	 * Finds a staged route for modification, copying it first if it is still shared with
+	 * the running configuration.
+	 *
+	 * @param entry the route to look up
+	 * @return a route owned by the candidate, or null if there is none
+	 */
+	StaticRoutingEntry editStagedRoute(StaticRoutingEntry entry) {
+		if (stagedRoutingTable instanceof CandidateRoutingTable candidate) {
+			return candidate.edit(entry);
+		}
+		return stagedRoutingTable.find(entry);
+	}
+
+	private boolean isReplaced() {
+		return replacedInterfaces != null || !(stagedRoutingTable instanceof CandidateRoutingTable);
+	}
+
 	private void requireConfigMode(String cmd) {
 		if (router.getMode() != RouterMode.CONFIGURATION) {
 			logger.warning("Attempted to " + cmd + " while in " + router.getMode() + " mode");
@@ -55,28 +154,287 @@ public class ConfigurationSession {
 		}
 	}
 
-	public void commit() {
+	/**
+	 * Applies the candidate configuration to the router.
+	 * <p>
+	 * Only the interfaces and routes edited since the last commit or discard are applied;
+	 * a candidate that was replaced wholesale is copied in full.
+	 *
+	 * @return the committed changes
+	 * @throws NoChangesToCommitException if nothing was staged
+	 */
+	public ConfigDiff commit() {
+		PreparedCommit prepared = prepareCommit();
+		prepared.publish();
+		return prepared.diff();
+	}
+
+	/**
+	 * Computes the result of committing the candidate without applying it, so that the
+	 * work can be done outside of any lock and the result applied later in one short step.
+	 * The router and the candidate must not change until {@link PreparedCommit#publish()}.
+	 *
+	 * @return the prepared commit
+	 * @throws NoChangesToCommitException if nothing was staged
+	 */
+	public PreparedCommit prepareCommit() {
 		requireConfigMode("[commit]");
 		if (!hasUncommittedChanges) {
 			throw new NoChangesToCommitException("No configuration changes to commit");
 		}
-		List<RouterInterface> newInterfaces = RoutingTableCopier.deepCopyInterfaces(stagedInterfaces);
-		RoutingTable newTable = RoutingTableCopier.copyRoutingTableWithUpdatedInterfaces(stagedRoutingTable, newInterfaces);
-		RouterConfiguration newConfig = new RouterConfiguration(newInterfaces, newTable);
-		router.applyConfiguration(newConfig);
-		this.hasUncommittedChanges = false;
-		logger.info("%s: Commit complete".formatted(router.getName()));
+		ConfigDiff diff = compare();
+		Set<ConfigElement> before = archive.size() == 0 ? runningElements() : null;
+		if (isReplaced()) {
+			List<RouterInterface> newInterfaces = RoutingTableCopier.deepCopyInterfaces(getStagedInterfaces());
+			RoutingTable newTable = RoutingTableCopier.copyRoutingTableWithUpdatedInterfaces(stagedRoutingTable, newInterfaces);
+			return new PreparedCommit(diff, before, new RouterConfiguration(newInterfaces, newTable), true);
+		}
+		List<RouterInterface> interfaces = new ArrayList<>(editedInterfaces.size());
+		for (RouterInterface edited : editedInterfaces.values()) {
+			interfaces.add(new RouterInterface(edited));
+		}
+		// Existing interfaces keep their identity when applied, so routes can be bound to them now
+		RoutingTable table = ((CandidateRoutingTable) stagedRoutingTable).commit(router);
+		return new PreparedCommit(diff, before, new RouterConfiguration(interfaces, table), false);
+	}
+
+	/**
+	 * Prepares a commit that replaces the whole running configuration, as if the
+	 * configuration had been staged and committed. Neither the candidate nor the router's
+	 * mode is touched until the commit is published, which drops the candidate.
+	 *
+	 * @param configuration the new configuration
+	 * @return the prepared commit
+	 */
+	PreparedCommit prepareReplacement(RouterConfiguration configuration) {
+		ConfigDiff diff = ConfigDiff.between(router.getInterfaces(), router.getRoutingTable(), configuration.interfaces(), configuration.routingTable());
+		Set<ConfigElement> before = archive.size() == 0 ? runningElements() : null;
+		List<RouterInterface> newInterfaces = RoutingTableCopier.deepCopyInterfaces(configuration.interfaces());
+		RoutingTable newTable = RoutingTableCopier.copyRoutingTableWithUpdatedInterfaces(configuration.routingTable(), newInterfaces);
+		return new PreparedCommit(diff, before, new RouterConfiguration(newInterfaces, newTable), true);
 	}
 
+	/**
+	 * A commit computed by {@link #prepareCommit()} and not yet applied to the router.
+	 */
+	public final class PreparedCommit {
+		private final ConfigDiff diff;
+		private final Set<ConfigElement> before;
+		private final RouterConfiguration result;
+		/** Whether {@link #result} is the whole configuration or only the edited interfaces. */
+		private final boolean replacesAll;
+		private boolean published;
+
+		private PreparedCommit(ConfigDiff diff, Set<ConfigElement> before, RouterConfiguration result, boolean replacesAll) {
+			this.diff = diff;
+			this.before = before;
+			this.result = result;
+			this.replacesAll = replacesAll;
+		}
+
+		/**
+		 * @return the changes the commit applies
+		 */
+		public ConfigDiff diff() {
+			return diff;
+		}
+
+		/**
+		 * Applies the commit to the router and records it in the archive.
+		 *
+		 * @throws IllegalStateException if the commit was already published
+		 */
+		public void publish() {
+			claim();
+			apply();
+		}
+
+		/**
+		 * Publishes the commit as its own configuration version of a topology, so that
+		 * {@linkplain NetworkTopology#readConfiguration readers} see the router either
+		 * before or after it.
+		 *
+		 * @param topology topology of the router, or null to publish directly
+		 * @return the changes the commit applied
+		 * @throws IllegalStateException if the commit was already published
+		 */
+		public ConfigDiff publish(NetworkTopology topology) {
+			if (topology == null) {
+				publish();
+			} else {
+				claim();
+				topology.publishConfiguration(this::apply);
+			}
+			return diff;
+		}
+
+		/**
+		 * Marks the commit as published before it is applied, so that a set of commits
+		 * can be checked before any of them changes a router.
+		 *
+		 * @throws IllegalStateException if the commit was already published
+		 */
+		void claim() {
+			if (published) {
+				throw new IllegalStateException("Commit already published");
+			}
+			published = true;
+		}
+
+		/**
+		 * Swaps the prepared configuration into the router. Everything that can fail was
+		 * done by {@link #prepareCommit()} and {@link #claim()}.
+		 */
+		void apply() {
+			if (replacesAll) {
+				router.applyConfiguration(result);
+			} else {
+				result.interfaces().forEach(router::applyInterface);
+				router.setRoutingTable(result.routingTable());
+			}
+			discard();
+			archive.record(before, diff, ConfigurationSession.this::runningElements);
+			commits.increment();
+			logger.info("%s: Commit complete, %d lines added, %d removed".formatted(router.getName(),
+					diff.count(ConfigDiff.Action.ADD), diff.count(ConfigDiff.Action.DELETE)));
+		}
+	}
+
+	/**
+	 * Compares the candidate configuration with the running one without committing.
+	 *
+	 * @return the changes a commit would apply
+	 */
+	public ConfigDiff compare() {
+		requireConfigMode("compare");
+		if (isReplaced()) {
+			return ConfigDiff.between(router.getInterfaces(), router.getRoutingTable(), getStagedInterfaces(), stagedRoutingTable);
+		}
+		ConfigDiff.Builder diff = new ConfigDiff.Builder();
+		for (Map.Entry<String, RouterInterface> edited : editedInterfaces.entrySet()) {
+			diff.interfaceChanged(router.getInterface(edited.getKey()), edited.getValue());
+		}
+		((CandidateRoutingTable) stagedRoutingTable).diff(diff);
+		return diff.build();
+	}
+
+	/**
+	 * Compares the candidate configuration with an archived revision.
+	 *
+	 * @param revision revision number, 0 for the running configuration
+	 * @return the changes from the revision to the candidate
+	 * @throws RevisionNotFoundException if the revision is not kept
+	 */
+	public ConfigDiff compare(int revision) {
+		requireConfigMode("compare");
+		return ConfigDiff.between(archivedElements(revision), ConfigElement.of(getStagedInterfaces(), stagedRoutingTable));
+	}
+
+	/**
+	 * Restores an archived revision and commits it.
+	 * <p>
+	 * Only the lines that differ from the running configuration are staged, so the commit
+	 * is recorded in the archive like any other. Routes through interfaces that no longer
+	 * exist are skipped.
+	 *
+	 * @param revision revision number, 1 for the configuration before the last commit
+	 * @return the committed changes
+	 * @throws UncommittedChangesException if the candidate has uncommitted changes
+	 * @throws RevisionNotFoundException   if the revision is not kept
+	 * @throws NoChangesToCommitException  if the revision matches the running configuration
+	 */
+	public ConfigDiff rollback(int revision) {
+		PreparedCommit prepared = prepareRollback(revision);
+		prepared.publish();
+		return prepared.diff();
+	}
+
+	/**
+	 * Stages an archived revision as by {@link #rollback(int)} and prepares its commit
+	 * without applying it.
+	 *
+	 * @param revision revision number, 1 for the configuration before the last commit
+	 * @return the prepared commit
+	 * @throws UncommittedChangesException if the candidate has uncommitted changes
+	 * @throws RevisionNotFoundException   if the revision is not kept
+	 * @throws NoChangesToCommitException  if the revision matches the running configuration
+	 */
+	public PreparedCommit prepareRollback(int revision) {
+		requireConfigMode("rollback");
+		if (hasUncommittedChanges) {
+			throw new UncommittedChangesException("Cannot rollback: configuration has uncommitted changes. Commit or discard them first");
+		}
+		ConfigDiff diff = ConfigDiff.between(runningElements(), archivedElements(revision));
+		// Deletions first, so that an interface address can be replaced
+		for (ConfigDiff.Change change : diff.changes()) {
+			if (change.action() == ConfigDiff.Action.DELETE) stageElement(change.element(), false);
+		}
+		for (ConfigDiff.Change change : diff.changes()) {
+			if (change.action() == ConfigDiff.Action.ADD) stageElement(change.element(), true);
+		}
+		this.hasUncommittedChanges = !diff.isEmpty();
+		logger.info("%s: Rolling back to revision %d".formatted(router.getName(), revision));
+		return prepareCommit();
+	}
+
+	private void stageElement(ConfigElement element, boolean add) {
+		switch (element) {
+			case ConfigElement.Address address -> {
+				RouterInterface iface = editStagedInterface(address.interfaceName());
+				if (iface != null) iface.setInterfaceAddress(add ? address.address() : null);
+			}
+			case ConfigElement.InterfaceDisable disable -> {
+				RouterInterface iface = editStagedInterface(disable.interfaceName());
+				if (iface == null || iface.isDisabled() == add) return;
+				if (add) iface.disable();
+				else iface.enable();
+			}
+			case ConfigElement.Route route -> {
+				StaticRoutingEntry entry = route.toEntry(this::getStagedInterface);
+				if (entry == null) {
+					logger.warning("%s: Skipping route %s, interface %s does not exist".formatted(router.getName(), route.subnet(), route.interfaceName()));
+				} else if (add) {
+					stagedRoutingTable.addRoute(entry);
+				} else {
+					stagedRoutingTable.removeRoute(entry);
+				}
+			}
+			case ConfigElement.RouteDisable disable -> {
+				StaticRoutingEntry entry = disable.route().toEntry(this::getStagedInterface);
+				StaticRoutingEntry staged = entry != null ? editStagedRoute(entry) : null;
+				if (staged == null || staged.isDisabled() == add) return;
+				if (add) staged.disable();
+				else staged.enable();
+			}
+		}
+	}
+
+	private Set<ConfigElement> runningElements() {
+		return ConfigElement.of(router.getInterfaces(), router.getRoutingTable());
+	}
+
+	private Set<ConfigElement> archivedElements(int revision) {
+		Set<ConfigElement> elements = revision == 0 ? runningElements() : archive.configuration(revision);
+		if (elements == null) {
+			throw new RevisionNotFoundException("Revision %d not found; %d revisions are available".formatted(revision, Math.max(archive.size(), 1)));
+		}
+		return elements;
+	}
+
+	/**
+	 * Drops all staged changes. The candidate shares the running configuration again.
+	 */
 	public void discard() {
-		this.stagedInterfaces = RoutingTableCopier.deepCopyInterfaces(router.getInterfaces());
-		this.stagedRoutingTable = RoutingTableCopier.copyRoutingTableWithUpdatedInterfaces(router.getRoutingTable(), this.stagedInterfaces);
+		this.stagedRoutingTable = new CandidateRoutingTable(router.getRoutingTable());
+		this.editedInterfaces.clear();
+		this.replacedInterfaces = null;
 		this.hasUncommittedChanges = false;
 	}
 
 	public void resetCandidateConfiguration() {
 		requireConfigMode("clear configuration");
-		for (RouterInterface iface : stagedInterfaces) {
+		for (RouterInterface running : getStagedInterfaces()) {
+			RouterInterface iface = editStagedInterface(running.getInterfaceName());
 			iface.setInterfaceAddress(null);
 			if (iface.getStatus().admin() == AdminState.ADMIN_DOWN) {
 				iface.enable();
@@ -85,4 +443,4 @@ public class ConfigurationSession {
 		this.stagedRoutingTable = new RoutingTable();
 		this.hasUncommittedChanges = true;
 	}
-}
\ No newline at end of file
+}
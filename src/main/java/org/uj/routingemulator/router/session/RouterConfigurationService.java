@@ -1,10 +1,14 @@
 package org.uj.routingemulator.router.session;
 
+import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.router.exceptions.*;
 import org.uj.routingemulator.router.model.*;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class RouterConfigurationService {
@@ -14,47 +18,23 @@ public class RouterConfigurationService {
 		requireConfigMode(router, "set [protocols]");
 		RouteValidator.validateSubnet(entry.getSubnet());
 		ConfigurationSession session = router.getConfigSession();
-		if (session.getStagedRoutingTable().contains(entry)) {
-			logger.warning("Attempted to add duplicate route: %s".formatted(entry));
-			throw new RouteAlreadyExistsException("Route already exists");
-		}
-		if (entry.getNextHop() != null) {
+		if (entry.getNextHop() != null && !session.getStagedRoutingTable().contains(entry)) {
 			logger.finer("Validating next-hop %s for the new route".formatted(entry.getNextHop()));
 			RouteValidator.validateNextHop(entry.getNextHop(), session.getStagedInterfaces());
 		}
-		session.getStagedRoutingTable().addRoute(entry);
-		session.setHasUncommittedChanges(true);
+		stageRoute(session, entry);
 		logger.info("%s: Creating static route %s".formatted(router.getName(), entry));
 	}
 
 	public void removeRoute(Router router, StaticRoutingEntry entry) {
 		requireConfigMode(router, "delete [protocols]");
-		ConfigurationSession session = router.getConfigSession();
-		if (!session.getStagedRoutingTable().getRoutingEntries().contains(entry)) {
-			logger.warning("Attempted to remove non-existent route: %s".formatted(entry));
-			throw new RouteNotFoundException("Nothing to delete");
-		}
-		session.getStagedRoutingTable().getRoutingEntries().remove(entry);
-		session.setHasUncommittedChanges(true);
+		unstageRoute(router.getConfigSession(), entry);
 		logger.info("%s: Route %s removed from staged configuration".formatted(router.getName(), entry));
 	}
 
 	public void disableRoute(Router router, StaticRoutingEntry entry) {
 		requireConfigMode(router, "set [protocols]");
-		ConfigurationSession session = router.getConfigSession();
-		List<StaticRoutingEntry> entries = session.getStagedRoutingTable().getRoutingEntries();
-		int idx = entries.indexOf(entry);
-		if (idx == -1) {
-			logger.warning("Attempted to disable non-existent route: %s".formatted(entry));
-			throw new RouteNotFoundException("Route not found");
-		}
-		StaticRoutingEntry existing = entries.get(idx);
-		if (existing.isDisabled()) {
-			logger.warning("Attempted to disable an already disabled route: %s".formatted(entry));
-			throw new RouteAlreadyDisabledException("Route already exists");
-		}
-		existing.disable();
-		session.setHasUncommittedChanges(true);
+		disableStagedRoute(router.getConfigSession(), entry);
 		logger.info("%s: Route %s disabled in staged configuration".formatted(router.getName(), entry));
 	}
 
@@ -62,10 +42,7 @@ public class RouterConfigurationService {
 		requireConfigMode(router, "set [interfaces]");
 		RouteValidator.validateInterfaceAddress(interfaceAddress, routerInterfaceName);
 		ConfigurationSession session = router.getConfigSession();
-		RouterInterface routerInterface = session.getStagedInterfaces().stream()
-				.filter(intf -> intf.getInterfaceName().equals(routerInterfaceName))
-				.findFirst()
-				.orElseThrow(() -> new InterfaceNotFoundException("WARN: interface " + routerInterfaceName + " does not exist, changes will not be commited"));
+		RouterInterface routerInterface = requireStagedInterface(session, routerInterfaceName);
 
 		if (routerInterface.getInterfaceAddress() != null && routerInterface.getInterfaceAddress().equals(interfaceAddress)) {
 			logger.warning("Attempted to assign duplicate address %s to interface %s".formatted(interfaceAddress, routerInterfaceName));
@@ -84,10 +61,7 @@ public class RouterConfigurationService {
 	public void disableInterface(Router router, String routerInterfaceName) {
 		requireConfigMode(router, "set [interfaces]");
 		ConfigurationSession session = router.getConfigSession();
-		RouterInterface routerInterface = session.getStagedInterfaces().stream()
-				.filter(intf -> intf.getInterfaceName().equals(routerInterfaceName))
-				.findFirst()
-				.orElseThrow(() -> new InterfaceNotFoundException("WARN: interface " + routerInterfaceName + " does not exist, changes will not be commited"));
+		RouterInterface routerInterface = requireStagedInterface(session, routerInterfaceName);
 
 		logger.info("%s: Disabling interface %s in staged configuration".formatted(router.getName(), routerInterfaceName));
 		routerInterface.disable();
@@ -97,10 +71,7 @@ public class RouterConfigurationService {
 	public void deleteInterfaceAddress(Router router, String routerInterfaceName) {
 		requireConfigMode(router, "delete [interfaces]");
 		ConfigurationSession session = router.getConfigSession();
-		RouterInterface routerInterface = session.getStagedInterfaces().stream()
-				.filter(intf -> intf.getInterfaceName().equals(routerInterfaceName))
-				.findFirst()
-				.orElseThrow(() -> new InterfaceNotFoundException("WARN: interface " + routerInterfaceName + " does not exist, changes will not be commited"));
+		RouterInterface routerInterface = requireStagedInterface(session, routerInterfaceName);
 
 		if (routerInterface.getInterfaceAddress() == null) {
 			logger.warning("Attempted to delete non-existent address from interface %s".formatted(routerInterfaceName));
@@ -111,6 +82,113 @@ public class RouterConfigurationService {
 		logger.info("%s: Address deleted from interface %s in staged configuration".formatted(router.getName(), routerInterfaceName));
 	}
 
+	/**
+	 * Applies a batch of changes to the candidate configuration.
+	 * <p>
+	 * Changes are applied in order and checked as by the single-change methods. The batch
+	 * stops at the first change that fails, leaving the earlier ones staged and the session
+	 * marked as having uncommitted changes; nothing is logged for the next-hops of a failed
+	 * batch.
+	 * <p>
+	 * Once every change is staged, each distinct next-hop of the added routes is checked once
+	 * against an index of the staged interfaces, so routes are validated against the
+	 * interfaces the whole batch configures, wherever they appear in it. Its warning is
+	 * logged once with the number of routes using it.
+	 *
+	 * @param router  router in configuration mode
+	 * @param changes changes to apply
+	 * @return one warning per distinct next-hop, in order of first use
+	 */
+	public List<String> applyChanges(Router router, List<ConfigChange> changes) {
+		requireConfigMode(router, "set");
+		ConfigurationSession session = router.getConfigSession();
+		Map<IPAddress, Integer> nextHopUses = new LinkedHashMap<>();
+		int routeChanges = 0;
+		for (ConfigChange change : changes) {
+			switch (change) {
+				case ConfigChange.ConfigureInterface c -> configureInterface(router, c.interfaceName(), c.address());
+				case ConfigChange.DisableInterface c -> disableInterface(router, c.interfaceName());
+				case ConfigChange.DeleteInterfaceAddress c -> deleteInterfaceAddress(router, c.interfaceName());
+				case ConfigChange.AddRoute c -> {
+					RouteValidator.validateSubnet(c.entry().getSubnet());
+					stageRoute(session, c.entry());
+					if (c.entry().getNextHop() != null) nextHopUses.merge(c.entry().getNextHop(), 1, Integer::sum);
+					routeChanges++;
+				}
+				case ConfigChange.RemoveRoute c -> {
+					unstageRoute(session, c.entry());
+					routeChanges++;
+				}
+				case ConfigChange.DisableRoute c -> {
+					disableStagedRoute(session, c.entry());
+					routeChanges++;
+				}
+			}
+		}
+
+		List<String> warnings = new ArrayList<>(nextHopUses.size());
+		if (!nextHopUses.isEmpty()) {
+			RouteValidator.NextHopIndex index = new RouteValidator.NextHopIndex(session.getStagedInterfaces());
+			nextHopUses.forEach((nextHop, uses) -> {
+				String warning = index.warning(nextHop);
+				warnings.add(uses > 1 ? "%s%nUsed by %d routes".formatted(warning, uses) : warning);
+			});
+			warnings.forEach(logger::warning);
+		}
+		logger.info("%s: Applied %d changes (%d route changes, %d distinct next-hops) to staged configuration"
+				.formatted(router.getName(), changes.size(), routeChanges, nextHopUses.size()));
+		return warnings;
+	}
+
+	/**
+	 * Adds a route to the staged table unless it is already there.
+	 */
+	private void stageRoute(ConfigurationSession session, StaticRoutingEntry entry) {
+		RoutingTable table = session.getStagedRoutingTable();
+		if (table.contains(entry)) {
+			logger.warning("Attempted to add duplicate route: %s".formatted(entry));
+			throw new RouteAlreadyExistsException("Route already exists");
+		}
+		table.addRoute(entry);
+		session.setHasUncommittedChanges(true);
+	}
+
+	/**
+	 * Removes a route from the staged table, which must contain it.
+	 */
+	private void unstageRoute(ConfigurationSession session, StaticRoutingEntry entry) {
+		if (!session.getStagedRoutingTable().removeRoute(entry)) {
+			logger.warning("Attempted to remove non-existent route: %s".formatted(entry));
+			throw new RouteNotFoundException("Nothing to delete");
+		}
+		session.setHasUncommittedChanges(true);
+	}
+
+	/**
+	 * Disables a staged route, which must exist and be enabled.
+	 */
+	private void disableStagedRoute(ConfigurationSession session, StaticRoutingEntry entry) {
+		StaticRoutingEntry existing = session.getStagedRoutingTable().find(entry);
+		if (existing == null) {
+			logger.warning("Attempted to disable non-existent route: %s".formatted(entry));
+			throw new RouteNotFoundException("Route not found");
+		}
+		if (existing.isDisabled()) {
+			logger.warning("Attempted to disable an already disabled route: %s".formatted(entry));
+			throw new RouteAlreadyDisabledException("Route already exists");
+		}
+		session.editStagedRoute(existing).disable();
+		session.setHasUncommittedChanges(true);
+	}
+
+	private RouterInterface requireStagedInterface(ConfigurationSession session, String routerInterfaceName) {
+		RouterInterface routerInterface = session.editStagedInterface(routerInterfaceName);
+		if (routerInterface == null) {
+			throw new InterfaceNotFoundException("WARN: interface " + routerInterfaceName + " does not exist, changes will not be commited");
+		}
+		return routerInterface;
+	}
+
 	private void requireConfigMode(Router router, String cmd) {
 		if (router.getMode() != RouterMode.CONFIGURATION) {
 			logger.warning("Attempted to " + cmd + " while in " + router.getMode() + " mode");
@@ -90,24 +90,22 @@ public class RouterConfigurationSession {
 
 	public void removeRoute(StaticRoutingEntry entry) {
 		requireConfigMode("delete [protocols]");
-		if (!stagedRoutingTable.getRoutingEntries().contains(entry)) {
+		if (!stagedRoutingTable.contains(entry)) {
 			logger.warning("Attempted to remove non-existent route: %s".formatted(entry));
 			throw new RouteNotFoundException("Nothing to delete");
 		}
-		stagedRoutingTable.getRoutingEntries().remove(entry);
+		stagedRoutingTable.removeRoute(entry);
 		hasUncommittedChanges = true;
 		logger.info("%s: Route %s removed from staged configuration".formatted(router.getName(), entry));
 	}
 
 	public void disableRoute(StaticRoutingEntry entry) {
 		requireConfigMode("set [protocols]");
-		List<StaticRoutingEntry> entries = stagedRoutingTable.getRoutingEntries();
-		int idx = entries.indexOf(entry);
-		if (idx == -1) {
+		StaticRoutingEntry existing = stagedRoutingTable.find(entry);
+		if (existing == null) {
 			logger.warning("Attempted to disable non-existent route: %s".formatted(entry));
 			throw new RouteNotFoundException("Route not found");
 		}
-		StaticRoutingEntry existing = entries.get(idx);
 		if (existing.isDisabled()) {
 			logger.warning("Attempted to disable an already disabled route: %s".formatted(entry));
 			throw new RouteAlreadyDisabledException("Route already exists");
@@ -0,0 +1,147 @@
+package org.uj.routingemulator.router.session;
+
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.DeviceId;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.router.exceptions.UncommittedChangesException;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterMode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Commits the configuration of many routers of a topology at once.
+ * <p>
+ * Routers do not share configuration state, so their commits are prepared in parallel on
+ * a bounded pool with {@link ConfigurationSession#prepareCommit()}. The prepared commits
+ * are then published together with {@link NetworkTopology#publishConfiguration}, as one
+ * configuration version: readers using {@link NetworkTopology#readConfiguration} see
+ * either all old or all new configurations. If any commit fails to prepare, none is
+ * published. Publishing only swaps in the prepared configurations and cannot fail once
+ * it has started.
+ * <p>
+ * Routers are identified by {@link DeviceId}, as their hash code changes with their
+ * configuration.
+ */
+public class TopologyCommitService {
+	private static final Logger logger = Logger.getLogger(TopologyCommitService.class.getName());
+
+	private final int parallelism;
+
+	public TopologyCommitService() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism maximum number of commits prepared at the same time
+	 */
+	public TopologyCommitService(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Commits every router of the topology that is in configuration mode with uncommitted
+	 * changes.
+	 *
+	 * @param topology topology of the routers
+	 * @return committed changes by router
+	 */
+	public Map<DeviceId, ConfigDiff> commitAll(NetworkTopology topology) {
+		List<Router> routers = new ArrayList<>();
+		for (Device device : topology.devices()) {
+			if (device instanceof Router router && router.getMode() == RouterMode.CONFIGURATION && router.hasUncommittedChanges()) {
+				routers.add(router);
+			}
+		}
+		return commit(topology, routers, router -> router.getConfigSession().prepareCommit());
+	}
+
+	/**
+	 * Replaces the configuration of several routers and commits them.
+	 * <p>
+	 * Each configuration is committed as a whole, as if it had been staged and committed
+	 * with the {@code commit} command, so the change is recorded in the router's archive.
+	 * The commits are prepared without staging anything in the routers' candidates or
+	 * changing their mode, so a failure leaves the routers as they were.
+	 *
+	 * @param topology       topology of the routers
+	 * @param configurations new configuration by router
+	 * @return committed changes by router
+	 * @throws IllegalArgumentException    if a router is not in the topology
+	 * @throws UncommittedChangesException if a router has uncommitted changes
+	 */
+	public Map<DeviceId, ConfigDiff> applyConfigurations(NetworkTopology topology, Map<DeviceId, RouterConfiguration> configurations) {
+		Map<DeviceId, Router> routersById = new HashMap<>();
+		for (Device device : topology.devices()) {
+			if (device instanceof Router router) {
+				routersById.put(router.getId(), router);
+			}
+		}
+		List<Router> routers = new ArrayList<>(configurations.size());
+		for (DeviceId id : configurations.keySet()) {
+			Router router = routersById.get(id);
+			if (router == null) {
+				throw new IllegalArgumentException("Router %s is not in the topology".formatted(id));
+			}
+			if (router.hasUncommittedChanges()) {
+				throw new UncommittedChangesException("Router %s has uncommitted changes. Commit or discard them first".formatted(router.getName()));
+			}
+			routers.add(router);
+		}
+		return commit(topology, routers, router -> router.getConfigSession().prepareReplacement(configurations.get(router.getId())));
+	}
+
+	private Map<DeviceId, ConfigDiff> commit(NetworkTopology topology, List<Router> routers, Function<Router, ConfigurationSession.PreparedCommit> preparation) {
+		if (routers.isEmpty()) {
+			return Map.of();
+		}
+		List<Callable<ConfigurationSession.PreparedCommit>> tasks = new ArrayList<>(routers.size());
+		for (Router router : routers) {
+			tasks.add(() -> preparation.apply(router));
+		}
+		List<ConfigurationSession.PreparedCommit> prepared = new ArrayList<>(routers.size());
+		try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, routers.size()))) {
+			List<Future<ConfigurationSession.PreparedCommit>> futures = executor.invokeAll(tasks);
+			RuntimeException failure = null;
+			for (Future<ConfigurationSession.PreparedCommit> future : futures) {
+				try {
+					prepared.add(future.get());
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+					}
+				}
+			}
+			if (failure != null) {
+				logger.warning("Commit of %d routers aborted: %s".formatted(routers.size(), failure.getMessage()));
+				throw failure;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while preparing commits", e);
+		}
+
+		Map<DeviceId, ConfigDiff> diffs = new LinkedHashMap<>();
+		for (int i = 0; i < routers.size(); i++) {
+			prepared.get(i).claim();
+			diffs.put(routers.get(i).getId(), prepared.get(i).diff());
+		}
+		long version = topology.publishConfiguration(() -> prepared.forEach(ConfigurationSession.PreparedCommit::apply));
+		logger.info("Committed %d routers as configuration version %d".formatted(routers.size(), version));
+		return diffs;
+	}
+}
@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.Setter;
 import org.uj.routingemulator.common.addressing.MacAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.topology.IndexAllocator;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkInterface;
 
 /**
@@ -16,6 +18,8 @@ import org.uj.routingemulator.common.topology.NetworkInterface;
 @Getter
 @Setter
 public class SwitchPort implements NetworkInterface {
+	private final int index = IndexAllocator.nextInterfaceIndex();
+	private final InterfaceCounters.Slot counterSlot = new InterfaceCounters.Slot();
 	private String interfaceName;
 	private Subnet subnet;
 	private MacAddress macAddress;
@@ -1,14 +1,28 @@
 package org.uj.routingemulator;
 
 import org.junit.jupiter.api.Test;
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.DeviceId;
 import org.uj.routingemulator.common.topology.NetworkTopology;
 import org.uj.routingemulator.router.cli.*;
 import org.uj.routingemulator.router.config.*;
 import org.uj.routingemulator.router.model.Router;
 import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RouterMode;
+import org.uj.routingemulator.router.model.RouterModeController;
+import org.uj.routingemulator.router.model.RoutingTable;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+import org.uj.routingemulator.router.session.ConfigDiff;
+import org.uj.routingemulator.router.session.RouterConfiguration;
+import org.uj.routingemulator.router.session.TopologyCommitService;
 
 import java.io.PrintWriter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -278,6 +292,36 @@ class ConfigurationTest {
 		assertEquals(5, router.getRoutingTable().getRoutingEntries().getFirst().getAdministrativeDistance());
 	}
 
+	@Test
+	void testHierarchicalConfigurationIgnoresRepeatedRouteAcrossInterfaceBlocks() {
+		Router router = new Router("R1", List.of(new RouterInterface("eth0"), new RouterInterface("eth1")));
+		String config = """
+				protocols {
+				    static {
+				        route 10.0.0.0/8 {
+				            interface eth1
+				        }
+				    }
+				}
+				interfaces {
+				    ethernet eth1 {
+				        address 192.168.2.1/24
+				    }
+				}
+				protocols {
+				    static {
+				        route 10.0.0.0/8 {
+				            interface eth1
+				        }
+				    }
+				}
+				""";
+
+		assertDoesNotThrow(() -> new HierarchicalConfigurationParser().loadConfiguration(router, config));
+		assertEquals(1, router.getRoutingTable().size());
+		assertEquals(router.findFromName("eth1"), router.getRoutingTable().getRoutingEntries().getFirst().getRouterInterface());
+	}
+
 	@Test
 	void testHierarchicalConfigurationGenerator() {
 		String config = getString();
@@ -291,4 +335,71 @@ class ConfigurationTest {
 		assertEquals("192.168.1.1", newRouter.findFromName("eth0").getInterfaceAddress().ipAddress().toString());
 		assertEquals("192.168.2.1", newRouter.findFromName("eth1").getInterfaceAddress().ipAddress().toString());
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testApplyConfigurationsPublishesOneVersion() {
+		NetworkTopology topology = new NetworkTopology();
+		Map<DeviceId, RouterConfiguration> configurations = new HashMap<>();
+		for (int i = 0; i < 8; i++) {
+			Router router = new Router("R" + i, List.of(new RouterInterface("eth0")));
+			topology.addDevice(router);
+			RouterInterface eth0 = new RouterInterface("eth0");
+			eth0.setInterfaceAddress(InterfaceAddress.fromString("10.0.%d.1/24".formatted(i)));
+			RoutingTable table = new RoutingTable();
+			table.addRoute(new StaticRoutingEntry(Subnet.fromString("172.16.0.0/16"), IPAddress.fromString("10.0.%d.2".formatted(i))));
+			configurations.put(router.getId(), new RouterConfiguration(List.of(eth0), table));
+		}
+		long version = topology.configurationVersion();
+
+		Map<DeviceId, ConfigDiff> diffs = new TopologyCommitService(3).applyConfigurations(topology, configurations);
+		assertEquals(version + 1, topology.configurationVersion());
+		assertEquals(8, diffs.size());
+		for (Device device : topology.devices()) {
+			Router router = (Router) device;
+			assertEquals(1, router.getRoutingTable().size());
+			assertEquals(RouterMode.OPERATIONAL, router.getMode());
+			assertEquals(2, diffs.get(router.getId()).count(ConfigDiff.Action.ADD));
+			assertEquals(2, router.getConfigSession().getArchive().size());
+		}
+
+		Router outside = new Router("R9");
+		Map<DeviceId, RouterConfiguration> unknown = Map.of(outside.getId(), new RouterConfiguration(List.of(), new RoutingTable()));
+		assertThrows(IllegalArgumentException.class, () -> new TopologyCommitService().applyConfigurations(topology, unknown));
+		assertEquals(version + 1, topology.configurationVersion());
+	}
+
+	@Test
+	void testCliCommitAndRollbackPublishConfigurationVersions() {
+		NetworkTopology topology = new NetworkTopology();
+		Router router = new Router("R1", List.of(new RouterInterface("eth0")));
+		topology.addDevice(router);
+		CliSession session = new CliSession(new DefaultCommandExecutor(new RouterCLIParser(CommandRegistry.defaultRegistry())),
+				new CommandExecutionContext(router, topology, new PrintWriterCommandOutput(new PrintWriter(System.out))));
+		long version = topology.configurationVersion();
+
+		session.execute("configure");
+		session.execute("set interfaces ethernet eth0 address 10.0.0.1/24");
+		session.execute("commit");
+		assertEquals(version + 1, topology.configurationVersion());
+		assertEquals("10.0.0.1", router.findFromName("eth0").getInterfaceAddress().ipAddress().toString());
+
+		session.execute("rollback 1");
+		assertEquals(version + 2, topology.configurationVersion());
+		assertNull(router.findFromName("eth0").getInterfaceAddress());
+	}
+
+	@Test
+	void testApplyConfigurationsKeepsModeAndCandidate() {
+		NetworkTopology topology = new NetworkTopology();
+		Router router = new Router("R1", List.of(new RouterInterface("eth0")));
+		topology.addDevice(router);
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		RouterInterface eth0 = new RouterInterface("eth0");
+		eth0.setInterfaceAddress(InterfaceAddress.fromString("10.0.0.1/24"));
+
+		new TopologyCommitService().applyConfigurations(topology, Map.of(router.getId(), new RouterConfiguration(List.of(eth0), new RoutingTable())));
+		assertEquals(RouterMode.CONFIGURATION, router.getMode());
+		assertFalse(router.hasUncommittedChanges());
+		assertEquals("10.0.0.1", router.getConfigSession().getStagedInterface("eth0").getInterfaceAddress().ipAddress().toString());
+	}
+}
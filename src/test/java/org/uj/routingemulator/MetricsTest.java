@@ -0,0 +1,53 @@
+package org.uj.routingemulator;
+
+import org.junit.jupiter.api.Test;
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricSeries;
+import org.uj.routingemulator.common.metrics.MetricsFormatter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+
+	@Test
+	void testSamplesAreDeltasKeptInRing() {
+		MetricsRegistry registry = new MetricsRegistry(4);
+		Counter counter = registry.counter("test.events");
+		for (int second = 1; second <= 6; second++) {
+			counter.add(second);
+			registry.sample();
+		}
+
+		MetricSeries series = registry.series("test.events").orElseThrow();
+		assertEquals(6, series.appended());
+		assertArrayEquals(new long[]{3, 4, 5, 6}, series.latest(10));
+		assertArrayEquals(new long[]{5, 6}, series.since(4));
+		assertEquals(21, counter.total());
+		assertSame(counter, registry.counter("test.events"));
+
+		// A counter created late is padded with idle samples
+		registry.counter("test.late").increment();
+		registry.sample();
+		assertArrayEquals(new long[]{0, 0, 0, 1}, registry.series("test.late").orElseThrow().latest(4));
+	}
+
+	@Test
+	void testFormatterShowsRatesAndHitRates() {
+		MetricsRegistry registry = new MetricsRegistry(60);
+		Counter hits = registry.counter("cache.hits");
+		Counter misses = registry.counter("cache.misses");
+		hits.add(3);
+		misses.add(1);
+		registry.sample();
+		hits.add(9);
+		registry.sample();
+
+		String output = MetricsFormatter.format(registry, "cache", 60);
+		assertTrue(output.contains("cache.hits"));
+		assertTrue(output.contains("92.3%"));
+		assertEquals("▁█", MetricsFormatter.sparkline(new long[]{0, 8}, 60));
+		assertEquals("▅█", MetricsFormatter.sparkline(new long[]{2, 2, 4, 4}, 2));
+		assertTrue(MetricsFormatter.format(registry, "nothing", 60).contains("No metrics match"));
+	}
+}
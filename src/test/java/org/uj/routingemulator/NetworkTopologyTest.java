@@ -4,13 +4,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.addressing.SubnetMask;
 import org.uj.routingemulator.common.topology.Connection;
 import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.NetworkTopologyVisualizer;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.topology.TopologyGraphAlgorithms;
+import org.uj.routingemulator.common.topology.TopologyIndex;
+import org.uj.routingemulator.common.topology.TopologyViewOptions;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.host.HostInterface;
 import org.uj.routingemulator.router.model.Router;
 import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
 import org.uj.routingemulator.switching.Switch;
 import org.uj.routingemulator.switching.SwitchPort;
 
@@ -354,4 +361,133 @@ class NetworkTopologyTest {
 		assertTrue(visualization.contains("eth0"));
 		assertTrue(visualization.contains("< >") || visualization.contains("--"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testDenseIndicesAreUniqueAndSharedByCopies() {
+		RouterInterface eth0 = router1.getInterfaces().getFirst();
+		RouterInterface staged = new RouterInterface(eth0);
+		staged.setDescription("staged change");
+
+		assertEquals(eth0.getIndex(), staged.getIndex());
+		assertSame(eth0.getCounterSlot(), staged.getCounterSlot());
+		assertNotEquals(eth0, staged);
+		assertEquals(eth0, new RouterInterface(eth0));
+		assertNotEquals(eth0.getIndex(), router1.getInterfaces().get(1).getIndex());
+		assertNotEquals(router1.getId().index(), router2.getId().index());
+	}
+
+	@Test
+	void testStaticRouteEqualityComparesInterfaceConfiguration() {
+		RouterInterface eth0 = router1.getInterfaces().getFirst();
+		RouterInterface sameConfiguration = new RouterInterface(eth0.getInterfaceName(), eth0.getInterfaceAddress(),
+				eth0.getMacAddress(), eth0.getMtu(), eth0.getStatus());
+		Subnet subnet = new Subnet(new IPAddress(10, 0, 0, 0), new SubnetMask(8));
+
+		assertNotEquals(eth0.getIndex(), sameConfiguration.getIndex());
+		assertEquals(new StaticRoutingEntry(subnet, eth0), new StaticRoutingEntry(subnet, sameConfiguration));
+
+		RouterInterface staged = new RouterInterface(eth0);
+		staged.setMtu(9000);
+		assertNotEquals(new StaticRoutingEntry(subnet, eth0), new StaticRoutingEntry(subnet, staged));
+	}
+
+	@Test
+	void testTopologyIndexIsSizedByTopology() {
+		for (int i = 0; i < 100; i++) {
+			new RouterInterface("eth" + i);
+		}
+		topology.addDevice(router1);
+		topology.addDevice(switch1);
+		topology.addConnection(new Connection(router1.getInterfaces().getFirst(), switch1.getPorts().getFirst()));
+
+		assertEquals(4, new TopologyIndex(topology).interfaceCapacity());
+		TopologyGraph graph = topology.graph();
+		assertEquals(4, graph.interfaceCount());
+		for (int id = 0; id < graph.interfaceCount(); id++) {
+			assertEquals(id, graph.interfaceOf(graph.networkInterface(id)));
+		}
+		assertEquals(-1, graph.interfaceOf(router2.getInterfaces().getFirst()));
+	}
+
+	@Test
+	void testTopologyIndexResolvesByInterfaceIndex() {
+		topology.addDevice(router1);
+		topology.addDevice(switch1);
+		Connection connection = new Connection(router1.getInterfaces().getFirst(), switch1.getPorts().getFirst());
+		topology.addConnection(connection);
+
+		TopologyIndex index = new TopologyIndex(topology);
+		RouterInterface copy = new RouterInterface(router1.getInterfaces().getFirst());
+
+		assertSame(router1, index.getRouterForInterface(copy));
+		assertSame(switch1, index.getDeviceForInterface(switch1.getPorts().getFirst()));
+		assertEquals(connection, index.getConnectionForInterface(copy));
+		assertNull(index.getConnectionForInterface(router2.getInterfaces().getFirst()));
+	}
+
+	@Test
+	void testGraphIsCachedPerVersion() {
+		topology.addDevice(router1);
+		topology.addDevice(switch1);
+		TopologyGraph first = topology.graph();
+		assertSame(first, topology.graph());
+
+		topology.addConnection(new Connection(router1.getInterfaces().getFirst(), switch1.getPorts().getFirst()));
+		TopologyGraph second = topology.graph();
+		assertNotSame(first, second);
+		assertEquals(topology.version(), second.version());
+		assertEquals(2, second.nodeCount());
+		assertEquals(2, second.edgeCount());
+		assertEquals(second.nodeOf(switch1), second.targets()[second.offsets()[second.nodeOf(router1)]]);
+	}
+
+	@Test
+	void testGraphAlgorithms() {
+		Router router3 = new Router("R3", List.of(new RouterInterface("eth0")));
+		topology.addDevice(router1);
+		topology.addDevice(router2);
+		topology.addDevice(switch1);
+		topology.addDevice(router3);
+		// R1 - SW1 - R2 chain, R3 isolated
+		topology.addConnection(new Connection(router1.getInterfaces().getFirst(), switch1.getPorts().get(0)));
+		topology.addConnection(new Connection(switch1.getPorts().get(1), router2.getInterfaces().getFirst()));
+
+		TopologyGraph graph = topology.graph();
+		int r1 = graph.nodeOf(router1);
+		int r2 = graph.nodeOf(router2);
+
+		int[] dist = TopologyGraphAlgorithms.bfs(graph, r1);
+		assertArrayEquals(dist, TopologyGraphAlgorithms.parallelBfs(graph, r1));
+		assertEquals(2, dist[r2]);
+		assertEquals(-1, dist[graph.nodeOf(router3)]);
+		assertArrayEquals(new int[]{r1, graph.nodeOf(switch1), r2}, TopologyGraphAlgorithms.shortestPath(graph, r1, r2));
+
+		assertEquals(2, TopologyGraphAlgorithms.componentCount(TopologyGraphAlgorithms.connectedComponents(graph)));
+		assertEquals(2, TopologyGraphAlgorithms.bridges(graph).length);
+		assertEquals(2, TopologyGraphAlgorithms.diameter(graph));
+	}
+
+	@Test
+	void testVisualizeWithFilterAndPaging() throws Exception {
+		topology.addDevice(router1);
+		topology.addDevice(router2);
+		topology.addDevice(switch1);
+		topology.addDevice(host1);
+		topology.addConnection(new Connection(router1.getInterfaces().getFirst(), switch1.getPorts().getFirst()));
+
+		StringBuilder routersOnly = new StringBuilder();
+		NetworkTopologyVisualizer.visualize(topology, routersOnly, TopologyViewOptions.all().withDeviceType(Router.class));
+		assertTrue(routersOnly.toString().contains("R1"));
+		assertTrue(routersOnly.toString().contains("R2"));
+		assertFalse(routersOnly.toString().contains("PC1"));
+		assertFalse(routersOnly.toString().contains("Hosts:"));
+		assertTrue(routersOnly.toString().contains("R1[eth0] < > SW1[GigabitEthernet0/1]"));
+
+		StringBuilder secondPage = new StringBuilder();
+		NetworkTopologyVisualizer.visualize(topology, secondPage, TopologyViewOptions.all().withNamePrefix("R").page(2, 1));
+		assertFalse(secondPage.toString().contains("R1\n"));
+		assertTrue(secondPage.toString().contains("R2"));
+		assertFalse(secondPage.toString().contains("Connections:"));
+		assertTrue(secondPage.toString().contains("Showing items 2-2 of 3"));
+	}
+}
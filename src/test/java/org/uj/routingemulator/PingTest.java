@@ -5,17 +5,43 @@ import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.addressing.SubnetMask;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.metrics.Counter;
+import org.uj.routingemulator.common.metrics.MetricsRegistry;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.ping.PingFormatter;
+import org.uj.routingemulator.common.ping.PingResult;
 import org.uj.routingemulator.common.ping.PingService;
 import org.uj.routingemulator.common.ping.PingStatistics;
+import org.uj.routingemulator.common.ping.PingSweep;
+import org.uj.routingemulator.common.ping.PingSweepResult;
+import org.uj.routingemulator.common.ping.PingSweepService;
+import org.uj.routingemulator.common.ping.ProbeModel;
+import org.uj.routingemulator.common.ping.TracerouteFormatter;
+import org.uj.routingemulator.common.ping.TracerouteResult;
+import org.uj.routingemulator.common.ping.TracerouteService;
 import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.TopologyQuery;
+import org.uj.routingemulator.common.traffic.TrafficEngine;
+import org.uj.routingemulator.common.traffic.TrafficFlow;
+import org.uj.routingemulator.common.traffic.TrafficReport;
 import org.uj.routingemulator.host.Host;
 import org.uj.routingemulator.host.HostInterface;
 import org.uj.routingemulator.router.model.*;
 import org.uj.routingemulator.router.session.RouterConfigurationService;
 import org.uj.routingemulator.switching.Switch;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PingTest {
     private final RouterConfigurationService routerConfigurationService = new RouterConfigurationService();
@@ -142,4 +168,368 @@ class PingTest {
         assertEquals(4, stats.getSent());
         assertEquals(0, stats.getReceived());
     }
-}
\ No newline at end of file
+
+    private NetworkTopology routedTopology(Host h1, Host h2) {
+        NetworkTopology topology = new NetworkTopology();
+        Router r = new Router("R1", List.of(new RouterInterface("eth0"), new RouterInterface("eth1")));
+        RouterModeController.setMode(r, RouterMode.CONFIGURATION);
+        routerConfigurationService.configureInterface(r, "eth0", InterfaceAddress.fromString("192.168.1.1/24"));
+        routerConfigurationService.configureInterface(r, "eth1", InterfaceAddress.fromString("192.168.2.1/24"));
+        r.getConfigSession().commit();
+        topology.addDevice(h1);
+        topology.addDevice(h2);
+        topology.addDevice(r);
+        topology.addConnection(new Connection(h1.getHostInterface(), r.getInterfaces().get(0)));
+        topology.addConnection(new Connection(h2.getHostInterface(), r.getInterfaces().get(1)));
+        return topology;
+    }
+
+    @Test
+    void testPingSweepStreamsEveryAddress() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+
+        Counter batchDecisions = MetricsRegistry.global().counter("forwarding.decisions.misses");
+        long decisionsBefore = batchDecisions.total();
+
+        List<PingSweepResult> results = new CopyOnWriteArrayList<>();
+        PingSweep sweep = new PingSweepService().sweep(h1, Subnet.fromString("192.168.2.0/24"), 1, topology, results::add);
+        sweep.completion().join();
+
+        // Deterministic sweeps are forwarded in batches
+        assertTrue(batchDecisions.total() - decisionsBefore >= 254);
+        PingService single = new PingService();
+        for (PingSweepResult result : List.of(results.getFirst(), results.getLast())) {
+            assertEquals(single.ping(h1, result.destination(), 1, topology).results(), result.statistics().results());
+        }
+
+        assertEquals(254, sweep.total());
+        assertEquals(254, results.size());
+        assertEquals(sweep.reachable(), results.stream().filter(PingSweepResult::reachable).count());
+        assertTrue(results.stream().anyMatch(r -> r.reachable() && r.destination().equals(new IPAddress(192, 168, 2, 2))));
+        assertTrue(results.stream().noneMatch(r -> r.reachable() && r.destination().equals(new IPAddress(192, 168, 2, 3))));
+    }
+
+    @Test
+    void testPingSweepCancellation() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+
+        PingSweep[] handle = new PingSweep[1];
+        List<PingSweepResult> results = new CopyOnWriteArrayList<>();
+        synchronized (handle) {
+            handle[0] = new PingSweepService(1).sweep(h1, Subnet.fromString("192.168.2.0/24"), 1, topology, r -> {
+                results.add(r);
+                synchronized (handle) {
+                    handle[0].cancel();
+                }
+            });
+        }
+        handle[0].completion().join();
+
+        assertTrue(handle[0].isCancelled());
+        assertEquals(1, results.size());
+        assertEquals(1, handle[0].completed());
+    }
+
+    @Test
+    void testNonDeterministicSweepPingsEachDestinationConcurrently() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        AtomicInteger probes = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ProbeModel slow = new ProbeModel() {
+            @Override
+            public PingResult result(int sequence, ForwardingOutcome outcome) {
+                probes.incrementAndGet();
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                return ProbeModel.hopLatency(1, 1).result(sequence, outcome);
+            }
+
+            @Override
+            public boolean isDeterministic() {
+                return false;
+            }
+        };
+
+        List<PingSweepResult> results = new CopyOnWriteArrayList<>();
+        PingSweep sweep = new PingSweepService(new PingService(slow), 4)
+                .sweep(h1, Subnet.fromString("192.168.2.0/28"), 2, topology, results::add);
+        sweep.completion().join();
+
+        // Every destination is pinged on its own thread, at most maxInFlight at a time
+        assertEquals(14, results.size());
+        assertEquals(28, probes.get());
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(maxInFlight.get() <= 4);
+        assertEquals(2, results.stream().filter(PingSweepResult::reachable).count());
+    }
+
+    @Test
+    void testDeterministicPingForwardsOnce() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        AtomicInteger forwarded = new AtomicInteger();
+        Function<InterfaceCounters, ForwardingEngine> countingEngines = counters -> new ForwardingEngine(counters) {
+            @Override
+            public ForwardingOutcome forward(Packet packet, Host srcHost, TopologyQuery topologyQuery) {
+                if (packet.getType() == Packet.PacketType.ICMP_ECHO_REQUEST) forwarded.incrementAndGet();
+                return super.forward(packet, srcHost, topologyQuery);
+            }
+        };
+
+        PingStatistics stats = new PingService(countingEngines, ProbeModel.hopLatency(1, 1))
+                .ping(h1, "192.168.2.2", 1_000_000, topology);
+
+        assertEquals(1, forwarded.get());
+        assertEquals(1_000_000, stats.getSent());
+        assertEquals(1_000_000, stats.getReceived());
+        assertEquals(1_000_000, stats.results().getLast().sequence());
+        assertEquals(stats.results().getFirst().rttMs(), stats.results().getLast().rttMs());
+    }
+
+    @Test
+    void testNonDeterministicPingForwardsEveryProbe() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        AtomicInteger forwarded = new AtomicInteger();
+        ProbeModel everyOtherLost = new ProbeModel() {
+            @Override
+            public PingResult result(int sequence, ForwardingOutcome outcome) {
+                forwarded.incrementAndGet();
+                boolean lost = sequence % 2 == 0;
+                return new PingResult(sequence, outcome.reached() && !lost, outcome.hopCount(), lost ? 0 : sequence, lost ? "lost" : null);
+            }
+
+            @Override
+            public boolean isDeterministic() {
+                return false;
+            }
+        };
+
+        PingStatistics stats = new PingService(everyOtherLost).ping(h1, "192.168.2.2", 10, topology);
+
+        assertEquals(10, forwarded.get());
+        assertEquals(10, stats.getSent());
+        assertEquals(5, stats.getReceived());
+    }
+
+    @Test
+    void testPingListenerStopsWhenInterrupted() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+
+        PingStatistics stats;
+        try {
+            stats = new PingService().ping(h1, new IPAddress(192, 168, 2, 2), 100, topology, result -> {
+                seen.add(result.sequence());
+                if (result.sequence() == 3) Thread.currentThread().interrupt();
+            });
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertEquals(List.of(1, 2, 3), seen);
+        assertEquals(3, stats.getSent());
+        assertEquals(3, stats.getReceived());
+    }
+
+    @Test
+    void testStreamingStatisticsSummarizeWithoutKeepingResults() {
+        PingStatistics stats = PingStatistics.streaming(5);
+        for (int seq = 1; seq <= 100_000; seq++) {
+            boolean lost = seq % 10 == 0;
+            stats.record(new PingResult(seq, !lost, 3, lost ? 0 : seq % 100, lost ? "lost" : null));
+        }
+
+        assertEquals(100_000, stats.getSent());
+        assertEquals(90_000, stats.getReceived());
+        assertEquals(10.0, stats.getLossPercent(), 1e-9);
+        assertEquals(1, stats.getMinRttMs());
+        assertEquals(99, stats.getMaxRttMs());
+        assertEquals(50.0, stats.getAvgRttMs(), 1e-9);
+        // RTTs below 64 ms are exact, larger ones within one 2 ms bucket
+        assertEquals(49, stats.getRttPercentileMs(50));
+        assertTrue(Math.abs(stats.getRttPercentileMs(99) - 99) <= 2);
+        assertEquals(List.of(99_996, 99_997, 99_998, 99_999, 100_000),
+                stats.results().stream().map(PingResult::sequence).toList());
+    }
+
+    @Test
+    void testListStatisticsMatchFormatterSummary() {
+        PingStatistics stats = new PingStatistics(List.of(
+                new PingResult(1, true, 2, 10, null),
+                new PingResult(2, true, 2, 20, null),
+                new PingResult(3, false, 2, 0, "lost"),
+                new PingResult(4, true, 2, 30, null)));
+
+        assertEquals(20.0, stats.getAvgRttMs(), 1e-9);
+        assertEquals(Math.sqrt(200.0 / 3), stats.getMdevRttMs(), 1e-9);
+        String output = PingFormatter.format(new IPAddress(10, 0, 0, 1), new IPAddress(10, 0, 0, 2), 64, stats);
+        assertTrue(output.contains("4 packets transmitted, 3 received, +1 errors, 25% packet loss"));
+        assertTrue(output.contains("rtt min/avg/max/mdev = 10.00/20.00/30.00/8.16 ms"));
+        assertTrue(output.contains("rtt p50/p99 = 20/30 ms"));
+    }
+
+    @Test
+    void testTracerouteListsEveryHop() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+
+        TracerouteResult result = new TracerouteService().trace(h1, new IPAddress(192, 168, 2, 2), 30, topology);
+
+        assertTrue(result.reached());
+        assertEquals(2, result.hops().size());
+        assertEquals(new IPAddress(192, 168, 1, 1), result.hops().getFirst().responder());
+        assertEquals("R1", result.hops().getFirst().deviceName());
+        assertEquals(new IPAddress(192, 168, 2, 2), result.hops().get(1).responder());
+        String text = TracerouteFormatter.format(result);
+        assertTrue(text.startsWith("traceroute to 192.168.2.2 (192.168.2.2), 30 hops max"));
+        assertTrue(text.contains(" 1  192.168.1.1 (192.168.1.1)"));
+        assertTrue(text.contains(" 2  192.168.2.2 (192.168.2.2)"));
+    }
+
+    @Test
+    void testTracerouteMarksUnreachableNetwork() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+
+        TracerouteResult result = new TracerouteService().trace(h1, new IPAddress(172, 16, 0, 1), 30, topology);
+
+        assertFalse(result.reached());
+        assertEquals(2, result.hops().size());
+        assertEquals("!N", result.hops().get(1).flag());
+        assertTrue(TracerouteFormatter.format(result).contains(" 2  192.168.1.1 (192.168.1.1)  3.000 ms !N"));
+    }
+
+    @Test
+    void testTracerouteFromRouterSkipsSourceRouter() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        Router r = (Router) topology.devices().get(2);
+
+        TracerouteResult result = new TracerouteService().trace(r, new IPAddress(192, 168, 2, 2), 30, topology);
+
+        assertTrue(result.reached());
+        assertEquals(1, result.hops().size());
+    }
+
+    @Test
+    void testForwardingUpdatesInterfaceCounters() {
+        NetworkTopology topology = new NetworkTopology();
+        Host h1 = new Host("h1", new HostInterface("eth0", new InterfaceAddress(new IPAddress(192, 168, 1, 2), new SubnetMask(24)), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", new InterfaceAddress(new IPAddress(192, 168, 2, 2), new SubnetMask(24)), new IPAddress(192, 168, 2, 1)));
+        Router r = new Router("R1", List.of(new RouterInterface("eth0"), new RouterInterface("eth1")));
+        RouterModeController.setMode(r, RouterMode.CONFIGURATION);
+        routerConfigurationService.configureInterface(r, "eth0", InterfaceAddress.fromString("192.168.1.1/24"));
+        routerConfigurationService.configureInterface(r, "eth1", InterfaceAddress.fromString("192.168.2.1/24"));
+        r.getConfigSession().commit();
+
+        topology.addDevice(h1);
+        topology.addDevice(h2);
+        topology.addDevice(r);
+        topology.addConnection(new Connection(h1.getHostInterface(), r.getInterfaces().get(0)));
+        topology.addConnection(new Connection(h2.getHostInterface(), r.getInterfaces().get(1)));
+
+        ForwardingEngine engine = new ForwardingEngine();
+        for (int i = 0; i < 3; i++) {
+            engine.forward(new Packet(IPAddress.fromString("192.168.1.2"), IPAddress.fromString("192.168.2.2"), Packet.PacketType.ICMP_ECHO_REQUEST, 64), h1, topology);
+        }
+        engine.forward(new Packet(IPAddress.fromString("192.168.1.2"), IPAddress.fromString("192.168.2.3"), Packet.PacketType.ICMP_ECHO_REQUEST, 64), h1, topology);
+        engine.forward(new Packet(IPAddress.fromString("192.168.1.2"), IPAddress.fromString("10.0.0.1"), Packet.PacketType.ICMP_ECHO_REQUEST, 64), h1, topology);
+
+        InterfaceCounters.Snapshot sent = h1.getHostInterface().getCounters();
+        assertEquals(5, sent.txPackets());
+        assertEquals(5 * 84, sent.txBytes());
+        InterfaceCounters.Snapshot ingress = r.getInterface("eth0").getCounters();
+        assertEquals(5, ingress.rxPackets());
+        assertEquals(1, ingress.rxDrops(), "No route to 10.0.0.1");
+        InterfaceCounters.Snapshot egress = r.getInterface("eth1").getCounters();
+        assertEquals(3, egress.txPackets());
+        assertEquals(1, egress.txDrops(), "No host 192.168.2.3 on the subnet");
+        assertEquals(3, h2.getHostInterface().getCounters().rxPackets());
+
+        r.getInterface("eth0").clearCounters();
+        assertEquals(new InterfaceCounters.Snapshot(0, 0, 0, 0, 0, 0), r.getInterface("eth0").getCounters());
+        assertEquals(3, r.getInterface("eth1").getCounters().txPackets());
+    }
+
+    @Test
+    void testPingCountsEveryProbeAndReply() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        Router r = (Router) topology.devices().get(2);
+
+        new PingService().ping(h1, "192.168.2.2", 5, topology);
+        assertEquals(new InterfaceCounters.Snapshot(5, 5 * 84, 0, 5, 5 * 84, 0), h1.getHostInterface().getCounters());
+        assertEquals(new InterfaceCounters.Snapshot(5, 5 * 84, 0, 5, 5 * 84, 0), h2.getHostInterface().getCounters());
+        assertEquals(new InterfaceCounters.Snapshot(5, 5 * 84, 0, 5, 5 * 84, 0), r.getInterface("eth1").getCounters());
+
+        new PingService().ping(h1, "10.0.0.1", 3, topology);
+        assertEquals(3, r.getInterface("eth0").getCounters().rxDrops(), "No route to 10.0.0.1");
+        assertEquals(8, h1.getHostInterface().getCounters().txPackets());
+        assertEquals(5, h1.getHostInterface().getCounters().rxPackets());
+    }
+
+    @Test
+    void testBatchedSweepCountsLikeSinglePings() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology swept = routedTopology(h1, h2);
+        new PingSweepService().sweep(h1, Subnet.fromString("192.168.2.0/29"), 3, swept, result -> {
+        }).completion().join();
+
+        Host p1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host p2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology pinged = routedTopology(p1, p2);
+        for (int host = 1; host <= 6; host++) {
+            new PingService().ping(p1, new IPAddress(192, 168, 2, host), 3, pinged);
+        }
+
+        // Requests to both reachable addresses and their replies, three probes each
+        assertEquals(new InterfaceCounters.Snapshot(6, 6 * 84, 0, 18, 18 * 84, 0), h1.getHostInterface().getCounters());
+        assertEquals(new InterfaceCounters.Snapshot(3, 3 * 84, 0, 3, 3 * 84, 0), h2.getHostInterface().getCounters());
+        assertEquals(p1.getHostInterface().getCounters(), h1.getHostInterface().getCounters());
+        assertEquals(p2.getHostInterface().getCounters(), h2.getHostInterface().getCounters());
+        Router sweptRouter = (Router) swept.devices().get(2);
+        Router pingedRouter = (Router) pinged.devices().get(2);
+        for (String name : List.of("eth0", "eth1")) {
+            assertEquals(pingedRouter.getInterface(name).getCounters(), sweptRouter.getInterface(name).getCounters(), name);
+        }
+    }
+
+    @Test
+    void testTrafficLeavesInterfaceCountersAlone() {
+        Host h1 = new Host("h1", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), new IPAddress(192, 168, 1, 1)));
+        Host h2 = new Host("h2", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), new IPAddress(192, 168, 2, 1)));
+        NetworkTopology topology = routedTopology(h1, h2);
+        Router r = (Router) topology.devices().get(2);
+        IPAddress dst = IPAddress.fromString("192.168.2.2");
+
+        TrafficReport report = new TrafficEngine().route(topology, List.of(new TrafficFlow(h1, dst, 1_000_000), new TrafficFlow(h1, dst, 1_000_000)));
+        // Flow load is an estimate kept in the report, not forwarded traffic
+        assertEquals(2_000_000, report.deliveredBps());
+        for (var iface : List.of(h1.getHostInterface(), h2.getHostInterface(), r.getInterface("eth0"), r.getInterface("eth1"))) {
+            assertEquals(new InterfaceCounters.Snapshot(0, 0, 0, 0, 0, 0), InterfaceCounters.global().get(iface));
+        }
+    }
+}
@@ -3,14 +3,23 @@ package org.uj.routingemulator;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
 import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.gui.services.BackgroundTask;
+import org.uj.routingemulator.gui.services.RouterCLIService;
 import org.uj.routingemulator.router.cli.*;
+import org.uj.routingemulator.router.model.RouteSummary;
 import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
 import org.uj.routingemulator.router.model.RouterMode;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +59,34 @@ class RouterCLITest {
 		assertTrue(outputStream.toString().contains("[edit]"));
 	}
 
+	@Test
+	void testAsyncCommandsChangingRouterStateRunOnCallingThread() {
+		RouterCLIService cliService = new RouterCLIService(new NetworkTopology());
+		List<Thread> writers = new CopyOnWriteArrayList<>();
+
+		BackgroundTask configure = cliService.executeCommandAsync("configure", router, text -> writers.add(Thread.currentThread()));
+		assertTrue(configure.isDone());
+		assertEquals(RouterMode.CONFIGURATION, router.getMode());
+		assertEquals(List.of(Thread.currentThread()), writers);
+
+		writers.clear();
+		cliService.executeCommandAsync("show interfaces", router, text -> writers.add(Thread.currentThread())).completion().join();
+		assertFalse(writers.isEmpty());
+		assertTrue(writers.stream().allMatch(Thread::isVirtual));
+		assertTrue(CommandRegistry.defaultRegistry().isReadOnly("ping 10.0.0.1"));
+		assertFalse(CommandRegistry.defaultRegistry().isReadOnly("commit"));
+	}
+
+	@Test
+	void testBackgroundTaskCompletesExceptionallyOnError() {
+		BackgroundTask task = BackgroundTask.start("failing", () -> {
+			throw new StackOverflowError();
+		});
+		CompletionException failure = assertThrows(CompletionException.class, () -> task.completion().join());
+		assertInstanceOf(StackOverflowError.class, failure.getCause());
+		assertTrue(task.isDone());
+	}
+
 	@Test
 	void testConfigureCommandFromConfigurationMode() {
 		session.execute("configure");
@@ -629,4 +666,287 @@ class RouterCLITest {
 		assertTrue(output.contains("eth0"), "Should list eth0");
 		assertTrue(output.contains("A/D") || output.contains("A/u"), "Should show admin down status");
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testShowTopologyPaged() {
+		NetworkTopology topology = new NetworkTopology();
+		for (int i = 1; i <= 5; i++) {
+			topology.addDevice(new Router("R" + i));
+		}
+		CliSession populated = new CliSession(new DefaultCommandExecutor(new RouterCLIParser(CommandRegistry.defaultRegistry())),
+				new CommandExecutionContext(router, topology, new PrintWriterCommandOutput(new PrintWriter(outputStream, true))));
+
+		String[][] pages = {{"R1", "R2"}, {"R3", "R4"}, {"R5"}};
+		String[] ranges = {"Showing items 1-2 of 5", "Showing items 3-4 of 5", "Showing items 5-5 of 5"};
+		for (int page = 1; page <= pages.length; page++) {
+			outputStream.reset();
+			populated.execute("show topology routers page-size 2 page " + page);
+			String output = normalizeOutput(outputStream.toString());
+			assertTrue(output.contains("=== Network Topology ==="));
+			assertTrue(output.contains(ranges[page - 1]), output);
+			for (int i = 1; i <= 5; i++) {
+				boolean onPage = List.of(pages[page - 1]).contains("R" + i);
+				assertEquals(onPage, output.contains("    R" + i + "\n"), "page %d, R%d".formatted(page, i));
+			}
+		}
+
+		outputStream.reset();
+		populated.execute("show topology routers page-size 2 page 4");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("No items in range (5 matching)"));
+		assertFalse(output.contains("    R"));
+	}
+
+	@Test
+	void testOptionalSyntaxCommandsStillParse() {
+		String[][] cases = {
+				{"ping 10.0.0.1", "ping"},
+				{"ping -c 2 -t 5 10.0.0.1", "ping"},
+				{"ping -x 10.0.0.1", "Invalid option: -x"},
+				{"traceroute 10.0.0.1", "traceroute"},
+				{"traceroute -m 0 10.0.0.1", "Invalid max-hops value"},
+				{"compare 3", "Invalid command: compare"},
+				{"monitor seconds 30", "Activity over the last 30 s"},
+				{"show traffic", "No traffic matrix loaded"},
+				{"show traffic sort speed", "Invalid sort key: speed"},
+				{"show ip route page x", "Invalid page value"},
+				{"show ip route summary", "Route Source"},
+				{"show topology page x", "Invalid page value"},
+				{"clear interfaces counters eth9", "Interface eth9 does not exist on this router"},
+		};
+		for (String[] c : cases) {
+			outputStream.reset();
+			session.execute(c[0]);
+			String output = normalizeOutput(outputStream.toString());
+			assertFalse(output.contains("Command not recognized"), c[0]);
+			assertFalse(output.contains("Ambiguous command"), c[0]);
+			assertTrue(output.contains(c[1]), "%s printed: %s".formatted(c[0], output));
+		}
+	}
+
+	@Test
+	void testOptionalSyntaxMatchesLiteralHeadOnly() {
+		CommandSyntax topology = new CommandSyntax("show topology [hosts|switches|routers] [page <n>]");
+		assertEquals("show topology routers page 2", topology.parseFully("  show topology routers page 2 ").orElseThrow().get("rawInput"));
+		assertTrue(topology.parseFully("show topology").isPresent());
+		assertTrue(topology.parseFully("show interfaces").isEmpty());
+		assertTrue(topology.parseFully("show").isEmpty());
+		assertTrue(topology.matchesPrefix("show top"));
+		assertFalse(topology.matchesPrefix("show interfaces"));
+
+		CommandSyntax ping = new CommandSyntax("ping [-c <count>] <ip>");
+		assertTrue(ping.parseFully("ping -c 3 10.0.0.1").isPresent());
+		assertTrue(ping.parseFully("pingx 10.0.0.1").isEmpty());
+		assertTrue(ping.matchesPrefix("pi"));
+	}
+
+	@Test
+	void testShowTopologyInvalidOption() {
+		session.execute("show topology page x");
+		assertTrue(outputStream.toString().contains("Invalid page value"));
+	}
+
+	@Test
+	void testShowTrafficWithoutMatrix() {
+		session.execute("show traffic");
+		assertTrue(outputStream.toString().contains("No traffic matrix loaded"));
+	}
+
+	@Test
+	void testShowTrafficInvalidSortKey() {
+		session.execute("show traffic sort speed");
+		assertTrue(outputStream.toString().contains("Invalid sort key: speed"));
+	}
+
+	@Test
+	void testMonitorListsMatchingCounters() {
+		session.execute("monitor config seconds 30");
+		String output = outputStream.toString();
+		assertTrue(output.contains("Activity over the last 30 s"));
+		assertTrue(output.contains("config.commits"));
+		assertFalse(output.contains("forwarding.packets"));
+	}
+
+	@Test
+	void testMonitorInvalidSeconds() {
+		session.execute("monitor seconds 0");
+		assertTrue(outputStream.toString().contains("Invalid seconds value"));
+	}
+
+	@Test
+	void testCompareShowsStagedChanges() {
+		session.execute("configure");
+		session.execute("compare");
+		assertTrue(outputStream.toString().contains("No changes between working and active configurations."));
+		session.execute("set interfaces ethernet eth0 address 10.0.0.1/24");
+		session.execute("set protocols static route 192.168.0.0/16 next-hop 10.0.0.2");
+		outputStream.reset();
+		session.execute("compare");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("+ set interfaces ethernet eth0 address 10.0.0.1/24\n+ set protocols static route 192.168.0.0/16 next-hop 10.0.0.2"));
+		assertTrue(router.getRoutingTable().getRoutingEntries().isEmpty());
+
+		outputStream.reset();
+		session.execute("commit");
+		assertTrue(normalizeOutput(outputStream.toString()).contains("+ set protocols static route 192.168.0.0/16 next-hop 10.0.0.2\n[edit]"));
+		assertEquals(1, router.getRoutingTable().getRoutingEntries().size());
+	}
+
+	@Test
+	void testRollbackRestoresArchivedRevision() {
+		session.execute("configure");
+		session.execute("set interfaces ethernet eth0 address 10.0.0.1/24");
+		session.execute("set protocols static route 192.168.0.0/16 next-hop 10.0.0.2");
+		session.execute("commit");
+		session.execute("set interfaces ethernet eth0 address 10.0.1.1/24");
+		session.execute("set protocols static route 192.168.0.0/16 next-hop 10.0.0.2 disable");
+		session.execute("commit");
+
+		outputStream.reset();
+		session.execute("compare 1");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("- set interfaces ethernet eth0 address 10.0.0.1/24\n+ set interfaces ethernet eth0 address 10.0.1.1/24"));
+		assertTrue(output.contains("+ set protocols static route 192.168.0.0/16 next-hop 10.0.0.2 disable"));
+
+		outputStream.reset();
+		session.execute("rollback 1");
+		assertTrue(normalizeOutput(outputStream.toString()).contains("- set protocols static route 192.168.0.0/16 next-hop 10.0.0.2 disable"));
+		assertEquals("10.0.0.1/24", router.getInterface("eth0").getInterfaceAddress().toString());
+		assertFalse(router.getRoutingTable().getRoutingEntries().getFirst().isDisabled());
+
+		outputStream.reset();
+		session.execute("rollback 3");
+		assertTrue(router.getRoutingTable().isEmpty());
+		assertNull(router.getInterface("eth0").getInterfaceAddress());
+
+		outputStream.reset();
+		session.execute("rollback 9");
+		assertTrue(outputStream.toString().contains("Revision 9 not found"));
+	}
+
+	@Test
+	void testShowIpRouteNumericOrderAndFilters() {
+		session.execute("configure");
+		session.execute("set interfaces ethernet eth0 address 10.0.0.1/24");
+		session.execute("set protocols static route 192.168.0.0/16 next-hop 10.0.0.2");
+		session.execute("set protocols static route 10.1.0.0/16 next-hop 10.0.0.2");
+		session.execute("set protocols static route 1.0.0.0/8 next-hop 10.0.0.2");
+		session.execute("set protocols static route 10.0.0.0/8 next-hop 10.0.0.2");
+		session.execute("commit");
+		session.execute("exit");
+
+		outputStream.reset();
+		session.execute("show ip route");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("S>* 1.0.0.0/8 [1] via 10.0.0.2\nS>* 10.0.0.0/8 [1] via 10.0.0.2\n"
+				+ "C>* 10.0.0.0/24 is directly connected, eth0\nS>* 10.1.0.0/16 [1] via 10.0.0.2\nS>* 192.168.0.0/16"));
+
+		outputStream.reset();
+		session.execute("show ip route 10.0.0.0/8 longer-prefixes");
+		output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("10.0.0.0/24") && output.contains("10.1.0.0/16"));
+		assertFalse(output.contains("1.0.0.0/8 ") || output.contains("192.168.0.0/16"));
+
+		outputStream.reset();
+		session.execute("show ip route 10.1.2.3");
+		output = normalizeOutput(outputStream.toString());
+		assertTrue(output.startsWith("Routing entry for 10.1.0.0/16\nS>* 10.1.0.0/16"));
+
+		outputStream.reset();
+		session.execute("show ip route 172.16.0.0/12");
+		assertTrue(outputStream.toString().contains("% Network not in table"));
+
+		outputStream.reset();
+		session.execute("show ip route page 2 page-size 2");
+		output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("C>* 10.0.0.0/24"));
+		assertFalse(output.contains("1.0.0.0/8 "));
+		assertTrue(output.contains("Showing routes 3-4, more on page 3"));
+	}
+
+	@Test
+	void testShowIpRouteSummaryFollowsCommits() {
+		session.execute("configure");
+		session.execute("set interfaces ethernet eth0 address 10.0.0.1/24");
+		session.execute("set protocols static route 192.168.0.0/16 next-hop 10.0.0.2");
+		session.execute("set protocols static route 10.1.0.0/16 next-hop 10.0.0.2");
+		session.execute("set protocols static route 1.0.0.0/8 next-hop 10.0.0.2");
+		session.execute("set protocols static route 1.0.0.0/8 next-hop 10.0.0.2 disable");
+		session.execute("commit");
+		session.execute("exit");
+
+		RouteSummary summary = router.getRouteSummary();
+		assertEquals(1, summary.connectedFibRoutes());
+		assertEquals(3, summary.staticRoutes());
+		assertEquals(2, summary.staticFibRoutes());
+		assertEquals(1, summary.disabledRoutes());
+		assertEquals(2, summary.fibRoutes(16));
+		assertEquals(1, summary.fibRoutes(24));
+
+		outputStream.reset();
+		session.execute("show ip route summary");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("static               3                    2\n"));
+		assertTrue(output.contains("Totals               4                    3\n"));
+		assertTrue(output.contains("/16                  2\n"));
+		assertFalse(output.contains("Routers"));
+
+		session.execute("configure");
+		session.execute("set interfaces ethernet eth0 disable");
+		session.execute("delete protocols static route 10.1.0.0/16 next-hop 10.0.0.2");
+		session.execute("commit");
+		session.execute("exit");
+
+		summary = router.getRouteSummary();
+		assertEquals(1, summary.connectedRoutes());
+		assertEquals(0, summary.connectedFibRoutes());
+		assertEquals(2, summary.staticRoutes());
+		assertEquals(0, summary.fibRoutes(24));
+		assertEquals(summary.totalFibRoutes() * 160L, summary.fibMemoryBytes());
+
+		NetworkTopology topology = new NetworkTopology();
+		topology.addDevice(router);
+		for (int i = 2; i <= 3; i++) {
+			Router other = new Router("R" + i, List.of(new RouterInterface("eth0")));
+			topology.addDevice(other);
+			CliSession otherSession = new CliSession(new DefaultCommandExecutor(new RouterCLIParser(CommandRegistry.defaultRegistry())),
+					new CommandExecutionContext(other, topology, new PrintWriterCommandOutput(new PrintWriter(OutputStream.nullOutputStream()))));
+			otherSession.execute("configure");
+			otherSession.execute("set interfaces ethernet eth0 address 10.0.%d.1/24".formatted(i));
+			otherSession.execute("set protocols static route 172.16.0.0/16 next-hop 10.0.%d.2".formatted(i));
+			otherSession.execute("commit");
+			otherSession.execute("exit");
+		}
+		RouteSummary total = RouteSummary.of(topology);
+		assertEquals(3, total.connectedRoutes());
+		assertEquals(2, total.connectedFibRoutes());
+		assertEquals(4, total.staticRoutes());
+		assertEquals(3, total.staticFibRoutes());
+
+		outputStream.reset();
+		CliSession topologySession = new CliSession(new DefaultCommandExecutor(new RouterCLIParser(CommandRegistry.defaultRegistry())),
+				new CommandExecutionContext(router, topology, new PrintWriterCommandOutput(new PrintWriter(outputStream, true))));
+		topologySession.execute("show ip route summary all");
+		output = normalizeOutput(outputStream.toString());
+		assertTrue(output.startsWith("Routers              3\n"));
+		assertTrue(output.contains("static               4                    3\n"));
+		assertTrue(output.contains("Totals               7                    5\n"));
+	}
+
+	@Test
+	void testShowAndClearInterfaceCounters() {
+		InterfaceCounters.global().transmitted(router.getInterface("eth0"), 84);
+
+		session.execute("show interfaces counters");
+		String output = normalizeOutput(outputStream.toString());
+		assertTrue(output.contains("Rx Packets"));
+		assertTrue(output.matches("(?s).*eth0 +0 +0 +0 +1 +84 +0\n.*"));
+
+		outputStream.reset();
+		session.execute("clear interfaces counters eth9");
+		assertTrue(outputStream.toString().contains("Interface eth9 does not exist on this router"));
+
+		session.execute("clear interfaces counters");
+		assertEquals(0, router.getInterface("eth0").getCounters().txPackets());
+	}
+}
@@ -5,12 +5,23 @@ import org.uj.routingemulator.common.addressing.IPAddress;
 import org.uj.routingemulator.common.addressing.InterfaceAddress;
 import org.uj.routingemulator.common.addressing.Subnet;
 import org.uj.routingemulator.common.addressing.SubnetMask;
+import org.uj.routingemulator.router.exceptions.InterfaceNotFoundException;
 import org.uj.routingemulator.router.exceptions.InvalidModeException;
+import org.uj.routingemulator.router.exceptions.RevisionNotFoundException;
 import org.uj.routingemulator.router.exceptions.RouteAlreadyExistsException;
 import org.uj.routingemulator.router.exceptions.RouteNotFoundException;
 import org.uj.routingemulator.router.model.*;
+import org.uj.routingemulator.router.session.CommitArchive;
+import org.uj.routingemulator.router.session.ConfigChange;
+import org.uj.routingemulator.router.session.ConfigDiff;
 import org.uj.routingemulator.router.session.RouterConfigurationService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class RouterTest {
@@ -149,4 +160,262 @@ class RouterTest {
 		assertNotNull(iface);
 		assertEquals(address, iface.getInterfaceAddress());
 	}
-}
\ No newline at end of file
+
+	@Test
+	void testCommitAppliesOnlyStagedDeltas() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		routerConfigurationService.configureInterface(router, "eth0", new InterfaceAddress(new IPAddress(10, 0, 0, 1), new SubnetMask(24)));
+		StaticRoutingEntry first = new StaticRoutingEntry(new Subnet(new IPAddress(192, 168, 1, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 2));
+		StaticRoutingEntry second = new StaticRoutingEntry(new Subnet(new IPAddress(192, 168, 2, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 3));
+		StaticRoutingEntry third = new StaticRoutingEntry(new Subnet(new IPAddress(192, 168, 3, 0), new SubnetMask(24)), router.findFromName("eth0"), 20);
+		routerConfigurationService.addRoute(router, first);
+		routerConfigurationService.addRoute(router, second);
+		routerConfigurationService.addRoute(router, third);
+		ConfigDiff initial = router.getConfigSession().commit();
+		assertEquals(4, initial.count(ConfigDiff.Action.ADD));
+		assertSame(router.getInterfaces().getFirst(), router.getRoutingTable().getRoutingEntries().get(2).getRouterInterface());
+
+		routerConfigurationService.removeRoute(router, new StaticRoutingEntry(first));
+		routerConfigurationService.addRoute(router, new StaticRoutingEntry(first));
+		routerConfigurationService.disableRoute(router, new StaticRoutingEntry(second));
+		routerConfigurationService.removeRoute(router, new StaticRoutingEntry(third));
+		assertEquals("+ set protocols static route 192.168.2.0/24 next-hop 10.0.0.3 disable\n"
+				+ "- set protocols static route 192.168.3.0/24 interface eth0 distance 20",
+				router.getConfigSession().compare().format());
+
+		ConfigDiff diff = router.getConfigSession().commit();
+		assertEquals(router.getConfigSession().compare(), ConfigDiff.EMPTY);
+		assertEquals(2, diff.changes().size());
+		assertEquals(router.getConfigSession().getStagedRoutingTable(), router.getRoutingTable());
+		assertEquals(java.util.List.of(second, first), router.getRoutingTable().getRoutingEntries());
+		assertTrue(router.getRoutingTable().getRoutingEntries().getFirst().isDisabled());
+		assertFalse(router.getRoutingTable().getRoutingEntries().get(1).isDisabled());
+	}
+
+	@Test
+	void testRoutingTableIndexesRoutesByKey() {
+		RouterInterface eth1 = new RouterInterface("eth1");
+		RoutingTable table = new RoutingTable();
+		for (int i = 0; i < 1000; i++) {
+			table.addRoute(new StaticRoutingEntry(new Subnet(new IPAddress(10, i / 256, i % 256, 0), new SubnetMask(24)), new IPAddress(192, 168, 0, 1)));
+		}
+		StaticRoutingEntry viaInterface = new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, 0, 0), new SubnetMask(12)), eth1, 5);
+		table.addRoute(viaInterface);
+
+		StaticRoutingEntry lookup = new StaticRoutingEntry(new Subnet(new IPAddress(10, 1, 2, 0), new SubnetMask(24)), new IPAddress(192, 168, 0, 1));
+		assertTrue(table.contains(lookup));
+		assertNotSame(lookup, table.find(lookup));
+		assertFalse(table.contains(new StaticRoutingEntry(new Subnet(new IPAddress(10, 1, 2, 0), new SubnetMask(24)), new IPAddress(192, 168, 0, 1), 2)));
+		assertSame(viaInterface, table.find(new StaticRoutingEntry(viaInterface.getSubnet(), new RouterInterface(eth1), 5)));
+
+		assertTrue(table.removeRoute(lookup));
+		assertFalse(table.removeRoute(lookup));
+		assertEquals(1000, table.size());
+		assertEquals(new IPAddress(10, 1, 1, 0), table.getRoutingEntries().get(257).getSubnet().networkAddress());
+		assertEquals(new IPAddress(10, 1, 3, 0), table.getRoutingEntries().get(258).getSubnet().networkAddress());
+		assertSame(viaInterface, table.getRoutingEntries().getLast());
+		assertThrows(UnsupportedOperationException.class, () -> table.getRoutingEntries().add(lookup));
+	}
+
+	@Test
+	void testRoutingTableFindsRoutesThroughAnEqualInterface() {
+		RouterInterface eth1 = new RouterInterface("eth1");
+		eth1.setInterfaceAddress(InterfaceAddress.fromString("192.168.1.1/24"));
+		RouterInterface equalEth1 = new RouterInterface("eth1");
+		equalEth1.setInterfaceAddress(eth1.getInterfaceAddress());
+		equalEth1.setMacAddress(eth1.getMacAddress());
+		assertEquals(eth1, equalEth1);
+		assertNotEquals(eth1.getIndex(), equalEth1.getIndex());
+
+		RoutingTable table = new RoutingTable();
+		StaticRoutingEntry route = new StaticRoutingEntry(new Subnet(new IPAddress(10, 0, 0, 0), new SubnetMask(8)), eth1);
+		table.addRoute(route);
+		StaticRoutingEntry lookup = new StaticRoutingEntry(route.getSubnet(), equalEth1);
+		assertEquals(route, lookup);
+
+		assertTrue(table.contains(lookup));
+		assertSame(route, table.find(lookup));
+		assertFalse(table.contains(new StaticRoutingEntry(route.getSubnet(), new RouterInterface("eth2"))));
+		assertTrue(table.removeRoute(lookup));
+		assertTrue(table.isEmpty());
+		assertEquals(0, table.getSummary().staticRoutes());
+	}
+
+	@Test
+	void testInterfaceNameIndexFollowsModeAndReset() {
+		java.util.List<RouterInterface> interfaces = new java.util.ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			interfaces.add(new RouterInterface("eth" + i));
+		}
+		Router router = new Router("Router", interfaces);
+		assertSame(interfaces.get(1500), router.findFromName("eth1500"));
+		assertNull(router.findFromName("eth2000"));
+
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		assertSame(interfaces.get(1500), router.findFromName("eth1500"));
+
+		routerConfigurationService.configureInterface(router, "eth1500", new InterfaceAddress(new IPAddress(10, 1, 1, 1), new SubnetMask(24)));
+		RouterInterface staged = router.findFromName("eth1500");
+		assertNotSame(interfaces.get(1500), staged);
+		assertSame(staged, router.getConfigSession().getStagedInterface("eth1500"));
+		assertSame(interfaces.get(1500), router.getInterface("eth1500"));
+		assertNull(interfaces.get(1500).getInterfaceAddress());
+		router.getConfigSession().commit();
+		RouterModeController.setMode(router, RouterMode.OPERATIONAL);
+		assertSame(interfaces.get(1500), router.findFromName("eth1500"));
+		assertEquals(new IPAddress(10, 1, 1, 1), router.findFromName("eth1500").getInterfaceAddress().ipAddress());
+
+		router.reset();
+		assertNull(router.findFromName("eth1500"));
+		assertNotNull(router.findFromName("eth0"));
+		assertSame(router.getInterfaces().getFirst(), router.getInterface("eth0"));
+	}
+
+	@Test
+	void testCandidateSharesRunningConfigurationUntilEdited() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		routerConfigurationService.configureInterface(router, "eth0", new InterfaceAddress(new IPAddress(10, 0, 0, 1), new SubnetMask(24)));
+		for (int i = 0; i < 500; i++) {
+			routerConfigurationService.addRoute(router, new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, i / 256, i % 256), new SubnetMask(32)), new IPAddress(10, 0, 0, 2)));
+		}
+		router.getConfigSession().commit();
+		RoutingTable running = router.getRoutingTable();
+		RouterModeController.setMode(router, RouterMode.OPERATIONAL);
+
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		RoutingTable staged = router.getConfigSession().getStagedRoutingTable();
+		assertSame(running.getRoutingEntries(), staged.getRoutingEntries());
+		assertSame(router.getInterfaces().getFirst(), router.getConfigSession().getStagedInterfaces().getFirst());
+
+		StaticRoutingEntry tenth = running.getRoutingEntries().get(10);
+		routerConfigurationService.disableRoute(router, new StaticRoutingEntry(tenth));
+		routerConfigurationService.removeRoute(router, new StaticRoutingEntry(running.getRoutingEntries().get(20)));
+		assertFalse(tenth.isDisabled());
+		assertTrue(staged.getRoutingEntries().get(10).isDisabled());
+		assertNotSame(tenth, staged.getRoutingEntries().get(10));
+		assertSame(running.getRoutingEntries().get(11), staged.getRoutingEntries().get(11));
+		assertEquals(499, staged.size());
+		assertEquals(500, running.size());
+
+		// Candidate counts follow the changes, including the route disabled in place
+		routerConfigurationService.addRoute(router, new StaticRoutingEntry(new Subnet(new IPAddress(192, 168, 0, 0), new SubnetMask(16)), new IPAddress(10, 0, 0, 3)));
+		RouteSummary candidate = staged.getSummary();
+		RouteSummary scanned = new RoutingTable(staged).getSummary();
+		assertEquals(scanned.staticRoutes(), candidate.staticRoutes());
+		assertEquals(scanned.staticFibRoutes(), candidate.staticFibRoutes());
+		assertEquals(scanned.fibRoutes(32), candidate.fibRoutes(32));
+		assertEquals(1, candidate.fibRoutes(16));
+		assertEquals(500, candidate.staticRoutes());
+		assertEquals(499, candidate.staticFibRoutes());
+		assertEquals(500, running.getSummary().staticFibRoutes());
+		routerConfigurationService.removeRoute(router, new StaticRoutingEntry(new Subnet(new IPAddress(192, 168, 0, 0), new SubnetMask(16)), new IPAddress(10, 0, 0, 3)));
+
+		router.getConfigSession().discard();
+		assertEquals(running, router.getConfigSession().getStagedRoutingTable());
+		assertFalse(router.getConfigSession().getStagedRoutingTable().getRoutingEntries().get(10).isDisabled());
+	}
+
+	@Test
+	void testCommitArchiveKeepsBoundedHistory() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		router.getConfigSession().getArchive().setRetentionPolicy(new CommitArchive.RetentionPolicy(5, 2));
+		for (int i = 0; i < 10; i++) {
+			routerConfigurationService.addRoute(router, new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, i, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 2)));
+			router.getConfigSession().commit();
+		}
+		assertEquals(5, router.getConfigSession().getArchive().size());
+
+		ConfigDiff diff = router.getConfigSession().compare(4);
+		assertEquals(4, diff.count(ConfigDiff.Action.ADD));
+		assertEquals(0, diff.count(ConfigDiff.Action.DELETE));
+		assertThrows(RevisionNotFoundException.class, () -> router.getConfigSession().compare(5));
+
+		router.getConfigSession().rollback(3);
+		assertEquals(7, router.getRoutingTable().size());
+		assertEquals(5, router.getConfigSession().getArchive().size());
+		assertEquals(3, router.getConfigSession().compare(1).count(ConfigDiff.Action.DELETE));
+	}
+
+	@Test
+	void testApplyChangesValidatesEachNextHopOnce() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		List<ConfigChange> changes = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			IPAddress nextHop = i % 2 == 0 ? new IPAddress(10, 0, 0, 2) : new IPAddress(192, 168, 1, 1);
+			changes.add(new ConfigChange.AddRoute(new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, i / 256, i % 256), new SubnetMask(32)), nextHop)));
+		}
+		changes.add(new ConfigChange.DisableRoute(new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, 0, 0), new SubnetMask(32)), new IPAddress(10, 0, 0, 2))));
+		changes.add(new ConfigChange.ConfigureInterface("eth0", new InterfaceAddress(new IPAddress(10, 0, 0, 1), new SubnetMask(24))));
+
+		List<String> warnings = routerConfigurationService.applyChanges(router, changes);
+		assertEquals(2, warnings.size());
+		assertTrue(warnings.get(0).startsWith("Next-hop interface 10.0.0.2/24 not found on the router"));
+		assertTrue(warnings.get(0).endsWith("Used by 500 routes"));
+		assertTrue(warnings.get(1).contains("is not a directly connected neighbor"));
+		assertEquals(1000, router.getConfigSession().getStagedRoutingTable().size());
+		assertTrue(router.getConfigSession().getStagedRoutingTable().getRoutingEntries().getFirst().isDisabled());
+		assertTrue(router.hasUncommittedChanges());
+
+		List<ConfigChange> duplicate = List.of(changes.getFirst());
+		assertThrows(RouteAlreadyExistsException.class, () -> routerConfigurationService.applyChanges(router, duplicate));
+	}
+
+	@Test
+	void testApplyChangesMarksChangesStagedBeforeAFailure() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		StaticRoutingEntry route = new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, 0, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 2));
+		List<ConfigChange> changes = List.of(new ConfigChange.AddRoute(route), new ConfigChange.AddRoute(route));
+
+		assertThrows(RouteAlreadyExistsException.class, () -> routerConfigurationService.applyChanges(router, changes));
+		assertEquals(1, router.getConfigSession().getStagedRoutingTable().size());
+		assertTrue(router.hasUncommittedChanges());
+		assertThrows(RouteNotFoundException.class, () -> routerConfigurationService.removeRoute(router,
+				new StaticRoutingEntry(new Subnet(new IPAddress(172, 17, 0, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 2))));
+	}
+
+	@Test
+	void testApplyChangesStagesInOrderAndWarnsOnlyOnSuccess() {
+		Router router = new Router("Router");
+		RouterModeController.setMode(router, RouterMode.CONFIGURATION);
+		StaticRoutingEntry route = new StaticRoutingEntry(new Subnet(new IPAddress(172, 16, 0, 0), new SubnetMask(24)), new IPAddress(10, 0, 0, 2));
+		List<String> logged = new ArrayList<>();
+		Handler handler = new Handler() {
+			@Override
+			public void publish(LogRecord record) {
+				logged.add(record.getMessage());
+			}
+
+			@Override
+			public void flush() {
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		Logger serviceLogger = Logger.getLogger(RouterConfigurationService.class.getName());
+		serviceLogger.addHandler(handler);
+		try {
+			List<ConfigChange> failing = List.of(new ConfigChange.AddRoute(route),
+					new ConfigChange.ConfigureInterface("eth0", new InterfaceAddress(new IPAddress(10, 0, 0, 1), new SubnetMask(24))),
+					new ConfigChange.ConfigureInterface("eth9", new InterfaceAddress(new IPAddress(10, 0, 1, 1), new SubnetMask(24))));
+			assertThrows(InterfaceNotFoundException.class, () -> routerConfigurationService.applyChanges(router, failing));
+			// Changes before the failing one are staged, in order, and no next-hop warning is logged
+			assertTrue(router.getConfigSession().getStagedRoutingTable().contains(route));
+			assertEquals(new InterfaceAddress(new IPAddress(10, 0, 0, 1), new SubnetMask(24)), router.getConfigSession().getStagedInterfaces().getFirst().getInterfaceAddress());
+			assertTrue(logged.stream().noneMatch(message -> message.startsWith("Next-hop interface")));
+
+			router.getConfigSession().discard();
+			List<String> warnings = routerConfigurationService.applyChanges(router, failing.subList(0, 2));
+			assertEquals(1, warnings.size());
+			assertTrue(logged.contains(warnings.getFirst()));
+		} finally {
+			serviceLogger.removeHandler(handler);
+		}
+	}
+}
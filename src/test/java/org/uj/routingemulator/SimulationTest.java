@@ -0,0 +1,561 @@
+package org.uj.routingemulator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.uj.routingemulator.common.addressing.IPAddress;
+import org.uj.routingemulator.common.addressing.InterfaceAddress;
+import org.uj.routingemulator.common.addressing.Subnet;
+import org.uj.routingemulator.common.forwarding.ForwardingEngine;
+import org.uj.routingemulator.common.forwarding.ForwardingOutcome;
+import org.uj.routingemulator.common.ping.PingResult;
+import org.uj.routingemulator.common.ping.PingStatistics;
+import org.uj.routingemulator.common.packet.Packet;
+import org.uj.routingemulator.common.packet.PacketBatch;
+import org.uj.routingemulator.common.packet.PacketBatchPool;
+import org.uj.routingemulator.common.ping.PingSweepResult;
+import org.uj.routingemulator.common.ping.PingSweepService;
+import org.uj.routingemulator.common.ping.SimulatedPingService;
+import org.uj.routingemulator.common.results.ResultColumns;
+import org.uj.routingemulator.common.results.ResultDiff;
+import org.uj.routingemulator.common.results.ResultStore;
+import org.uj.routingemulator.common.results.ResultTable;
+import org.uj.routingemulator.common.simulation.BatchForwarder;
+import org.uj.routingemulator.common.simulation.EventScheduler;
+import org.uj.routingemulator.common.simulation.ForwardingRequest;
+import org.uj.routingemulator.common.simulation.LabDefinition;
+import org.uj.routingemulator.common.simulation.PacketSimulator;
+import org.uj.routingemulator.common.simulation.ShardCoordinator;
+import org.uj.routingemulator.common.simulation.ShardEndpoint;
+import org.uj.routingemulator.common.simulation.ShardFrame;
+import org.uj.routingemulator.common.simulation.ShardFrameCodec;
+import org.uj.routingemulator.common.simulation.ShardLauncher;
+import org.uj.routingemulator.common.simulation.ShardScope;
+import org.uj.routingemulator.common.simulation.ShardWorker;
+import org.uj.routingemulator.common.simulation.ShardedForwardingSimulator;
+import org.uj.routingemulator.common.simulation.TopologyPartitioner;
+import org.uj.routingemulator.common.topology.Connection;
+import org.uj.routingemulator.common.topology.Device;
+import org.uj.routingemulator.common.topology.InterfaceCounters;
+import org.uj.routingemulator.common.topology.LinkProfile;
+import org.uj.routingemulator.common.topology.NetworkTopology;
+import org.uj.routingemulator.common.topology.TopologyGraph;
+import org.uj.routingemulator.common.traffic.LinkLoad;
+import org.uj.routingemulator.common.traffic.TrafficEngine;
+import org.uj.routingemulator.common.traffic.TrafficFlow;
+import org.uj.routingemulator.common.traffic.TrafficReport;
+import org.uj.routingemulator.common.traffic.TrafficSortKey;
+import org.uj.routingemulator.host.Host;
+import org.uj.routingemulator.host.HostInterface;
+import org.uj.routingemulator.router.model.Router;
+import org.uj.routingemulator.router.model.RouterInterface;
+import org.uj.routingemulator.router.model.RouterMode;
+import org.uj.routingemulator.router.model.RouterModeController;
+import org.uj.routingemulator.router.model.StaticRoutingEntry;
+import org.uj.routingemulator.router.session.RouterConfigurationService;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the parallel and event-driven simulation engines on a chain of routers:
+ * hostA - R0 - R1 - ... - R(n-1) - hostB.
+ */
+class SimulationTest {
+	private static final int CHAIN_LENGTH = 8;
+
+	private final RouterConfigurationService service = new RouterConfigurationService();
+	private NetworkTopology topology;
+	private List<Router> routers;
+	private Host hostA;
+	private Host hostB;
+
+	/**
+	 * Builds the chain, or the part of it in a shard scope; public so worker processes can
+	 * build it from its class name.
+	 */
+	public static class ChainLab implements LabDefinition {
+		private final RouterConfigurationService service = new RouterConfigurationService();
+
+		@Override
+		public NetworkTopology build(ShardScope scope) {
+			NetworkTopology topology = new NetworkTopology();
+			List<Router> routers = new ArrayList<>();
+			for (int i = 0; i < CHAIN_LENGTH; i++) {
+				if (!scope.includes("R" + i)) {
+					routers.add(null);
+					continue;
+				}
+				Router r = new Router("R" + i, List.of(new RouterInterface("eth0"), new RouterInterface("eth1"), new RouterInterface("eth2")));
+				RouterModeController.setMode(r, RouterMode.CONFIGURATION);
+				service.configureInterface(r, "eth0", InterfaceAddress.fromString("10.0.%d.2/24".formatted(i - 1 < 0 ? 250 : i - 1)));
+				service.configureInterface(r, "eth1", InterfaceAddress.fromString("10.0.%d.1/24".formatted(i)));
+				if (i < CHAIN_LENGTH - 1) {
+					service.addRoute(r, new StaticRoutingEntry(Subnet.fromString("192.168.2.0/24"), IPAddress.fromString("10.0.%d.2".formatted(i))));
+				}
+				if (i > 0) {
+					service.addRoute(r, new StaticRoutingEntry(Subnet.fromString("192.168.1.0/24"), IPAddress.fromString("10.0.%d.1".formatted(i - 1))));
+				}
+				routers.add(r);
+			}
+			if (routers.getFirst() != null) {
+				service.configureInterface(routers.getFirst(), "eth2", InterfaceAddress.fromString("192.168.1.1/24"));
+			}
+			if (routers.getLast() != null) {
+				service.configureInterface(routers.getLast(), "eth2", InterfaceAddress.fromString("192.168.2.1/24"));
+			}
+			for (Router r : routers) {
+				if (r == null) continue;
+				r.getConfigSession().commit();
+				RouterModeController.setMode(r, RouterMode.OPERATIONAL);
+				topology.addDevice(r);
+			}
+			for (int i = 0; i + 1 < CHAIN_LENGTH; i++) {
+				if (routers.get(i) != null && routers.get(i + 1) != null) {
+					topology.addConnection(new Connection(routers.get(i).findFromName("eth1"), routers.get(i + 1).findFromName("eth0")));
+				}
+			}
+
+			if (scope.includes("hostA")) {
+				Host hostA = new Host("hostA", new HostInterface("eth0", InterfaceAddress.fromString("192.168.1.2/24"), IPAddress.fromString("192.168.1.1")));
+				topology.addDevice(hostA);
+				topology.addConnection(new Connection(hostA.getHostInterface(), routers.getFirst().findFromName("eth2")));
+			}
+			if (scope.includes("hostB")) {
+				Host hostB = new Host("hostB", new HostInterface("eth0", InterfaceAddress.fromString("192.168.2.2/24"), IPAddress.fromString("192.168.2.1")));
+				topology.addDevice(hostB);
+				topology.addConnection(new Connection(hostB.getHostInterface(), routers.getLast().findFromName("eth2")));
+			}
+			return topology;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		topology = new ChainLab().build();
+		routers = new ArrayList<>();
+		for (Device device : topology.devices()) {
+			switch (device) {
+				case Router r -> routers.add(r);
+				case Host h when h.getHostname().equals("hostA") -> hostA = h;
+				case Host h -> hostB = h;
+				default -> {
+				}
+			}
+		}
+	}
+
+	private List<ForwardingRequest> mixedRequests(int count) {
+		List<ForwardingRequest> requests = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			switch (i % 3) {
+				case 0 -> requests.add(ForwardingRequest.fromHost(hostA, IPAddress.fromString("192.168.2.2"), 64));
+				case 1 -> requests.add(ForwardingRequest.fromHost(hostB, IPAddress.fromString("192.168.1.2"), 64));
+				default -> requests.add(ForwardingRequest.fromHost(hostA, IPAddress.fromString("172.16.0.1"), 64));
+			}
+		}
+		return requests;
+	}
+
+	@Test
+	void testPartitionKeepsShardsContiguousAndBalanced() {
+		TopologyGraph graph = topology.graph();
+		int[] shards = TopologyPartitioner.partition(graph, 2);
+
+		assertEquals(graph.nodeCount(), shards.length);
+		long inFirst = Arrays.stream(shards).filter(s -> s == 0).count();
+		assertTrue(inFirst > 0 && inFirst < shards.length);
+		// A chain split into two contiguous halves cuts exactly one link
+		assertEquals(1, TopologyPartitioner.cutConnections(graph, shards));
+	}
+
+	@Test
+	void testShardedSimulationMatchesSequentialForwarding() {
+		List<ForwardingRequest> requests = mixedRequests(300);
+		ForwardingEngine engine = new ForwardingEngine();
+		List<ForwardingOutcome> expected = mixedRequests(300).stream()
+				.map(r -> engine.forward(r.packet(), (Host) r.source(), topology))
+				.toList();
+
+		try (ShardedForwardingSimulator simulator = new ShardedForwardingSimulator(topology, 3)) {
+			List<ForwardingOutcome> outcomes = simulator.forwardAll(requests);
+			assertEquals(expected, outcomes);
+			assertTrue(outcomes.getFirst().reached());
+			assertEquals(CHAIN_LENGTH + 1, outcomes.getFirst().hopCount());
+			assertFalse(outcomes.get(2).reached());
+			assertTrue(simulator.handoffCount() > 0);
+		}
+	}
+
+	@Test
+	void testSocketShardedSimulationMatchesSequentialForwarding() throws Exception {
+		List<ForwardingRequest> requests = mixedRequests(90);
+		ForwardingEngine engine = new ForwardingEngine();
+		List<ForwardingOutcome> expected = mixedRequests(90).stream()
+				.map(r -> engine.forward(r.packet(), (Host) r.source(), topology))
+				.toList();
+
+		SocketAddress anyPort = ShardEndpoint.parseAddress("tcp:0");
+		List<ShardScope> scopes = ShardScope.partition(topology, 2);
+		try (ShardWorker worker0 = new ShardWorker(new ChainLab(), scopes.get(0), anyPort);
+			 ShardWorker worker1 = new ShardWorker(new ChainLab(), scopes.get(1), anyPort)) {
+			Map<Integer, SocketAddress> endpoints = new HashMap<>();
+			endpoints.put(0, worker0.localAddress());
+			endpoints.put(1, worker1.localAddress());
+			try (ShardCoordinator coordinator = new ShardCoordinator(topology, 2, anyPort)) {
+				endpoints.put(ShardEndpoint.COORDINATOR, coordinator.localAddress());
+				worker0.start(endpoints);
+				worker1.start(endpoints);
+				coordinator.connect(endpoints);
+
+				List<ForwardingOutcome> outcomes = coordinator.forwardAll(requests);
+				assertEquals(expected, outcomes);
+				assertEquals(CHAIN_LENGTH + 1, outcomes.getFirst().hopCount());
+			}
+			worker0.awaitShutdown();
+			worker1.awaitShutdown();
+		}
+	}
+
+	@Test
+	void testShardFailureFrameTruncatesMessageAtCharacterBoundary() {
+		String message = "błąd ".repeat(100);
+		ByteBuffer buffer = ByteBuffer.allocate(2 * ShardFrameCodec.MAX_FRAME_BYTES);
+		ShardFrameCodec.encode(new ShardFrame.Failure(7, message), buffer);
+		buffer.flip();
+		int length = buffer.getInt();
+		assertTrue(length <= ShardFrameCodec.MAX_FRAME_BYTES);
+
+		ShardFrame.Failure decoded = (ShardFrame.Failure) ShardFrameCodec.decode(buffer.limit(ShardFrameCodec.HEADER_BYTES + length));
+		assertEquals(7, decoded.requestId());
+		assertTrue(message.startsWith(decoded.message()));
+		assertTrue(decoded.message().length() > 100);
+	}
+
+	@Test
+	void testShardWorkersHoldOnlyTheirPartition() throws Exception {
+		SocketAddress anyPort = ShardEndpoint.parseAddress("tcp:0");
+		List<ShardScope> scopes = ShardScope.partition(topology, 2);
+		TopologyGraph graph = topology.graph();
+		int[] shards = TopologyPartitioner.partition(graph, 2);
+		Map<String, Integer> shardOf = new HashMap<>();
+		for (int u = 0; u < graph.nodeCount(); u++) {
+			shardOf.put(graph.device(u).getDeviceName(), shards[u]);
+		}
+		List<String> built = new ArrayList<>();
+		LabDefinition recordingLab = scope -> {
+			NetworkTopology part = new ChainLab().build(scope);
+			part.devices().forEach(device -> built.add(device.getDeviceName()));
+			return part;
+		};
+		try (ShardWorker worker0 = new ShardWorker(recordingLab, scopes.get(0), anyPort)) {
+			// Only shard 0's half of the chain and one border stub were ever built
+			assertEquals(worker0.deviceCount(), built.size());
+			assertEquals(1, worker0.stubCount());
+			assertEquals(1, built.stream().filter(name -> shardOf.get(name) != 0).count());
+			assertTrue(built.size() < topology.devices().size());
+		}
+		built.clear();
+		try (ShardWorker worker1 = new ShardWorker(recordingLab, scopes.get(1), anyPort)) {
+			assertEquals(worker1.deviceCount(), built.size());
+			assertEquals(1, worker1.stubCount());
+			assertEquals(1, built.stream().filter(name -> shardOf.get(name) != 1).count());
+		}
+		assertEquals(CHAIN_LENGTH + 2 + 2, scopes.get(0).size() + scopes.get(1).size());
+
+		// A lab that ignores its scope would hand the worker devices of the other shard
+		LabDefinition wholeLab = scope -> new ChainLab().build();
+		assertThrows(IllegalArgumentException.class, () -> new ShardWorker(wholeLab, scopes.get(0), anyPort));
+	}
+
+	@Test
+	void testLaunchedShardProcessesMatchSequentialForwarding() throws Exception {
+		List<ForwardingRequest> requests = mixedRequests(30);
+		ForwardingEngine engine = new ForwardingEngine();
+		List<ForwardingOutcome> expected = mixedRequests(30).stream()
+				.map(r -> engine.forward(r.packet(), (Host) r.source(), topology))
+				.toList();
+
+		try (ShardLauncher launcher = new ShardLauncher(ChainLab.class, topology, 2)) {
+			assertEquals(expected, launcher.forwardAll(requests));
+		}
+	}
+
+	@Test
+	void testBatchForwardingMatchesSequentialForwarding() {
+		List<ForwardingRequest> requests = mixedRequests(300);
+		requests.add(ForwardingRequest.fromHost(hostA, IPAddress.fromString("192.168.2.2"), 3));
+		requests.add(ForwardingRequest.fromRouter(routers.getLast(), IPAddress.fromString("192.168.1.2"), 0));
+		ForwardingEngine engine = new ForwardingEngine();
+		List<ForwardingOutcome> expected = new ArrayList<>();
+		for (ForwardingRequest r : requests) {
+			Packet copy = new Packet(r.packet().getSource(), r.packet().getDestination(), r.packet().getType(), r.packet().getTtl());
+			expected.add(r.source() instanceof Host host ? engine.forward(copy, host, topology) : engine.forward(copy, (Router) r.source(), topology));
+		}
+
+		BatchForwarder forwarder = new BatchForwarder(topology);
+		List<ForwardingOutcome> outcomes = forwarder.forwardAll(requests);
+
+		assertEquals(expected, outcomes);
+		assertEquals(new ForwardingOutcome(false, 3, expected.get(300).reason()), outcomes.get(300));
+		// Every flow is decided once per router, however many packets it carries
+		int decisions = forwarder.cachedDecisions();
+		assertTrue(decisions < 4 * CHAIN_LENGTH);
+		assertEquals(expected, forwarder.forwardAll(requests));
+		assertEquals(decisions, forwarder.cachedDecisions());
+	}
+
+	@Test
+	void testBatchForwarderKeysStartsByTypeAndDropsStaleDecisions() {
+		IPAddress source = IPAddress.fromString("192.168.1.2");
+		IPAddress destination = IPAddress.fromString("192.168.2.2");
+		ForwardingRequest request = new ForwardingRequest(hostA, new Packet(source, destination, Packet.PacketType.ICMP_ECHO_REQUEST, 64));
+		BatchForwarder forwarder = new BatchForwarder(topology);
+		assertTrue(forwarder.forwardAll(List.of(request)).getFirst().reached());
+		int decisions = forwarder.cachedDecisions();
+
+		forwarder.forwardAll(List.of(new ForwardingRequest(hostA, new Packet(source, destination, Packet.PacketType.ICMP_ECHO_REPLY, 64))));
+		assertEquals(decisions + 1, forwarder.cachedDecisions());
+
+		Router middle = routers.get(CHAIN_LENGTH / 2);
+		RouterModeController.setMode(middle, RouterMode.CONFIGURATION);
+		service.removeRoute(middle, new StaticRoutingEntry(Subnet.fromString("192.168.2.0/24"),
+				IPAddress.fromString("10.0.%d.2".formatted(CHAIN_LENGTH / 2))));
+		topology.publishConfiguration(() -> middle.getConfigSession().commit());
+		RouterModeController.setMode(middle, RouterMode.OPERATIONAL);
+
+		assertFalse(forwarder.forwardAll(List.of(request)).getFirst().reached());
+		assertTrue(forwarder.cachedDecisions() <= decisions);
+	}
+
+	@Test
+	void testPacketBatchDecrementsTtlAndIsReusedFromPool() {
+		PacketBatchPool pool = new PacketBatchPool(1);
+		PacketBatch first;
+		try (PacketBatch batch = pool.acquire(4)) {
+			first = batch;
+			int src = IPAddress.fromString("10.0.0.1").toInt();
+			int dst = IPAddress.fromString("10.0.0.2").toInt();
+			batch.add(src, dst, 1, Packet.PacketType.ICMP_ECHO_REQUEST, 0);
+			batch.add(src, dst, 2, Packet.PacketType.ICMP_ECHO_REPLY, 0);
+			batch.add(src, dst, 255, Packet.PacketType.ICMP_ECHO_REQUEST, 0);
+
+			assertEquals(1, batch.decrementTtl());
+			assertEquals(PacketBatch.Status.TTL_EXPIRED, batch.status(0));
+			assertEquals(1, batch.decrementTtl());
+			assertEquals(253, batch.ttl(2));
+			assertEquals(1, batch.count(PacketBatch.Status.IN_FLIGHT));
+			assertEquals(new Packet(IPAddress.fromString("10.0.0.1"), IPAddress.fromString("10.0.0.2"),
+					Packet.PacketType.ICMP_ECHO_REPLY, 0), batch.view(1));
+		}
+		assertEquals(1, pool.available());
+		try (PacketBatch batch = pool.acquire(1000)) {
+			assertSame(first, batch);
+			assertEquals(0, batch.size());
+			assertTrue(batch.capacity() >= 1000);
+		}
+	}
+
+	private ResultTable reachability() {
+		List<ForwardingRequest> requests = List.of(
+				ForwardingRequest.fromHost(hostA, IPAddress.fromString("192.168.2.2"), 64),
+				ForwardingRequest.fromHost(hostB, IPAddress.fromString("192.168.1.2"), 64),
+				ForwardingRequest.fromHost(hostA, IPAddress.fromString("172.16.0.1"), 64));
+		List<ForwardingOutcome> outcomes = new BatchForwarder(topology).forwardAll(requests);
+		ResultTable table = new ResultTable();
+		for (int i = 0; i < requests.size(); i++) {
+			table.add(requests.get(i).packet().getSource(), requests.get(i).packet().getDestination(), outcomes.get(i));
+		}
+		return table;
+	}
+
+	@Test
+	void testResultStoreRoundTripsAndDiffsRuns(@TempDir Path dir) throws IOException {
+		ResultTable before = reachability();
+		Path file = dir.resolve("before.res");
+		ResultStore.write(before, file);
+		ResultColumns mapped = ResultStore.map(file);
+
+		assertEquals(3, mapped.size());
+		assertTrue(ResultDiff.compare(before, mapped).isEmpty());
+		assertTrue(ResultDiff.compare(mapped, ResultStore.read(file)).isEmpty());
+		StringWriter csv = new StringWriter();
+		ResultStore.writeCsv(mapped, csv);
+		String[] lines = csv.toString().split("\n");
+		assertEquals("source,destination,reached,hops,reason", lines[0]);
+		assertEquals("192.168.1.2,192.168.2.2,true,%d,%s".formatted(CHAIN_LENGTH + 1, before.reason(0)), lines[1]);
+
+		Router middle = routers.get(CHAIN_LENGTH / 2);
+		RouterModeController.setMode(middle, RouterMode.CONFIGURATION);
+		service.removeRoute(middle, new StaticRoutingEntry(Subnet.fromString("192.168.2.0/24"),
+				IPAddress.fromString("10.0.%d.2".formatted(CHAIN_LENGTH / 2))));
+		middle.getConfigSession().commit();
+		RouterModeController.setMode(middle, RouterMode.OPERATIONAL);
+
+		ResultDiff diff = ResultDiff.compare(mapped, reachability());
+		ResultDiff.Change first = diff.changes().getFirst();
+		assertEquals(ResultDiff.Kind.BROKEN, first.kind());
+		assertEquals(IPAddress.fromString("192.168.2.2"), first.destination());
+		assertEquals(2, diff.count(ResultDiff.Kind.BROKEN));
+		assertEquals(0, diff.count(ResultDiff.Kind.ADDED) + diff.count(ResultDiff.Kind.REMOVED));
+	}
+
+	@Test
+	void testResultStoreRejectsUnknownReasonCodes(@TempDir Path dir) throws IOException {
+		ResultTable table = reachability();
+		Path file = dir.resolve("corrupt.res");
+		ResultStore.write(table, file);
+		byte[] bytes = Files.readAllBytes(file);
+		// The reason column sits right before the one-byte reached flags
+		int reasonOffset = bytes.length - table.size() * (Short.BYTES + 1);
+		ByteBuffer.wrap(bytes).putShort(reasonOffset, (short) 99);
+		Files.write(file, bytes);
+
+		IOException error = assertThrows(IOException.class, () -> ResultStore.read(file));
+		assertTrue(error.getMessage().contains("reason code 99"));
+	}
+
+	@Test
+	void testTrafficMatrixLoadsLinksAlongForwardingPaths() {
+		long mbps = 1_000_000L;
+		List<TrafficFlow> flows = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			flows.add(new TrafficFlow(hostA, IPAddress.fromString("192.168.2.2"), mbps));
+			flows.add(new TrafficFlow(hostB, IPAddress.fromString("192.168.1.2"), mbps));
+			flows.add(new TrafficFlow(hostA, IPAddress.fromString("172.16.0.1"), mbps));
+		}
+
+		TrafficReport report = new TrafficEngine().route(topology, flows);
+		assertEquals(300, report.flowCount());
+		assertEquals(3, report.pathCount());
+		assertEquals(200 * mbps, report.deliveredBps());
+		assertEquals(100 * mbps, report.droppedBps());
+
+		Connection chainLink = topology.connections().stream()
+				.filter(c -> c.interfaceA() == routers.get(3).findFromName("eth1"))
+				.findFirst().orElseThrow();
+		LinkLoad middle = report.linkLoad(chainLink);
+		assertEquals(100 * mbps, middle.aToBBps());
+		assertEquals(100 * mbps, middle.bToABps());
+
+		// Dropped flows still load the access link up to R0
+		Connection access = topology.connections().stream()
+				.filter(c -> c.interfaceA() == hostA.getHostInterface())
+				.findFirst().orElseThrow();
+		LinkLoad accessLoad = report.linkLoad(access);
+		assertEquals(200 * mbps, accessLoad.aToBBps());
+		assertEquals(100 * mbps, accessLoad.bToABps());
+		assertEquals(accessLoad, report.hotLinks(TrafficSortKey.LOAD, 1).getFirst());
+		assertEquals(200 * mbps, report.interfaceLoad(routers.getFirst().findFromName("eth2")).rxBps());
+		assertEquals(100 * mbps, report.interfaceLoad(routers.getFirst().findFromName("eth1")).txBps());
+	}
+
+	@Test
+	void testEventSchedulerFiresInTimeThenSchedulingOrder() {
+		EventScheduler scheduler = new EventScheduler();
+		List<String> fired = new ArrayList<>();
+		scheduler.schedule(30, s -> fired.add("c@" + s.now()));
+		scheduler.schedule(10, s -> fired.add("a@" + s.now()));
+		scheduler.schedule(10, s -> {
+			fired.add("b@" + s.now());
+			s.scheduleAfter(5, t -> fired.add("d@" + t.now()));
+		});
+		for (int i = 0; i < 5000; i++) {
+			scheduler.schedule(1000 + (i * 7919L) % 5000, s -> {
+			});
+		}
+
+		assertEquals(5004, scheduler.run());
+		assertEquals(List.of("a@10", "b@10", "d@15", "c@30"), fired);
+		assertThrows(IllegalArgumentException.class, () -> scheduler.schedule(0, s -> {
+		}));
+	}
+
+	@Test
+	void testSimulatedPingTimesProbesOverLinkProfiles() {
+		// hostA - R0 ... R7 - hostB crosses 9 links each way at 1 ms per link
+		PingStatistics stats = new SimulatedPingService(1).ping(hostA, IPAddress.fromString("192.168.2.2"), 4, topology);
+		assertEquals(4, stats.getReceived());
+		for (PingResult result : stats.results()) {
+			assertEquals(18, result.rttMs());
+		}
+
+		for (Connection connection : topology.connections()) {
+			topology.setLinkProfile(connection, new LinkProfile(1_000_000L, 2_000_000L, 1_000_000_000L, 64));
+		}
+		List<Long> rtts = new SimulatedPingService(7).ping(hostA, IPAddress.fromString("192.168.2.2"), 20, topology)
+				.results().stream().map(PingResult::rttMs).toList();
+		assertTrue(rtts.stream().allMatch(rtt -> rtt >= 18 && rtt <= 54));
+		assertTrue(rtts.stream().distinct().count() > 1);
+		assertEquals(rtts, new SimulatedPingService(7).ping(hostA, IPAddress.fromString("192.168.2.2"), 20, topology)
+				.results().stream().map(PingResult::rttMs).toList());
+
+		PingStatistics unreachable = new SimulatedPingService(1).ping(hostA, IPAddress.fromString("172.16.0.1"), 2, topology);
+		assertEquals(0, unreachable.getReceived());
+		assertEquals("NO_ROUTE", unreachable.results().getFirst().errorMessage());
+	}
+
+	@Test
+	void testSimulatedSweepRunsEveryProbeThroughTheScheduler() {
+		for (Connection connection : topology.connections()) {
+			topology.setLinkProfile(connection, new LinkProfile(1_000_000L, 2_000_000L, 1_000_000_000L, 64));
+		}
+		IPAddress destination = IPAddress.fromString("192.168.2.2");
+		long sentBefore = hostA.getHostInterface().getCounters().txPackets();
+		List<PingSweepResult> results = new CopyOnWriteArrayList<>();
+		new PingSweepService(new SimulatedPingService(7), 4)
+				.sweep(hostA, Subnet.fromString("192.168.2.2/32"), 20, topology, results::add).completion().join();
+
+		// Jitter gives every simulated probe its own RTT, which a single batched request would not
+		assertEquals(1, results.size());
+		List<PingResult> probes = results.getFirst().statistics().results();
+		assertEquals(20, probes.size());
+		assertTrue(probes.stream().map(PingResult::rttMs).distinct().count() > 1);
+		assertEquals(20, hostA.getHostInterface().getCounters().txPackets() - sentBefore);
+		assertEquals(new SimulatedPingService(7).ping(hostA, destination, 20, topology).results(), probes);
+	}
+
+	@Test
+	void testSimulatedBottleneckDropsOnFullQueue() {
+		Connection bottleneck = topology.connections().stream()
+				.filter(c -> c.interfaceA() == routers.get(3).findFromName("eth1"))
+				.findFirst().orElseThrow();
+		// 1500-byte packets take 12 ms to send at 1 Mbps, so a burst fills the 4-packet queue
+		topology.setLinkProfile(bottleneck, new LinkProfile(1_000_000L, 0, 1_000_000L, 4));
+
+		InterfaceCounters counters = InterfaceCounters.global();
+		counters.clear(hostA.getHostInterface());
+		counters.clear(bottleneck.interfaceA());
+		PacketSimulator simulator = new PacketSimulator(topology, 1);
+		for (int i = 0; i < 50; i++) {
+			simulator.send(0, hostA, IPAddress.fromString("192.168.2.2"), 1500);
+		}
+		List<PacketSimulator.EchoResult> echoes = new ArrayList<>();
+		simulator.echo(0, hostA, IPAddress.fromString("192.168.2.2"), 64, echoes::add);
+		simulator.echo(1_000_000_000L, hostA, IPAddress.fromString("192.168.2.2"), 64, echoes::add);
+		simulator.run();
+
+		// 4 background packets, then the second request and its reply
+		assertEquals(6, simulator.delivered());
+		assertEquals(47, simulator.queueDrops());
+		assertEquals("QUEUE_OVERFLOW", echoes.getFirst().reason());
+		assertTrue(echoes.get(1).replied());
+		// Every packet left the host, including those lost later on the bottleneck; echoes are 84 bytes on the wire
+		assertEquals(new InterfaceCounters.Snapshot(1, 84, 0, 52, 50 * 1500 + 2 * 84, 0),
+				counters.get(hostA.getHostInterface()));
+		assertEquals(4 + 1, counters.get(bottleneck.interfaceA()).txPackets());
+		assertEquals(47, counters.get(bottleneck.interfaceA()).txDrops());
+	}
+}